@@ -2,6 +2,7 @@ package com.fate.nat_traversal;
 
 
 import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.PunchService;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,11 +22,16 @@ public class Client {
     @Autowired
     private ProxyServerCommunicationService proxyServerCommunicationService;
 
+    @Autowired
+    private PunchService punchService;
+
     @PostConstruct
     public void start() {
         if (!proxyServerCommunicationService.start()) {
             log.error("Client Start Failed!");
         }
+        // 访问端入口不依赖本端服务注册
+        punchService.start();
     }
 
 }
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.relay.BufferTuningStats;
+import com.fate.nat_traversal.service.BufferTuningService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/28 21:30
+ * @description: 透传链路的缓冲调整与调整前后吞吐
+ */
+
+@Controller
+@RequestMapping("/api")
+public class BufferTuningApi {
+
+    @Autowired
+    private BufferTuningService bufferTuningService;
+
+    @GetMapping(value = "/tuning", produces = "application/json")
+    @ResponseBody
+    public BufferTuningStats getTuning() {
+        return bufferTuningService.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.limit.MemoryStats;
+import com.fate.nat_traversal.service.MemoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/25 21:30
+ * @description: 透传缓冲内存使用
+ */
+
+@Controller
+@RequestMapping("/api")
+public class MemoryApi {
+
+    @Autowired
+    private MemoryService memoryService;
+
+    @GetMapping(value = "/memory", produces = "application/json")
+    @ResponseBody
+    public MemoryStats getMemory() {
+        return memoryService.getStats();
+    }
+}
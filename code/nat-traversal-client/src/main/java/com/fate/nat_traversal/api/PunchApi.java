@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.punch.PunchStats;
+import com.fate.nat_traversal.service.PunchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/03 21:30
+ * @description: NAT类型、直连与回落中继次数、打洞耗时与直连流量
+ */
+
+@Controller
+@RequestMapping("/api")
+public class PunchApi {
+
+    @Autowired
+    private PunchService punchService;
+
+    @GetMapping(value = "/punch", produces = "application/json")
+    @ResponseBody
+    public PunchStats getPunch() {
+        return punchService.getStats();
+    }
+}
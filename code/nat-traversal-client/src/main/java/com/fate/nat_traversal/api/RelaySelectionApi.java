@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.standby.RelaySelectionStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/04 21:30
+ * @description: 各中继RTT、负载与备用连接，当前中继与故障切换次数、耗时
+ */
+
+@Controller
+@RequestMapping("/api")
+public class RelaySelectionApi {
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
+    @GetMapping(value = "/relays", produces = "application/json")
+    @ResponseBody
+    public RelaySelectionStats getRelays() {
+        return relaySelectionService.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.service.StreamService;
+import com.fate.nat_traversal.stream.StreamStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/06 21:30
+ * @description: 可恢复透传流的断开、重连与重放统计
+ */
+
+@Controller
+@RequestMapping("/api")
+public class StreamApi {
+
+    @Autowired
+    private StreamService streamService;
+
+    @GetMapping(value = "/streams", produces = "application/json")
+    @ResponseBody
+    public StreamStats getStreams() {
+        return streamService.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.service.StripeService;
+import com.fate.nat_traversal.stream.StripeStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/07 21:30
+ * @description: 多路径条带流的路径数、收发量与重组缓冲峰值
+ */
+
+@Controller
+@RequestMapping("/api")
+public class StripeApi {
+
+    @Autowired
+    private StripeService stripeService;
+
+    @GetMapping(value = "/stripes", produces = "application/json")
+    @ResponseBody
+    public StripeStats getStripes() {
+        return stripeService.getStats();
+    }
+}
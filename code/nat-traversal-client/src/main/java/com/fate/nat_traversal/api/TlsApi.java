@@ -0,0 +1,33 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.service.ServerSideTransmitService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.tls.TlsStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/31 21:30
+ * @description: TLS握手（完整/会话恢复）、透传Socket新建耗时与空闲透传Socket数
+ */
+
+@Controller
+@RequestMapping("/api")
+public class TlsApi {
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private ServerSideTransmitService serverSideTransmitService;
+
+    @GetMapping(value = "/tls", produces = "application/json")
+    @ResponseBody
+    public TlsStats getTls() {
+        return tlsService.getStats(serverSideTransmitService.spareCount());
+    }
+}
@@ -0,0 +1,19 @@
+package com.fate.nat_traversal.compress;
+
+import java.io.IOException;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 单个透传方向的流式解压，与对端的压缩上下文一一对应
+ */
+public interface Decompressor {
+
+    /**
+     * @param length 原始长度，由帧头给出
+     */
+    byte[] decompress(byte[] data, int length) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,53 @@
+package com.fate.nat_traversal.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * Deflate流式解压，每帧恰好解出帧头给出的原始长度
+ * 输出按实际解出逐步扩容，损坏的帧在解出声明长度前即失败，不按声明长度分配
+ */
+public class DeflateDecompressor implements Decompressor {
+
+    private final Inflater inflater = new Inflater(true);
+
+    private final byte[] scratch = new byte[1];
+
+    private static final int INITIAL_OUTPUT_BYTES = 64 * 1024;
+
+    @Override
+    public byte[] decompress(byte[] data, int length) throws IOException {
+        inflater.setInput(data);
+        byte[] out = new byte[Math.min(length, INITIAL_OUTPUT_BYTES)];
+        try {
+            int offset = 0;
+            while (offset < length) {
+                if (offset == out.length) out = Arrays.copyOf(out, (int) Math.min(length, out.length * 2L));
+                int n = inflater.inflate(out, offset, out.length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.finished() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated deflate frame");
+                }
+                offset += n;
+            }
+            // 消费帧尾的同步刷新空块，下一帧重新设置输入前不能有剩余
+            while (inflater.getRemaining() > 0) {
+                int remaining = inflater.getRemaining();
+                if (inflater.inflate(scratch) > 0) throw new IOException("Deflate frame longer than declared");
+                if (inflater.getRemaining() == remaining) break;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflate frame: " + e.getMessage());
+        }
+        return out;
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+}
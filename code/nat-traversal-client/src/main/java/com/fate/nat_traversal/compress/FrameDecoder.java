@@ -0,0 +1,124 @@
+package com.fate.nat_traversal.compress;
+
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 单次透传单个方向从透传Socket读出数据的解帧解压，帧结构见FrameEncoder
+ * 帧边界处出现结束标识时原样输出，透传读取处仍按末尾的结束标识判断结束
+ * 仅由所在透传线程访问
+ */
+public class FrameDecoder {
+
+    // 单帧原始长度上限，防止异常帧头导致超大分配
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    // 帧数据按实际到达逐步扩容，帧头声明的长度不直接分配
+    private static final int INITIAL_PAYLOAD_BYTES = 64 * 1024;
+
+    private final byte[] endMarker;
+
+    private final CompressionMeter meter;
+
+    private final byte[] header = new byte[FrameEncoder.HEADER_BYTES];
+
+    private int headerLength = 0;
+
+    // 当前帧的数据，读完帧头后分配
+    private byte[] payload;
+
+    private int payloadLength = 0;
+
+    // 当前帧帧头声明的数据长度
+    private int frameLength = 0;
+
+    // 已匹配的结束标识字节数
+    private int markerLength = 0;
+
+    private CompressionCodecEnum codec;
+
+    private Decompressor decompressor;
+
+    public FrameDecoder(byte[] endMarker, CompressionMeter meter) {
+        this.endMarker = endMarker;
+        this.meter = meter;
+    }
+
+    public byte[] decode(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        int offset = 0;
+        while (offset < data.length) {
+            if (markerLength > 0 || (headerLength == 0 && payload == null && data[offset] == endMarker[0])) {
+                if (data[offset] != endMarker[markerLength]) throw new IOException("Invalid end marker in compressed stream");
+                out.write(data[offset++]);
+                if (++markerLength == endMarker.length) markerLength = 0;
+            } else if (payload == null) {
+                int length = Math.min(header.length - headerLength, data.length - offset);
+                System.arraycopy(data, offset, header, headerLength, length);
+                headerLength += length;
+                offset += length;
+                if (headerLength == header.length) startFrame();
+            } else {
+                int length = Math.min(frameLength - payloadLength, data.length - offset);
+                if (payloadLength + length > payload.length) {
+                    payload = Arrays.copyOf(payload, Math.min(frameLength, Math.max(payload.length * 2, payloadLength + length)));
+                }
+                System.arraycopy(data, offset, payload, payloadLength, length);
+                payloadLength += length;
+                offset += length;
+            }
+
+            if (payload != null && payloadLength == frameLength) {
+                out.writeBytes(finishFrame());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public void close() {
+        if (decompressor != null) decompressor.close();
+    }
+
+    private void startFrame() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        byte id = buffer.get();
+        int length = buffer.getInt();
+        int original = buffer.getInt();
+        if (length < 0 || original < 0 || length > MAX_FRAME_BYTES || original > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid compressed frame length: " + length + "/" + original);
+        }
+        if (id == FrameEncoder.STORED) {
+            if (length != original) throw new IOException("Invalid stored frame length: " + length + "/" + original);
+        } else if (codec == null) {
+            codec = CompressionCodecEnum.fromId(id);
+            if (codec == null) throw new IOException("Unknown compression codec: " + id);
+            decompressor = codec.newDecompressor();
+        } else if (codec.getId() != id) {
+            throw new IOException("Compression codec changed in stream: " + id);
+        }
+        payload = new byte[Math.min(length, INITIAL_PAYLOAD_BYTES)];
+        payloadLength = 0;
+        frameLength = length;
+    }
+
+    private byte[] finishFrame() throws IOException {
+        byte id = header[0];
+        int original = ByteBuffer.wrap(header).getInt(5);
+        byte[] data = payload;
+        payload = null;
+        headerLength = 0;
+        if (id == FrameEncoder.STORED) return data;
+
+        long start = CompressionMeter.now();
+        byte[] result = decompressor.decompress(data, original);
+        meter.onDecompressed(data.length, original, CompressionMeter.now() - start);
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fate.nat_traversal.compress;
+
+import com.fate.nat_traversal.config.CompressionProperties;
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 单次透传单个方向写入透传Socket的分帧压缩：
+ *  1. 帧结构：算法id(1) + 帧长(4) + 原始长度(4) + 数据，算法id为0表示原样数据
+ *  2. 过小的数据块原样发送；压缩比差于bypassRatio时后续bypassBytes原样发送，之后重新试压缩
+ *  3. 结束标识不经过编码，直接写出
+ * 仅由所在透传线程访问
+ */
+public class FrameEncoder {
+
+    public static final int HEADER_BYTES = 9;
+
+    public static final byte STORED = 0;
+
+    private final CompressionCodecEnum codec;
+
+    private final Compressor compressor;
+
+    private final CompressionMeter meter;
+
+    private final int minBytes;
+
+    private final double bypassRatio;
+
+    private final long bypassBytes;
+
+    // 剩余原样发送的字节
+    private long bypassRemaining = 0;
+
+    public FrameEncoder(CompressionCodecEnum codec, CompressionProperties properties, CompressionMeter meter) {
+        this.codec = codec;
+        this.compressor = codec.newCompressor(properties.getLevel());
+        this.meter = meter;
+        this.minBytes = properties.getMinBytes();
+        this.bypassRatio = properties.getBypassRatio();
+        this.bypassBytes = properties.getBypassBytes();
+    }
+
+    public byte[] encode(byte[] data) {
+        if (data.length == 0) return data;
+
+        if (bypassRemaining > 0 || data.length < minBytes) {
+            bypassRemaining = Math.max(bypassRemaining - data.length, 0);
+            meter.onStored(data.length);
+            return frame(STORED, data, data.length);
+        }
+
+        long start = CompressionMeter.now();
+        byte[] compressed = compressor.compress(data);
+        meter.onCompressed(data.length, compressed.length, CompressionMeter.now() - start);
+
+        // 已进入压缩上下文，即使没有变小也须发出，保证两端上下文一致
+        if (compressed.length >= data.length * bypassRatio) {
+            bypassRemaining = bypassBytes;
+            meter.onBypass();
+        }
+        return frame(codec.getId(), compressed, data.length);
+    }
+
+    public void close() {
+        compressor.close();
+    }
+
+    private byte[] frame(byte id, byte[] payload, int length) {
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .put(id)
+                .putInt(payload.length)
+                .putInt(length)
+                .put(payload)
+                .array();
+    }
+}
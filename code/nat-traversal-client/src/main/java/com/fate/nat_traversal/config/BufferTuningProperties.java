@@ -0,0 +1,46 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 透传Socket缓冲自动调整配置：按心跳RTT与实测吞吐估算带宽时延积（BDP）设置缓冲
+ * 显式设置SO_RCVBUF会关闭Linux内核的接收缓冲自动调整，默认不开启
+ */
+@Data
+public class BufferTuningProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * Socket缓冲下限（字节）
+     */
+    private Integer minBufferSize = 64 * 1024;
+
+    /**
+     * Socket缓冲上限（字节）
+     */
+    private Integer maxBufferSize = 4 * 1024 * 1024;
+
+    /**
+     * 缓冲取BDP的倍数，大于1时缓冲不再限制吞吐，下一轮测得更高吞吐后继续增大，直至上限
+     */
+    private Double gain = 2.0;
+
+    /**
+     * 单次读取缓冲上限（字节），取调整后的Socket缓冲与此值中较小者
+     */
+    private Integer maxReadBytes = 64 * 1024;
+
+    /**
+     * 计入吞吐采样的最小传输量（字节），过小的传输主要受RTT影响，不反映带宽
+     */
+    private Long sampleBytes = 256 * 1024L;
+
+    /**
+     * 最大吞吐的保留时间（毫秒），超时后以新采样替换，适应链路变化
+     */
+    private Long rateWindow = 10000L;
+}
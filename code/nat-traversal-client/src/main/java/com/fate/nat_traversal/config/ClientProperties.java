@@ -3,10 +3,85 @@ package com.fate.nat_traversal.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class ClientProperties {
 
+    public static final String DEFAULT_SERVICE = "default";
+
     private Integer serverPort;
 
     private Integer maxConnection = 10;
+
+    /**
+     * 关闭时服务组副本排空等待时间（毫秒）
+     */
+    private Long drainTimeout = 10000L;
+
+    /**
+     * 透传缓冲内存预算与水位
+     */
+    private MemoryProperties memory = new MemoryProperties();
+
+    /**
+     * 透传读写方式
+     */
+    private RelayProperties relay = new RelayProperties();
+
+    /**
+     * 传输配置档：Socket参数与写出合并
+     */
+    private TransportProperties transport = new TransportProperties();
+
+    /**
+     * 透传Socket缓冲自动调整
+     */
+    private BufferTuningProperties tuning = new BufferTuningProperties();
+
+    /**
+     * 透传流压缩
+     */
+    private CompressionProperties compression = new CompressionProperties();
+
+    /**
+     * UDP转发
+     */
+    private UdpProperties udp = new UdpProperties();
+
+    /**
+     * 直连打洞
+     */
+    private PunchProperties punch = new PunchProperties();
+
+    /**
+     * 可恢复透传流
+     */
+    private StreamProperties stream = new StreamProperties();
+
+    /**
+     * 多路径条带的块大小与缓冲，路径数按服务配置
+     */
+    private StripeProperties stripe = new StripeProperties();
+
+    /**
+     * 访问其他被代理端点服务的本地入口，优先直连
+     */
+    private List<VisitorProperties> visitors = new ArrayList<>();
+
+    /**
+     * 多服务代理，共用同一通信连接、心跳与透传Socket池
+     * 未配置时按serverPort代理单个服务
+     */
+    private List<ServiceProperties> services = new ArrayList<>();
+
+    public List<ServiceProperties> getServiceList() {
+        if (services != null && !services.isEmpty()) return services;
+
+        ServiceProperties service = new ServiceProperties();
+        service.setName(DEFAULT_SERVICE);
+        service.setServerPort(serverPort);
+        return List.of(service);
+    }
 }
@@ -0,0 +1,48 @@
+package com.fate.nat_traversal.config;
+
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 透传流压缩配置：注册时携带codecs，由服务器选取双方都支持的算法；服务器未开启压缩时不压缩
+ * 仅压缩与服务器间的透传Socket，默认不开启
+ */
+@Data
+public class CompressionProperties {
+
+    /**
+     * 是否向服务器请求压缩
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 支持的算法
+     */
+    private List<CompressionCodecEnum> codecs = new ArrayList<>(List.of(CompressionCodecEnum.DEFLATE));
+
+    /**
+     * 压缩级别，透传以速度优先
+     */
+    private Integer level = 1;
+
+    /**
+     * 小于此值的数据块原样发送（字节）
+     */
+    private Integer minBytes = 256;
+
+    /**
+     * 压缩后/压缩前大于此值视为压缩效果差，如已压缩的图片、视频、TLS流量
+     */
+    private Double bypassRatio = 0.9;
+
+    /**
+     * 压缩效果差时原样发送的字节数，之后重新试压缩
+     */
+    private Long bypassBytes = 1024 * 1024L;
+}
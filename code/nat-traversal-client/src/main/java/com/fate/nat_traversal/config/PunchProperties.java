@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞配置
+ */
+@Data
+public class PunchProperties {
+
+    /**
+     * 接受访问端的直连请求；关闭时应答拒绝，访问端回落到中继
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 启动时探测NAT类型，双方都是SYMMETRIC时服务器直接拒绝打洞
+     */
+    private Boolean probe = true;
+
+    /**
+     * 收到对端地址后打洞的总时长（毫秒），超时回落到中继
+     */
+    private Integer timeout = 3000;
+
+    /**
+     * 单次连接尝试超时（毫秒）
+     */
+    private Integer attemptTimeout = 500;
+
+    /**
+     * 等待服务器回复对端地址的超时（毫秒），应大于服务器等待被代理端点应答的超时
+     */
+    private Integer exchangeTimeout = 8000;
+}
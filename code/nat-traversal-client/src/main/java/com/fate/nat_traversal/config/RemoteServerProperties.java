@@ -3,6 +3,9 @@ package com.fate.nat_traversal.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class RemoteServerProperties {
 
@@ -11,4 +14,34 @@ public class RemoteServerProperties {
     private String host;
 
     private Integer port;
+
+    /**
+     * 中继列表 host:port，按RTT与负载选择，故障时切换；为空则只使用host与port
+     */
+    private List<String> relays = new ArrayList<>();
+
+    /**
+     * 中继探测间隔（毫秒），同时维持次优中继的备用通信连接
+     */
+    private Long probeInterval = 2000L;
+
+    /**
+     * 满负载中继的RTT惩罚（毫秒），按负载比例叠加到RTT上比较
+     */
+    private Long loadPenalty = 100L;
+
+    /**
+     * 重连初始退避（毫秒），每次失败翻倍并随机抖动
+     */
+    private Long reconnectBackoff = 500L;
+
+    /**
+     * 重连最大退避（毫秒），服务端提示的重试间隔不受此限制
+     */
+    private Long maxReconnectBackoff = 30000L;
+
+    /**
+     * 通信连接与透传Socket的TLS加密
+     */
+    private TlsProperties tls = new TlsProperties();
 }
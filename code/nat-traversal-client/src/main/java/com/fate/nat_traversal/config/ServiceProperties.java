@@ -0,0 +1,70 @@
+package com.fate.nat_traversal.config;
+
+import com.fate.nat_traversal.enums.TransportProfileEnum;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/18 20:30
+ *
+ * 被代理的本地服务配置
+ */
+@Data
+public class ServiceProperties {
+
+    /**
+     * 服务名，同一客户端内唯一
+     */
+    private String name;
+
+    /**
+     * 本地服务host，为空则连接本机
+     */
+    private String serverHost;
+
+    private Integer serverPort;
+
+    /**
+     * 服务组名，多个客户端注册同一服务组时共享代理端口并负载均衡，为空则独占代理端口
+     */
+    private String group;
+
+    /**
+     * 服务组内权重
+     */
+    private Integer weight = 1;
+
+    /**
+     * 虚拟主机名，服务器开启共享端口时按 HTTP Host / TLS SNI / Minecraft握手地址 路由到本服务
+     * 支持 "*.example.com" 形式的一级通配
+     */
+    private List<String> hosts = new ArrayList<>();
+
+    /**
+     * HTTP服务，在服务器端缓存可缓存的响应
+     */
+    private Boolean httpCache = false;
+
+    /**
+     * 传输配置档，为空则使用客户端默认配置档；同时告知服务器按此配置档处理该服务的客户端连接
+     */
+    private TransportProfileEnum transport;
+
+    /**
+     * 应用层协议，"minecraft" 时服务器按Minecraft包边界透传并统计各包类型时延
+     */
+    private String protocol;
+
+    /**
+     * 同时转发UDP，服务器在同号代理端口上接收UDP并经独立隧道送达本地服务同号端口；仅独占代理端口支持
+     */
+    private Boolean udp = false;
+
+    /**
+     * 多路径条带的路径数，大于1时服务器将该服务的每个连接拆分到多条透传Socket并行传输，适合大文件传输
+     */
+    private Integer stripePaths = 1;
+}
@@ -0,0 +1,25 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复透传流配置，注册时向服务端请求，服务端开启时生效
+ */
+@Data
+public class StreamProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * 每个流每个方向保留的未确认字节数，也是透传Socket断开时最多重放的数据量
+     */
+    private Integer replayBuffer = 262144;
+
+    /**
+     * 透传Socket断开后重新附着的时限（毫秒），超时后流关闭
+     */
+    private Long resumeTimeout = 10000L;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带配置，路径数按服务配置（stripePaths），服务器开启条带时生效
+ */
+@Data
+public class StripeProperties {
+
+    /**
+     * 分配到路径的块大小
+     */
+    private Integer chunkBytes = 65536;
+
+    /**
+     * 接收端重组窗口，超出窗口的帧阻塞其路径
+     */
+    private Integer windowBytes = 8388608;
+
+    /**
+     * 单条路径排队待发送的字节上限，路径均已满时写入阻塞
+     */
+    private Integer pathQueueBytes = 262144;
+}
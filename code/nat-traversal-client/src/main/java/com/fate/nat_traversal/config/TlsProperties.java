@@ -0,0 +1,55 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * 与服务器间的TLS加密配置，需与服务器一致开启
+ * 未配置trustStore时使用JVM默认信任库
+ */
+@Data
+public class TlsProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * 信任的证书，PKCS12或JKS文件路径
+     */
+    private String trustStore;
+
+    private String trustStorePassword;
+
+    private String trustStoreType = "PKCS12";
+
+    private List<String> protocols = new ArrayList<>(List.of("TLSv1.3"));
+
+    /**
+     * 校验服务器证书中的主机名
+     */
+    private Boolean verifyHostname = true;
+
+    /**
+     * 会话缓存数量，0不限
+     */
+    private Integer sessionCacheSize = 100;
+
+    /**
+     * 会话可恢复时长（秒）
+     */
+    private Integer sessionTimeout = 86400;
+
+    /**
+     * 握手超时（毫秒）
+     */
+    private Integer handshakeTimeout = 10000;
+
+    /**
+     * 预先握手并注册的空闲透传Socket数量，使握手不在建立透传的路径上
+     */
+    private Integer warmSockets = 2;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP转发配置，对开启udp的服务生效
+ */
+@Data
+public class UdpProperties {
+
+    /**
+     * 本地流的空闲过期时间（毫秒），过期后关闭对应的本地Socket
+     */
+    private Long idleTimeout = 60000L;
+
+    /**
+     * 单个服务的最大本地流数，超出的新流数据报丢弃
+     */
+    private Integer maxFlows = 1024;
+
+    /**
+     * 单次写入隧道的批量上限（字节），批量只包含已到达的数据报，不为凑批等待
+     */
+    private Integer batchBytes = 65536;
+}
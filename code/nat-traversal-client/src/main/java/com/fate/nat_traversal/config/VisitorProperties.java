@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 访问端配置：在本地端口接收连接，优先与被代理端点直连，失败时经代理端口中继
+ */
+@Data
+public class VisitorProperties {
+
+    private String name;
+
+    /**
+     * 被访问服务在服务器上的代理端口（独占端口）
+     */
+    private Integer proxyPort;
+
+    /**
+     * 本地监听host，为空则监听本机回环地址
+     */
+    private String bindHost;
+
+    private Integer bindPort;
+
+    /**
+     * 尝试直连，关闭时总是中继
+     */
+    private Boolean punch = true;
+}
@@ -0,0 +1,58 @@
+package com.fate.nat_traversal.enums;
+
+import com.fate.nat_traversal.compress.Compressor;
+import com.fate.nat_traversal.compress.Decompressor;
+import com.fate.nat_traversal.compress.DeflateCompressor;
+import com.fate.nat_traversal.compress.DeflateDecompressor;
+
+/**
+ * 透传流压缩算法，id写入帧头；id取0x20以下的值，不与以“J”开头的结束标识冲突
+ * 新增算法只需新增枚举项并实现压缩/解压
+ */
+public enum CompressionCodecEnum {
+    // JDK Deflater，流式同步刷新
+    DEFLATE((byte) 1) {
+        @Override
+        public Compressor newCompressor(int level) {
+            return new DeflateCompressor(level);
+        }
+
+        @Override
+        public Decompressor newDecompressor() {
+            return new DeflateDecompressor();
+        }
+    };
+
+    private final byte id;
+
+    CompressionCodecEnum(byte id) {
+        this.id = id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    public abstract Compressor newCompressor(int level);
+
+    public abstract Decompressor newDecompressor();
+
+    public static CompressionCodecEnum fromId(byte id) {
+        for (CompressionCodecEnum codec : values()) {
+            if (codec.id == id) return codec;
+        }
+        return null;
+    }
+
+    /**
+     * 解析算法名，忽略大小写，无法识别返回null
+     */
+    public static CompressionCodecEnum parse(String name) {
+        if (name == null || name.isBlank()) return null;
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.fate.nat_traversal.enums;
+
+/**
+ * 透传Socket的传输配置档
+ */
+public enum TransportProfileEnum {
+    // 系统默认Socket参数，逐块写出
+    STANDARD,
+    // 游戏/交互：关闭Nagle，小缓冲，逐块立即写出
+    INTERACTIVE,
+    // 大流量：大缓冲，短时间窗口内合并小块后一次写出
+    BULK;
+
+    /**
+     * 解析配置档名，忽略大小写，无法识别返回null
+     */
+    public static TransportProfileEnum parse(String name) {
+        if (name == null || name.isBlank()) return null;
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
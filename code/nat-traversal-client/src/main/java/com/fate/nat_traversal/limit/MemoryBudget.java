@@ -0,0 +1,117 @@
+package com.fate.nat_traversal.limit;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 进程级缓冲内存预算：透传中的数据块与暂存缓冲先申请额度再分配，
+ * 额度耗尽时读线程等待释放，即暂停从对端读取，由TCP窗口向发送方施加背压
+ */
+public class MemoryBudget {
+
+    @Getter
+    private final long maxBytes;
+
+    private final AtomicLong used = new AtomicLong();
+
+    @Getter
+    private volatile long peak = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    // 等待额度的次数与累计等待时长
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    // 因超过高水位暂停读取的连接方向数
+    private final AtomicInteger pausedWindows = new AtomicInteger();
+    private final AtomicLong pauses = new AtomicLong();
+
+    public MemoryBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 申请额度，不足时立即返回false；无其他占用时总是成功，避免大块申请永远失败
+     */
+    public boolean tryAcquire(long bytes) {
+        while (true) {
+            long current = used.get();
+            if (current > 0 && current + bytes > maxBytes) return false;
+            if (used.compareAndSet(current, current + bytes)) {
+                if (current + bytes > peak) peak = current + bytes;
+                return true;
+            }
+        }
+    }
+
+    public void release(long bytes) {
+        if (bytes <= 0) return;
+        used.addAndGet(-bytes);
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待其他占用释放额度
+     */
+    public void awaitRelease(long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            released.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    void onWait() {
+        waits.incrementAndGet();
+    }
+
+    void onPause() {
+        pausedWindows.incrementAndGet();
+        pauses.incrementAndGet();
+    }
+
+    void onResume() {
+        pausedWindows.decrementAndGet();
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public long getWaits() {
+        return waits.get();
+    }
+
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    public int getPausedWindows() {
+        return pausedWindows.get();
+    }
+
+    public long getPauses() {
+        return pauses.get();
+    }
+}
@@ -34,6 +34,21 @@ public class CommonSocket {
         return readBuffer;
     }
 
+    /**
+     * 读入调用方提供的缓冲
+     * @return 读取的字节数，对端关闭返回-1
+     */
+    public int read(byte[] buffer) throws IOException {
+        return socket.getInputStream().read(buffer);
+    }
+
+    /**
+     * 可不阻塞读取的字节数
+     */
+    public int available() throws IOException {
+        return socket.getInputStream().available();
+    }
+
     public String readString() throws IOException {
         byte[] bytes = read();
         return bytes  == null ? null : new String(bytes, StandardCharsets.UTF_8);
@@ -50,8 +65,7 @@ public class CommonSocket {
 
     public boolean writeUnchecked(byte[]  bytes) {
         try {
-            socket.getOutputStream().write(bytes);
-            socket.getOutputStream().flush();
+            write(bytes);
         } catch (IOException e) {
             return false;
         }
@@ -1,6 +1,9 @@
 package com.fate.nat_traversal.model;
 
+import com.fate.nat_traversal.stream.TunnelStream;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.io.IOException;
 import java.net.Socket;
@@ -18,6 +21,11 @@ public class ServerSideTransmitSocket extends CommonSocket{
 
     private Long lastActiveTime = System.currentTimeMillis();
 
+    @Getter
+    @Setter
+    // 分帧流（可恢复透传流或条带流），设置后读写经由流，原Socket断开不视为关闭
+    private volatile TunnelStream stream;
+
     public ServerSideTransmitSocket(Socket socket) {
         super(socket);
     }
@@ -33,13 +41,45 @@ public class ServerSideTransmitSocket extends CommonSocket{
     @Override
     public byte[] read() throws IOException {
         refreshActiveTime();
-        return super.read();
+        return stream == null ? super.read() : stream.read();
+    }
+
+    @Override
+    public int read(byte[] buffer) throws IOException {
+        refreshActiveTime();
+        return stream == null ? super.read(buffer) : stream.read(buffer);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return stream == null ? super.available() : stream.available();
     }
 
     @Override
     public void write(byte[] bytes) throws IOException {
         refreshActiveTime();
-        super.write(bytes);
+        if (stream == null) {
+            super.write(bytes);
+        } else {
+            stream.write(bytes);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return stream == null ? super.isClosed() : stream.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) stream.close();
+        super.close();
+    }
+
+    @Override
+    public boolean closeUnchecked() {
+        if (stream != null) stream.close();
+        return super.closeUnchecked();
     }
 
 }
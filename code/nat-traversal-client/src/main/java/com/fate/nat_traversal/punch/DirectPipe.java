@@ -0,0 +1,74 @@
+package com.fate.nat_traversal.punch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连或回落中继时两个Socket间的双向拷贝；一个方向结束后半关闭对端输出，两个方向都结束后关闭
+ */
+public class DirectPipe {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Socket a;
+
+    private final Socket b;
+
+    private final LongAdder bytes;
+
+    private final AtomicInteger running = new AtomicInteger(2);
+
+    public DirectPipe(Socket a, Socket b, LongAdder bytes) {
+        this.a = a;
+        this.b = b;
+        this.bytes = bytes;
+    }
+
+    /**
+     * a到b方向提交到线程池，b到a方向在当前线程执行，返回时两个方向可能仍有一个在进行
+     */
+    public void run(Executor executor) {
+        try {
+            a.setTcpNoDelay(true);
+            b.setTcpNoDelay(true);
+        } catch (IOException e) {}
+        executor.execute(() -> copy(a, b));
+        copy(b, a);
+    }
+
+    private void copy(Socket from, Socket to) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                out.flush();
+                bytes.add(n);
+            }
+            to.shutdownOutput();
+        } catch (IOException e) {
+            closeQuietly(a);
+            closeQuietly(b);
+        }
+        if (running.decrementAndGet() == 0) {
+            closeQuietly(a);
+            closeQuietly(b);
+        }
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
@@ -0,0 +1,217 @@
+package com.fate.nat_traversal.punch;
+
+import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * TCP打洞：双方从与服务器交换地址时使用的同一本地端口向对端候选地址发起连接，
+ * 出向SYN在各自NAT上打开映射，双方SYN交错时即为TCP同时打开
+ *  1. 访问端只发起连接，连通后发送punchId
+ *  2. 被代理端点同时监听该端口并向对端发起连接，任一方式连通且校验punchId后回复
+ * 同一端口上的监听与连接依赖SO_REUSEADDR/SO_REUSEPORT
+ */
+@Slf4j
+public class HolePuncher {
+
+    private final int localPort;
+
+    private final List<InetSocketAddress> candidates;
+
+    private final int attemptTimeout;
+
+    public HolePuncher(int localPort, List<InetSocketAddress> candidates, int attemptTimeout) {
+        this.localPort = localPort;
+        this.candidates = candidates;
+        this.attemptTimeout = attemptTimeout;
+    }
+
+    /**
+     * 新建可与打洞Socket共用本地端口的Socket，未绑定
+     */
+    public static Socket reusableSocket() throws IOException {
+        Socket socket = new Socket();
+        socket.setReuseAddress(true);
+        if (socket.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        return socket;
+    }
+
+    /**
+     * 解析候选地址并去重，格式 ip:port
+     */
+    public static List<InetSocketAddress> candidates(String... addresses) {
+        List<InetSocketAddress> candidates = new ArrayList<>();
+        Arrays.stream(addresses).forEach(address -> {
+            if (address == null) return;
+            int index = address.lastIndexOf(':');
+            if (index <= 0) return;
+            try {
+                InetSocketAddress candidate = new InetSocketAddress(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+                if (!candidates.contains(candidate)) candidates.add(candidate);
+            } catch (IllegalArgumentException e) {}
+        });
+        return candidates;
+    }
+
+    /**
+     * 访问端：轮流连接各候选地址直至超时
+     * @return 校验通过的直连Socket，失败返回null
+     */
+    public Socket connect(String punchId, long deadline) {
+        byte[] hello = hello(punchId);
+        byte[] ok = ProxyServerCommunicationService.PUNCH_HELLO_OK.getBytes(StandardCharsets.UTF_8);
+        while (System.currentTimeMillis() < deadline) {
+            for (InetSocketAddress candidate : candidates) {
+                Socket socket = null;
+                try {
+                    socket = reusableSocket();
+                    socket.bind(new InetSocketAddress(localPort));
+                    socket.connect(candidate, attemptTimeout);
+                    socket.setSoTimeout(attemptTimeout);
+                    socket.getOutputStream().write(hello);
+                    socket.getOutputStream().flush();
+
+                    byte[] reply = new byte[ok.length];
+                    new DataInputStream(socket.getInputStream()).readFully(reply);
+                    if (!Arrays.equals(reply, ok)) throw new IOException("hello rejected");
+                    socket.setSoTimeout(0);
+                    return socket;
+                } catch (IOException e) {
+                    closeQuietly(socket);
+                }
+            }
+            pause();
+        }
+        return null;
+    }
+
+    /**
+     * 被代理端点：监听本地端口，同时向各候选地址发起连接，直至某一连接校验通过或超时
+     * @return 校验通过的直连Socket，失败返回null
+     */
+    public Socket accept(String punchId, long deadline) {
+        byte[] hello = hello(punchId);
+        BlockingQueue<Socket> established = new LinkedBlockingQueue<>();
+        ServerSocket listener;
+        try {
+            listener = new ServerSocket();
+            listener.setReuseAddress(true);
+            if (listener.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                listener.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            listener.bind(new InetSocketAddress(localPort));
+        } catch (IOException e) {
+            log.info("Punch listen on port {} failed: {}", localPort, e.getMessage());
+            return null;
+        }
+
+        Thread acceptor = new Thread(() -> {
+            while (!listener.isClosed()) {
+                try {
+                    established.add(listener.accept());
+                } catch (IOException e) {}
+            }
+        }, "punch-accept-" + localPort);
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        // 出向连接在NAT上打开映射，对端SYN同时到达时直接连通
+        Thread connector = new Thread(() -> {
+            while (!listener.isClosed() && System.currentTimeMillis() < deadline) {
+                for (InetSocketAddress candidate : candidates) {
+                    Socket socket = null;
+                    try {
+                        socket = reusableSocket();
+                        socket.bind(new InetSocketAddress(localPort));
+                        socket.connect(candidate, attemptTimeout);
+                        if (listener.isClosed()) {
+                            closeQuietly(socket);
+                        } else {
+                            established.add(socket);
+                        }
+                    } catch (IOException e) {
+                        closeQuietly(socket);
+                    }
+                }
+                pause();
+            }
+        }, "punch-connect-" + localPort);
+        connector.setDaemon(true);
+        connector.start();
+
+        Socket result = null;
+        try {
+            while (result == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) break;
+                Socket socket = established.poll(remaining, TimeUnit.MILLISECONDS);
+                if (socket == null) break;
+                if (verify(socket, hello)) {
+                    result = socket;
+                } else {
+                    closeQuietly(socket);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                listener.close();
+            } catch (IOException e) {}
+        }
+        established.forEach(HolePuncher::closeQuietly);
+        return result;
+    }
+
+    private boolean verify(Socket socket, byte[] hello) {
+        try {
+            socket.setSoTimeout(attemptTimeout);
+            byte[] received = new byte[hello.length];
+            new DataInputStream(socket.getInputStream()).readFully(received);
+            if (!Arrays.equals(received, hello)) return false;
+            socket.setSoTimeout(0);
+            socket.getOutputStream().write(ProxyServerCommunicationService.PUNCH_HELLO_OK.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private byte[] hello(String punchId) {
+        return (ProxyServerCommunicationService.PUNCH_HELLO + punchId + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.punch;
+
+import com.fate.nat_traversal.enums.NatTypeEnum;
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞统计：visits为访问端连接，answers为作为被代理端点的应答
+ */
+@Builder
+@Data
+public class PunchStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Boolean enabled;
+    private NatTypeEnum natType;
+    private String mappedAddress;
+    private Long visits;
+    private Long direct;
+    private Long relayed;
+    private Double directMillis;
+    private Long answers;
+    private Long answered;
+    private Long refusedAnswers;
+    private Long directBytes;
+    private Long relayedBytes;
+}
@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.relay;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 单条透传链路的缓冲调整统计，吞吐单位为字节/秒
+ */
+@Builder
+@Data
+public class BufferTuningStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String session;
+    private Double rttMillis;
+    private Long maxThroughput;
+    private Long bdp;
+    private Integer bufferSize;
+    private Integer readSize;
+    private Long baselineThroughput;
+    private Long baselineTransfers;
+    private Long tunedThroughput;
+    private Long tunedTransfers;
+}
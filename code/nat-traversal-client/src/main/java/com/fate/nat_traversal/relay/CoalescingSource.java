@@ -0,0 +1,95 @@
+package com.fate.nat_traversal.relay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author fate
+ * @date 2025/12/27 20:30
+ *
+ * 写出合并：读到一块后继续收集已到达的数据，并在合并窗口内等待后续小块，合并为一次写出
+ *  1. 达到maxBytes、窗口到期或数据以结束标识结尾时立即返回
+ *  2. 后续数据只以不阻塞的方式收集，在途额度不足时不等待，避免持有未写出的数据等待自身释放额度
+ *  3. 收集途中对端关闭或读取异常时先返回已收集的数据，下次读取再返回关闭或抛出异常
+ */
+public class CoalescingSource implements RelaySource {
+
+    // 等待后续数据时的轮询间隔
+    private static final long POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private final RelaySource source;
+
+    private final long windowNanos;
+
+    private final int maxBytes;
+
+    private final byte[] endMarker;
+
+    private boolean ended = false;
+
+    private IOException error;
+
+    public CoalescingSource(RelaySource source, long windowMicros, int maxBytes, byte[] endMarker) {
+        this.source = source;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBytes = maxBytes;
+        this.endMarker = endMarker;
+    }
+
+    @Override
+    public byte[] read() throws IOException {
+        if (error != null) throw error;
+        if (ended) return null;
+
+        byte[] first = source.read();
+        if (first == null || first.length >= maxBytes || endsWith(first)) return first;
+
+        ByteArrayOutputStream merged = new ByteArrayOutputStream(Math.min(maxBytes, first.length * 4));
+        merged.write(first, 0, first.length);
+        long deadline = System.nanoTime() + windowNanos;
+        while (merged.size() < maxBytes) {
+            byte[] next;
+            try {
+                next = source.poll();
+            } catch (IOException e) {
+                error = e;
+                break;
+            }
+            if (next == null) {
+                ended = true;
+                break;
+            }
+            if (next.length == 0) {
+                if (System.nanoTime() >= deadline) break;
+                LockSupport.parkNanos(POLL_NANOS);
+                continue;
+            }
+            merged.write(next, 0, next.length);
+            if (endsWith(next)) break;
+        }
+        return merged.toByteArray();
+    }
+
+    @Override
+    public byte[] poll() throws IOException {
+        return source.poll();
+    }
+
+    @Override
+    public void release(int bytes) {
+        source.release(bytes);
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    private boolean endsWith(byte[] bytes) {
+        if (endMarker == null || bytes.length < endMarker.length) return false;
+        return Arrays.equals(bytes, bytes.length - endMarker.length, bytes.length, endMarker, 0, endMarker.length);
+    }
+}
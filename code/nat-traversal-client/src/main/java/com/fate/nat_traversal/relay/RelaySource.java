@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.relay;
+
+import java.io.IOException;
+
+/**
+ * @author fate
+ * @date 2025/12/26 20:30
+ *
+ * 透传单个方向的数据来源，读出的数据计入该方向的在途窗口
+ */
+public interface RelaySource {
+
+    /**
+     * @return 下一块数据，对端关闭返回null
+     */
+    byte[] read() throws IOException;
+
+    /**
+     * 不阻塞读取已到达的数据
+     * @return 无数据或在途额度不足返回空数组，对端关闭返回null
+     */
+    byte[] poll() throws IOException;
+
+    /**
+     * 数据块已写出，归还在途额度
+     */
+    void release(int bytes);
+
+    void close();
+}
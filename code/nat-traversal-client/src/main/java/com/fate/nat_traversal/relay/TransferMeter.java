@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.relay;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 单次透传的传输量与首末字节间隔，仅由所在透传线程访问
+ */
+public class TransferMeter {
+
+    private long bytes = 0;
+
+    private long firstAt = 0;
+
+    private long lastAt = 0;
+
+    public void record(int length) {
+        long now = System.nanoTime();
+        if (bytes == 0) firstAt = now;
+        lastAt = now;
+        bytes += length;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return lastAt - firstAt;
+    }
+}
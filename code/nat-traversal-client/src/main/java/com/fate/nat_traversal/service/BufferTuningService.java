@@ -0,0 +1,34 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.relay.BufferTuningStats;
+import com.fate.nat_traversal.relay.TransferMeter;
+
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 透传Socket缓冲自动调整，客户端只有一条到代理服务器的透传链路
+ */
+public interface BufferTuningService {
+
+    /**
+     * 心跳Ping/Pong往返时间
+     */
+    void onRtt(long nanos);
+
+    /**
+     * 单次透传结束，传输量足够时计入吞吐采样
+     * @param tuned 传输开始时是否已应用调整后的缓冲
+     */
+    void onTransfer(TransferMeter meter, boolean tuned);
+
+    /**
+     * 按当前估算设置透传Socket缓冲；未开启、尚无估算或默认配置档已指定缓冲时不设置
+     * @return 单次读取大小，未调整返回0
+     */
+    int apply(Socket socket);
+
+    BufferTuningStats getStats();
+}
@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.compress.CompressionStats;
+import com.fate.nat_traversal.compress.FrameDecoder;
+import com.fate.nat_traversal.compress.FrameEncoder;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 透传流压缩，注册代理时与服务器协商
+ */
+public interface CompressionService {
+
+    /**
+     * @return 注册时携带的算法，逗号分隔，未开启返回null
+     */
+    String offer();
+
+    /**
+     * 服务器选定的算法
+     * @param codec 算法名，服务器未开启压缩时为null
+     */
+    void accept(String session, String codec);
+
+    /**
+     * @return 未协商压缩返回null
+     */
+    FrameEncoder newEncoder();
+
+    /**
+     * @param endMarker 该方向的结束标识
+     * @return 未协商压缩返回null
+     */
+    FrameDecoder newDecoder(byte[] endMarker);
+
+    CompressionStats getStats();
+}
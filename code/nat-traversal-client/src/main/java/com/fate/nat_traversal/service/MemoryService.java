@@ -0,0 +1,20 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.MemoryStats;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 透传缓冲内存预算服务
+ */
+public interface MemoryService {
+
+    /**
+     * 为连接的一个透传方向创建在途数据窗口
+     */
+    FlowWindow newWindow();
+
+    MemoryStats getStats();
+}
@@ -19,6 +19,14 @@ public interface ProxyServerCommunicationService extends DisposableBean {
 
     String PS_CLOSED = PROTOCOL_PREFIX + "PS Closed";
 
+    // 同一通信连接上追加注册被代理服务，消息体：serviceName
+    String REGISTER_SERVICE = PROTOCOL_PREFIX + "Register Service:";
+    String REGISTER_SERVICE_SUCCESS = PROTOCOL_PREFIX + "Register Service Success:";
+    String REGISTER_SERVICE_ERROR = PROTOCOL_PREFIX + "Register Service Error:";
+
+    // 服务组副本排空，消息体：serviceName;;drain:true|false
+    String DRAIN_SERVICE = PROTOCOL_PREFIX + "Drain Service:";
+
     String REQUIRE_SOCKET = PROTOCOL_PREFIX + "Require Socket:";
     String REQUIRE_SOCKET_ERROR = PROTOCOL_PREFIX + "Require Socket Error:";
 
@@ -28,6 +36,38 @@ public interface ProxyServerCommunicationService extends DisposableBean {
     String REGISTER_TRANSMIT_SOCKET_SUCCESS = PROTOCOL_PREFIX + "Register Transmit Socket Success";
     String REGISTER_TRANSMIT_SOCKET_ERROR = PROTOCOL_PREFIX + "Register Transmit Socket ERROR";
 
+    // UDP隧道：session;;port:proxyPort，成功回复后开始双向传输数据报帧
+    String REGISTER_UDP_TUNNEL = PROTOCOL_PREFIX + "Register UDP Tunnel Session:";
+    String REGISTER_UDP_TUNNEL_SUCCESS = PROTOCOL_PREFIX + "Register UDP Tunnel Success";
+    String REGISTER_UDP_TUNNEL_ERROR = PROTOCOL_PREFIX + "Register UDP Tunnel ERROR";
+
+    // 中继探测：回复负载 load;;proxies:n;;capacity:n，连接保持为备用通信连接，可继续探测或发送注册消息
+    String RELAY_PROBE = PROTOCOL_PREFIX + "Relay Probe";
+    String RELAY_PROBE_RESULT = PROTOCOL_PREFIX + "Relay Probe Result:";
+
+    // NAT类型探测，回复探测连接的映射地址：ip:port[;;probe:probePort]
+    String PUNCH_PROBE = PROTOCOL_PREFIX + "Punch Probe";
+    String PUNCH_PROBE_RESULT = PROTOCOL_PREFIX + "Punch Probe Result:";
+
+    // 访问端请求直连：proxyPort;;local:ip:port;;nat:type
+    String PUNCH_REQUEST = PROTOCOL_PREFIX + "Punch Request:";
+    // 服务器通过通信连接通知：punchId;;port:proxyPort
+    String PUNCH = PROTOCOL_PREFIX + "Punch:";
+    // 应答：punchId;;local:ip:port;;nat:type[;;refuse:true]
+    String PUNCH_ANSWER = PROTOCOL_PREFIX + "Punch Answer:";
+    // 对端候选地址：punchId;;peer:ip:port;;local:ip:port
+    String PUNCH_PEER = PROTOCOL_PREFIX + "Punch Peer:";
+    String PUNCH_REFUSED = PROTOCOL_PREFIX + "Punch Refused:";
+
+    // 直连建立后访问端先发送：punchId，被代理端点校验后回复
+    String PUNCH_HELLO = PROTOCOL_PREFIX + "Punch Hello:";
+    String PUNCH_HELLO_OK = PROTOCOL_PREFIX + "Punch Hello OK";
+
+    // 可恢复透传流重新附着：streamId;;ack:已收到字节数，成功回复服务端已收到字节数并换行，随后双方重放
+    String RESUME_STREAM = PROTOCOL_PREFIX + "Resume Stream:";
+    String RESUME_STREAM_SUCCESS = PROTOCOL_PREFIX + "Resume Stream Success:";
+    String RESUME_STREAM_ERROR = PROTOCOL_PREFIX + "Resume Stream Error";
+
     String PING = PROTOCOL_PREFIX + "Ping:";
     String PONG = PROTOCOL_PREFIX + "Pong";
 
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.config.ServiceProperties;
+import com.fate.nat_traversal.punch.PunchStats;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞：访问端入口与被代理端点应答，失败时回落到服务器中继
+ */
+public interface PunchService {
+
+    /**
+     * 探测NAT类型并启动访问端监听
+     */
+    void start();
+
+    /**
+     * 应答服务器转来的直连请求，异步执行
+     * @param service 代理端口对应的本地服务，为空时拒绝
+     */
+    void answer(String punchId, ServiceProperties service);
+
+    void shutdown();
+
+    PunchStats getStats();
+}
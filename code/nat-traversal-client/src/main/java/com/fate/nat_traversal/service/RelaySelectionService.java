@@ -0,0 +1,64 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.standby.RelayCandidate;
+import com.fate.nat_traversal.standby.RelaySelectionStats;
+import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 多中继选择：按RTT与负载排序，与次优中继保持备用通信连接，当前中继失效时切换
+ */
+public interface RelaySelectionService {
+
+    /**
+     * 探测未使用的中继并排序，当前中继失效时排在最后
+     */
+    List<RelayCandidate> rank();
+
+    /**
+     * 打开到中继的通信连接：优先取走备用连接，否则新建并完成TLS握手
+     */
+    ConcurrentWriteSocket open(RelayCandidate relay) throws IOException;
+
+    /**
+     * 注册成功后设为当前中继，透传Socket、UDP隧道与打洞均连接当前中继
+     */
+    void use(RelayCandidate relay);
+
+    /**
+     * 按地址取候选中继，不在列表中时加入（集群节点重定向的目标）
+     * @param address host:port
+     */
+    RelayCandidate candidate(String address);
+
+    RelayCandidate current();
+
+    String host();
+
+    int port();
+
+    /**
+     * 当前中继失效
+     */
+    void markDown(RelayCandidate relay);
+
+    /**
+     * 故障切换完成
+     * @param nanos 从发现失效到重新注册成功的耗时
+     */
+    void onFailover(long nanos);
+
+    /**
+     * 当前中继的心跳RTT
+     */
+    void onRtt(long nanos);
+
+    void shutdown();
+
+    RelaySelectionStats getStats();
+}
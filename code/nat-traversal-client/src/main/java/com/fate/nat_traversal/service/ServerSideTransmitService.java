@@ -14,7 +14,32 @@ public interface ServerSideTransmitService extends DisposableBean {
 
     boolean createServerSideSocket(String session);
 
-    boolean awareServerSideSocket(int port);
+    /**
+     * 补足预先握手并注册的空闲透传Socket，开启TLS时生效
+     */
+    void warmUp(String session);
+
+    /**
+     * 关闭全部空闲透传Socket，切换中继后原会话的空闲Socket不再可用
+     */
+    void discardSpares();
+
+    /**
+     * 可用的空闲透传Socket数
+     */
+    int spareCount();
+
+    /**
+     * 唤醒透传Socket并连接本地服务
+     * @param port 透传Socket本地端口
+     * @param serviceName 需连接的服务名
+     */
+    boolean awareServerSideSocket(int port, String serviceName);
+
+    /**
+     * 正在透传的连接数
+     */
+    int busyCount();
 
     void shutdown();
 
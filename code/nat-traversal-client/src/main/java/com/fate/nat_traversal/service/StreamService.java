@@ -0,0 +1,22 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.stream.ResumableStream;
+import com.fate.nat_traversal.stream.StreamStats;
+
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复透传流：透传Socket断开后向当前中继新建连接，以流id重新附着并续传
+ */
+public interface StreamService {
+
+    /**
+     * 在透传Socket上附着服务端下发的流
+     */
+    ResumableStream open(String id, Socket socket);
+
+    StreamStats getStats();
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.stream.StripeStats;
+import com.fate.nat_traversal.stream.StripedStream;
+
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带：服务器将一个客户端连接拆分到多条透传Socket，本端按序号重组
+ */
+public interface StripeService {
+
+    /**
+     * 以首条透传Socket新建条带流
+     */
+    StripedStream open(String id, Socket socket);
+
+    /**
+     * 其余路径加入条带流
+     * @return 流不存在或已结束返回false
+     */
+    boolean attach(String id, Socket socket);
+
+    StripeStats getStats();
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.tls.TlsStats;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * 与服务器间的TLS加密
+ */
+public interface TlsService {
+
+    boolean isEnabled();
+
+    /**
+     * 在已连接的Socket上完成TLS握手，未开启时原样返回
+     */
+    Socket wrap(Socket socket) throws IOException;
+
+    /**
+     * @return 需保持的预先握手空闲透传Socket数，未开启TLS返回0
+     */
+    int warmSockets();
+
+    void onCreate(long nanos, boolean warm);
+
+    TlsStats getStats(int spareSockets);
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.config.ServiceProperties;
+import com.fate.nat_traversal.udp.UdpStats;
+
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP转发，每个开启udp的服务一条到服务器的长连接隧道
+ */
+public interface UdpForwardService {
+
+    /**
+     * 服务注册成功后建立该服务的UDP隧道
+     */
+    void open(String session, ServiceProperties service, int proxyPort);
+
+    /**
+     * 异步重连已断开的隧道
+     */
+    void ensure(String session);
+
+    void shutdown();
+
+    List<UdpStats> getStats();
+}
@@ -0,0 +1,110 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.BufferTuningProperties;
+import com.fate.nat_traversal.config.ClientProperties;
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.TransportProfileProperties;
+import com.fate.nat_traversal.relay.BdpEstimator;
+import com.fate.nat_traversal.relay.BufferTuningStats;
+import com.fate.nat_traversal.relay.TransferMeter;
+import com.fate.nat_traversal.service.BufferTuningService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 透传Socket缓冲自动调整：
+ *  1. 缓冲 = clamp(BDP * gain, minBufferSize, maxBufferSize)，BDP = 平滑心跳RTT * 窗口内最大吞吐
+ *  2. 新建透传Socket在连接前设置，复用的透传Socket每次绑定时按最新估算重新设置
+ */
+@Slf4j
+@Service
+public class BufferTuningServiceImpl implements BufferTuningService {
+
+    private BdpEstimator estimator;
+
+    private ClientProperties clientProperties;
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
+    @PostConstruct
+    private void init() {
+        clientProperties = natTraversalProperties.getClient();
+        estimator = new BdpEstimator(clientProperties.getTuning().getRateWindow());
+    }
+
+    @Override
+    public void onRtt(long nanos) {
+        if (!clientProperties.getTuning().getEnabled()) return;
+        estimator.onRtt(nanos);
+    }
+
+    @Override
+    public void onTransfer(TransferMeter meter, boolean tuned) {
+        BufferTuningProperties tuning = clientProperties.getTuning();
+        if (!tuning.getEnabled() || meter.getBytes() < tuning.getSampleBytes()) return;
+        estimator.onTransfer(meter.getBytes(), meter.getNanos(), tuned);
+    }
+
+    @Override
+    public int apply(Socket socket) {
+        BufferTuningProperties tuning = clientProperties.getTuning();
+        if (!tuning.getEnabled()) return 0;
+
+        // 配置档显式指定的缓冲优先
+        TransportProfileProperties profile = clientProperties.getTransport().get(null);
+        if (profile.getSendBufferSize() > 0 || profile.getReceiveBufferSize() > 0) return 0;
+
+        int size = bufferSize(tuning);
+        if (size <= 0) return 0;
+        try {
+            socket.setSendBufferSize(size);
+            socket.setReceiveBufferSize(size);
+        } catch (SocketException e) {
+            log.warn("Tune socket buffer failed: {}", e.getMessage());
+            return 0;
+        }
+        return readSize(size, tuning);
+    }
+
+    @Override
+    public BufferTuningStats getStats() {
+        BufferTuningProperties tuning = clientProperties.getTuning();
+        int size = bufferSize(tuning);
+        return BufferTuningStats.builder()
+                .session(relaySelectionService.current().toString())
+                .rttMillis(estimator.getRttMillis())
+                .maxThroughput(estimator.getMaxThroughput())
+                .bdp(estimator.bdp())
+                .bufferSize(size)
+                .readSize(readSize(size, tuning))
+                .baselineThroughput(estimator.getBaselineThroughput())
+                .baselineTransfers(estimator.getBaselineTransfers())
+                .tunedThroughput(estimator.getTunedThroughput())
+                .tunedTransfers(estimator.getTunedTransfers())
+                .build();
+    }
+
+    private int bufferSize(BufferTuningProperties tuning) {
+        long bdp = estimator.bdp();
+        if (bdp <= 0) return 0;
+        long size = (long) (bdp * tuning.getGain());
+        return (int) Math.min(Math.max(size, tuning.getMinBufferSize()), tuning.getMaxBufferSize());
+    }
+
+    private int readSize(int bufferSize, BufferTuningProperties tuning) {
+        return bufferSize <= 0 ? 0 : Math.min(bufferSize, tuning.getMaxReadBytes());
+    }
+}
@@ -0,0 +1,79 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.compress.CompressionMeter;
+import com.fate.nat_traversal.compress.CompressionStats;
+import com.fate.nat_traversal.compress.FrameDecoder;
+import com.fate.nat_traversal.compress.FrameEncoder;
+import com.fate.nat_traversal.config.CompressionProperties;
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+import com.fate.nat_traversal.service.CompressionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Collectors;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 透传流压缩：
+ *  1. 注册代理时携带支持的算法，服务器在注册成功的回复中给出选定的算法，重连后重新协商
+ *  2. 协商结果对所有透传生效，每次透传各自建立压缩上下文
+ */
+@Slf4j
+@Service
+public class CompressionServiceImpl implements CompressionService {
+
+    private final CompressionMeter meter = new CompressionMeter();
+
+    private volatile CompressionCodecEnum codec;
+
+    private volatile String session;
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Override
+    public String offer() {
+        CompressionProperties compression = natTraversalProperties.getClient().getCompression();
+        if (!compression.getEnabled() || compression.getCodecs().isEmpty()) return null;
+        return compression.getCodecs().stream()
+                .map(codec -> codec.name().toLowerCase())
+                .collect(Collectors.joining(","));
+    }
+
+    @Override
+    public void accept(String session, String codec) {
+        this.session = session;
+        this.codec = offer() == null ? null : CompressionCodecEnum.parse(codec);
+        if (this.codec != null) {
+            log.info("Transmit compression: {}", this.codec.name().toLowerCase());
+        } else if (offer() != null) {
+            log.info("Transmit compression not accepted by proxy server");
+        }
+    }
+
+    @Override
+    public FrameEncoder newEncoder() {
+        CompressionCodecEnum codec = this.codec;
+        if (codec == null) return null;
+        return new FrameEncoder(codec, natTraversalProperties.getClient().getCompression(), meter);
+    }
+
+    @Override
+    public FrameDecoder newDecoder(byte[] endMarker) {
+        if (codec == null) return null;
+        return new FrameDecoder(endMarker, meter);
+    }
+
+    @Override
+    public CompressionStats getStats() {
+        CompressionCodecEnum codec = this.codec;
+        return meter.stats()
+                .session(session)
+                .codec(codec == null ? null : codec.name().toLowerCase())
+                .build();
+    }
+}
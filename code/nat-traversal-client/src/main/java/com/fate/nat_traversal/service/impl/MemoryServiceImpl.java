@@ -0,0 +1,54 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.MemoryProperties;
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.MemoryBudget;
+import com.fate.nat_traversal.limit.MemoryStats;
+import com.fate.nat_traversal.service.MemoryService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 透传缓冲内存预算服务
+ */
+@Service
+public class MemoryServiceImpl implements MemoryService {
+
+    private MemoryBudget budget;
+
+    private MemoryProperties memory;
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @PostConstruct
+    private void init() {
+        memory = natTraversalProperties.getClient().getMemory();
+        budget = new MemoryBudget(memory.getMaxBytes());
+    }
+
+    @Override
+    public FlowWindow newWindow() {
+        return new FlowWindow(budget, memory.getHighWatermark(), memory.getLowWatermark());
+    }
+
+    @Override
+    public MemoryStats getStats() {
+        return MemoryStats.builder()
+                .maxBytes(budget.getMaxBytes())
+                .usedBytes(budget.getUsed())
+                .peakBytes(budget.getPeak())
+                .highWatermark(memory.getHighWatermark())
+                .lowWatermark(memory.getLowWatermark())
+                .pausedWindows(budget.getPausedWindows())
+                .pauses(budget.getPauses())
+                .budgetWaits(budget.getWaits())
+                .budgetWaitMillis(budget.getWaitMillis())
+                .build();
+    }
+}
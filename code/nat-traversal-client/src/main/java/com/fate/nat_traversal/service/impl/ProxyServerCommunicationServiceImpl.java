@@ -2,18 +2,29 @@ package com.fate.nat_traversal.service.impl;
 
 import com.fate.nat_traversal.config.NatTraversalProperties;
 import com.fate.nat_traversal.config.RemoteServerProperties;
+import com.fate.nat_traversal.config.ServiceProperties;
 import com.fate.nat_traversal.enums.WorkingStatusEnum;
+import com.fate.nat_traversal.service.BufferTuningService;
+import com.fate.nat_traversal.service.CompressionService;
 import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.PunchService;
+import com.fate.nat_traversal.service.RelaySelectionService;
 import com.fate.nat_traversal.service.ServerSideTransmitService;
 import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.service.UdpForwardService;
+import com.fate.nat_traversal.standby.RelayCandidate;
+import com.fate.nat_traversal.util.Backoff;
 import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+import com.fate.nat_traversal.util.MessageUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -35,8 +46,25 @@ public class ProxyServerCommunicationServiceImpl implements ProxyServerCommunica
 
     private long lastPongTime = 0;
 
+    // 最近一次心跳发送时间，用于测量RTT
+    private volatile long lastPingNanos = 0;
+
     private String session;
 
+    // 会话恢复凭证及签发的中继，通信连接断开后凭此重连原中继保留代理端口
+    private volatile String resumeToken;
+
+    private volatile RelayCandidate resumeRelay;
+
+    // 最近一次注册被拒时服务端提示的重试间隔（毫秒），0为无提示
+    private volatile long retryAfter = 0;
+
+    // 最近一次注册被集群节点重定向的目标 host:port
+    private volatile String redirect;
+
+    // 服务名-代理端口
+    private final Map<String, Integer> proxyPorts = new ConcurrentHashMap<>();
+
     @Autowired
     private ServerSideTransmitService serverSideTransmitService;
 
@@ -46,48 +74,162 @@ public class ProxyServerCommunicationServiceImpl implements ProxyServerCommunica
     @Autowired
     private TaskSchedulerService taskScheduler;
 
+    @Autowired
+    private BufferTuningService bufferTuningService;
+
+    @Autowired
+    private CompressionService compressionService;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private UdpForwardService udpForwardService;
+
+    @Autowired
+    private PunchService punchService;
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
     @Override
     public boolean start() {
-        RemoteServerProperties remoteServerProperties = natTraversalProperties.getServer();
-        Socket socket = new Socket();
+        // 中继繁忙时按提示退避重试，中继不可达仍直接启动失败
+        Backoff backoff = backoff();
+        while (!connect()) {
+            if (retryAfter <= 0) return false;
+            if (!sleep(backoff.next(retryAfter))) return false;
+        }
+
+        // 定时发送心跳；心跳超时关闭通信连接，由读线程切换中继
+        taskScheduler.submit(() -> {
+            ConcurrentWriteSocket communicationSocket = this.communicationSocket;
+            if (unworkable() || communicationSocket.isClosed()) return;
+            if (serverTimeout()) {
+                log.warn("Proxy server({}) heartbeat timeout", relaySelectionService.current());
+                communicationSocket.close();
+                return;
+            }
+
+            lastPingNanos = System.nanoTime();
+            communicationSocket.writeStringUnchecked(PING+session);
+            // 补足预先握手的空闲透传Socket（过期回收后）
+            serverSideTransmitService.warmUp(session);
+            udpForwardService.ensure(session);
+        }, 0, 1, TimeUnit.SECONDS);
+
+        workingStatus = WorkingStatusEnum.WORKING;
+        return true;
+    }
+
+    // 按RTT与负载排序依次尝试中继，在首个注册成功的中继上开始通信；集群节点重定向时改连服务归属的节点（只跟随一次）
+    private boolean connect() {
+        for (RelayCandidate relay : relaySelectionService.rank()) {
+            if (connect(relay)) return true;
+            String target = redirect;
+            if (target != null && connect(relaySelectionService.candidate(target))) return true;
+        }
+        return false;
+    }
+
+    private boolean connect(RelayCandidate relay) {
+        redirect = null;
+        ConcurrentWriteSocket communicationSocket;
         try {
-            socket.setReuseAddress(true);
-            socket.connect(new InetSocketAddress(remoteServerProperties.getHost(), remoteServerProperties.getPort()));
+            communicationSocket = relaySelectionService.open(relay);
         } catch (IOException e) {
-            log.error("Connect to proxy server error;(Exception: {})", e.getMessage());
+            log.error("Connect to proxy server({}) error;(Exception: {})", relay, e.getMessage());
+            relaySelectionService.markDown(relay);
             return false;
         }
 
-        log.info("Connect to proxy server success, local communication port: {}", socket.getLocalPort());
+        log.info("Connect to proxy server({}) success, local communication port: {}", relay, communicationSocket.getSOCKET().getLocalPort());
+        // 先切换当前中继，注册后建立的透传Socket与UDP隧道连接该中继
+        relaySelectionService.use(relay);
+        if (!register(communicationSocket, relay)) {
+            communicationSocket.close();
+            // 重定向的节点正常，不计入失效
+            if (redirect == null) relaySelectionService.markDown(relay);
+            return false;
+        }
 
-        ConcurrentWriteSocket communicationSocket = new ConcurrentWriteSocket(socket);
-        this.communicationSocket = communicationSocket;
-        this.lastPongTime = System.currentTimeMillis();
+        listen(communicationSocket, relay);
+        return true;
+    }
 
+    private boolean register(ConcurrentWriteSocket communicationSocket, RelayCandidate relay) {
+        retryAfter = 0;
+
+        List<ServiceProperties> services = natTraversalProperties.getClient().getServiceList();
         try {
-            communicationSocket.writeString(REGISTER_PS);
+            String compression = compressionService.offer();
+            // 恢复凭证只在签发的中继上有效
+            String resume = resumeToken != null && relay == resumeRelay ? MessageUtil.option("resume", resumeToken) : "";
+            // 请求可恢复透传流，服务端接受后在唤醒透传Socket时下发流id
+            String stream = natTraversalProperties.getClient().getStream().getEnabled() ? MessageUtil.option("stream", true) : "";
+            communicationSocket.writeString(REGISTER_PS + MessageUtil.option("service", services.get(0).getName()) + serviceOptions(services.get(0))
+                    + (compression == null ? "" : MessageUtil.option("compression", compression)) + resume + stream);
             String msg = communicationSocket.readString();
             if (log.isDebugEnabled()) log.debug("Receive register PS success msg: ({})", msg);
 
-            if (msg.startsWith(REGISTER_PS_SUCCESS)) {
-                String[] args = msg.substring(REGISTER_PS_SUCCESS.length()).split(";;port:");
-                session = args[0];
-                log.info("==========----------Register PS Success, be proxied to port: {}----------==========", args[1]);
+            if (msg != null && msg.startsWith(REGISTER_PS_SUCCESS)) {
+                String body = msg.substring(REGISTER_PS_SUCCESS.length());
+                Map<String, String> options = MessageUtil.options(body);
+                String previous = session;
+                session = MessageUtil.head(body);
+                resumeToken = options.get("resume");
+                resumeRelay = relay;
+                compressionService.accept(session, options.get("compression"));
+
+                if (session.equals(previous) && options.containsKey("services")) {
+                    // 会话恢复，代理端口与两端的空闲透传Socket沿用
+                    proxyPorts.clear();
+                    for (String service : options.get("services").split(",")) {
+                        int split = service.lastIndexOf('=');
+                        if (split > 0) proxyPorts.put(service.substring(0, split), Integer.parseInt(service.substring(split + 1)));
+                    }
+                    log.info("==========----------Resume PS Success, services: {} keep proxied to ports: {}----------==========", proxyPorts.keySet(), proxyPorts.values());
+                } else {
+                    // 空闲透传Socket属于原会话
+                    if (previous != null) serverSideTransmitService.discardSpares();
+                    proxyPorts.clear();
+                    String port = options.get("port");
+                    proxyPorts.put(services.get(0).getName(), Integer.parseInt(port));
+                    log.info("==========----------Register PS Success, service: {} be proxied to port: {}----------==========", services.get(0).getName(), port);
+                }
             }else {
-                logError("Register PS Error");
+                Map<String, String> options = msg == null ? Map.of() : MessageUtil.options(msg);
+                retryAfter = Long.parseLong(options.getOrDefault("retry-after", "0"));
+                redirect = options.get("relay");
+                if (redirect != null) {
+                    log.info("Proxy server({}) redirect to {}", relay, redirect);
+                } else {
+                    log.error("Register PS Error: {}", msg);
+                }
                 return false;
             }
+
+            // 其余服务复用同一通信连接逐个注册，心跳启动前同步完成，避免消息粘连；恢复的会话只补注册此前失败的服务
+            for (int i = 1; i < services.size(); ++i) {
+                if (!proxyPorts.containsKey(services.get(i).getName())) registerService(communicationSocket, services.get(i));
+            }
         } catch (IOException e) {
             e.printStackTrace();
             return false;
         }
 
+        // 注册完成后才交给心跳，避免心跳与注册消息粘连
+        this.lastPongTime = System.currentTimeMillis();
+        this.communicationSocket = communicationSocket;
 
-        // 定时发送心跳
-        taskScheduler.submit(() -> {
-            communicationSocket.writeStringUnchecked(PING+session);
-        }, 0, 1, TimeUnit.SECONDS);
+        // 开启udp的服务各建一条UDP隧道
+        services.stream()
+                .filter(service -> Boolean.TRUE.equals(service.getUdp()) && proxyPorts.containsKey(service.getName()))
+                .forEach(service -> udpForwardService.open(session, service, proxyPorts.get(service.getName())));
+        return true;
+    }
 
+    private void listen(ConcurrentWriteSocket communicationSocket, RelayCandidate relay) {
         new Thread(() -> {
             int readErrTimes = 0;
             while (!communicationSocket.isClosed()) {
@@ -114,6 +256,10 @@ public class ProxyServerCommunicationServiceImpl implements ProxyServerCommunica
 
                 if (msg.equals(PONG)) {
                     lastPongTime = System.currentTimeMillis();
+                    if (lastPingNanos != 0) {
+                        bufferTuningService.onRtt(System.nanoTime() - lastPingNanos);
+                        relaySelectionService.onRtt(System.nanoTime() - lastPingNanos);
+                    }
                 } else if (msg == null) {
                     break;
                 } else {
@@ -138,23 +284,115 @@ public class ProxyServerCommunicationServiceImpl implements ProxyServerCommunica
                         }
                         // todo
                     } else if (msg.startsWith(AWARE_SOCKET)) {
-                        int port = Integer.parseInt(msg.substring(AWARE_SOCKET.length()));
-
-                        if (!serverSideTransmitService.awareServerSideSocket(port)) {
-                        }
+                        String body = msg.substring(AWARE_SOCKET.length());
+                        int port = Integer.parseInt(MessageUtil.head(body));
+                        String serviceName = MessageUtil.options(body).get("service");
+
+                        // 失败时已记录日志并关闭该Socket，服务器侧随之放弃此次透传；无论成败都补足空闲透传Socket
+                        serverSideTransmitService.awareServerSideSocket(port, serviceName);
+                        serverSideTransmitService.warmUp(session);
+                    } else if (msg.startsWith(PUNCH)) {
+                        String body = msg.substring(PUNCH.length());
+                        String port = MessageUtil.options(body).get("port");
+                        punchService.answer(MessageUtil.head(body), port == null ? null : service(Integer.parseInt(port)));
                     }
                 }
 
 
             }
 
-            communicationSocket.writeStringUnchecked(PS_CLOSED);
-            log.info("Proxy server communication socket closed");
-            shutdown();
+            if (unworkable()) {
+                communicationSocket.writeStringUnchecked(PS_CLOSED);
+                log.info("Proxy server communication socket closed");
+                shutdown();
+                return;
+            }
+            failover(relay);
         }).start();
+    }
 
-        workingStatus = WorkingStatusEnum.WORKING;
-        return true;
+    // 当前中继断开或心跳超时，先凭恢复凭证重连原中继，失败再切换到其他中继重新注册，全部不可用时按抖动的指数退避重试
+    private void failover(RelayCandidate relay) {
+        long start = System.nanoTime();
+        communicationSocket.close();
+
+        if (resumeToken != null && connect(relay)) {
+            log.info("Reconnect to proxy server({}) in {} ms", relay, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return;
+        }
+        relaySelectionService.markDown(relay);
+
+        Backoff backoff = backoff();
+        while (!unworkable()) {
+            if (connect()) {
+                relaySelectionService.onFailover(System.nanoTime() - start);
+                log.info("Failover to proxy server({}) in {} ms", relaySelectionService.current(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return;
+            }
+            if (!sleep(backoff.next(retryAfter))) return;
+        }
+    }
+
+    private Backoff backoff() {
+        RemoteServerProperties server = natTraversalProperties.getServer();
+        return new Backoff(server.getReconnectBackoff(), server.getMaxReconnectBackoff());
+    }
+
+    private boolean sleep(long millis) {
+        if (log.isDebugEnabled()) log.debug("Reconnect to proxy server in {} ms", millis);
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private void registerService(ConcurrentWriteSocket communicationSocket, ServiceProperties service) throws IOException {
+        communicationSocket.writeString(REGISTER_SERVICE + service.getName() + serviceOptions(service));
+        String msg = communicationSocket.readString();
+
+        if (msg != null && msg.startsWith(REGISTER_SERVICE_SUCCESS)) {
+            String port = MessageUtil.options(msg).get("port");
+            proxyPorts.put(service.getName(), Integer.parseInt(port));
+            log.info("==========----------Register Service Success, service: {} be proxied to port: {}----------==========", service.getName(), port);
+        } else {
+            log.error("Register Service(name: {}) Error: {}", service.getName(), msg);
+        }
+    }
+
+    // 代理端口对应的本地服务
+    private ServiceProperties service(int proxyPort) {
+        return natTraversalProperties.getClient().getServiceList().stream()
+                .filter(service -> Integer.valueOf(proxyPort).equals(proxyPorts.get(service.getName())))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String serviceOptions(ServiceProperties service) {
+        String options = "";
+        if (service.getGroup() != null && !service.getGroup().isEmpty()) {
+            options += MessageUtil.option("group", service.getGroup()) + MessageUtil.option("weight", service.getWeight());
+        }
+        if (service.getHosts() != null && !service.getHosts().isEmpty()) {
+            options += MessageUtil.option("host", String.join(",", service.getHosts()));
+        }
+        if (Boolean.TRUE.equals(service.getHttpCache())) {
+            options += MessageUtil.option("cache", true);
+        }
+        if (service.getProtocol() != null && !service.getProtocol().isEmpty()) {
+            options += MessageUtil.option("protocol", service.getProtocol());
+        }
+        if (service.getTransport() != null) {
+            options += MessageUtil.option("transport", service.getTransport().name().toLowerCase());
+        }
+        if (Boolean.TRUE.equals(service.getUdp())) {
+            options += MessageUtil.option("udp", true);
+        }
+        if (service.getStripePaths() != null && service.getStripePaths() > 1) {
+            options += MessageUtil.option("stripe", service.getStripePaths());
+        }
+        return options;
     }
 
     @Override
@@ -171,9 +409,41 @@ public class ProxyServerCommunicationServiceImpl implements ProxyServerCommunica
     @Override
     public void shutdown() {
         if (workingStatus == WorkingStatusEnum.CLOSED || workingStatus == WorkingStatusEnum.CLOSING) return;
+        if (communicationSocket == null) return;
+
+        if (workingStatus == WorkingStatusEnum.WORKING) {
+            workingStatus = WorkingStatusEnum.CLOSING;
+            drain();
+        }
+
+        workingStatus = WorkingStatusEnum.CLOSED;
+        udpForwardService.shutdown();
+        // 主动关闭时服务器立即释放会话，不保留等待恢复
+        communicationSocket.writeStringUnchecked(PS_CLOSED);
         communicationSocket.close();
     }
 
+    // 服务组副本先排空：通知服务器不再分配新连接，等待已有连接结束
+    private void drain() {
+        List<ServiceProperties> grouped = natTraversalProperties.getClient().getServiceList().stream()
+                .filter(service -> service.getGroup() != null && !service.getGroup().isEmpty())
+                .toList();
+        if (grouped.isEmpty() || communicationSocket.isClosed()) return;
+
+        grouped.forEach(service -> communicationSocket.writeStringUnchecked(DRAIN_SERVICE + service.getName()));
+        log.info("Draining services: {}", grouped.stream().map(ServiceProperties::getName).toList());
+
+        long deadline = System.currentTimeMillis() + natTraversalProperties.getClient().getDrainTimeout();
+        while (serverSideTransmitService.busyCount() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
     private boolean serverTimeout() {
         return System.currentTimeMillis() - lastPongTime > SERVER_KEEP_ALIVE_TIME;
     }
@@ -0,0 +1,306 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.PunchProperties;
+import com.fate.nat_traversal.config.ServiceProperties;
+import com.fate.nat_traversal.config.VisitorProperties;
+import com.fate.nat_traversal.enums.NatTypeEnum;
+import com.fate.nat_traversal.punch.DirectPipe;
+import com.fate.nat_traversal.punch.HolePuncher;
+import com.fate.nat_traversal.punch.PunchStats;
+import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.PunchService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+import com.fate.nat_traversal.util.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞：
+ *  1. 启动时从同一本地端口探测服务器注册端口与探测端口，比较映射地址得到NAT类型
+ *  2. 访问端每个本地连接经服务器交换候选地址后打洞，连通则直连传输，不经服务器；失败则连接代理端口中继
+ *  3. 被代理端点收到通知后从新的本地端口应答，打洞连通后连接本地服务
+ * 直连不经过服务器TLS，访问端与被代理端点之间明文传输
+ */
+@Slf4j
+@Service
+public class PunchServiceImpl implements PunchService, DisposableBean {
+
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    private final ThreadPoolExecutor pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>());
+
+    private final List<ServerSocket> visitorSockets = new CopyOnWriteArrayList<>();
+
+    private volatile NatTypeEnum natType = NatTypeEnum.UNKNOWN;
+
+    private volatile String mappedAddress;
+
+    private final LongAdder visits = new LongAdder();
+    private final LongAdder direct = new LongAdder();
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder directMillis = new LongAdder();
+    private final LongAdder answers = new LongAdder();
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder refusedAnswers = new LongAdder();
+    private final LongAdder directBytes = new LongAdder();
+    private final LongAdder relayedBytes = new LongAdder();
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
+    @Override
+    public void start() {
+        List<VisitorProperties> visitors = natTraversalProperties.getClient().getVisitors();
+        boolean punching = natTraversalProperties.getClient().getPunch().getEnabled()
+                || visitors.stream().anyMatch(visitor -> Boolean.TRUE.equals(visitor.getPunch()));
+        if (punching && natTraversalProperties.getClient().getPunch().getProbe()) {
+            probe();
+        }
+        visitors.forEach(this::listen);
+    }
+
+    @Override
+    public void answer(String punchId, ServiceProperties service) {
+        answers.increment();
+        pool.execute(() -> {
+            Socket direct = punch(ProxyServerCommunicationService.PUNCH_ANSWER + punchId, service == null || !natTraversalProperties.getClient().getPunch().getEnabled(), punchId, true);
+            if (direct == null) return;
+
+            Socket local = new Socket();
+            try {
+                local.connect(service.getServerHost() == null
+                        ? new InetSocketAddress(service.getServerPort())
+                        : new InetSocketAddress(service.getServerHost(), service.getServerPort()), CONNECT_TIMEOUT);
+            } catch (IOException e) {
+                log.warn("Punch({}) connect local service(name: {}) failed: {}", punchId, service.getName(), e.getMessage());
+                closeQuietly(direct);
+                closeQuietly(local);
+                return;
+            }
+            answered.increment();
+            new DirectPipe(direct, local, directBytes).run(pool);
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        visitorSockets.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException e) {}
+        });
+        pool.shutdownNow();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        shutdown();
+    }
+
+    @Override
+    public PunchStats getStats() {
+        long directCount = direct.sum();
+        return PunchStats.builder()
+                .enabled(natTraversalProperties.getClient().getPunch().getEnabled())
+                .natType(natType)
+                .mappedAddress(mappedAddress)
+                .visits(visits.sum())
+                .direct(directCount)
+                .relayed(relayed.sum())
+                .directMillis(directCount == 0 ? null : (double) directMillis.sum() / directCount)
+                .answers(answers.sum())
+                .answered(answered.sum())
+                .refusedAnswers(refusedAnswers.sum())
+                .directBytes(directBytes.sum())
+                .relayedBytes(relayedBytes.sum())
+                .build();
+    }
+
+    private void listen(VisitorProperties visitor) {
+        ServerSocket serverSocket;
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(visitor.getBindHost() == null
+                    ? new InetSocketAddress(InetAddress.getLoopbackAddress(), visitor.getBindPort())
+                    : new InetSocketAddress(visitor.getBindHost(), visitor.getBindPort()));
+        } catch (IOException e) {
+            log.error("Visitor(name: {}) listen on port {} failed: {}", visitor.getName(), visitor.getBindPort(), e.getMessage());
+            return;
+        }
+        visitorSockets.add(serverSocket);
+
+        Thread thread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    pool.execute(() -> visit(visitor, socket));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) log.warn("Visitor(name: {}) accept error: {}", visitor.getName(), e.getMessage());
+                }
+            }
+        }, "visitor-" + visitor.getName());
+        thread.setDaemon(true);
+        thread.start();
+        log.info("==========----------Visitor: {} listening on port: {} -> proxy port: {}----------==========", visitor.getName(), visitor.getBindPort(), visitor.getProxyPort());
+    }
+
+    private void visit(VisitorProperties visitor, Socket socket) {
+        visits.increment();
+        long start = System.nanoTime();
+        Socket peer = Boolean.TRUE.equals(visitor.getPunch())
+                ? punch(ProxyServerCommunicationService.PUNCH_REQUEST + visitor.getProxyPort(), false, null, false)
+                : null;
+
+        if (peer != null) {
+            direct.increment();
+            directMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            new DirectPipe(socket, peer, directBytes).run(pool);
+            return;
+        }
+
+        // 回落到服务器中继
+        Socket relay = new Socket();
+        try {
+            relay.connect(new InetSocketAddress(relaySelectionService.host(), visitor.getProxyPort()), CONNECT_TIMEOUT);
+        } catch (IOException e) {
+            log.warn("Visitor(name: {}) relay connect failed: {}", visitor.getName(), e.getMessage());
+            closeQuietly(relay);
+            closeQuietly(socket);
+            return;
+        }
+        relayed.increment();
+        new DirectPipe(socket, relay, relayedBytes).run(pool);
+    }
+
+    /**
+     * 经服务器交换候选地址并打洞
+     * @param message 请求或应答消息头，后接本地地址与NAT类型
+     * @param refuse 仅回复拒绝（被代理端点未开启直连）
+     * @param punchId 应答时为服务器分配的id，请求时从回复中取得
+     * @param answering 是否为被代理端点一侧
+     */
+    private Socket punch(String message, boolean refuse, String punchId, boolean answering) {
+        PunchProperties punch = natTraversalProperties.getClient().getPunch();
+        Socket rendezvous = null;
+        String reply;
+        int localPort;
+        try {
+            rendezvous = HolePuncher.reusableSocket();
+            rendezvous.bind(new InetSocketAddress(0));
+            rendezvous.connect(new InetSocketAddress(relaySelectionService.host(), relaySelectionService.port()), CONNECT_TIMEOUT);
+            localPort = rendezvous.getLocalPort();
+            String local = rendezvous.getLocalAddress().getHostAddress() + ":" + localPort;
+            rendezvous = tlsService.wrap(rendezvous);
+            rendezvous.setSoTimeout(punch.getExchangeTimeout());
+
+            ConcurrentWriteSocket socket = new ConcurrentWriteSocket(rendezvous);
+            socket.writeString(message + MessageUtil.option("local", local) + MessageUtil.option("nat", natType.name().toLowerCase())
+                    + (refuse ? MessageUtil.option("refuse", true) : ""));
+            if (refuse) {
+                refusedAnswers.increment();
+                return null;
+            }
+            // 服务器回复后即关闭连接
+            reply = socket.readString();
+        } catch (IOException e) {
+            log.info("Punch exchange failed: {}", e.getMessage());
+            return null;
+        } finally {
+            closeQuietly(rendezvous);
+        }
+
+        if (reply == null || !reply.startsWith(ProxyServerCommunicationService.PUNCH_PEER)) {
+            if (log.isDebugEnabled()) log.debug("Punch refused: {}", reply);
+            return null;
+        }
+        String body = reply.substring(ProxyServerCommunicationService.PUNCH_PEER.length());
+        Map<String, String> options = MessageUtil.options(body);
+        if (punchId == null) punchId = MessageUtil.head(body);
+
+        HolePuncher puncher = new HolePuncher(localPort, HolePuncher.candidates(options.get("peer"), options.get("local")), punch.getAttemptTimeout());
+        long deadline = System.currentTimeMillis() + punch.getTimeout();
+        Socket peer = answering ? puncher.accept(punchId, deadline) : puncher.connect(punchId, deadline);
+        if (peer == null) log.info("Punch({}) failed, peer: {}", punchId, options.get("peer"));
+        return peer;
+    }
+
+    private void probe() {
+        Socket socket = null;
+        try {
+            socket = HolePuncher.reusableSocket();
+            socket.bind(new InetSocketAddress(0));
+            socket.connect(new InetSocketAddress(relaySelectionService.host(), relaySelectionService.port()), CONNECT_TIMEOUT);
+            int localPort = socket.getLocalPort();
+            String local = socket.getLocalAddress().getHostAddress() + ":" + localPort;
+            socket = tlsService.wrap(socket);
+            String body = probe(socket);
+            closeQuietly(socket);
+            if (body == null) return;
+
+            mappedAddress = MessageUtil.head(body);
+            String probePort = MessageUtil.options(body).get("probe");
+            if (mappedAddress.equals(local)) {
+                natType = NatTypeEnum.OPEN;
+            } else if (probePort != null) {
+                // 从同一本地端口探测另一端口，映射不变则与目的地址无关
+                socket = HolePuncher.reusableSocket();
+                socket.bind(new InetSocketAddress(localPort));
+                socket.connect(new InetSocketAddress(relaySelectionService.host(), Integer.parseInt(probePort)), CONNECT_TIMEOUT);
+                String second = probe(socket);
+                if (second != null) {
+                    natType = mappedAddress.equals(MessageUtil.head(second)) ? NatTypeEnum.CONE : NatTypeEnum.SYMMETRIC;
+                }
+            }
+            log.info("NAT type: {}, mapped address: {}", natType, mappedAddress);
+        } catch (IOException | NumberFormatException e) {
+            log.warn("NAT probe failed: {}", e.getMessage());
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    private String probe(Socket socket) throws IOException {
+        socket.setSoTimeout(CONNECT_TIMEOUT);
+        ConcurrentWriteSocket probe = new ConcurrentWriteSocket(socket);
+        probe.writeString(ProxyServerCommunicationService.PUNCH_PROBE);
+        String reply = probe.readString();
+        return reply != null && reply.startsWith(ProxyServerCommunicationService.PUNCH_PROBE_RESULT)
+                ? reply.substring(ProxyServerCommunicationService.PUNCH_PROBE_RESULT.length())
+                : null;
+    }
+
+    private void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
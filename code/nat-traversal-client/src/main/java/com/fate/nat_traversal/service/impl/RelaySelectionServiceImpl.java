@@ -0,0 +1,271 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.RemoteServerProperties;
+import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.standby.RelayCandidate;
+import com.fate.nat_traversal.standby.RelaySelectionStats;
+import com.fate.nat_traversal.standby.RelayStats;
+import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 多中继选择：
+ *  1. 启动时依次探测全部中继（连接、TLS握手、一次探测往返），按 RTT + 负载*loadPenalty 选择最优中继注册
+ *  2. 独立线程定时探测未使用的中继，只保留次优中继的连接作为备用通信连接，其余探测后关闭
+ *  3. 当前中继心跳超时或断开时在备用连接上直接注册，省去建连与TLS握手
+ *  4. 当前中继正常时不主动迁移，已建立的连接与代理端口保持不变
+ */
+@Slf4j
+@Service
+public class RelaySelectionServiceImpl implements RelaySelectionService, DisposableBean {
+
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    // 重定向会在运行中加入候选中继
+    private final List<RelayCandidate> candidates = new CopyOnWriteArrayList<>();
+
+    private volatile RelayCandidate current;
+
+    private volatile boolean closed = false;
+
+    private volatile long lastFailoverNanos = 0;
+
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder standbyPromotions = new LongAdder();
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @PostConstruct
+    private void init() {
+        RemoteServerProperties server = natTraversalProperties.getServer();
+        server.getRelays().forEach(relay -> {
+            int index = relay.lastIndexOf(':');
+            if (index <= 0) {
+                log.warn("Invalid relay: {}", relay);
+                return;
+            }
+            candidates.add(new RelayCandidate(relay.substring(0, index), Integer.parseInt(relay.substring(index + 1))));
+        });
+        if (candidates.isEmpty()) candidates.add(new RelayCandidate(server.getHost(), server.getPort()));
+        current = candidates.get(0);
+
+        if (candidates.size() < 2) return;
+        Thread thread = new Thread(() -> {
+            while (!closed) {
+                try {
+                    Thread.sleep(server.getProbeInterval());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                probeStandby();
+            }
+        }, "relay-probe");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public List<RelayCandidate> rank() {
+        if (candidates.size() > 1) {
+            candidates.forEach(relay -> {
+                if (relay != current || !relay.isAvailable()) probe(relay);
+            });
+        }
+        long loadPenalty = natTraversalProperties.getServer().getLoadPenalty();
+        List<RelayCandidate> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.comparingDouble(relay -> relay.score(loadPenalty)));
+        return ranked;
+    }
+
+    @Override
+    public ConcurrentWriteSocket open(RelayCandidate relay) throws IOException {
+        synchronized (relay) {
+            ConcurrentWriteSocket standby = relay.getStandby();
+            relay.setStandby(null);
+            if (standby != null && !standby.isClosed()) {
+                standby.getSOCKET().setSoTimeout(0);
+                standbyPromotions.increment();
+                return standby;
+            }
+        }
+        return new ConcurrentWriteSocket(connect(relay));
+    }
+
+    @Override
+    public void use(RelayCandidate relay) {
+        current = relay;
+        relay.setAvailable(true);
+        log.info("Relay selected: {} (rtt: {} ms, load: {})", relay, relay.getRttMillis(), relay.getLoad());
+    }
+
+    @Override
+    public synchronized RelayCandidate candidate(String address) {
+        int index = address.lastIndexOf(':');
+        String host = address.substring(0, index);
+        int port = Integer.parseInt(address.substring(index + 1));
+        for (RelayCandidate relay : candidates) {
+            if (relay.getHost().equals(host) && relay.getPort() == port) return relay;
+        }
+        RelayCandidate relay = new RelayCandidate(host, port);
+        candidates.add(relay);
+        log.info("Relay {} added by redirect", relay);
+        return relay;
+    }
+
+    @Override
+    public RelayCandidate current() {
+        return current;
+    }
+
+    @Override
+    public String host() {
+        return current.getHost();
+    }
+
+    @Override
+    public int port() {
+        return current.getPort();
+    }
+
+    @Override
+    public void markDown(RelayCandidate relay) {
+        relay.onFailure();
+        log.warn("Relay {} down", relay);
+    }
+
+    @Override
+    public void onFailover(long nanos) {
+        failovers.increment();
+        lastFailoverNanos = nanos;
+    }
+
+    @Override
+    public void onRtt(long nanos) {
+        RelayCandidate relay = current;
+        if (relay != null) relay.onRtt(nanos / 1e6);
+    }
+
+    @Override
+    public void shutdown() {
+        closed = true;
+        candidates.forEach(relay -> {
+            synchronized (relay) {
+                if (relay.getStandby() != null) relay.getStandby().close();
+                relay.setStandby(null);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        shutdown();
+    }
+
+    @Override
+    public RelaySelectionStats getStats() {
+        long loadPenalty = natTraversalProperties.getServer().getLoadPenalty();
+        List<RelayStats> relays = new ArrayList<>();
+        candidates.forEach(relay -> relays.add(RelayStats.builder()
+                .relay(relay.toString())
+                .current(relay == current)
+                .available(relay.isAvailable())
+                .standby(relay.getStandby() != null && !relay.getStandby().isClosed())
+                .rttMillis(relay.getRttMillis())
+                .load(relay.getLoad())
+                .score(relay.getRttMillis() == null || !relay.isAvailable() ? null : relay.score(loadPenalty))
+                .failures(relay.getFailures())
+                .build()));
+        return RelaySelectionStats.builder()
+                .current(current.toString())
+                .failovers(failovers.sum())
+                .standbyPromotions(standbyPromotions.sum())
+                .lastFailoverMillis(lastFailoverNanos == 0 ? null : lastFailoverNanos / 1e6)
+                .relays(relays)
+                .build();
+    }
+
+    // 探测未使用的中继，只为次优中继保留连接
+    private void probeStandby() {
+        List<RelayCandidate> others = new ArrayList<>();
+        candidates.forEach(relay -> {
+            if (relay == current || closed) return;
+            probe(relay);
+            others.add(relay);
+        });
+
+        long loadPenalty = natTraversalProperties.getServer().getLoadPenalty();
+        others.sort(Comparator.comparingDouble(relay -> relay.score(loadPenalty)));
+        for (int i = 1; i < others.size(); ++i) {
+            RelayCandidate relay = others.get(i);
+            synchronized (relay) {
+                if (relay.getStandby() != null) relay.getStandby().close();
+                relay.setStandby(null);
+            }
+        }
+    }
+
+    private void probe(RelayCandidate relay) {
+        synchronized (relay) {
+            ConcurrentWriteSocket socket = relay.getStandby();
+            try {
+                if (socket == null || socket.isClosed()) {
+                    socket = new ConcurrentWriteSocket(connect(relay));
+                    relay.setStandby(socket);
+                }
+                socket.getSOCKET().setSoTimeout(CONNECT_TIMEOUT);
+
+                long start = System.nanoTime();
+                socket.writeString(ProxyServerCommunicationService.RELAY_PROBE);
+                String reply = socket.readString();
+                long rtt = System.nanoTime() - start;
+                if (reply == null || !reply.startsWith(ProxyServerCommunicationService.RELAY_PROBE_RESULT)) {
+                    throw new IOException("unexpected probe reply: " + reply);
+                }
+                String body = reply.substring(ProxyServerCommunicationService.RELAY_PROBE_RESULT.length());
+                relay.onProbe(TimeUnit.NANOSECONDS.toMicros(rtt) / 1000.0, Double.parseDouble(MessageUtil.head(body)));
+            } catch (IOException | NumberFormatException e) {
+                if (relay.isAvailable()) log.info("Probe relay {} failed: {}", relay, e.getMessage());
+                relay.onFailure();
+                if (socket != null) socket.close();
+                relay.setStandby(null);
+            }
+        }
+    }
+
+    private Socket connect(RelayCandidate relay) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setReuseAddress(true);
+            socket.connect(new InetSocketAddress(relay.getHost(), relay.getPort()), CONNECT_TIMEOUT);
+            return tlsService.wrap(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+}
@@ -1,14 +1,36 @@
 package com.fate.nat_traversal.service.impl;
 
+import com.fate.nat_traversal.compress.FrameDecoder;
+import com.fate.nat_traversal.compress.FrameEncoder;
 import com.fate.nat_traversal.config.ClientProperties;
 import com.fate.nat_traversal.config.NatTraversalProperties;
-import com.fate.nat_traversal.config.RemoteServerProperties;
+import com.fate.nat_traversal.config.RelayProperties;
+import com.fate.nat_traversal.config.ServiceProperties;
+import com.fate.nat_traversal.config.TransportProfileProperties;
 import com.fate.nat_traversal.enums.WorkingStatusEnum;
+import com.fate.nat_traversal.limit.FlowWindow;
 import com.fate.nat_traversal.model.CommonSocket;
 import com.fate.nat_traversal.model.ServerSideTransmitSocket;
+import com.fate.nat_traversal.relay.CoalescingSource;
+import com.fate.nat_traversal.relay.DirectSource;
+import com.fate.nat_traversal.relay.PipelinedSource;
+import com.fate.nat_traversal.relay.RelaySource;
+import com.fate.nat_traversal.relay.SpscRing;
+import com.fate.nat_traversal.relay.TransferMeter;
+import com.fate.nat_traversal.stream.StripedStream;
+import com.fate.nat_traversal.stream.TunnelStream;
+import com.fate.nat_traversal.service.BufferTuningService;
+import com.fate.nat_traversal.service.CompressionService;
 import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.MemoryService;
 import com.fate.nat_traversal.service.ServerSideTransmitService;
+import com.fate.nat_traversal.service.StreamService;
+import com.fate.nat_traversal.service.StripeService;
 import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.util.MessageUtil;
+import com.fate.nat_traversal.util.SocketOptions;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,10 +41,12 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -39,15 +63,21 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
     private static final Map<Integer, ServerSideTransmitSocket> SPARE_TRANSMIT_SOCKETS = new ConcurrentHashMap<>();
     private static final LinkedList<ServerSideTransmitSocket> BUSY_TRANSMIT_SOCKETS = new LinkedList<>();
 
+    private static final byte[] CLIENT_CLOSED_BYTES = ProxyServerCommunicationService.CLIENT_CLOSED.getBytes(StandardCharsets.UTF_8);
+
     // 客户端数据传输线程池
     private ThreadPoolExecutor transmitPool;
 
+    // 预先握手空闲透传Socket的补充线程，同时至多一个补充任务
+    private ThreadPoolExecutor warmPool;
+
     // 运行状态
     private WorkingStatusEnum workingStatus = WorkingStatusEnum.INIT;
 
     private ClientProperties clientProperties;
 
-    private RemoteServerProperties remoteServerProperties;
+    // 服务名-本地服务配置
+    private final Map<String, ServiceProperties> services = new ConcurrentHashMap<>();
 
     @Autowired
     private NatTraversalProperties natTraversalProperties;
@@ -55,18 +85,44 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
     @Autowired
     private TaskSchedulerService taskScheduler;
 
+    @Autowired
+    private MemoryService memoryService;
+
+    @Autowired
+    private BufferTuningService bufferTuningService;
+
+    @Autowired
+    private CompressionService compressionService;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
+    @Autowired
+    private StreamService streamService;
+
+    @Autowired
+    private StripeService stripeService;
+
     @PostConstruct
     private void init() {
         clientProperties = natTraversalProperties.getClient();
-        remoteServerProperties = natTraversalProperties.getServer();
+        clientProperties.getServiceList().forEach(service -> services.put(service.getName(), service));
+        // 每个连接占用两个阻塞线程，流水线模式另加两个读线程；任务排队会使连接无线程可用，故核心线程数即最大线程数
+        int threads = clientProperties.getMaxConnection() * (clientProperties.getRelay().getPipelined() ? 4 : 2);
         transmitPool= new ThreadPoolExecutor(
-                clientProperties.getMaxConnection()*2/3,
-                clientProperties.getMaxConnection()*2,
+                threads,
+                threads,
                 5,
                 TimeUnit.MINUTES,
                 new LinkedBlockingDeque<>(clientProperties.getMaxConnection()*2),
                 new ThreadPoolExecutor.AbortPolicy()
         );
+        transmitPool.allowCoreThreadTimeOut(true);
+        warmPool = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new SynchronousQueue<>(), new ThreadPoolExecutor.DiscardPolicy());
+        warmPool.allowCoreThreadTimeOut(true);
 
         // 定时清理
         taskScheduler.submit(() -> {
@@ -105,15 +161,57 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
 
     @Override
     public boolean createServerSideSocket(String session) {
+        return createServerSideSocket(session, false);
+    }
+
+    @Override
+    public void warmUp(String session) {
+        int warm = tlsService.warmSockets();
+        if (warm <= 0 || unworkable()) return;
+
+        // 补充线程忙时丢弃，下次心跳再检查
+        warmPool.execute(() -> {
+            int missing = warm - spareCount();
+            while (missing-- > 0 && !unworkable()) {
+                if (!createServerSideSocket(session, true)) break;
+            }
+        });
+    }
+
+    @Override
+    public void discardSpares() {
+        SPARE_TRANSMIT_SOCKETS.values().forEach(ServerSideTransmitSocket::closeUnchecked);
+        SPARE_TRANSMIT_SOCKETS.clear();
+    }
+
+    @Override
+    public int spareCount() {
+        int count = 0;
+        for (ServerSideTransmitSocket tSocket : SPARE_TRANSMIT_SOCKETS.values()) {
+            if (!tSocket.isClosed() && tSocket.isAlive()) count++;
+        }
+        return count;
+    }
+
+    private boolean createServerSideSocket(String session, boolean warm) {
         if (unworkable()) return false;
 
-        ServerSideTransmitSocket tSocket = new ServerSideTransmitSocket(new Socket());
+        long start = System.nanoTime();
+        Socket socket = new Socket();
+        ServerSideTransmitSocket tSocket;
         try {
-            tSocket.getSocket().setReuseAddress(true);
-            tSocket.getSocket().connect(new InetSocketAddress(remoteServerProperties.getHost(), remoteServerProperties.getPort()));
+            socket.setReuseAddress(true);
+            // 透传Socket池由所有服务共享，缓冲大小取默认配置档
+            SocketOptions.apply(socket, clientProperties.getTransport().get(null));
+            // 缓冲在连接前设置才能影响TCP窗口扩大因子
+            bufferTuningService.apply(socket);
+            socket.connect(new InetSocketAddress(relaySelectionService.host(), relaySelectionService.port()));
+            tSocket = new ServerSideTransmitSocket(tlsService.wrap(socket));
         } catch (IOException e) {
             logError("Create ServerSideTransmitSocket failed: {}", e.getMessage());
-            tSocket.closeUnchecked();
+            try {
+                socket.close();
+            } catch (IOException ex) {}
             return false;
         }
 
@@ -138,37 +236,65 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
         }
 
 
+        tlsService.onCreate(System.nanoTime() - start, warm);
         if (log.isDebugEnabled()) log.debug("ServerSideTransmitSocket(port: {}) created", tSocket.getLocalPort());
         return true;
     }
 
     @Override
-    public boolean awareServerSideSocket(int port) {
+    public boolean awareServerSideSocket(int port, String serviceName) {
         ServerSideTransmitSocket tSocket = getSpareTransmitSocket(port);
         if (tSocket == null || tSocket.isClosed() || !tSocket.isAlive()) {
             log.warn("ServerSideTransmitSocket(port: {}) not exists", port);
             return false;
         }
 
-        if (!bindServerSideSocket(tSocket)) {
+        // 兼容未携带服务名的旧版服务器，取首个服务
+        ServiceProperties service = serviceName == null ? clientProperties.getServiceList().get(0) : services.get(serviceName);
+        if (service == null) {
+            log.warn("Service(name: {}) not exists", serviceName);
             tSocket.closeUnchecked();
-            log.warn("Bind ServerSideTransmitSocket failed");
             return false;
         }
 
+        // 先完成Ping/Pong再绑定，避免透传线程抢先读走Ping
         try {
-            if (!tSocket.readString().equals(ProxyServerCommunicationService.TSPING)) {
+            String ping = tSocket.readString();
+            if (ping == null || !ProxyServerCommunicationService.TSPING.equals(MessageUtil.head(ping))) {
+                tSocket.closeUnchecked();
                 return false;
             }
+            Map<String, String> options = MessageUtil.options(ping);
+            // 条带的其余路径加入已有的流，不连接本地服务
+            String stripeId = options.get("stripe");
+            if (stripeId != null && !"0".equals(options.get("path"))) {
+                tSocket.write(ProxyServerCommunicationService.TSPONG);
+                if (!stripeService.attach(stripeId, tSocket.getSocket())) tSocket.closeUnchecked();
+                return true;
+            }
+            // 先登记条带流再回复Pong，服务器收到Pong后即开始唤醒其余路径
+            StripedStream striped = stripeId == null ? null : stripeService.open(stripeId, tSocket.getSocket());
             tSocket.write(ProxyServerCommunicationService.TSPONG);
+            // Ping携带流id时该Socket之后按帧传输
+            String streamId = options.get("stream");
+            if (streamId != null) tSocket.setStream(streamService.open(streamId, tSocket.getSocket()));
+            if (striped != null) tSocket.setStream(striped);
         } catch (IOException e) {
             log.warn("ServerSideTransmitSocket(port: {}) aware error;(Exception: {})", tSocket.getLocalPort(), e.getMessage());
             tSocket.closeUnchecked();
             return false;
         }
 
+        if (!bindServerSideSocket(tSocket, service)) {
+            tSocket.closeUnchecked();
+            log.warn("Bind ServerSideTransmitSocket failed");
+            return false;
+        }
+
         log.info("ServerSideTransmitSocket(port: {}) binded", tSocket.getLocalPort());
-        BUSY_TRANSMIT_SOCKETS.add(tSocket);
+        synchronized (BUSY_TRANSMIT_SOCKETS) {
+            BUSY_TRANSMIT_SOCKETS.add(tSocket);
+        }
         return true;
     }
 
@@ -181,6 +307,13 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
         return transmitSocket.get();
     }
 
+    @Override
+    public int busyCount() {
+        synchronized (BUSY_TRANSMIT_SOCKETS) {
+            return BUSY_TRANSMIT_SOCKETS.size();
+        }
+    }
+
     @Override
     public void shutdown() {
         if (workingStatus == WorkingStatusEnum.CLOSED || workingStatus == WorkingStatusEnum.CLOSING) return;
@@ -195,29 +328,48 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
         BUSY_TRANSMIT_SOCKETS.forEach(tSocket -> tSocket.closeUnchecked());
 
         transmitPool.shutdown();
+        warmPool.shutdownNow();
 
         workingStatus = WorkingStatusEnum.CLOSED;
         log.info("ServerSideTransmitService shutdown gracefully");
     }
 
-    private boolean bindServerSideSocket(ServerSideTransmitSocket tSocket) {
+    private boolean bindServerSideSocket(ServerSideTransmitSocket tSocket, ServiceProperties service) {
         if (unworkable()) return false;
         if (tSocket.isClosed() || !tSocket.isAlive()) {
             log.warn("ServerSideTransmitSocket is closed or not alive");
             return false;
         }
 
+        TransportProfileProperties profile = clientProperties.getTransport().get(service.getTransport());
         CommonSocket ssSocket = null;
         try {
             ssSocket = new CommonSocket(new Socket());
             ssSocket.getSocket().setReuseAddress(true);
-            ssSocket.getSocket().connect(new InetSocketAddress(clientProperties.getServerPort()));
+            SocketOptions.apply(ssSocket.getSocket(), profile);
+            ssSocket.getSocket().connect(service.getServerHost() == null
+                    ? new InetSocketAddress(service.getServerPort())
+                    : new InetSocketAddress(service.getServerHost(), service.getServerPort()));
         } catch (IOException e) {
             logError("Bind ServerSideTransmitSocket failed: {}", e.getMessage());
             return false;
         }
 
-        return submitSS2PSTransmitTask(ssSocket, tSocket) && submitPS2SSTransmitTask(tSocket, ssSocket);
+        SocketOptions.applyNoDelay(tSocket.getSocket(), profile);
+        // 按链路BDP调整透传Socket缓冲与单次读取大小
+        int readSize = bufferTuningService.apply(tSocket.getSocket());
+
+        // 两个方向均结束后才归还Socket，避免残留的读线程抢读下一次连接的数据
+        AtomicInteger transmitting = new AtomicInteger(2);
+        if (!submitSS2PSTransmitTask(ssSocket, tSocket, transmitting, profile, readSize)) {
+            ssSocket.closeUnchecked();
+            return false;
+        }
+        if (!submitPS2SSTransmitTask(tSocket, ssSocket, transmitting, profile, readSize)) {
+            ssSocket.closeUnchecked();
+            tSocket.closeUnchecked();
+        }
+        return true;
     }
 
 
@@ -250,7 +402,17 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
 
     // 归还Socket
     private void returnTransmitSocket(ServerSideTransmitSocket tSocket) {
-        BUSY_TRANSMIT_SOCKETS.remove(tSocket);
+        synchronized (BUSY_TRANSMIT_SOCKETS) {
+            BUSY_TRANSMIT_SOCKETS.remove(tSocket);
+        }
+
+        // 分帧流结束后关闭其透传Socket，不回收
+        TunnelStream stream = tSocket.getStream();
+        if (stream != null) {
+            stream.finish();
+            tSocket.closeUnchecked();
+            return;
+        }
 
         if (unworkable() || !tSocket.isAlive()) {
             tSocket.closeUnchecked();
@@ -263,14 +425,23 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
         }
     }
 
-    private boolean submitSS2PSTransmitTask(CommonSocket ssSocket, ServerSideTransmitSocket psSocket) {
+    private void releaseTransmitSocket(ServerSideTransmitSocket tSocket, AtomicInteger transmitting) {
+        if (transmitting.decrementAndGet() == 0) {
+            returnTransmitSocket(tSocket);
+        }
+    }
+
+    private boolean submitSS2PSTransmitTask(CommonSocket ssSocket, ServerSideTransmitSocket psSocket, AtomicInteger transmitting, TransportProfileProperties profile, int readSize) {
         try {
             transmitPool.submit(() -> {
                 if (log.isDebugEnabled()) log.debug("ProxySideTransmitSocket-SS2PS(port: {}) start transmit in (port: {}; remote ip: {})", ssSocket.getLocalPort(), psSocket.getLocalPort(), psSocket.getRemoteSocketAddress().toString());
+                RelaySource source = newSource(ssSocket, null, profile, readSize);
+                TransferMeter meter = new TransferMeter();
+                FrameEncoder encoder = compressionService.newEncoder();
                 while (!ssSocket.isClosed() && !psSocket.isClosed()) {
                     byte[] buffer = null;
                     try {
-                        buffer = ssSocket.read();
+                        buffer = source.read();
                     } catch (IOException e) {
                         log.info("ServerSideSocket-SS2PS(port: {}) Connection interrupt; (Error: {})", ssSocket.getLocalPort(), e.getMessage());
                         break;
@@ -280,14 +451,22 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
                         break;
                     }
 
-                    if (!psSocket.writeUnchecked(buffer) && !unworkable()) {
+                    int charged = buffer.length;
+
+                    if (!psSocket.writeUnchecked(encoder == null ? buffer : encoder.encode(buffer)) && !unworkable()) {
                         if (!psSocket.isPositiveClosed()) logError("ProxySideTransmitSocket-SS2PS(port: {}) Connection interrupt;", psSocket.getLocalPort());
                         break;
                     }
+                    meter.record(charged);
+                    source.release(charged);
                 }
 
+                source.close();
+                bufferTuningService.onTransfer(meter, readSize > 0);
+                if (encoder != null) encoder.close();
                 ssSocket.closeUnchecked();
                 psSocket.writeUnchecked(ProxyServerCommunicationServiceImpl.SERVER_CLOSED);
+                releaseTransmitSocket(psSocket, transmitting);
                 log.info("ServerSideSocket-SS2PS(port: {}) Connection closed", ssSocket.getLocalPort());
             });
         }catch (RejectedExecutionException e) {
@@ -296,33 +475,63 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
         return true;
     }
 
-    private boolean submitPS2SSTransmitTask(ServerSideTransmitSocket psSocket, CommonSocket ssSocket) {
+    private boolean submitPS2SSTransmitTask(ServerSideTransmitSocket psSocket, CommonSocket ssSocket, AtomicInteger transmitting, TransportProfileProperties profile, int readSize) {
         try {
             transmitPool.submit(() -> {
-                while (!ssSocket.isClosed() && !psSocket.isClosed()) {
+                // 本地服务关闭后仍需读至“Client Closed”，保证归还时透传Socket中无残留数据
+                RelaySource source = newSource(psSocket, CLIENT_CLOSED_BYTES, profile, readSize);
+                TransferMeter meter = new TransferMeter();
+                FrameDecoder decoder = compressionService.newDecoder(CLIENT_CLOSED_BYTES);
+                while (!psSocket.isClosed()) {
                     byte[] buffer = null;
+                    // 在途额度按透传Socket上读出的字节计
+                    int charged = 0;
                     try {
-                        buffer = psSocket.read();
+                        buffer = source.read();
+                        if (buffer != null) {
+                            charged = buffer.length;
+                            if (decoder != null) buffer = decoder.decode(buffer);
+                        }
                     } catch (IOException e) {
                         if (!psSocket.isPositiveClosed()) logError("ProxySideTransmitSocket-PS2SS(port: {}) Connection interrupt; (Error: {})",  psSocket.getLocalPort(), e.getMessage());
+                        psSocket.closeUnchecked();
                         break;
                     }
 
-                    if (buffer == null || bytesToString(buffer).equals(ProxyServerCommunicationServiceImpl.CLIENT_CLOSED)) {
+                    if (buffer == null) {
+                        psSocket.closeUnchecked();
                         break;
                     }
 
-                    try {
-                        ssSocket.write(buffer);
-                    } catch (IOException e) {
-                        if (log.isDebugEnabled())
-                            log.debug("ServerSideSocket-PS2C(port: {}) Closed", ssSocket.getLocalPort());
+                    meter.record(charged);
+
+                    // 结束标识可能与末尾数据粘连
+                    boolean clientClosed = endsWith(buffer, CLIENT_CLOSED_BYTES);
+                    if (clientClosed) {
+                        buffer = Arrays.copyOf(buffer, buffer.length - CLIENT_CLOSED_BYTES.length);
+                    }
+
+                    if (buffer.length > 0 && !ssSocket.isClosed()) {
+                        try {
+                            ssSocket.write(buffer);
+                        } catch (IOException e) {
+                            if (log.isDebugEnabled())
+                                log.debug("ServerSideSocket-PS2C(port: {}) Closed", ssSocket.getLocalPort());
+                            ssSocket.closeUnchecked();
+                        }
+                    }
+
+                    if (clientClosed) {
                         break;
                     }
+                    source.release(charged);
                 }
 
+                source.close();
+                bufferTuningService.onTransfer(meter, readSize > 0);
+                if (decoder != null) decoder.close();
                 ssSocket.closeUnchecked();
-                returnTransmitSocket(psSocket);
+                releaseTransmitSocket(psSocket, transmitting);
             });
         }catch (RejectedExecutionException e) {
             return false;
@@ -330,7 +539,33 @@ public class ServerSideTransmitServiceImpl implements ServerSideTransmitService
         return true;
     }
 
+    // 创建透传方向的数据来源，流水线模式下读线程提交失败则退回同步读取；配置档开启合并时包装合并写出
+    private RelaySource newSource(CommonSocket socket, byte[] endMarker, TransportProfileProperties profile, int readSize) {
+        RelaySource source = newSource(socket, endMarker, readSize);
+        if (profile.getCoalesceMicros() <= 0) return source;
+        return new CoalescingSource(source, profile.getCoalesceMicros(), profile.getCoalesceBytes(), endMarker);
+    }
 
+    private RelaySource newSource(CommonSocket socket, byte[] endMarker, int readSize) {
+        FlowWindow window = memoryService.newWindow();
+        RelayProperties relay = clientProperties.getRelay();
+        if (relay.getPipelined()) {
+            int slotSize = readSize > 0 ? readSize : relay.getSlotSize();
+            PipelinedSource source = new PipelinedSource(socket, window, new SpscRing(relay.getRingSlots(), slotSize), endMarker);
+            try {
+                transmitPool.execute(source);
+                return source;
+            } catch (RejectedExecutionException e) {
+                log.warn("Transmit pool full, pipelined relay falls back to direct read");
+            }
+        }
+        return new DirectSource(socket, window, readSize);
+    }
+
+    private boolean endsWith(byte[] bytes, byte[] suffix) {
+        if (bytes.length < suffix.length) return false;
+        return Arrays.equals(bytes, bytes.length - suffix.length, bytes.length, suffix, 0, suffix.length);
+    }
 
     private String bytesToString(byte[] bytes) {
         return new String(bytes, StandardCharsets.UTF_8);
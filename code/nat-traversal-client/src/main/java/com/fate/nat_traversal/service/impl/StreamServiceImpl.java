@@ -0,0 +1,181 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.StreamProperties;
+import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.service.StreamService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.stream.ResumableStream;
+import com.fate.nat_traversal.stream.StreamStats;
+import com.fate.nat_traversal.util.MessageUtil;
+import com.fate.nat_traversal.util.SocketOptions;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复透传流：
+ *  1. 服务端在唤醒透传Socket时下发流id，之后该透传Socket只承载这一个流
+ *  2. 透传Socket断开后向当前中继新建连接，发送流id与已收到字节数，按服务端回复的位置重放
+ *  3. 连接失败时间隔重试，直至流恢复、被服务端拒绝或超过恢复时限
+ */
+@Slf4j
+@Service
+public class StreamServiceImpl implements StreamService {
+
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    private static final int REPLY_TIMEOUT = 3000;
+
+    private static final long RETRY_INTERVAL = 500;
+
+    // 回复行长度上限
+    private static final int MAX_REPLY_BYTES = 256;
+
+    // 流id-流
+    private static final Map<String, ResumableStream> STREAMS = new ConcurrentHashMap<>();
+
+    // 已关闭流的累计统计
+    private final AtomicLong lost = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong replayedBytes = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // 重连线程池，每个断开的流一个任务
+    private ThreadPoolExecutor resumePool;
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @PostConstruct
+    private void init() {
+        resumePool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.MINUTES, new SynchronousQueue<>());
+    }
+
+    @Override
+    public ResumableStream open(String id, Socket socket) {
+        StreamProperties properties = natTraversalProperties.getClient().getStream();
+        ResumableStream stream = new ResumableStream(id, socket, properties.getReplayBuffer(), properties.getResumeTimeout());
+        stream.setLostCallback(lostStream -> resumePool.execute(() -> reconnect(lostStream)));
+        stream.setCloseCallback(this::closed);
+        STREAMS.put(id, stream);
+        return stream;
+    }
+
+    @Override
+    public StreamStats getStats() {
+        int detached = 0;
+        long lostCount = lost.get();
+        long resumedCount = resumed.get();
+        long replayed = replayedBytes.get();
+        for (ResumableStream stream : STREAMS.values()) {
+            if (!stream.isAttached()) detached++;
+            lostCount += stream.getLosses();
+            resumedCount += stream.getResumes();
+            replayed += stream.getReplayedBytes();
+        }
+        return StreamStats.builder()
+                .activeStreams(STREAMS.size())
+                .detachedStreams(detached)
+                .lost(lostCount)
+                .resumed(resumedCount)
+                .replayedBytes(replayed)
+                .failed(failed.get())
+                .build();
+    }
+
+    private void reconnect(ResumableStream stream) {
+        long deadline = System.currentTimeMillis() + natTraversalProperties.getClient().getStream().getResumeTimeout();
+        while (!stream.isClosed() && System.currentTimeMillis() < deadline) {
+            Socket socket = new Socket();
+            Socket link = null;
+            String reply;
+            try {
+                SocketOptions.apply(socket, natTraversalProperties.getClient().getTransport().get(null));
+                socket.connect(new InetSocketAddress(relaySelectionService.host(), relaySelectionService.port()), CONNECT_TIMEOUT);
+                link = tlsService.wrap(socket);
+                link.setSoTimeout(REPLY_TIMEOUT);
+                link.getOutputStream().write((ProxyServerCommunicationService.RESUME_STREAM + stream.getId()
+                        + MessageUtil.option("ack", stream.getReceived())).getBytes(StandardCharsets.UTF_8));
+                link.getOutputStream().flush();
+                reply = readLine(link.getInputStream());
+                link.setSoTimeout(0);
+            } catch (IOException e) {
+                log.info("Stream({}) reconnect failed: {}", stream.getId(), e.getMessage());
+                closeQuietly(link == null ? socket : link);
+                try {
+                    Thread.sleep(RETRY_INTERVAL);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                if (!reply.startsWith(ProxyServerCommunicationService.RESUME_STREAM_SUCCESS)) {
+                    throw new IOException("refused by server");
+                }
+                long peerReceived = Long.parseLong(reply.substring(ProxyServerCommunicationService.RESUME_STREAM_SUCCESS.length()).strip());
+                stream.attach(link, peerReceived, null);
+            } catch (IOException | NumberFormatException e) {
+                // 服务端已释放该流或无法重放，流不可恢复
+                log.info("Stream({}) resume failed: {}", stream.getId(), e.getMessage());
+                closeQuietly(link);
+                stream.close();
+            }
+            return;
+        }
+    }
+
+    // 逐字节读取回复行，之后的字节属于流帧
+    private String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) throw new EOFException("connection closed");
+            if (line.size() >= MAX_REPLY_BYTES) throw new IOException("reply too long");
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private void closed(ResumableStream stream) {
+        if (STREAMS.remove(stream.getId()) == null) return;
+        lost.addAndGet(stream.getLosses());
+        resumed.addAndGet(stream.getResumes());
+        replayedBytes.addAndGet(stream.getReplayedBytes());
+        if (stream.isExpired()) failed.incrementAndGet();
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
@@ -0,0 +1,91 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.StripeProperties;
+import com.fate.nat_traversal.service.StripeService;
+import com.fate.nat_traversal.stream.StripeStats;
+import com.fate.nat_traversal.stream.StripedStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带：
+ *  1. Ping携带流id与路径序号，序号0的透传Socket新建流并连接本地服务
+ *  2. 其余路径按流id加入同一条带流，只承载数据不连接本地服务
+ *  3. 本端无RTT测量，路径调度按排队字节与发送耗时
+ */
+@Slf4j
+@Service
+public class StripeServiceImpl implements StripeService {
+
+    // 流id-流
+    private static final Map<String, StripedStream> STREAMS = new ConcurrentHashMap<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong maxReorderBytes = new AtomicLong();
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Override
+    public StripedStream open(String id, Socket socket) {
+        StripeProperties stripe = natTraversalProperties.getClient().getStripe();
+        StripedStream stream = new StripedStream(id, stripe.getChunkBytes(), stripe.getWindowBytes(), stripe.getPathQueueBytes());
+        stream.setCloseCallback(this::closed);
+        stream.addPath(socket, 0);
+        STREAMS.put(id, stream);
+        opened.incrementAndGet();
+        return stream;
+    }
+
+    @Override
+    public boolean attach(String id, Socket socket) {
+        StripedStream stream = STREAMS.get(id);
+        if (stream == null || !stream.addPath(socket, 0)) {
+            log.info("Stream({}) not available for another path", id);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public StripeStats getStats() {
+        int paths = 0;
+        long sent = bytesSent.get();
+        long received = bytesReceived.get();
+        long maxReorder = maxReorderBytes.get();
+        for (StripedStream stream : STREAMS.values()) {
+            paths += stream.getPathCount();
+            sent += stream.getBytesSent().get();
+            received += stream.getBytesReceived().get();
+            maxReorder = Math.max(maxReorder, stream.getMaxReorderBytes());
+        }
+        return StripeStats.builder()
+                .activeStreams(STREAMS.size())
+                .activePaths(paths)
+                .openedStreams(opened.get())
+                .bytesSent(sent)
+                .bytesReceived(received)
+                .maxReorderBytes(maxReorder)
+                .build();
+    }
+
+    private void closed(StripedStream stream) {
+        if (STREAMS.remove(stream.getId()) == null) return;
+        bytesSent.addAndGet(stream.getBytesSent().get());
+        bytesReceived.addAndGet(stream.getBytesReceived().get());
+        maxReorderBytes.accumulateAndGet(stream.getMaxReorderBytes(), Math::max);
+        if (log.isDebugEnabled()) log.debug("Stream({}) closed, bytes per path: {}", stream.getId(), stream.getPathBytes());
+    }
+}
@@ -0,0 +1,126 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.TlsProperties;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.tls.HandshakeMeter;
+import com.fate.nat_traversal.tls.TlsStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * 与服务器间的TLS加密：
+ *  1. 连接建立后在原Socket上叠加SSLSocket，Socket参数与缓冲调整仍在连接前设置
+ *  2. 所有连接共用同一SSLContext，客户端会话缓存按服务器地址保存会话，新建透传Socket以会话恢复代替完整握手
+ *  3. 恢复的会话沿用首次握手的创建时间，以此区分完整握手与会话恢复
+ */
+@Slf4j
+@Service
+public class TlsServiceImpl implements TlsService {
+
+    private final HandshakeMeter meter = new HandshakeMeter();
+
+    private volatile SSLContext sslContext;
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Override
+    public boolean isEnabled() {
+        return natTraversalProperties.getServer().getTls().getEnabled();
+    }
+
+    @Override
+    public Socket wrap(Socket socket) throws IOException {
+        if (!isEnabled()) return socket;
+
+        TlsProperties tls = natTraversalProperties.getServer().getTls();
+        // 按实际连接的中继校验主机名，多中继时各自缓存TLS会话
+        InetSocketAddress address = (InetSocketAddress) socket.getRemoteSocketAddress();
+        String host = address.getHostString();
+        int port = address.getPort();
+        SSLSocket sslSocket = (SSLSocket) context().getSocketFactory().createSocket(socket, host, port, true);
+        SSLParameters parameters = sslSocket.getSSLParameters();
+        parameters.setProtocols(tls.getProtocols().toArray(new String[0]));
+        if (tls.getVerifyHostname()) parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        sslSocket.setSSLParameters(parameters);
+
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            sslSocket.setSoTimeout(tls.getHandshakeTimeout());
+            sslSocket.startHandshake();
+            sslSocket.setSoTimeout(0);
+        } catch (IOException e) {
+            meter.onFailed();
+            sslSocket.close();
+            throw e;
+        }
+        meter.onHandshake(System.nanoTime() - start, sslSocket.getSession().getCreationTime() < startMillis);
+        return sslSocket;
+    }
+
+    @Override
+    public int warmSockets() {
+        return isEnabled() ? natTraversalProperties.getServer().getTls().getWarmSockets() : 0;
+    }
+
+    @Override
+    public void onCreate(long nanos, boolean warm) {
+        meter.onCreate(nanos, warm);
+    }
+
+    @Override
+    public TlsStats getStats(int spareSockets) {
+        TlsProperties tls = natTraversalProperties.getServer().getTls();
+        return meter.stats()
+                .enabled(isEnabled())
+                .protocol(isEnabled() ? String.join(",", tls.getProtocols()) : null)
+                .spareSockets(spareSockets)
+                .build();
+    }
+
+    private SSLContext context() throws IOException {
+        if (sslContext != null) return sslContext;
+
+        TlsProperties tls = natTraversalProperties.getServer().getTls();
+        try {
+            TrustManagerFactory trustManagerFactory = null;
+            if (tls.getTrustStore() != null) {
+                try (InputStream in = new FileInputStream(tls.getTrustStore())) {
+                    KeyStore trustStore = KeyStore.getInstance(tls.getTrustStoreType());
+                    trustStore.load(in, tls.getTrustStorePassword() == null ? null : tls.getTrustStorePassword().toCharArray());
+                    trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                    trustManagerFactory.init(trustStore);
+                }
+            }
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustManagerFactory == null ? null : trustManagerFactory.getTrustManagers(), null);
+            SSLSessionContext sessionContext = context.getClientSessionContext();
+            sessionContext.setSessionCacheSize(tls.getSessionCacheSize());
+            sessionContext.setSessionTimeout(tls.getSessionTimeout());
+            sslContext = context;
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Load TLS trust-store failed: " + e.getMessage(), e);
+        }
+    }
+}
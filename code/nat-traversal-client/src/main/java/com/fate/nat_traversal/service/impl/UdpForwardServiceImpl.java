@@ -0,0 +1,143 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.ServiceProperties;
+import com.fate.nat_traversal.config.UdpProperties;
+import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.service.UdpForwardService;
+import com.fate.nat_traversal.udp.UdpForwarder;
+import com.fate.nat_traversal.udp.UdpStats;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP转发：
+ *  1. 服务注册成功后为开启udp的服务另建一条隧道，注册后只传输数据报帧
+ *  2. 隧道断开后由心跳触发异步重连，不阻塞心跳
+ *  3. 定时关闭空闲的本地流
+ */
+@Slf4j
+@Service
+public class UdpForwardServiceImpl implements UdpForwardService {
+
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    // 服务名-UDP转发
+    private static final Map<String, UdpForwarder> FORWARDERS = new ConcurrentHashMap<>();
+
+    // 隧道重连，同一时刻只有一个任务，其余丢弃等下次心跳
+    private final ThreadPoolExecutor connectPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), new ThreadPoolExecutor.DiscardPolicy());
+
+    @Autowired
+    private NatTraversalProperties natTraversalProperties;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private RelaySelectionService relaySelectionService;
+
+    @PostConstruct
+    private void init() {
+        taskScheduler.submit(() -> {
+            long idleTimeout = natTraversalProperties.getClient().getUdp().getIdleTimeout();
+            FORWARDERS.values().forEach(forwarder -> forwarder.expire(idleTimeout));
+        }, 5, 5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void open(String session, ServiceProperties service, int proxyPort) {
+        UdpProperties udp = natTraversalProperties.getClient().getUdp();
+        // UDP已connect的Socket只接收来自目标地址的回复，本机不能用通配地址
+        InetSocketAddress target = service.getServerHost() == null
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), service.getServerPort())
+                : new InetSocketAddress(service.getServerHost(), service.getServerPort());
+
+        UdpForwarder forwarder;
+        try {
+            forwarder = new UdpForwarder(service.getName(), proxyPort, target, udp.getMaxFlows(), udp.getBatchBytes());
+        } catch (IOException e) {
+            log.warn("Open UDP forwarder(service: {}) failed: {}", service.getName(), e.getMessage());
+            return;
+        }
+        UdpForwarder previous = FORWARDERS.put(service.getName(), forwarder);
+        if (previous != null) previous.close();
+        forwarder.start();
+        connect(session, forwarder);
+    }
+
+    @Override
+    public void ensure(String session) {
+        if (FORWARDERS.values().stream().allMatch(UdpForwarder::isAttached)) return;
+        connectPool.execute(() -> FORWARDERS.values().forEach(forwarder -> {
+            if (!forwarder.isAttached()) connect(session, forwarder);
+        }));
+    }
+
+    @Override
+    public void shutdown() {
+        connectPool.shutdownNow();
+        FORWARDERS.values().forEach(UdpForwarder::close);
+        FORWARDERS.clear();
+    }
+
+    @Override
+    public List<UdpStats> getStats() {
+        List<UdpStats> stats = new ArrayList<>();
+        FORWARDERS.values().forEach(forwarder -> stats.add(forwarder.getStats()));
+        return stats;
+    }
+
+    private void connect(String session, UdpForwarder forwarder) {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(relaySelectionService.host(), relaySelectionService.port()), CONNECT_TIMEOUT);
+            socket = tlsService.wrap(socket);
+            socket.setTcpNoDelay(true);
+            socket.getOutputStream().write((ProxyServerCommunicationService.REGISTER_UDP_TUNNEL + session
+                    + MessageUtil.option("port", forwarder.getProxyPort())).getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            // 回复后紧跟数据报帧，只读取回复本身
+            byte[] reply = new byte[ProxyServerCommunicationService.REGISTER_UDP_TUNNEL_SUCCESS.length()];
+            new DataInputStream(socket.getInputStream()).readFully(reply);
+            if (!ProxyServerCommunicationService.REGISTER_UDP_TUNNEL_SUCCESS.equals(new String(reply, StandardCharsets.UTF_8))) {
+                throw new IOException("register rejected");
+            }
+        } catch (IOException e) {
+            log.warn("Register UDP tunnel(port: {}) failed: {}", forwarder.getProxyPort(), e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException ex) {}
+            return;
+        }
+        forwarder.attach(socket);
+    }
+}
@@ -0,0 +1,79 @@
+package com.fate.nat_traversal.standby;
+
+import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 候选中继：探测得到的RTT与负载，以及保持着的备用通信连接
+ */
+public class RelayCandidate {
+
+    // RTT平滑系数
+    private static final double ALPHA = 0.3;
+
+    @Getter
+    private final String host;
+
+    @Getter
+    private final int port;
+
+    @Getter
+    private volatile Double rttMillis;
+
+    @Getter
+    private volatile double load = 0;
+
+    @Getter
+    @Setter
+    private volatile boolean available = true;
+
+    @Getter
+    private volatile long failures = 0;
+
+    /**
+     * 已完成TLS握手与探测的连接，故障切换时直接在其上注册
+     */
+    @Getter
+    @Setter
+    private volatile ConcurrentWriteSocket standby;
+
+    public RelayCandidate(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public void onProbe(double rttMillis, double load) {
+        Double previous = this.rttMillis;
+        this.rttMillis = previous == null ? rttMillis : previous + ALPHA * (rttMillis - previous);
+        this.load = load;
+        this.available = true;
+    }
+
+    public void onRtt(double rttMillis) {
+        Double previous = this.rttMillis;
+        this.rttMillis = previous == null ? rttMillis : previous + ALPHA * (rttMillis - previous);
+    }
+
+    public void onFailure() {
+        failures++;
+        available = false;
+    }
+
+    /**
+     * 越小越优；不可用的排在最后，未测得RTT的排在已测得的之后
+     */
+    public double score(long loadPenalty) {
+        if (!available) return Double.MAX_VALUE;
+        if (rttMillis == null) return Double.MAX_VALUE / 2;
+        return rttMillis + load * loadPenalty;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
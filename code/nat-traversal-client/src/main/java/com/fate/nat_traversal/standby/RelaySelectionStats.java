@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.standby;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 中继选择与故障切换统计
+ */
+@Builder
+@Data
+public class RelaySelectionStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String current;
+    private Long failovers;
+    private Long standbyPromotions;
+    private Double lastFailoverMillis;
+    private List<RelayStats> relays;
+}
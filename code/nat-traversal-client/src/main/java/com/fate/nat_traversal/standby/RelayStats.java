@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.standby;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 单个候选中继的探测结果
+ */
+@Builder
+@Data
+public class RelayStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String relay;
+    private Boolean current;
+    private Boolean available;
+    private Boolean standby;
+    private Double rttMillis;
+    private Double load;
+    private Double score;
+    private Long failures;
+}
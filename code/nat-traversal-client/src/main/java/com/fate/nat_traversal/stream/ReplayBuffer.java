@@ -0,0 +1,100 @@
+package com.fate.nat_traversal.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 重放缓冲：环形保存已发送未确认的字节，并记录每帧的结束序号，重放时按原帧边界发送
+ * 接收端只在整帧收完后推进已收到的位置，因此确认位置总落在帧边界上
+ * 非线程安全，由ResumableStream加锁访问
+ */
+public class ReplayBuffer {
+
+    private final byte[] ring;
+
+    // 最早未确认字节的序号
+    private long start = 0;
+
+    // 下一个发送字节的序号
+    private long end = 0;
+
+    // 未确认帧的结束序号
+    private final ArrayDeque<Long> frames = new ArrayDeque<>();
+
+    public ReplayBuffer(int capacity) {
+        this.ring = new byte[capacity];
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    public int free() {
+        return ring.length - (int) (end - start);
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long end() {
+        return end;
+    }
+
+    /**
+     * 追加一帧，调用方保证空间足够
+     * @return 帧首字节的序号
+     */
+    public long append(byte[] bytes, int offset, int length) {
+        long seq = end;
+        int position = (int) (seq % ring.length);
+        int first = Math.min(length, ring.length - position);
+        System.arraycopy(bytes, offset, ring, position, first);
+        System.arraycopy(bytes, offset + first, ring, 0, length - first);
+        end += length;
+        frames.addLast(end);
+        return seq;
+    }
+
+    /**
+     * 释放序号之前的字节
+     */
+    public void ack(long seq) {
+        if (seq <= start) return;
+        start = Math.min(seq, end);
+        while (!frames.isEmpty() && frames.peekFirst() <= start) {
+            frames.removeFirst();
+        }
+    }
+
+    /**
+     * 从指定序号起按原帧边界逐帧取出
+     */
+    public void replay(long from, FrameConsumer consumer) throws IOException {
+        long previous = start;
+        for (long frameEnd : frames) {
+            if (frameEnd > from) {
+                long begin = Math.max(previous, from);
+                consumer.accept(begin, copy(begin, (int) (frameEnd - begin)));
+            }
+            previous = frameEnd;
+        }
+    }
+
+    private byte[] copy(long seq, int length) {
+        byte[] bytes = new byte[length];
+        int position = (int) (seq % ring.length);
+        int first = Math.min(length, ring.length - position);
+        System.arraycopy(ring, position, bytes, 0, first);
+        System.arraycopy(ring, 0, bytes, first, length - first);
+        return bytes;
+    }
+
+    @FunctionalInterface
+    public interface FrameConsumer {
+        void accept(long seq, byte[] bytes) throws IOException;
+    }
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.stream;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复透传流统计，resumed为断开后重新附着的次数，failed为超时未恢复而关闭的流
+ */
+@Builder
+@Data
+public class StreamStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Integer activeStreams;
+    private Integer detachedStreams;
+    private Long lost;
+    private Long resumed;
+    private Long replayedBytes;
+    private Long failed;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.stream;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带统计，字节数含已结束的流
+ */
+@Builder
+@Data
+public class StripeStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Integer activeStreams;
+    private Integer activePaths;
+    private Long openedStreams;
+    private Long bytesSent;
+    private Long bytesReceived;
+    private Long maxReorderBytes;
+}
@@ -0,0 +1,61 @@
+package com.fate.nat_traversal.tls;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * TLS握手与透传Socket新建耗时计量
+ */
+public class HandshakeMeter {
+
+    private final LongAdder fullHandshakes = new LongAdder();
+    private final LongAdder fullNanos = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder resumedNanos = new LongAdder();
+    private final LongAdder failedHandshakes = new LongAdder();
+
+    private final LongAdder creates = new LongAdder();
+    private final LongAdder createNanos = new LongAdder();
+    private final LongAdder warmCreates = new LongAdder();
+
+    public void onHandshake(long nanos, boolean resumed) {
+        if (resumed) {
+            resumedHandshakes.increment();
+            resumedNanos.add(nanos);
+        } else {
+            fullHandshakes.increment();
+            fullNanos.add(nanos);
+        }
+    }
+
+    public void onFailed() {
+        failedHandshakes.increment();
+    }
+
+    /**
+     * @param warm 是否为预先建立的空闲Socket，否则为服务器按需要求新建
+     */
+    public void onCreate(long nanos, boolean warm) {
+        creates.increment();
+        createNanos.add(nanos);
+        if (warm) warmCreates.increment();
+    }
+
+    public TlsStats.TlsStatsBuilder stats() {
+        return TlsStats.builder()
+                .fullHandshakes(fullHandshakes.sum())
+                .fullHandshakeMillis(avgMillis(fullNanos.sum(), fullHandshakes.sum()))
+                .resumedHandshakes(resumedHandshakes.sum())
+                .resumedHandshakeMillis(avgMillis(resumedNanos.sum(), resumedHandshakes.sum()))
+                .failedHandshakes(failedHandshakes.sum())
+                .creates(creates.sum())
+                .createMillis(avgMillis(createNanos.sum(), creates.sum()))
+                .warmCreates(warmCreates.sum());
+    }
+
+    private Double avgMillis(long nanos, long count) {
+        return count == 0 ? null : nanos / 1_000_000.0 / count;
+    }
+}
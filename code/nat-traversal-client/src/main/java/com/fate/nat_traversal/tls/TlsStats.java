@@ -0,0 +1,37 @@
+package com.fate.nat_traversal.tls;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * TLS握手统计，耗时为平均值；透传Socket新建耗时明文模式同样统计，便于对比
+ */
+@Builder
+@Data
+public class TlsStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Boolean enabled;
+    private String protocol;
+
+    private Long fullHandshakes;
+    private Double fullHandshakeMillis;
+    private Long resumedHandshakes;
+    private Double resumedHandshakeMillis;
+    private Long failedHandshakes;
+
+    // 新建透传Socket（连接、握手、注册）的次数与耗时
+    private Long creates;
+    private Double createMillis;
+    private Long warmCreates;
+    // 当前空闲透传Socket数
+    private Integer spareSockets;
+}
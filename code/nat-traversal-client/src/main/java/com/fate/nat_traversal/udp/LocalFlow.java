@@ -0,0 +1,39 @@
+package com.fate.nat_traversal.udp;
+
+import java.nio.channels.DatagramChannel;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * 单个流id对应的本地Socket，已connect到本地服务，读写不再携带地址
+ */
+public class LocalFlow {
+
+    private final int id;
+
+    private final DatagramChannel channel;
+
+    private volatile long lastActiveTime = System.currentTimeMillis();
+
+    public LocalFlow(int id, DatagramChannel channel) {
+        this.id = id;
+        this.channel = channel;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public DatagramChannel getChannel() {
+        return channel;
+    }
+
+    public void touch(long now) {
+        lastActiveTime = now;
+    }
+
+    public boolean isIdle(long now, long idleMillis) {
+        return now - lastActiveTime > idleMillis;
+    }
+}
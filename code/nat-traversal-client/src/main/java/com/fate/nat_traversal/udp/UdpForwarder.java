@@ -0,0 +1,335 @@
+package com.fate.nat_traversal.udp;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * 单个服务的UDP转发：
+ *  1. 隧道读线程：按帧解析，每个流id一个已connect到本地服务的非阻塞Socket，原地切片写出
+ *  2. 接收线程：选择器就绪后收完所有本地服务已回复的数据报，直接收进批量缓冲（预留帧头），整批一次写入隧道
+ *  3. 服务器通知流过期或本地空闲过期时关闭本地Socket
+ * 隧道断开期间本地回复的数据报丢弃，重连后恢复
+ */
+@Slf4j
+public class UdpForwarder {
+
+    private final String service;
+
+    private final int proxyPort;
+
+    private final InetSocketAddress target;
+
+    private final int maxFlows;
+
+    private final Selector selector;
+
+    private final Map<Integer, LocalFlow> flows = new ConcurrentHashMap<>();
+
+    // 接收线程的批量缓冲，数据报之间连续存放
+    private final ByteBuffer batch;
+
+    private final Object tunnelLock = new Object();
+
+    private volatile Socket tunnel;
+
+    private volatile boolean closed = false;
+
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder datagramsIn = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder datagramsOut = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public UdpForwarder(String service, int proxyPort, InetSocketAddress target, int maxFlows, int batchBytes) throws IOException {
+        this.service = service;
+        this.proxyPort = proxyPort;
+        this.target = target;
+        this.maxFlows = maxFlows;
+        this.batch = ByteBuffer.allocate(Math.max(batchBytes, 0) + DatagramFrames.MIN_BUFFER);
+        this.selector = Selector.open();
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::receive, "udp-forward-" + service);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getProxyPort() {
+        return proxyPort;
+    }
+
+    public boolean isAttached() {
+        Socket socket = tunnel;
+        return socket != null && !socket.isClosed();
+    }
+
+    /**
+     * 绑定已完成注册的隧道，替换旧隧道
+     */
+    public void attach(Socket socket) {
+        Socket previous;
+        synchronized (tunnelLock) {
+            previous = tunnel;
+            tunnel = socket;
+        }
+        if (previous != null) reconnects.increment();
+        closeQuietly(previous);
+
+        Thread thread = new Thread(() -> readTunnel(socket), "udp-tunnel-" + service);
+        thread.setDaemon(true);
+        thread.start();
+        log.info("UDP tunnel(service: {}; port: {}) attached", service, proxyPort);
+    }
+
+    /**
+     * 关闭空闲的本地流
+     */
+    public void expire(long idleMillis) {
+        long now = System.currentTimeMillis();
+        flows.values().forEach(flow -> {
+            if (flow.isIdle(now, idleMillis)) {
+                closeFlow(flow.getId());
+                expired.increment();
+            }
+        });
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            selector.close();
+        } catch (IOException e) {}
+        synchronized (tunnelLock) {
+            closeQuietly(tunnel);
+            tunnel = null;
+        }
+        flows.keySet().forEach(this::closeFlow);
+    }
+
+    public UdpStats getStats() {
+        long batchCount = batches.sum();
+        return UdpStats.builder()
+                .service(service)
+                .proxyPort(proxyPort)
+                .tunnelAttached(isAttached())
+                .reconnects(reconnects.sum())
+                .flows(flows.size())
+                .datagramsIn(datagramsIn.sum())
+                .bytesIn(bytesIn.sum())
+                .datagramsOut(datagramsOut.sum())
+                .bytesOut(bytesOut.sum())
+                .batches(batchCount)
+                .datagramsPerBatch(batchCount == 0 ? null : (double) datagramsOut.sum() / batchCount)
+                .dropped(dropped.sum())
+                .expired(expired.sum())
+                .build();
+    }
+
+    private void receive() {
+        byte[] bytes = batch.array();
+        while (!closed) {
+            try {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    LocalFlow flow = (LocalFlow) key.attachment();
+                    drain(flow, bytes);
+                }
+                selector.selectedKeys().clear();
+                flush();
+            } catch (IOException e) {
+                if (!closed) log.warn("UDP forwarder(service: {}) receive error: {}", service, e.getMessage());
+            } catch (Exception e) {
+                if (!closed) log.error("UDP forwarder(service: {}) receive error", service, e);
+            }
+        }
+    }
+
+    private void drain(LocalFlow flow, byte[] bytes) throws IOException {
+        while (true) {
+            if (batch.remaining() < DatagramFrames.HEADER_BYTES + DatagramFrames.MAX_DATAGRAM) flush();
+
+            int start = batch.position();
+            batch.position(start + DatagramFrames.HEADER_BYTES);
+            int length;
+            try {
+                length = flow.getChannel().read(batch);
+            } catch (IOException e) {
+                // 本地服务未监听（ICMP端口不可达）等，跳过该流本次读取
+                batch.position(start);
+                return;
+            }
+            // 非阻塞读无数据返回0，空数据报无法与之区分，一并忽略
+            if (length <= 0) {
+                batch.position(start);
+                return;
+            }
+
+            flow.touch(System.currentTimeMillis());
+            DatagramFrames.putHeader(bytes, start, flow.getId(), length);
+            datagramsOut.increment();
+            bytesOut.add(length);
+        }
+    }
+
+    private void flush() {
+        int length = batch.position();
+        if (length == 0) return;
+        if (!writeTunnel(batch.array(), length)) {
+            // 隧道不可用，整批丢弃
+            dropped.add(countFrames(batch.array(), length));
+        }
+        batches.increment();
+        batch.clear();
+    }
+
+    private boolean writeTunnel(byte[] bytes, int length) {
+        synchronized (tunnelLock) {
+            Socket socket = tunnel;
+            if (socket == null || socket.isClosed()) return false;
+            try {
+                OutputStream out = socket.getOutputStream();
+                out.write(bytes, 0, length);
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                log.info("UDP tunnel(service: {}) write failed: {}", service, e.getMessage());
+                closeQuietly(socket);
+                tunnel = null;
+                return false;
+            }
+        }
+    }
+
+    private void readTunnel(Socket socket) {
+        ByteBuffer buffer = ByteBuffer.allocate(DatagramFrames.MIN_BUFFER * 2);
+        byte[] bytes = buffer.array();
+        int filled = 0;
+        try {
+            InputStream in = socket.getInputStream();
+            while (!closed && tunnel == socket) {
+                int n = in.read(bytes, filled, bytes.length - filled);
+                if (n < 0) break;
+                filled += n;
+
+                int offset = 0;
+                while (filled - offset >= DatagramFrames.HEADER_BYTES) {
+                    int flowId = DatagramFrames.getInt(bytes, offset);
+                    int length = DatagramFrames.getLength(bytes, offset);
+                    if (length == DatagramFrames.CLOSED) {
+                        closeFlow(flowId);
+                        offset += DatagramFrames.HEADER_BYTES;
+                        continue;
+                    }
+                    if (filled - offset < DatagramFrames.HEADER_BYTES + length) break;
+
+                    LocalFlow flow = flow(flowId);
+                    if (flow != null) {
+                        buffer.limit(offset + DatagramFrames.HEADER_BYTES + length).position(offset + DatagramFrames.HEADER_BYTES);
+                        if (write(flow, buffer, length)) {
+                            flow.touch(System.currentTimeMillis());
+                            datagramsIn.increment();
+                            bytesIn.add(length);
+                        } else {
+                            dropped.increment();
+                        }
+                        buffer.clear();
+                    } else {
+                        dropped.increment();
+                    }
+                    offset += DatagramFrames.HEADER_BYTES + length;
+                }
+
+                if (offset > 0) {
+                    System.arraycopy(bytes, offset, bytes, 0, filled - offset);
+                    filled -= offset;
+                }
+            }
+        } catch (IOException e) {
+            if (!closed && tunnel == socket) log.info("UDP tunnel(service: {}) read error: {}", service, e.getMessage());
+        }
+
+        synchronized (tunnelLock) {
+            if (tunnel == socket) tunnel = null;
+        }
+        closeQuietly(socket);
+        if (!closed) log.info("UDP tunnel(service: {}; port: {}) detached", service, proxyPort);
+    }
+
+    private boolean write(LocalFlow flow, ByteBuffer buffer, int length) {
+        try {
+            // 发送缓冲已满时数据报丢弃
+            return flow.getChannel().write(buffer) > 0 || length == 0;
+        } catch (IOException e) {
+            // 上次发送收到ICMP端口不可达，本地服务恢复后继续
+            return false;
+        }
+    }
+
+    private LocalFlow flow(int flowId) {
+        LocalFlow flow = flows.get(flowId);
+        if (flow != null) return flow;
+        if (flows.size() >= maxFlows) return null;
+
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            channel.connect(target);
+            channel.configureBlocking(false);
+            flow = new LocalFlow(flowId, channel);
+            channel.register(selector, SelectionKey.OP_READ, flow);
+        } catch (IOException e) {
+            log.warn("UDP forwarder(service: {}) open local socket failed: {}", service, e.getMessage());
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {}
+            }
+            return null;
+        }
+        flows.put(flowId, flow);
+        selector.wakeup();
+        return flow;
+    }
+
+    private void closeFlow(int flowId) {
+        LocalFlow flow = flows.remove(flowId);
+        if (flow == null) return;
+        try {
+            flow.getChannel().close();
+        } catch (IOException e) {}
+    }
+
+    private int countFrames(byte[] bytes, int length) {
+        int count = 0;
+        for (int offset = 0; offset + DatagramFrames.HEADER_BYTES <= length; ++count) {
+            offset += DatagramFrames.HEADER_BYTES + DatagramFrames.getLength(bytes, offset);
+        }
+        return count;
+    }
+
+    private void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
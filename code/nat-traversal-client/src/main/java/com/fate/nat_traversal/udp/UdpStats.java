@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.udp;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * 单个服务的UDP转发统计，in为服务器到本地服务方向
+ */
+@Builder
+@Data
+public class UdpStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String service;
+    private Integer proxyPort;
+    private Boolean tunnelAttached;
+    private Long reconnects;
+    private Integer flows;
+    private Long datagramsIn;
+    private Long bytesIn;
+    private Long datagramsOut;
+    private Long bytesOut;
+    private Long batches;
+    private Double datagramsPerBatch;
+    private Long dropped;
+    private Long expired;
+}
@@ -0,0 +1,45 @@
+package com.fate.nat_traversal.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author fate
+ * @date 2026/01/08 20:30
+ *
+ * 带随机抖动的指数退避：第n次等待 [cap/2, cap)，cap = min(max, initial * 2^n)
+ * 服务端给出重试间隔时至少等待该间隔，并叠加至多一半的抖动，避免被代理端同时重连
+ * 非线程安全，每个重连循环持有一个实例
+ */
+public class Backoff {
+
+    private final long initial;
+
+    private final long max;
+
+    private int attempt = 0;
+
+    public Backoff(long initial, long max) {
+        this.initial = initial;
+        this.max = max;
+    }
+
+    /**
+     * @param hint 服务端提示的重试间隔（毫秒），无提示为0
+     * @return 下次重试前等待的毫秒数
+     */
+    public long next(long hint) {
+        long cap = Math.min(max, initial << Math.min(attempt, 30));
+        attempt++;
+        long delay = cap / 2 + jitter(cap / 2);
+        if (hint > 0) delay = Math.max(delay, hint + jitter(hint / 2));
+        return delay;
+    }
+
+    public void reset() {
+        attempt = 0;
+    }
+
+    private static long jitter(long bound) {
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound);
+    }
+}
@@ -0,0 +1,98 @@
+package com.fate.nat_traversal.punch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class HolePuncherTest {
+
+    private static final int ATTEMPT_TIMEOUT = 200;
+
+    @Test
+    void parsesAndDeduplicatesCandidates() {
+        List<InetSocketAddress> candidates = HolePuncher.candidates("127.0.0.1:5000", null, "127.0.0.1:5000", "bad", "127.0.0.1:x", "10.0.0.2:6000");
+        assertEquals(List.of(new InetSocketAddress("127.0.0.1", 5000), new InetSocketAddress("10.0.0.2", 6000)), candidates);
+    }
+
+    @Test
+    void punchesThroughConeNat() throws Exception {
+        int backendPort = freePort();
+        int visitorPort = freePort();
+        try (SimulatedNat nat = new SimulatedNat(backendPort, SimulatedNat.Type.CONE)) {
+            long deadline = System.currentTimeMillis() + 3000;
+            // 被代理端点只知道访问端的地址，访问端只知道NAT上的映射地址
+            CompletableFuture<Socket> answered = CompletableFuture.supplyAsync(() ->
+                    new HolePuncher(backendPort, HolePuncher.candidates("127.0.0.1:" + visitorPort), ATTEMPT_TIMEOUT).accept("Punch-1", deadline));
+            Socket visitor = new HolePuncher(visitorPort, HolePuncher.candidates(nat.publicAddress()), ATTEMPT_TIMEOUT).connect("Punch-1", deadline);
+            Socket backend = answered.get(5, TimeUnit.SECONDS);
+
+            assertNotNull(visitor);
+            assertNotNull(backend);
+            assertTrue(nat.inbound() >= 1);
+            assertEquals(visitorPort, visitor.getLocalPort());
+
+            visitor.getOutputStream().write("ping".getBytes(StandardCharsets.UTF_8));
+            assertEquals("ping", read(backend, 4));
+            backend.getOutputStream().write("pong".getBytes(StandardCharsets.UTF_8));
+            assertEquals("pong", read(visitor, 4));
+            visitor.close();
+            backend.close();
+        }
+    }
+
+    @Test
+    void wrongPunchIdIsRejected() throws Exception {
+        int backendPort = freePort();
+        int visitorPort = freePort();
+        try (SimulatedNat nat = new SimulatedNat(backendPort, SimulatedNat.Type.CONE)) {
+            long deadline = System.currentTimeMillis() + 800;
+            CompletableFuture<Socket> answered = CompletableFuture.supplyAsync(() ->
+                    new HolePuncher(backendPort, List.of(), ATTEMPT_TIMEOUT).accept("Punch-1", deadline));
+            assertNull(new HolePuncher(visitorPort, HolePuncher.candidates(nat.publicAddress()), ATTEMPT_TIMEOUT).connect("Punch-2", deadline));
+            assertNull(answered.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void symmetricNatFailsByDeadline() throws Exception {
+        int backendPort = freePort();
+        int visitorPort = freePort();
+        try (SimulatedNat nat = new SimulatedNat(backendPort, SimulatedNat.Type.SYMMETRIC)) {
+            long start = System.currentTimeMillis();
+            long deadline = start + 800;
+            CompletableFuture<Socket> answered = CompletableFuture.supplyAsync(() ->
+                    new HolePuncher(backendPort, HolePuncher.candidates("127.0.0.1:" + visitorPort), ATTEMPT_TIMEOUT).accept("Punch-1", deadline));
+            assertNull(new HolePuncher(visitorPort, HolePuncher.candidates(nat.publicAddress()), ATTEMPT_TIMEOUT).connect("Punch-1", deadline));
+            assertNull(answered.get(5, TimeUnit.SECONDS));
+            assertTrue(nat.inbound() >= 1);
+            assertTrue(System.currentTimeMillis() - start < 3000);
+        }
+    }
+
+    static String read(Socket socket, int length) throws IOException {
+        socket.setSoTimeout(2000);
+        byte[] bytes = new byte[length];
+        new DataInputStream(socket.getInputStream()).readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
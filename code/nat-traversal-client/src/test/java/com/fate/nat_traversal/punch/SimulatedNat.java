@@ -0,0 +1,125 @@
+package com.fate.nat_traversal.punch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 回环上模拟的NAT：公网映射端口对应内部主机的本地端口，对端只知道映射地址
+ *  1. CONE：映射与目的地址无关，入向连接转发到内部端口，打洞可连通
+ *  2. SYMMETRIC：交换得到的映射对其他对端无效，入向连接直接复位，只能回落中继
+ */
+public class SimulatedNat implements Closeable {
+
+    public enum Type { CONE, SYMMETRIC }
+
+    private final ServerSocket mapping;
+
+    private final int innerPort;
+
+    private final Type type;
+
+    private final AtomicInteger inbound = new AtomicInteger();
+
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    public SimulatedNat(int innerPort, Type type) throws IOException {
+        this.innerPort = innerPort;
+        this.type = type;
+        this.mapping = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::accept, "simulated-nat-" + mapping.getLocalPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 协调服务器观察到的映射地址
+     */
+    public String publicAddress() {
+        return "127.0.0.1:" + mapping.getLocalPort();
+    }
+
+    /**
+     * 到达映射端口的入向连接数
+     */
+    public int inbound() {
+        return inbound.get();
+    }
+
+    private void accept() {
+        while (!mapping.isClosed()) {
+            Socket outside;
+            try {
+                outside = mapping.accept();
+            } catch (IOException e) {
+                continue;
+            }
+            inbound.incrementAndGet();
+            sockets.add(outside);
+            if (type == Type.SYMMETRIC) {
+                reset(outside);
+                continue;
+            }
+            try {
+                Socket inside = new Socket();
+                sockets.add(inside);
+                inside.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), innerPort), 1000);
+                forward(outside, inside);
+                forward(inside, outside);
+            } catch (IOException e) {
+                reset(outside);
+            }
+        }
+    }
+
+    private void forward(Socket from, Socket to) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try {
+                InputStream in = from.getInputStream();
+                OutputStream out = to.getOutputStream();
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                    out.flush();
+                }
+                to.shutdownOutput();
+            } catch (IOException e) {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }, "simulated-nat-forward");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void reset(Socket socket) {
+        try {
+            socket.setSoLinger(true, 0);
+        } catch (IOException e) {}
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapping.close();
+        sockets.forEach(SimulatedNat::closeQuietly);
+    }
+}
@@ -0,0 +1,228 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.ClientProperties;
+import com.fate.nat_traversal.config.NatTraversalProperties;
+import com.fate.nat_traversal.config.VisitorProperties;
+import com.fate.nat_traversal.punch.HolePuncher;
+import com.fate.nat_traversal.punch.SimulatedNat;
+import com.fate.nat_traversal.service.ProxyServerCommunicationService;
+import com.fate.nat_traversal.service.RelaySelectionService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.util.MessageUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 本地打洞：协调服务器由回环上的模拟端点代替，被代理端点位于模拟NAT之后
+ * 锥形NAT下访问端直连，对称NAT或协调拒绝时回落到代理端口中继
+ */
+class PunchServiceImplTest {
+
+    private static final String PUNCH_ID = "Punch-7";
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    private PunchServiceImpl punchService;
+
+    private Rendezvous rendezvous;
+
+    private ServerSocket relay;
+
+    private VisitorProperties visitor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rendezvous = new Rendezvous();
+        relay = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        resources.add(rendezvous);
+        resources.add(relay);
+
+        ClientProperties client = new ClientProperties();
+        client.getPunch().setEnabled(true);
+        client.getPunch().setTimeout(1000);
+        client.getPunch().setAttemptTimeout(200);
+        client.getPunch().setExchangeTimeout(2000);
+        NatTraversalProperties properties = new NatTraversalProperties();
+        properties.setClient(client);
+
+        visitor = new VisitorProperties();
+        visitor.setName("ssh");
+        visitor.setProxyPort(relay.getLocalPort());
+        visitor.setPunch(true);
+
+        RelaySelectionService relaySelectionService = mock(RelaySelectionService.class);
+        when(relaySelectionService.host()).thenReturn("127.0.0.1");
+        when(relaySelectionService.port()).thenReturn(rendezvous.port());
+        TlsService tlsService = mock(TlsService.class);
+        when(tlsService.wrap(any(Socket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        punchService = new PunchServiceImpl();
+        ReflectionTestUtils.setField(punchService, "natTraversalProperties", properties);
+        ReflectionTestUtils.setField(punchService, "relaySelectionService", relaySelectionService);
+        ReflectionTestUtils.setField(punchService, "tlsService", tlsService);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        punchService.shutdown();
+        for (AutoCloseable resource : resources) resource.close();
+    }
+
+    @Test
+    void visitorConnectsDirectlyThroughConeNat() throws Exception {
+        int backendPort = freePort();
+        SimulatedNat nat = new SimulatedNat(backendPort, SimulatedNat.Type.CONE);
+        resources.add(nat);
+        rendezvous.reply(request -> ProxyServerCommunicationService.PUNCH_PEER + PUNCH_ID + MessageUtil.option("peer", nat.publicAddress()));
+        CompletableFuture<Socket> answered = CompletableFuture.supplyAsync(() ->
+                new HolePuncher(backendPort, List.of(), 200).accept(PUNCH_ID, System.currentTimeMillis() + 3000));
+
+        Socket app = visit();
+        Socket backend = answered.get(5, TimeUnit.SECONDS);
+        assertNotNull(backend);
+        resources.add(backend);
+
+        String request = rendezvous.request();
+        assertTrue(request.startsWith(ProxyServerCommunicationService.PUNCH_REQUEST + relay.getLocalPort()), request);
+        assertNotNull(MessageUtil.options(request).get("local"));
+
+        app.getOutputStream().write("ping".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ping", read(backend, 4));
+        backend.getOutputStream().write("pong".getBytes(StandardCharsets.UTF_8));
+        assertEquals("pong", read(app, 4));
+
+        assertEquals(1, punchService.getStats().getDirect());
+        assertEquals(0, punchService.getStats().getRelayed());
+        assertTrue(nat.inbound() >= 1);
+    }
+
+    @Test
+    void symmetricNatFallsBackToRelay() throws Exception {
+        int backendPort = freePort();
+        SimulatedNat nat = new SimulatedNat(backendPort, SimulatedNat.Type.SYMMETRIC);
+        resources.add(nat);
+        rendezvous.reply(request -> ProxyServerCommunicationService.PUNCH_PEER + PUNCH_ID + MessageUtil.option("peer", nat.publicAddress()));
+
+        Socket app = visit();
+        assertRelayed(app);
+        assertTrue(nat.inbound() >= 1);
+    }
+
+    @Test
+    void refusedExchangeFallsBackToRelayImmediately() throws Exception {
+        rendezvous.reply(request -> ProxyServerCommunicationService.PUNCH_REFUSED + "both symmetric");
+        long start = System.currentTimeMillis();
+
+        Socket app = visit();
+        assertRelayed(app);
+        // 无需等待打洞超时
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    private void assertRelayed(Socket app) throws IOException {
+        relay.setSoTimeout(5000);
+        Socket relayed = relay.accept();
+        resources.add(relayed);
+        app.getOutputStream().write("ping".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ping", read(relayed, 4));
+        relayed.getOutputStream().write("pong".getBytes(StandardCharsets.UTF_8));
+        assertEquals("pong", read(app, 4));
+        assertEquals(0, punchService.getStats().getDirect());
+        assertEquals(1, punchService.getStats().getRelayed());
+    }
+
+    // 本地应用连接访问端入口，visit在独立线程中运行（直连后阻塞于转发）
+    private Socket visit() throws IOException {
+        try (ServerSocket entry = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Socket app = new Socket(entry.getInetAddress(), entry.getLocalPort());
+            Socket accepted = entry.accept();
+            resources.add(app);
+            resources.add(accepted);
+            Thread thread = new Thread(() -> ReflectionTestUtils.invokeMethod(punchService, "visit", visitor, accepted), "visit");
+            thread.setDaemon(true);
+            thread.start();
+            return app;
+        }
+    }
+
+    private static String read(Socket socket, int length) throws IOException {
+        socket.setSoTimeout(5000);
+        byte[] bytes = new byte[length];
+        new DataInputStream(socket.getInputStream()).readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 模拟协调服务器：读取一条请求，回复后先行关闭连接
+     */
+    private static class Rendezvous implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        private final LinkedBlockingQueue<String> requests = new LinkedBlockingQueue<>();
+
+        private volatile Function<String, String> reply;
+
+        Rendezvous() throws IOException {
+            Thread thread = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try (Socket socket = serverSocket.accept()) {
+                        String request = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                        requests.add(request);
+                        socket.getOutputStream().write(reply.apply(request).getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {}
+                }
+            }, "rendezvous");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void reply(Function<String, String> reply) {
+            this.reply = reply;
+        }
+
+        String request() throws InterruptedException {
+            return requests.poll(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -1,13 +1,43 @@
 package com.fate.nat_traversal;
 
+import com.fate.nat_traversal.cluster.ClusterRoute;
 import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.config.VirtualHostProperties;
+import com.fate.nat_traversal.engine.IoListener;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
 import com.fate.nat_traversal.enums.WorkingStatusEnum;
 import com.fate.nat_traversal.exception.ProxyServerStartErrorException;
 import com.fate.nat_traversal.model.ClientSocket;
 import com.fate.nat_traversal.model.CommonSocket;
 import com.fate.nat_traversal.model.Backend;
+import com.fate.nat_traversal.model.Replica;
+import com.fate.nat_traversal.model.ServiceGroup;
+import com.fate.nat_traversal.registry.RegistryEntry;
+import com.fate.nat_traversal.service.AdmissionService;
 import com.fate.nat_traversal.service.BackendCommunicationService;
 import com.fate.nat_traversal.service.BackendTransmitService;
+import com.fate.nat_traversal.service.ClusterService;
+import com.fate.nat_traversal.service.CompressionService;
+import com.fate.nat_traversal.service.HttpCacheService;
+import com.fate.nat_traversal.service.IoEngineService;
+import com.fate.nat_traversal.service.MemoryService;
+import com.fate.nat_traversal.service.MinecraftService;
+import com.fate.nat_traversal.service.PunchService;
+import com.fate.nat_traversal.service.RateLimitService;
+import com.fate.nat_traversal.service.RegistrationService;
+import com.fate.nat_traversal.service.RegistryService;
+import com.fate.nat_traversal.service.RelayLinkService;
+import com.fate.nat_traversal.service.ServiceGroupService;
+import com.fate.nat_traversal.service.StandbyService;
+import com.fate.nat_traversal.service.StreamService;
+import com.fate.nat_traversal.service.StripeService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.service.TransmitSchedulerService;
+import com.fate.nat_traversal.service.TransportService;
+import com.fate.nat_traversal.service.UdpRelayService;
+import com.fate.nat_traversal.service.VirtualHostService;
+import com.fate.nat_traversal.util.HostSniffer;
+import com.fate.nat_traversal.util.MessageUtil;
 import com.fate.nat_traversal.util.PortUtil;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
@@ -17,11 +47,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 
 /**
@@ -36,9 +69,27 @@ import java.util.concurrent.*;
 @Component
 public class Server implements DisposableBean {
 
-    private static final Map<Integer, ServerSocket> PROXY_REFLECTION = new ConcurrentHashMap<>();
+    private static final Map<Integer, IoListener> PROXY_REFLECTION = new ConcurrentHashMap<>();
 
-    private ThreadPoolExecutor proxyListenerPool;
+    private static final int MAX_PORT = 65535;
+
+    // 虚拟端口，超出真实端口范围，仅作为按主机名路由服务的注册键
+    private static final AtomicInteger VIRTUAL_PORT = new AtomicInteger(MAX_PORT + 1);
+
+    // 共享端口监听
+    private static final List<IoListener> VHOST_LISTENERS = new CopyOnWriteArrayList<>();
+
+    // 前置端口：其他节点的服务在本节点开放的端口，经节点间链路转发
+    private static final Map<Integer, Front> FRONT_REFLECTION = new ConcurrentHashMap<>();
+
+    // 随机代理端口可能在探测后被抢先绑定，换端口重试的次数
+    private static final int BIND_ATTEMPTS = 16;
+
+    // 共享端口首包预读、HTTP缓存处理线程池
+    private ThreadPoolExecutor routePool;
+
+    // 注册端口的握手与首条消息读取，慢速或恶意连接不阻塞accept
+    private ThreadPoolExecutor handshakePool;
 
     // 运行状态
     private WorkingStatusEnum workingStatus = WorkingStatusEnum.INIT;
@@ -52,44 +103,149 @@ public class Server implements DisposableBean {
     @Autowired
     private BackendTransmitService backendTransmitService;
 
+    @Autowired
+    private ServiceGroupService serviceGroupService;
+
+    @Autowired
+    private VirtualHostService virtualHostService;
+
+    @Autowired
+    private HttpCacheService httpCacheService;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private TransmitSchedulerService transmitSchedulerService;
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private MemoryService memoryService;
+
+    @Autowired
+    private TransportService transportService;
+
+    @Autowired
+    private MinecraftService minecraftService;
+
+    @Autowired
+    private CompressionService compressionService;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private UdpRelayService udpRelayService;
+
+    @Autowired
+    private PunchService punchService;
+
+    @Autowired
+    private StandbyService standbyService;
+
+    @Autowired
+    private StreamService streamService;
+
+    @Autowired
+    private StripeService stripeService;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private RegistryService registryService;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private RelayLinkService relayLinkService;
+
+    @Autowired
+    private IoEngineService ioEngineService;
+
 
     private void init() {
-        proxyListenerPool = new ThreadPoolExecutor(
-                turnProperties.getMaxServerProxy() / 3,
-                turnProperties.getMaxServerProxy(),
-                5,
+        int maxConnection = Math.max(turnProperties.getMaxClientConnection(), 1);
+        routePool = new ThreadPoolExecutor(
+                Math.max(maxConnection / 2, 1),
+                maxConnection,
+                1,
                 TimeUnit.MINUTES,
-                new LinkedBlockingDeque<>(turnProperties.getMaxServerProxy()),
+                new LinkedBlockingDeque<>(maxConnection),
                 new ThreadPoolExecutor.AbortPolicy()
         );
+        int handshakeThreads = Math.max(turnProperties.getTls().getHandshakeThreads(), 1);
+        handshakePool = new ThreadPoolExecutor(
+                handshakeThreads,
+                handshakeThreads,
+                1,
+                TimeUnit.MINUTES,
+                new LinkedBlockingDeque<>(Math.max(turnProperties.getTls().getHandshakeBacklog(), 1)),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        handshakePool.allowCoreThreadTimeOut(true);
 
         // 注册回调，避免依赖循环
-        backendCommunicationService.closeCallback(port -> {
-            try {
-                PROXY_REFLECTION.get(port).close();
-            } catch (Exception e) {}
-            PROXY_REFLECTION.remove(port);
+        backendCommunicationService.closeCallback((session, port) -> {
+            registryService.unregister(session, port);
+            // 服务组端口待最后一个副本离开后释放
+            synchronized (Server.class) {
+                if (serviceGroupService.getGroupByPort(port) != null && !serviceGroupService.leave(port, session)) return;
+            }
+            clusterService.withdraw(port);
+            virtualHostService.unroute(port);
+            httpCacheService.disable(port);
+            transportService.unregister(port);
+            minecraftService.disable(port);
+            stripeService.disable(port);
+            udpRelayService.close(port);
+
+            IoListener proxyListener = PROXY_REFLECTION.remove(port);
+            if (proxyListener != null) proxyListener.close();
         });
 
         backendTransmitService.requireSocketCallback((session, num) -> {
             backendCommunicationService.send(session, BackendCommunicationService.REQUIRE_SOCKET + num);
         });
 
-        backendTransmitService.awareSocketCallback((session, port) -> {
-            return backendCommunicationService.send(session, BackendCommunicationService.AWARE_SOCKET + port);
+        backendTransmitService.awareSocketCallback((session, port, serviceName) -> {
+            return backendCommunicationService.send(session, BackendCommunicationService.AWARE_SOCKET + port + MessageUtil.option("service", serviceName));
+        });
+
+        // 注册消息经准入队列按速率处理；备用通信连接收到注册消息后同样排队
+        registrationService.registerCallback(this::registerBackend);
+        standbyService.registerCallback(registrationService::submit);
+        standbyService.loadCallback(PROXY_REFLECTION::size);
+        clusterService.loadCallback(PROXY_REFLECTION::size);
+        clusterService.routesCallback(this::syncFronts);
+        relayLinkService.frontsCallback(() -> FRONT_REFLECTION.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().route().node())));
+
+        backendCommunicationService.registerServiceCallback((backend, serviceName, options) -> {
+            if (listeningPorts() >= turnProperties.getMaxServerProxy()) {
+                admissionService.recordShed(ShedReasonEnum.REGISTRATION);
+                return null;
+            }
+            Integer proxyPort = registerProxy(backend, serviceName, options);
+            if (proxyPort != null) registryService.register(backend, proxyPort, serviceName, options);
+            return proxyPort;
         });
     }
 
     @PostConstruct
     private void run() {
         init();
+        Thread acceptor;
         try {
-            ServerSocket serverSocket = new ServerSocket();
+            ServerSocket serverSocket = tlsService.newServerSocket();
             serverSocket.bind(new InetSocketAddress(turnProperties.getRegPort()));
 
-            new Thread(() -> {
+            acceptor = new Thread(() -> {
                 while (!serverSocket.isClosed()) {
-                    CommonSocket socket = null;
+                    CommonSocket socket;
 
                     try {
                         socket = new CommonSocket(serverSocket.accept());
@@ -98,79 +254,206 @@ public class Server implements DisposableBean {
                         continue;
                     }
 
-                    String msg = null;
+                    // 握手与首条消息交由握手线程池，接收线程只负责accept
                     try {
-                        msg = socket.readString();
-                    } catch (IOException e) {
-                        log.info("Backend(ip: {}) read message failed. It will be close.", socket.getRemoteSocketAddress().toString());
+                        handshakePool.submit(() -> dispatch(socket));
+                    } catch (RejectedExecutionException e) {
+                        log.warn("Register port too many pending handshakes, Socket(ip: {}) will be close.", socket.getRemoteSocketAddress());
                         socket.closeUnchecked();
-                        continue;
-                    }
-
-                    if (msg.equals(BackendCommunicationService.REGISTER_PS)) {
-                        if (PROXY_REFLECTION.size() >= turnProperties.getMaxServerProxy()) {
-                            socket.writeUnchecked(BackendCommunicationService.REGISTER_PS_ERROR+"Server Full");
-                            socket.closeUnchecked();
-                            continue;
-                        }
-
-                        Backend backend = new Backend(socket.getSocket());
-
-                        if (!registerProxy(backend)) {
-                            socket.writeUnchecked(BackendCommunicationService.REGISTER_PS_ERROR+"Register Proxy Error");
-                            socket.closeUnchecked();
-                            continue;
-                        }
-
-                        if (!backendCommunicationService.register(backend, backend.getProxyPort())) {
-                            socket.writeUnchecked(BackendCommunicationService.REGISTER_PS_ERROR+"Register Communication Error");
-                            continue;
-                        }
-
-                        int retry = 3;
-                        while (retry > 0) {
-                            try {
-                                socket.write(BackendCommunicationService.REGISTER_PS_SUCCESS + backend.getSession() + ";;port:" + backend.getProxyPort());
-                            } catch (Exception e) {
-                                continue;
-                            }
-                            break;
-                        }
-
-                        if (retry <= 0) {
-                            socket.closeUnchecked();
-                            log.info("Backend(session: {}) register PS success, But write session failed. It will be close.", backend.getSession());
-                        }
-
-                    } else if (msg.startsWith(BackendCommunicationService.REGISTER_TRANSMIT_SOCKET)) {
-                        String sessionPort = msg.substring(BackendCommunicationService.REGISTER_TRANSMIT_SOCKET.length());
-                        String[] info = sessionPort.split(";;port:");
-                        String session = info[0];
-                        int port = Integer.parseInt(info[1]);
-                        if (!backendTransmitService.registerTransmit(session, port, socket.getSocket())) {
-                            socket.writeUnchecked(BackendCommunicationService.REGISTER_TRANSMIT_SOCKET_ERROR);
-                            socket.closeUnchecked();
-                        }
-                    } else {
-                        continue;
                     }
-
                 }
                 shutdown();
                 log.info("Server closed...");
-            }).start();
+            });
         } catch (IOException e) {
             e.printStackTrace();
             throw new ProxyServerStartErrorException("Server Start Error");
         }
 
+        if (turnProperties.getVhost().isEnabled()) {
+            startVirtualHostListeners();
+        }
+
         workingStatus = WorkingStatusEnum.WORKING;
+        syncFronts();
+
+        // 恢复完成后才接受连接，被代理端点的恢复请求在此之前于监听队列中等待
+        restore();
+        acceptor.start();
+    }
+
+    // 握手线程中完成握手并读取首条消息，按消息类型分发
+    private void dispatch(CommonSocket socket) {
+        if (!tlsService.handshake(socket.getSocket())) {
+            socket.closeUnchecked();
+            return;
+        }
+
+        String msg = null;
+        try {
+            // 首条消息同样限时，避免连接只握手不发消息而占住握手线程
+            socket.getSocket().setSoTimeout(turnProperties.getTls().getHandshakeTimeout());
+            msg = socket.readString();
+            socket.getSocket().setSoTimeout(0);
+        } catch (IOException e) {
+            log.info("Backend(ip: {}) read message failed. It will be close.", socket.getRemoteSocketAddress().toString());
+            socket.closeUnchecked();
+            return;
+        }
+
+        if (msg == null) {
+            socket.closeUnchecked();
+            return;
+        }
+        // 通信连接的消息以换行分隔
+        msg = msg.strip();
+
+        if (msg.startsWith(BackendCommunicationService.REGISTER_PS)) {
+            registrationService.submit(socket, msg);
+        } else if (msg.startsWith(BackendCommunicationService.RELAY_PROBE)) {
+            standbyService.hold(socket);
+        } else if (msg.startsWith(BackendCommunicationService.REGISTER_UDP_TUNNEL)) {
+            String body = msg.substring(BackendCommunicationService.REGISTER_UDP_TUNNEL.length());
+            String port = MessageUtil.options(body).get("port");
+            if (port == null || !udpRelayService.attach(MessageUtil.head(body), Integer.parseInt(port), socket.getSocket())) {
+                socket.writeUnchecked(BackendCommunicationService.REGISTER_UDP_TUNNEL_ERROR);
+                socket.closeUnchecked();
+            }
+        } else if (msg.startsWith(BackendCommunicationService.PUNCH_PROBE)) {
+            punchService.probe(socket);
+        } else if (msg.startsWith(BackendCommunicationService.PUNCH_REQUEST)) {
+            punchService.request(socket, msg.substring(BackendCommunicationService.PUNCH_REQUEST.length()));
+        } else if (msg.startsWith(BackendCommunicationService.PUNCH_ANSWER)) {
+            punchService.answer(socket, msg.substring(BackendCommunicationService.PUNCH_ANSWER.length()));
+        } else if (msg.startsWith(BackendCommunicationService.RESUME_STREAM)) {
+            streamService.resume(socket, msg.substring(BackendCommunicationService.RESUME_STREAM.length()));
+        } else if (msg.startsWith(BackendCommunicationService.REGISTER_TRANSMIT_SOCKET)) {
+            String sessionPort = msg.substring(BackendCommunicationService.REGISTER_TRANSMIT_SOCKET.length());
+            String[] info = sessionPort.split(";;port:");
+            String session = info[0];
+            int port = Integer.parseInt(info[1]);
+            if (!backendTransmitService.registerTransmit(session, port, socket.getSocket())) {
+                socket.writeUnchecked(BackendCommunicationService.REGISTER_TRANSMIT_SOCKET_ERROR);
+                socket.closeUnchecked();
+            }
+        }
+    }
+
+    // 共享端口：首包预读交由routePool，按主机名分发至已注册服务
+    private void startVirtualHostListeners() {
+        for (Integer port : turnProperties.getVhost().getPorts()) {
+            IoListener vhostListener;
+            try {
+                vhostListener = ioEngineService.bind(port);
+            } catch (IOException e) {
+                throw new ProxyServerStartErrorException("VirtualHost Listener(port: " + port + ") Start Error");
+            }
+            VHOST_LISTENERS.add(vhostListener);
+
+            boolean started = vhostListener.start(socket -> {
+                ClientSocket cSocket = new ClientSocket(socket);
+                if (!admitClient(cSocket)) return;
+
+                try {
+                    routePool.submit(() -> routeClient(port, cSocket));
+                } catch (RejectedExecutionException e) {
+                    log.warn("VirtualHostSocket(port: {}) too many pending connections, ClientSocket(ip: {}) will be close.", port, cSocket.getRemoteSocketAddress());
+                    admissionService.shed(cSocket, ShedReasonEnum.POOL_FULL);
+                }
+            });
+            if (!started) throw new ProxyServerStartErrorException("VirtualHost Listener(port: " + port + ") Start Error");
+            log.info("VirtualHost Listener started on port: {}", port);
+        }
+    }
+
+    // 预读首包解析主机名，预读数据在透传时优先发送
+    private void routeClient(int vhostPort, ClientSocket cSocket) {
+        VirtualHostProperties vhost = turnProperties.getVhost();
+        // 预读缓冲计入内存预算，预算耗尽时最多等待一个预读超时
+        if (!memoryService.acquire(vhost.getMaxPeekBytes(), vhost.getPeekTimeout())) {
+            log.warn("VirtualHostSocket(port: {}) memory budget exhausted, ClientSocket(ip: {}) will be close.", vhostPort, cSocket.getRemoteSocketAddress());
+            admissionService.shed(cSocket, ShedReasonEnum.MEMORY);
+            return;
+        }
+        byte[] buffer = new byte[vhost.getMaxPeekBytes()];
+        int length = 0;
+        String host = null;
+
+        long deadline = System.currentTimeMillis() + vhost.getPeekTimeout();
+        try {
+            InputStream in = cSocket.getSocket().getInputStream();
+            while (host == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) break;
+                if (length == buffer.length) {
+                    // 预读缓冲已满而ClientHello未读完时按记录长度扩容，扩容部分同样计入内存预算
+                    int expected = HostSniffer.expected(buffer, length);
+                    if (expected <= buffer.length || !memoryService.acquire(expected - buffer.length, remaining)) break;
+                    buffer = Arrays.copyOf(buffer, expected);
+                    continue;
+                }
+                cSocket.getSocket().setSoTimeout((int) remaining);
+
+                int readLen = in.read(buffer, length, buffer.length - length);
+                if (readLen == -1) break;
+                length += readLen;
+                host = HostSniffer.sniff(buffer, length);
+            }
+            cSocket.getSocket().setSoTimeout(0);
+        } catch (IOException e) {
+            log.info("VirtualHostSocket(port: {}) peek ClientSocket(ip: {}) failed;(Exception: {})", vhostPort, cSocket.getRemoteSocketAddress(), e.getMessage());
+            cSocket.closeUnchecked();
+            return;
+        } finally {
+            memoryService.release(buffer.length);
+        }
+
+        Integer proxyPort = virtualHostService.resolve(host);
+        if (proxyPort == null && relayLinkService.forward(vhostPort, host, cSocket, Arrays.copyOf(buffer, length))) {
+            return;
+        }
+        if (proxyPort == null) {
+            log.info("VirtualHostSocket(port: {}) no route for host: {}, ClientSocket(ip: {}) will be close.", vhostPort, host, cSocket.getRemoteSocketAddress());
+            cSocket.closeUnchecked();
+            return;
+        }
+
+        cSocket.setPeeked(Arrays.copyOf(buffer, length));
+        if (httpCacheService.isEnabled(proxyPort) && !httpCacheService.prepare(proxyPort, cSocket)) {
+            return;
+        }
+        if (!dispatch(proxyPort, cSocket)) {
+            log.info("VirtualHostSocket(port: {}; host: {}) transmitClient failed. It will be close.", vhostPort, host);
+            admissionService.reject(cSocket);
+            return;
+        }
+        log.info("VirtualHostSocket(port: {}; host: {}) ClientSocket(session: {}) Transmitting", vhostPort, host, cSocket.getSession());
+    }
+
+    // 按代理端口分发连接：服务组按负载均衡选择副本，否则交给独占该端口的被代理端点
+    private boolean dispatch(int proxyPort, ClientSocket cSocket) {
+        if (serviceGroupService.getGroupByPort(proxyPort) != null) {
+            return transmitToGroup(proxyPort, cSocket);
+        }
+
+        Backend backend = backendCommunicationService.getBackend(proxyPort);
+        if (backend == null) return false;
+
+        cSocket.init(proxyPort, backend.getSession(), backend.getServiceName(proxyPort));
+        return allowBackendConnection(backend.getSession()) && backendTransmitService.transmitClient(cSocket);
     }
 
     private void shutdown() {
         workingStatus = WorkingStatusEnum.CLOSING;
         log.info("Shutdown Server...");
 
+        VHOST_LISTENERS.forEach(IoListener::close);
+        routePool.shutdownNow();
+        handshakePool.shutdownNow();
+        FRONT_REFLECTION.keySet().forEach(this::closeFront);
+
+        // 先停止记录，关闭时释放的会话保留在注册表中
+        registryService.shutdown();
         backendTransmitService.shutdown();
         backendCommunicationService.shutdown();
 
@@ -178,40 +461,401 @@ public class Server implements DisposableBean {
         log.info("Server shutdown gracefully");
     }
 
-    // 注册代理
-    private boolean registerProxy(Backend backend) {
-        if (unworkable()) return false;
+    /**
+     * 注册被代理端点，socket的首条消息为注册消息；也由备用通信连接在故障切换时调用
+     */
+    private void registerBackend(CommonSocket socket, String msg) {
+        Map<String, String> options = MessageUtil.options(msg);
+
+        // 携带恢复凭证则接管保留的会话，沿用原代理端口与透传Socket池；凭证失效时按新注册处理
+        String token = options.get("resume");
+        if (token != null && backendCommunicationService.resume(token, socket.getSocket(), resumed -> resumeReply(resumed, options)) != null) {
+            return;
+        }
+
+        Backend backend = new Backend(socket.getSocket());
+        String serviceName = options.getOrDefault("service", BackendCommunicationService.DEFAULT_SERVICE);
+
+        // 集群模式下服务归属其他节点时重定向，被代理端点改连该节点注册
+        String relay = clusterService.redirect(clusterKey(backend, serviceName, options.get("group")));
+        if (relay != null) {
+            backend.send(BackendCommunicationService.REGISTER_PS_ERROR + "Redirect" + MessageUtil.option("relay", relay));
+            socket.closeUnchecked();
+            return;
+        }
+
+        if (listeningPorts() >= turnProperties.getMaxServerProxy()) {
+            admissionService.recordShed(ShedReasonEnum.REGISTRATION);
+            backend.send(BackendCommunicationService.REGISTER_PS_ERROR+"Server Full"
+                    + MessageUtil.option("retry-after", turnProperties.getRegistration().getFullRetryAfter()));
+            socket.closeUnchecked();
+            return;
+        }
+
+        if (registerProxy(backend, serviceName, options) == null) {
+            backend.send(BackendCommunicationService.REGISTER_PS_ERROR+"Register Proxy Error");
+            socket.closeUnchecked();
+            return;
+        }
+
+        if (!backendCommunicationService.register(backend, backend.getProxyPort())) {
+            backend.send(BackendCommunicationService.REGISTER_PS_ERROR+"Register Communication Error");
+            return;
+        }
+        registryService.register(backend, backend.getProxyPort(), serviceName, options);
+
+        if (Boolean.parseBoolean(options.get("stream"))) {
+            streamService.enable(backend.getSession());
+        }
+
+        // 透传流压缩在注册时协商，回复中携带选定的算法
+        String compression = compressionService.negotiate(backend.getSession(), options.get("compression"));
+        String reply = registerReply(backend, compression);
+
+        int retry = 3;
+        while (retry-- > 0) {
+            if (backend.send(reply)) {
+                break;
+            }
+        }
+
+        if (retry < 0) {
+            socket.closeUnchecked();
+            log.info("Backend(session: {}) register PS success, But write session failed. It will be close.", backend.getSession());
+        }
+    }
+
+    private String registerReply(Backend backend, String compression) {
+        return BackendCommunicationService.REGISTER_PS_SUCCESS + backend.getSession() + ";;port:" + backend.getProxyPort()
+                + (compression == null ? "" : MessageUtil.option("compression", compression))
+                + (backend.getResumeToken() == null ? "" : MessageUtil.option("resume", backend.getResumeToken()));
+    }
+
+    // 恢复回复附带已注册的全部服务，被代理端点无需逐个重新注册
+    private String resumeReply(Backend backend, Map<String, String> options) {
+        String compression = compressionService.negotiate(backend.getSession(), options.get("compression"));
+        return registerReply(backend, compression) + MessageUtil.option("services", backend.getServices().entrySet().stream()
+                .map(service -> service.getValue() + "=" + service.getKey())
+                .collect(Collectors.joining(",")));
+    }
+
+    // 重新绑定上次运行时的代理端口，会话等待被代理端点凭恢复凭证接管，宽限期内未恢复则释放
+    private void restore() {
+        if (!turnProperties.getResume().getEnabled()) return;
+
+        for (RegistryEntry entry : registryService.load()) {
+            Backend backend = new Backend(entry.getSession(), entry.getResumeToken());
+            // 端口变更会更新注册表中的会话
+            Map<Integer, RegistryEntry.Service> services = new LinkedHashMap<>(entry.getServices());
+            services.forEach((port, service) -> {
+                Map<String, String> options = MessageUtil.options(service.options());
+                Integer proxyPort = registerProxy(backend, service.name(), options, port);
+                if (port.equals(proxyPort)) return;
+
+                // 原端口被占用时改用新端口，恢复回复中的服务列表会告知被代理端点
+                if (proxyPort != null) registryService.register(backend, proxyPort, service.name(), options);
+                registryService.unregister(entry.getSession(), port);
+                log.warn("Backend(session: {}) service {} not restored on port {}, now: {}", entry.getSession(), service.name(), port, proxyPort);
+            });
+
+            if (backend.getServices().isEmpty() || !backendCommunicationService.restore(backend)) continue;
+            if (services.values().stream().anyMatch(service -> "true".equals(MessageUtil.options(service.options()).get("stream")))) {
+                streamService.enable(backend.getSession());
+            }
+        }
+    }
+
+    // 注册代理，返回分配的代理端口，失败返回null
+    private Integer registerProxy(Backend backend, String serviceName, Map<String, String> options) {
+        return registerProxy(backend, serviceName, options, null);
+    }
+
+    /**
+     * @param preferredPort 优先绑定的代理端口（重启后恢复原端口），为null或不可用时随机分配
+     */
+    private Integer registerProxy(Backend backend, String serviceName, Map<String, String> options, Integer preferredPort) {
+        if (unworkable()) return null;
+
+        Set<String> hosts = parseHosts(options.get("host"));
+
+        String groupName = options.get("group");
+        int weight = parseWeight(options.get("weight"));
+        Integer proxyPort = groupName != null && !groupName.isEmpty()
+                ? registerGroupProxy(backend, serviceName, groupName, weight, hosts, preferredPort)
+                : registerExclusiveProxy(backend, serviceName, hosts, preferredPort);
+
+        // 注册即登记隔离舱，保留槽位不依赖首个连接
+        if (proxyPort != null) {
+            transmitSchedulerService.register(backend.getSession(), weight);
+        }
+
+        if (proxyPort != null) {
+            transportService.register(proxyPort, options.get("transport"));
+        }
+
+        if (proxyPort != null && "minecraft".equals(options.get("protocol"))) {
+            minecraftService.enable(proxyPort);
+        }
+
+        // UDP在独占代理端口的同号端口上转发
+        if (proxyPort != null && "true".equals(options.get("udp"))) {
+            if (PROXY_REFLECTION.containsKey(proxyPort) && (groupName == null || groupName.isEmpty())) {
+                udpRelayService.open(backend.getSession(), proxyPort);
+            } else {
+                log.warn("UDP relay only supports exclusive proxy port, service: {}", serviceName);
+            }
+        }
+
+        if (proxyPort != null && "true".equals(options.get("cache"))) {
+            httpCacheService.enable(proxyPort);
+        }
+
+        if (proxyPort != null) {
+            clusterService.publish(clusterKey(backend, serviceName, groupName), proxyPort, hosts);
+        }
+
+        // 多路径条带，选项值为请求的路径数
+        if (proxyPort != null && options.get("stripe") != null) {
+            try {
+                stripeService.enable(proxyPort, Integer.parseInt(options.get("stripe")));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid stripe paths: {}, service: {}", options.get("stripe"), serviceName);
+            }
+        }
+        return proxyPort;
+    }
+
+    // 集群路由键：服务组名，否则为被代理端点地址与服务名（默认服务名相同的被代理端点分散到各节点）；重启后恢复的会话尚无地址
+    private String clusterKey(Backend backend, String serviceName, String groupName) {
+        if (groupName != null && !groupName.isEmpty()) return groupName;
+        return (backend.getHost() == null ? backend.getSession() : backend.getHost()) + "/" + serviceName;
+    }
+
+    // 独占代理端口
+    private Integer registerExclusiveProxy(Backend backend, String serviceName, Set<String> hosts, Integer preferredPort) {
+        IoListener proxyListener = null;
+        Integer proxyPort;
+        if (virtualOnly(hosts)) {
+            proxyPort = virtualPort(preferredPort);
+        } else {
+            proxyListener = bindProxyListener(preferredPort);
+            if (proxyListener == null) {
+                return null;
+            }
+            proxyPort = proxyListener.getLocalPort();
+        }
+
+        if (!hosts.isEmpty() && !virtualHostService.route(hosts, proxyPort)) {
+            closeProxyListener(proxyListener);
+            return null;
+        }
+
+        if (backend.getProxyPort() == null) backend.setProxyPort(proxyPort);
+        backend.getServices().put(proxyPort, serviceName);
+        if (proxyListener == null) return proxyPort;
+
+        PROXY_REFLECTION.put(proxyPort, proxyListener);
+        if (!submitProxyListenerTask(backend.getSession(), serviceName, proxyListener)) {
+            PROXY_REFLECTION.remove(proxyPort);
+            backend.getServices().remove(proxyPort);
+            virtualHostService.unroute(proxyPort);
+            closeProxyListener(proxyListener);
+            return null;
+        }
+
+        return proxyPort;
+    }
 
-        ServerSocket proxySocket = null;
-        Integer proxyPort = null;
+    // 加入服务组，首个副本负责创建代理端口，其余副本共享
+    private Integer registerGroupProxy(Backend backend, String serviceName, String groupName, int weight, Set<String> hosts, Integer preferredPort) {
+        Integer proxyPort;
 
         synchronized (Server.class) {
-            proxyPort = PortUtil.getPort();
-            if (proxyPort == null) {
-                return false;
+            ServiceGroup group = serviceGroupService.getGroup(groupName);
+            if (group == null) {
+                IoListener proxyListener = null;
+                if (virtualOnly(hosts)) {
+                    proxyPort = virtualPort(preferredPort);
+                } else {
+                    proxyListener = bindProxyListener(preferredPort);
+                    if (proxyListener == null) {
+                        return null;
+                    }
+                    proxyPort = proxyListener.getLocalPort();
+                }
+
+                if (!hosts.isEmpty() && !virtualHostService.route(hosts, proxyPort)) {
+                    closeProxyListener(proxyListener);
+                    return null;
+                }
+                serviceGroupService.createGroup(groupName, proxyPort);
+
+                if (proxyListener != null) {
+                    PROXY_REFLECTION.put(proxyPort, proxyListener);
+                    if (!submitGroupListenerTask(groupName, proxyListener)) {
+                        serviceGroupService.leave(proxyPort, backend.getSession());
+                        virtualHostService.unroute(proxyPort);
+                        PROXY_REFLECTION.remove(proxyPort);
+                        closeProxyListener(proxyListener);
+                        return null;
+                    }
+                }
+            } else {
+                proxyPort = group.getProxyPort();
+                if (!hosts.isEmpty() && !virtualHostService.route(hosts, proxyPort)) {
+                    return null;
+                }
             }
 
+            if (backend.getProxyPort() == null) backend.setProxyPort(proxyPort);
+            serviceGroupService.join(groupName, backend.getSession(), serviceName, weight);
+        }
+
+        backend.getServices().put(proxyPort, serviceName);
+        backend.getGroupPorts().add(proxyPort);
+        return proxyPort;
+    }
+
+    private IoListener bindProxyListener(Integer preferredPort) {
+        if (preferredPort != null && preferredPort <= MAX_PORT) {
             try {
-                proxySocket = new ServerSocket();
-                proxySocket.setReuseAddress(true);
-                proxySocket.bind(new InetSocketAddress(proxyPort));
+                return ioEngineService.bind(preferredPort);
             } catch (IOException e) {
-                return false;
+                log.warn("Proxy port {} unavailable;(Exception: {})", preferredPort, e.getMessage());
             }
         }
+        return bindProxyListener();
+    }
+
+    // 虚拟端口不占用监听端口，恢复时沿用原值，计数器越过已恢复的值
+    private int virtualPort(Integer preferredPort) {
+        if (preferredPort == null || preferredPort <= MAX_PORT) return VIRTUAL_PORT.incrementAndGet();
+        VIRTUAL_PORT.accumulateAndGet(preferredPort, Math::max);
+        return preferredPort;
+    }
 
-        PROXY_REFLECTION.put(proxyPort, proxySocket);
+    private IoListener bindProxyListener() {
+        synchronized (Server.class) {
+            // 其他节点服务对应的前置端口即使尚未开放也不分配给本地服务
+            Set<Integer> reserved = frontRoutes().keySet();
+            for (int i = 0; i < BIND_ATTEMPTS; ++i) {
+                Integer proxyPort = PortUtil.getPort();
+                if (proxyPort == null) {
+                    return null;
+                }
+                if (reserved.contains(proxyPort) || FRONT_REFLECTION.containsKey(proxyPort)) continue;
 
-        backend.setProxyPort(proxyPort);
-        if (!submitProxyListenerTask(backend.getSession(), proxySocket)) {
-            try {
-                PROXY_REFLECTION.remove(proxyPort);
-                proxySocket.close();
-            } catch (IOException e) {}
-            return false;
+                try {
+                    return ioEngineService.bind(proxyPort);
+                } catch (IOException e) {
+                    if (log.isDebugEnabled()) log.debug("Proxy port {} taken before bind, retry;(Exception: {})", proxyPort, e.getMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    // 占用监听线程的端口数：代理端口与前置端口共用max-server-proxy
+    private int listeningPorts() {
+        return PROXY_REFLECTION.size() + FRONT_REFLECTION.size();
+    }
+
+    // 仅通过共享端口按主机名访问，不分配独立监听端口
+    private boolean virtualOnly(Set<String> hosts) {
+        return !hosts.isEmpty() && !turnProperties.getVhost().getDedicatedPort();
+    }
+
+    private Set<String> parseHosts(String hosts) {
+        if (hosts == null || hosts.isBlank()) return Set.of();
+        if (!turnProperties.getVhost().isEnabled()) {
+            log.warn("VirtualHost disabled, hosts({}) ignored", hosts);
+            return Set.of();
+        }
+
+        Set<String> result = new HashSet<>();
+        for (String host : hosts.split(",")) {
+            if (!host.isBlank()) result.add(host.trim());
+        }
+        return result;
+    }
+
+    private void closeProxyListener(IoListener proxyListener) {
+        if (proxyListener != null) proxyListener.close();
+    }
+
+    /**
+     * 集群路由变化时同步前置端口：其他节点上独占真实端口的服务在本节点开放偏移后的端口，
+     * 访客连接最近的节点，经节点间链路转发；所在节点变化时沿用端口，按连接时的路由转发
+     */
+    private void syncFronts() {
+        if (!turnProperties.getCluster().getFront() || unworkable()) return;
+
+        Map<Integer, ClusterRoute> routes = frontRoutes();
+        synchronized (FRONT_REFLECTION) {
+            new ArrayList<>(FRONT_REFLECTION.keySet()).forEach(port -> {
+                if (!routes.containsKey(port)) closeFront(port);
+            });
+
+            int skipped = 0;
+            for (Map.Entry<Integer, ClusterRoute> entry : routes.entrySet()) {
+                int port = entry.getKey();
+                ClusterRoute route = entry.getValue();
+                Front front = FRONT_REFLECTION.get(port);
+                if (front != null) {
+                    FRONT_REFLECTION.put(port, new Front(route, front.listener()));
+                    continue;
+                }
+                if (PROXY_REFLECTION.containsKey(port)) continue;
+                // 前置端口与本地代理端口共用max-server-proxy
+                if (listeningPorts() >= turnProperties.getMaxServerProxy()) {
+                    ++skipped;
+                    continue;
+                }
+
+                IoListener frontListener;
+                try {
+                    frontListener = ioEngineService.bind(port);
+                } catch (IOException e) {
+                    log.warn("Front port {} for service {} on node {} unavailable;(Exception: {})", port, route.key(), route.node(), e.getMessage());
+                    continue;
+                }
+                FRONT_REFLECTION.put(port, new Front(route, frontListener));
+                if (!submitProxyListenerTask(null, route.key(), frontListener)) {
+                    FRONT_REFLECTION.remove(port);
+                    closeProxyListener(frontListener);
+                    continue;
+                }
+                log.info("Front port {} opened for service {} on node {}", port, route.key(), route.node());
+            }
+            if (skipped > 0) log.warn("Max server proxy({}) reached, {} front port(s) not opened", turnProperties.getMaxServerProxy(), skipped);
         }
+    }
+
+    // 前置端口-其他节点上独占真实端口的服务
+    private Map<Integer, ClusterRoute> frontRoutes() {
+        if (!turnProperties.getCluster().getFront()) return Map.of();
+        int offset = turnProperties.getCluster().getFrontPortOffset();
+        Map<Integer, ClusterRoute> routes = new HashMap<>();
+        for (ClusterRoute route : clusterService.remoteRoutes()) {
+            int port = route.port() + offset;
+            if (route.port() <= MAX_PORT && port > 0 && port <= MAX_PORT) routes.putIfAbsent(port, route);
+        }
+        return routes;
+    }
 
-        return true;
+    private void closeFront(int port) {
+        Front front = FRONT_REFLECTION.remove(port);
+        if (front == null) return;
+        closeProxyListener(front.listener());
+        log.info("Front port {} closed for service {}", port, front.route().key());
+    }
+
+    private int parseWeight(String weight) {
+        try {
+            return weight == null ? 1 : Integer.parseInt(weight);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
     }
 
     @Override
@@ -219,32 +863,118 @@ public class Server implements DisposableBean {
         shutdown();
     }
 
-    private boolean submitProxyListenerTask(String session, ServerSocket proxySocket) {
-        try {
-            proxyListenerPool.submit(() -> {
-                while (!proxySocket.isClosed()) {
-                    ClientSocket cSocket = null;
-                    try {
-                        cSocket = new ClientSocket(proxySocket.accept());
-                    } catch (IOException e) {
-                        log.warn("ProxySocket(port: {}) Accept Connection interrupt;(Exception: )", proxySocket.getLocalPort(), e.getMessage());
-                        continue;
-                    }
-                    cSocket.init(proxySocket.getLocalPort(), session);
+    /**
+     * 代理端口监听任务
+     * @param session 独占该端口的被代理端点；为null时为前置端口，服务在其他节点，连接经节点间链路转发
+     */
+    private boolean submitProxyListenerTask(String session, String serviceName, IoListener proxyListener) {
+        int proxyPort = proxyListener.getLocalPort();
+        boolean started = proxyListener.start(socket -> {
+            ClientSocket cSocket = new ClientSocket(socket);
+            if (!admitClient(cSocket)) return;
+            if (session == null) {
+                Front front = FRONT_REFLECTION.get(proxyPort);
+                if (front == null || !relayLinkService.front(front.route(), cSocket)) {
+                    log.info("FrontSocket(port: {}; service: {}) no path to node. It will be close.", proxyPort, serviceName);
+                    admissionService.reject(cSocket);
+                }
+                return;
+            }
+            if (httpCacheService.isEnabled(proxyPort)) {
+                submitHttpCacheTask(proxyPort, cSocket);
+                return;
+            }
+            cSocket.init(proxyPort, session, serviceName);
 
-                    log.info("ProxySocket(port: {}) Accept ClientSocket(session: {}, ip: {})", proxySocket.getLocalPort(), cSocket.getSession(), cSocket.getRemoteSocketAddress().toString());
-                    if (!backendTransmitService.transmitClient(cSocket)) {
-                        log.info("ProxySocket(port: {}) transmitClient failed. It will be close.", proxySocket.getLocalPort());
-                        cSocket.closeUnchecked();
-                        continue;
-                    }
-                    log.info("BackendTransmitSocket(client session: {}) Transmitting", cSocket.getSession());
+            log.info("ProxySocket(port: {}; service: {}) Accept ClientSocket(session: {}, ip: {})", proxyPort, serviceName, cSocket.getSession(), cSocket.getRemoteSocketAddress().toString());
+            if (!allowBackendConnection(session) || !backendTransmitService.transmitClient(cSocket)) {
+                log.info("ProxySocket(port: {}) transmitClient failed. It will be close.", proxyPort);
+                admissionService.reject(cSocket);
+                return;
+            }
+            log.info("BackendTransmitSocket(client session: {}) Transmitting", cSocket.getSession());
+        });
+        if (!started) admissionService.recordShed(ShedReasonEnum.REGISTRATION);
+        return started;
+    }
+
+    // 服务组代理端口，所有副本共享
+    private boolean submitGroupListenerTask(String groupName, IoListener proxyListener) {
+        int proxyPort = proxyListener.getLocalPort();
+        boolean started = proxyListener.start(socket -> {
+            ClientSocket cSocket = new ClientSocket(socket);
+            if (!admitClient(cSocket)) return;
+
+            if (httpCacheService.isEnabled(proxyPort)) {
+                submitHttpCacheTask(proxyPort, cSocket);
+                return;
+            }
+            if (!transmitToGroup(proxyPort, cSocket)) {
+                log.info("ProxySocket(port: {}; group: {}) no replica available. It will be close.", proxyPort, groupName);
+                admissionService.reject(cSocket);
+                return;
+            }
+            log.info("BackendTransmitSocket(client session: {}) Transmitting", cSocket.getSession());
+        });
+        if (!started) admissionService.recordShed(ShedReasonEnum.REGISTRATION);
+        return started;
+    }
+
+    // 客户端ip新建连接限速
+    private boolean admitClient(ClientSocket cSocket) {
+        relayLinkService.resolveOrigin(cSocket);
+        if (rateLimitService.allowClientConnection(cSocket.getRemoteIp())) return true;
+        admissionService.shed(cSocket, ShedReasonEnum.RATE_LIMIT);
+        return false;
+    }
+
+    // 被代理端点新建连接限速
+    private boolean allowBackendConnection(String session) {
+        if (rateLimitService.allowBackendConnection(session)) return true;
+        admissionService.recordShed(ShedReasonEnum.RATE_LIMIT);
+        return false;
+    }
+
+    // HTTP缓存需读取请求，交由routePool处理，避免阻塞accept
+    private void submitHttpCacheTask(int proxyPort, ClientSocket cSocket) {
+        try {
+            routePool.submit(() -> {
+                if (httpCacheService.prepare(proxyPort, cSocket) && !dispatch(proxyPort, cSocket)) {
+                    log.info("ProxySocket(port: {}) transmitClient failed. It will be close.", proxyPort);
+                    admissionService.reject(cSocket);
                 }
             });
         } catch (RejectedExecutionException e) {
-            return false;
+            log.warn("ProxySocket(port: {}) too many pending connections, ClientSocket(ip: {}) will be close.", proxyPort, cSocket.getRemoteSocketAddress());
+            admissionService.shed(cSocket, ShedReasonEnum.POOL_FULL);
         }
-        return true;
+    }
+
+    // 按负载均衡策略选择副本透传，失败则换下一个副本
+    private boolean transmitToGroup(int proxyPort, ClientSocket cSocket) {
+        Set<Replica> tried = new HashSet<>();
+        Replica replica;
+        while (!cSocket.isClosed() && (replica = serviceGroupService.select(proxyPort, tried)) != null) {
+            tried.add(replica);
+            // 连接速率超限的副本直接跳过，不计入失败
+            if (!allowBackendConnection(replica.getBackendSession())) continue;
+
+            cSocket.init(proxyPort, replica.getBackendSession(), replica.getServiceName());
+            log.info("ProxySocket(port: {}) Accept ClientSocket(session: {}, ip: {}) to Replica(session: {})", proxyPort, cSocket.getSession(), cSocket.getRemoteSocketAddress().toString(), replica.getBackendSession());
+
+            replica.acquire();
+            cSocket.setFinishCallback(replica::release);
+            long start = System.currentTimeMillis();
+            if (backendTransmitService.transmitClient(cSocket)) {
+                replica.recordSuccess(System.currentTimeMillis() - start);
+                return true;
+            }
+
+            cSocket.setFinishCallback(null);
+            replica.release();
+            replica.recordFailure();
+        }
+        return false;
     }
 
     private String bytesToString(byte[] bytes) {
@@ -260,4 +990,6 @@ public class Server implements DisposableBean {
     private boolean unworkable() {
         return workingStatus != WorkingStatusEnum.WORKING;
     }
+
+    private record Front(ClusterRoute route, IoListener listener) {}
 }
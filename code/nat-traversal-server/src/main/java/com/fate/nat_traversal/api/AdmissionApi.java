@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.limit.AdmissionStats;
+import com.fate.nat_traversal.service.AdmissionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/24 21:30
+ * @description: 准入控制排队时延与丢弃统计
+ */
+
+@Controller
+@RequestMapping("/api")
+public class AdmissionApi {
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @GetMapping(value = "/admission", produces = "application/json")
+    @ResponseBody
+    public AdmissionStats getAdmission() {
+        return admissionService.getStats();
+    }
+}
@@ -0,0 +1,80 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.service.TransmitSchedulerService;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/23 21:30
+ * @description: 透传隔离舱占用与排队情况
+ */
+
+@Controller
+@RequestMapping("/api")
+public class BulkheadApi {
+
+    @Autowired
+    private TransmitSchedulerService transmitSchedulerService;
+
+    @GetMapping(value = "/bulkheads", produces = "application/json")
+    @ResponseBody
+    public SchedulerInfo getBulkheads() {
+        return SchedulerInfo.builder()
+                .capacity(transmitSchedulerService.getCapacity())
+                .totalActive(transmitSchedulerService.getTotalActive())
+                .bulkheads(transmitSchedulerService.getBulkheads().stream()
+                        .map(bulkhead -> BulkheadInfo.builder()
+                                .session(bulkhead.getBackendSession())
+                                .weight(bulkhead.getWeight())
+                                .active(bulkhead.getActive())
+                                .queueLength(bulkhead.getQueueLength())
+                                .maxQueueLength(bulkhead.getMaxQueueLength())
+                                .admitted(bulkhead.getAdmitted())
+                                .queued(bulkhead.getQueued())
+                                .rejected(bulkhead.getRejected())
+                                .shed(bulkhead.getShed())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    @Builder
+    @Data
+    private static class SchedulerInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer capacity;
+        private Integer totalActive;
+        private List<BulkheadInfo> bulkheads;
+    }
+
+    @Builder
+    @Data
+    private static class BulkheadInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String session;
+        private Integer weight;
+        private Integer active;
+        private Integer queueLength;
+        private Integer maxQueueLength;
+        private Long admitted;
+        private Long queued;
+        private Long rejected;
+        private Long shed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.cluster.ClusterStats;
+import com.fate.nat_traversal.service.ClusterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/10 21:30
+ * @description: 集群成员、哈希环占比、各节点路由以及重定向次数
+ */
+
+@Controller
+@RequestMapping("/api")
+public class ClusterApi {
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @GetMapping(value = "/cluster", produces = "application/json")
+    @ResponseBody
+    public ClusterStats getCluster() {
+        return clusterService.getStats();
+    }
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.compress.CompressionStats;
+import com.fate.nat_traversal.service.CompressionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/30 21:30
+ * @description: 各被代理端点透传流的压缩比与压缩/解压耗时
+ */
+
+@Controller
+@RequestMapping("/api")
+public class CompressionApi {
+
+    @Autowired
+    private CompressionService compressionService;
+
+    @GetMapping(value = "/compression", produces = "application/json")
+    @ResponseBody
+    public List<CompressionStats> getCompression() {
+        return compressionService.getStats();
+    }
+}
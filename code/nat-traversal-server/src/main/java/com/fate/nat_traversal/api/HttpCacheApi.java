@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.cache.HttpCacheStats;
+import com.fate.nat_traversal.service.HttpCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/21 21:30
+ * @description: HTTP边缘缓存统计
+ */
+
+@Controller
+@RequestMapping("/api")
+public class HttpCacheApi {
+
+    @Autowired
+    private HttpCacheService httpCacheService;
+
+    @GetMapping(value = "/cache", produces = "application/json")
+    @ResponseBody
+    public HttpCacheStats getStats() {
+        return httpCacheService.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.engine.IoEngineStats;
+import com.fate.nat_traversal.service.IoEngineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/11 21:30
+ * @description: 当前I/O引擎、可选引擎、监听端口与接受线程数、接受与拒绝的连接数以及复用缓冲
+ */
+
+@Controller
+@RequestMapping("/api")
+public class IoEngineApi {
+
+    @Autowired
+    private IoEngineService ioEngineService;
+
+    @GetMapping(value = "/io-engine", produces = "application/json")
+    @ResponseBody
+    public IoEngineStats getIoEngine() {
+        return ioEngineService.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.minecraft.MinecraftStats;
+import com.fate.nat_traversal.service.MinecraftService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/29 21:30
+ * @description: Minecraft分帧透传统计与各包类型时延直方图
+ */
+
+@Controller
+@RequestMapping("/api")
+public class MinecraftApi {
+
+    @Autowired
+    private MinecraftService minecraftService;
+
+    @GetMapping(value = "/minecraft", produces = "application/json")
+    @ResponseBody
+    public MinecraftStats getMinecraft() {
+        return minecraftService.getStats();
+    }
+}
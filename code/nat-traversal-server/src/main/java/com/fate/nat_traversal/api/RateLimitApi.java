@@ -0,0 +1,98 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.limit.RateLimits;
+import com.fate.nat_traversal.limit.TokenBucket;
+import com.fate.nat_traversal.service.RateLimitService;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/22 21:30
+ * @description: 限速计数
+ */
+
+@Controller
+@RequestMapping("/api")
+public class RateLimitApi {
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @GetMapping(value = "/limits", produces = "application/json")
+    @ResponseBody
+    public RateLimitInfo getLimits() {
+        return RateLimitInfo.builder()
+                .backends(toLimitInfos(rateLimitService.getBackendLimits()))
+                .clients(toLimitInfos(rateLimitService.getClientLimits()))
+                .build();
+    }
+
+    private List<LimitInfo> toLimitInfos(Map<String, RateLimits> limits) {
+        return limits.entrySet().stream()
+                .map(entry -> LimitInfo.builder()
+                        .key(entry.getKey())
+                        .bytes(toBucketInfo(entry.getValue().getBytes()))
+                        .connections(toBucketInfo(entry.getValue().getConnections()))
+                        .build())
+                .toList();
+    }
+
+    private BucketInfo toBucketInfo(TokenBucket bucket) {
+        if (bucket == null) return null;
+        return BucketInfo.builder()
+                .rate(bucket.getRate())
+                .burst(bucket.getBurst())
+                .acquired(bucket.getAcquired())
+                .throttled(bucket.getThrottled())
+                .throttledMillis(bucket.getThrottledMillis())
+                .build();
+    }
+
+    @Builder
+    @Data
+    private static class RateLimitInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private List<LimitInfo> backends;
+        private List<LimitInfo> clients;
+    }
+
+    @Builder
+    @Data
+    private static class LimitInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String key;
+        private BucketInfo bytes;
+        private BucketInfo connections;
+    }
+
+    @Builder
+    @Data
+    private static class BucketInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Long rate;
+        private Long burst;
+        private Long acquired;
+        private Long throttled;
+        private Long throttledMillis;
+    }
+}
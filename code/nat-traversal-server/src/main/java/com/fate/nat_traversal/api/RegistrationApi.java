@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.limit.RegistrationStats;
+import com.fate.nat_traversal.service.RegistrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/08 21:30
+ * @description: 注册准入队列长度、排队时延与回复稍后重试的次数
+ */
+
+@Controller
+@RequestMapping("/api")
+public class RegistrationApi {
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @GetMapping(value = "/registrations", produces = "application/json")
+    @ResponseBody
+    public RegistrationStats getRegistrations() {
+        return registrationService.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.registry.RegistryStats;
+import com.fate.nat_traversal.service.RegistryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/09 21:30
+ * @description: 持久化注册表的会话数、日志大小、压缩次数与启动时的恢复情况
+ */
+
+@Controller
+@RequestMapping("/api")
+public class RegistryApi {
+
+    @Autowired
+    private RegistryService registryService;
+
+    @GetMapping(value = "/registry", produces = "application/json")
+    @ResponseBody
+    public RegistryStats getRegistry() {
+        return registryService.getStats();
+    }
+}
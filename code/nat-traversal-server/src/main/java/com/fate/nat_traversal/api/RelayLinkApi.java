@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.cluster.RelayLinkStats;
+import com.fate.nat_traversal.service.RelayLinkService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/11 21:30
+ * @description: 节点间链路的往返时间与流量、到各节点的下一跳、前置端口以及转发次数
+ */
+
+@Controller
+@RequestMapping("/api")
+public class RelayLinkApi {
+
+    @Autowired
+    private RelayLinkService relayLinkService;
+
+    @GetMapping(value = "/relay-links", produces = "application/json")
+    @ResponseBody
+    public RelayLinkStats getRelayLinks() {
+        return relayLinkService.getStats();
+    }
+}
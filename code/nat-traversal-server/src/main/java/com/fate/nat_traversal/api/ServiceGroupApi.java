@@ -0,0 +1,85 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.model.Replica;
+import com.fate.nat_traversal.service.ServiceGroupService;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/19 21:30
+ * @description: 服务组及副本负载信息
+ */
+
+@Controller
+@RequestMapping("/api")
+public class ServiceGroupApi {
+
+    @Autowired
+    private ServiceGroupService serviceGroupService;
+
+    @GetMapping(value = "/groups", produces = "application/json")
+    @ResponseBody
+    public List<ServiceGroupInfo> getGroups() {
+        return serviceGroupService.getGroups().stream()
+                .map(group -> ServiceGroupInfo.builder()
+                        .name(group.getName())
+                        .port(group.getProxyPort())
+                        .replicas(group.getReplicas().stream().map(this::toReplicaInfo).toList())
+                        .build())
+                .toList();
+    }
+
+    private ReplicaInfo toReplicaInfo(Replica replica) {
+        return ReplicaInfo.builder()
+                .session(replica.getBackendSession())
+                .service(replica.getServiceName())
+                .weight(replica.getWeight())
+                .available(replica.isAvailable())
+                .draining(replica.isDraining())
+                .activeConnections(replica.getActiveConnections())
+                .totalConnections(replica.getTotalConnections())
+                .failures(replica.getFailures())
+                .ewmaLatency(replica.getEwmaLatency())
+                .build();
+    }
+
+    @Builder
+    @Data
+    private static class ServiceGroupInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private Integer port;
+        private List<ReplicaInfo> replicas;
+    }
+
+    @Builder
+    @Data
+    private static class ReplicaInfo implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String session;
+        private String service;
+        private Integer weight;
+        private Boolean available;
+        private Boolean draining;
+        private Integer activeConnections;
+        private Long totalConnections;
+        private Long failures;
+        private Double ewmaLatency;
+    }
+}
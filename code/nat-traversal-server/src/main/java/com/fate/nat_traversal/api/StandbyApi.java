@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.service.StandbyService;
+import com.fate.nat_traversal.standby.StandbyStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/04 21:30
+ * @description: 中继负载、备用通信连接数、探测与故障切换注册次数
+ */
+
+@Controller
+@RequestMapping("/api")
+public class StandbyApi {
+
+    @Autowired
+    private StandbyService standbyService;
+
+    @GetMapping(value = "/standby", produces = "application/json")
+    @ResponseBody
+    public StandbyStats getStandby() {
+        return standbyService.getStats();
+    }
+}
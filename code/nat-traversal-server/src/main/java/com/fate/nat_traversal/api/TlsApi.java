@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.tls.TlsStats;
+import com.fate.nat_traversal.service.TlsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * @author: Fate
+ * @date: 2025/12/31 21:30
+ * @description: 注册端口TLS握手（完整/会话恢复）与透传建立耗时
+ */
+
+@Controller
+@RequestMapping("/api")
+public class TlsApi {
+
+    @Autowired
+    private TlsService tlsService;
+
+    @GetMapping(value = "/tls", produces = "application/json")
+    @ResponseBody
+    public TlsStats getTls() {
+        return tlsService.getStats();
+    }
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.api;
+
+import com.fate.nat_traversal.udp.UdpStats;
+import com.fate.nat_traversal.service.UdpRelayService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * @author: Fate
+ * @date: 2026/01/02 21:30
+ * @description: 各UDP代理端口的会话数、转发量与批量大小
+ */
+
+@Controller
+@RequestMapping("/api")
+public class UdpApi {
+
+    @Autowired
+    private UdpRelayService udpRelayService;
+
+    @GetMapping(value = "/udp", produces = "application/json")
+    @ResponseBody
+    public List<UdpStats> getUdp() {
+        return udpRelayService.getStats();
+    }
+}
@@ -0,0 +1,33 @@
+package com.fate.nat_traversal.balance;
+
+import com.fate.nat_traversal.model.Replica;
+
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 加权EWMA延迟：选择 EWMA建连延迟*(活跃连接+1)/权重 最小的副本，尚无延迟样本的副本优先探测
+ */
+public class EwmaLatencyLoadBalancer implements LoadBalancer {
+
+    @Override
+    public Replica select(List<Replica> replicas) {
+        Replica selected = null;
+        double minScore = Double.MAX_VALUE;
+
+        for (Replica replica : replicas) {
+            if (replica.getEwmaLatency() == 0) {
+                return replica;
+            }
+
+            double score = replica.getEwmaLatency() * (replica.getActiveConnections() + 1.0) / replica.getWeight();
+            if (score < minScore) {
+                minScore = score;
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+}
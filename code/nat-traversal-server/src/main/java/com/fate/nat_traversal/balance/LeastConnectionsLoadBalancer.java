@@ -0,0 +1,34 @@
+package com.fate.nat_traversal.balance;
+
+import com.fate.nat_traversal.model.Replica;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 加权最少连接：选择 (活跃连接+1)/权重 最小的副本，得分相同时随机打散
+ */
+public class LeastConnectionsLoadBalancer implements LoadBalancer {
+
+    @Override
+    public Replica select(List<Replica> replicas) {
+        Replica selected = null;
+        double minScore = Double.MAX_VALUE;
+        int ties = 0;
+
+        for (Replica replica : replicas) {
+            double score = (replica.getActiveConnections() + 1.0) / replica.getWeight();
+            if (score < minScore) {
+                minScore = score;
+                selected = replica;
+                ties = 1;
+            } else if (score == minScore && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+}
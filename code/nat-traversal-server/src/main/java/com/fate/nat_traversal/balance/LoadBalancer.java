@@ -0,0 +1,20 @@
+package com.fate.nat_traversal.balance;
+
+import com.fate.nat_traversal.model.Replica;
+
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 副本选择策略
+ */
+public interface LoadBalancer {
+
+    /**
+     * @param replicas 候选副本，已排除排空、摘除及本次已失败的副本
+     * @return 选中的副本，无可用副本返回null
+     */
+    Replica select(List<Replica> replicas);
+}
@@ -0,0 +1,110 @@
+package com.fate.nat_traversal.cache;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * 缓存的HTTP响应
+ */
+public class HttpCacheEntry {
+
+    @Getter
+    private final String key;
+
+    private final String statusLine;
+
+    private final List<String[]> headers;
+
+    @Getter
+    private final byte[] body;
+
+    @Getter
+    private final String etag;
+
+    /**
+     * 存入或最近一次重新验证的时间，用于Age
+     */
+    @Getter
+    private volatile long storedAt;
+
+    /**
+     * 响应声明了Cache-Control: public，可用于携带Cookie的请求
+     */
+    @Getter
+    private final boolean publicResponse;
+
+    /**
+     * 过期时间，过期后需向后端重新验证
+     */
+    private volatile long expiresAt;
+
+    public HttpCacheEntry(String key, HttpHead head, byte[] body, long ttlMillis) {
+        this.key = key;
+        this.statusLine = head.getStartLine();
+        this.headers = head.endToEndHeaders();
+        this.body = body;
+        this.etag = head.get("ETag");
+        this.storedAt = System.currentTimeMillis();
+        this.publicResponse = head.cacheControl().containsKey("public");
+        this.expiresAt = storedAt + ttlMillis;
+    }
+
+    public boolean isFresh() {
+        return System.currentTimeMillis() < expiresAt;
+    }
+
+    /**
+     * 后端返回304，缓存的响应重新计为刚从后端取得
+     */
+    public void refresh(long ttlMillis) {
+        storedAt = System.currentTimeMillis();
+        expiresAt = storedAt + ttlMillis;
+    }
+
+    /**
+     * 占用字节数估算
+     */
+    public long size() {
+        long size = key.length() + statusLine.length() + body.length;
+        for (String[] header : headers) {
+            size += header[0].length() + header[1].length() + 4;
+        }
+        return size;
+    }
+
+    /**
+     * 生成响应
+     * @param withBody HEAD请求不携带响应体
+     */
+    public byte[] toResponse(boolean withBody, boolean keepAlive, String cacheStatus) {
+        StringBuilder builder = new StringBuilder(statusLine).append("\r\n");
+        headers.forEach(header -> builder.append(header[0]).append(": ").append(header[1]).append("\r\n"));
+        builder.append("Age: ").append((System.currentTimeMillis() - storedAt) / 1000).append("\r\n");
+        builder.append("X-Cache: ").append(cacheStatus).append("\r\n");
+        builder.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        return concat(builder.toString().getBytes(StandardCharsets.ISO_8859_1), withBody ? body : new byte[0]);
+    }
+
+    /**
+     * 条件请求命中，返回304
+     */
+    public byte[] toNotModified(boolean keepAlive) {
+        StringBuilder builder = new StringBuilder("HTTP/1.1 304 Not Modified\r\n");
+        builder.append("ETag: ").append(etag).append("\r\n");
+        builder.append("X-Cache: HIT\r\n");
+        builder.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * HTTP边缘缓存统计
+ */
+@Builder
+@Data
+public class HttpCacheStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long hits;
+    private Long misses;
+    private Long revalidations;
+    private Long bypasses;
+    private Double hitRatio;
+    private Long bytesSaved;
+    private Long evictions;
+    private Integer entries;
+    private Long usedBytes;
+}
@@ -0,0 +1,166 @@
+package com.fate.nat_traversal.cache;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * HTTP/1.x 请求头或响应头
+ */
+public class HttpHead {
+
+    private static final byte[] HEAD_END = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    // 逐跳头部，不随缓存保存
+    private static final Set<String> HOP_BY_HOP = Set.of(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "te", "trailer", "upgrade", "age");
+
+    /**
+     * 请求行或状态行
+     */
+    @Getter
+    private final String startLine;
+
+    /**
+     * 按原始顺序保存的头部
+     */
+    @Getter
+    private final List<String[]> headers;
+
+    /**
+     * 头部总长度，含末尾空行
+     */
+    @Getter
+    private final int length;
+
+    private HttpHead(String startLine, List<String[]> headers, int length) {
+        this.startLine = startLine;
+        this.headers = headers;
+        this.length = length;
+    }
+
+    /**
+     * 解析头部
+     * @return 头部不完整时返回null
+     */
+    public static HttpHead parse(byte[] data, int dataLength) {
+        int end = indexOf(data, dataLength, HEAD_END);
+        if (end == -1) return null;
+
+        String[] lines = new String(data, 0, end, StandardCharsets.ISO_8859_1).split("\r\n");
+        List<String[]> headers = new ArrayList<>(lines.length);
+        for (int i = 1; i < lines.length; ++i) {
+            int index = lines[i].indexOf(':');
+            if (index <= 0) continue;
+            headers.add(new String[]{lines[i].substring(0, index).trim(), lines[i].substring(index + 1).trim()});
+        }
+        return new HttpHead(lines[0], headers, end + HEAD_END.length);
+    }
+
+    public String get(String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) return header[1];
+        }
+        return null;
+    }
+
+    public boolean has(String name) {
+        return get(name) != null;
+    }
+
+    // ---------- 请求 ----------
+
+    public String method() {
+        int index = startLine.indexOf(' ');
+        return index == -1 ? startLine : startLine.substring(0, index);
+    }
+
+    public String target() {
+        String[] parts = startLine.split(" ");
+        return parts.length > 1 ? parts[1] : "";
+    }
+
+    public String version() {
+        String[] parts = startLine.split(" ");
+        return parts.length > 2 ? parts[2] : "HTTP/1.0";
+    }
+
+    public boolean keepAlive() {
+        String connection = get("Connection");
+        if (connection != null) return !connection.equalsIgnoreCase("close");
+        return version().equals("HTTP/1.1");
+    }
+
+    // ---------- 响应 ----------
+
+    public int status() {
+        String[] parts = startLine.split(" ");
+        try {
+            return parts.length > 1 ? Integer.parseInt(parts[1]) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public long contentLength() {
+        String length = get("Content-Length");
+        try {
+            return length == null ? -1 : Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Cache-Control 指令，小写，无值的指令值为空串
+     */
+    public Map<String, String> cacheControl() {
+        Map<String, String> directives = new HashMap<>();
+        for (String[] header : headers) {
+            if (!header[0].equalsIgnoreCase("Cache-Control") && !header[0].equalsIgnoreCase("Pragma")) continue;
+            for (String directive : header[1].split(",")) {
+                int index = directive.indexOf('=');
+                String name = (index == -1 ? directive : directive.substring(0, index)).trim().toLowerCase(Locale.ROOT);
+                String value = index == -1 ? "" : directive.substring(index + 1).trim().replace("\"", "");
+                if (!name.isEmpty()) directives.put(name, value);
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * 去除逐跳头部后的端到端头部
+     */
+    public List<String[]> endToEndHeaders() {
+        List<String[]> result = new ArrayList<>(headers.size());
+        for (String[] header : headers) {
+            if (!HOP_BY_HOP.contains(header[0].toLowerCase(Locale.ROOT))) result.add(header);
+        }
+        return result;
+    }
+
+    /**
+     * 在头部末尾追加一个字段，返回新的头部字节
+     */
+    public byte[] withHeader(String name, String value) {
+        StringBuilder builder = new StringBuilder(startLine).append("\r\n");
+        headers.forEach(header -> builder.append(header[0]).append(": ").append(header[1]).append("\r\n"));
+        builder.append(name).append(": ").append(value).append("\r\n\r\n");
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static int indexOf(byte[] data, int length, byte[] target) {
+        outer:
+        for (int i = 0; i <= length - target.length; ++i) {
+            for (int j = 0; j < target.length; ++j) {
+                if (data[i + j] != target[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
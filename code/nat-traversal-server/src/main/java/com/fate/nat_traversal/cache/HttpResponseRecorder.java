@@ -0,0 +1,216 @@
+package com.fate.nat_traversal.cache;
+
+import com.fate.nat_traversal.limit.MemoryBudget;
+import com.fate.nat_traversal.util.ResponseFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * 记录透传连接上首个响应，可缓存则写入缓存；
+ * 重新验证时若后端返回304，则以缓存的完整响应替换后写回客户端；
+ * 记录中的响应体占用缓冲内存预算，预算不足时不缓存
+ */
+public class HttpResponseRecorder implements ResponseFilter {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private enum State { HEAD, BODY, DONE }
+
+    private final String key;
+
+    private final boolean keepAlive;
+
+    /**
+     * 请求携带Cookie，响应需声明Cache-Control: public才可缓存
+     */
+    private final boolean requirePublic;
+
+    /**
+     * 正在重新验证的过期缓存，为null表示普通未命中
+     */
+    private final HttpCacheEntry revalidating;
+
+    private final int maxHeadBytes;
+
+    private final int maxEntryBytes;
+
+    private final Consumer<HttpCacheEntry> store;
+
+    private final Consumer<HttpCacheEntry> revalidated;
+
+    private final MemoryBudget budget;
+
+    // 已申请的预算额度
+    private long reserved = 0;
+
+    private State state = State.HEAD;
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private HttpHead responseHead;
+
+    private ByteArrayOutputStream body;
+
+    private long expectedLength;
+
+    private long ttlMillis;
+
+    public HttpResponseRecorder(String key, boolean keepAlive, boolean requirePublic, HttpCacheEntry revalidating, int maxHeadBytes, int maxEntryBytes,
+                                Consumer<HttpCacheEntry> store, Consumer<HttpCacheEntry> revalidated, MemoryBudget budget) {
+        this.key = key;
+        this.keepAlive = keepAlive;
+        this.requirePublic = requirePublic;
+        this.revalidating = revalidating;
+        this.maxHeadBytes = maxHeadBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.store = store;
+        this.revalidated = revalidated;
+        this.budget = budget;
+    }
+
+    @Override
+    public byte[] filter(byte[] chunk) {
+        switch (state) {
+            case DONE:
+                return chunk;
+            case BODY:
+                record(chunk, 0);
+                return chunk;
+            default:
+                pending.write(chunk, 0, chunk.length);
+                byte[] data = pending.toByteArray();
+                HttpHead head = HttpHead.parse(data, data.length);
+                if (head == null) {
+                    if (data.length <= maxHeadBytes) return EMPTY;
+                    return done(data);
+                }
+                pending = null;
+                return onHead(head, data);
+        }
+    }
+
+    @Override
+    public byte[] flush() {
+        if (state != State.HEAD || pending == null) return EMPTY;
+        return done(pending.toByteArray());
+    }
+
+    @Override
+    public void close() {
+        state = State.DONE;
+        pending = null;
+        body = null;
+        releaseBudget();
+    }
+
+    private byte[] onHead(HttpHead head, byte[] data) {
+        if (revalidating != null && head.status() == 304) {
+            revalidating.refresh(Math.max(freshness(head), 0));
+            revalidated.accept(revalidating);
+            byte[] rest = Arrays.copyOfRange(data, head.getLength(), data.length);
+            return done(HttpCacheEntry.concat(revalidating.toResponse(true, keepAlive, "REVALIDATED"), rest));
+        }
+
+        ttlMillis = freshness(head);
+        long contentLength = head.contentLength();
+        if (ttlMillis < 0 || head.status() != 200 || contentLength < 0 || contentLength > maxEntryBytes
+                || head.has("Transfer-Encoding") || head.has("Set-Cookie") || !varyAllowed(head.get("Vary"))
+                || requirePublic && !head.cacheControl().containsKey("public")) {
+            return done(data);
+        }
+        if (!budget.tryAcquire(contentLength)) {
+            return done(data);
+        }
+        reserved = contentLength;
+
+        state = State.BODY;
+        responseHead = head;
+        expectedLength = contentLength;
+        body = new ByteArrayOutputStream((int) contentLength);
+        record(data, head.getLength());
+        return data;
+    }
+
+    private void record(byte[] data, int offset) {
+        int length = (int) Math.min(data.length - offset, expectedLength - body.size());
+        body.write(data, offset, length);
+        if (body.size() >= expectedLength) {
+            store.accept(new HttpCacheEntry(key, responseHead, body.toByteArray(), ttlMillis));
+            state = State.DONE;
+            body = null;
+            releaseBudget();
+        }
+    }
+
+    private void releaseBudget() {
+        budget.release(reserved);
+        reserved = 0;
+    }
+
+    private byte[] done(byte[] data) {
+        state = State.DONE;
+        pending = null;
+        return data;
+    }
+
+    /**
+     * 响应新鲜期（毫秒），不可缓存返回-1；仅有ETag时返回0，即每次使用前重新验证
+     */
+    public static long freshness(HttpHead response) {
+        Map<String, String> cacheControl = response.cacheControl();
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")) return -1;
+
+        long ttl = 0;
+        if (cacheControl.containsKey("no-cache")) {
+            ttl = 0;
+        } else if (cacheControl.containsKey("s-maxage")) {
+            ttl = parseSeconds(cacheControl.get("s-maxage"));
+        } else if (cacheControl.containsKey("max-age")) {
+            ttl = parseSeconds(cacheControl.get("max-age"));
+        } else if (response.has("Expires")) {
+            ttl = expires(response.get("Expires"), response.get("Date"));
+        }
+
+        if (ttl <= 0) {
+            return response.has("ETag") ? 0 : -1;
+        }
+        return ttl;
+    }
+
+    private static long parseSeconds(String seconds) {
+        try {
+            return Long.parseLong(seconds) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long expires(String expires, String date) {
+        try {
+            long expiresAt = ZonedDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            long now = date == null ? System.currentTimeMillis()
+                    : ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return expiresAt - now;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // 缓存键已包含Accept-Encoding，其余Vary无法区分
+    private static boolean varyAllowed(String vary) {
+        if (vary == null) return true;
+        for (String field : vary.split(",")) {
+            if (!field.trim().toLowerCase(Locale.ROOT).equals("accept-encoding")) return false;
+        }
+        return true;
+    }
+}
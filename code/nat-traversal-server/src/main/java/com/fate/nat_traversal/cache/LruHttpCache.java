@@ -0,0 +1,71 @@
+package com.fate.nat_traversal.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * 按字节容量淘汰的LRU缓存
+ */
+public class LruHttpCache {
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, HttpCacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long usedBytes = 0;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruHttpCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized HttpCacheEntry get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(HttpCacheEntry entry) {
+        if (entry.size() > maxBytes) return;
+
+        HttpCacheEntry old = entries.put(entry.getKey(), entry);
+        if (old != null) usedBytes -= old.size();
+        usedBytes += entry.size();
+
+        Iterator<Map.Entry<String, HttpCacheEntry>> iterator = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            HttpCacheEntry eldest = iterator.next().getValue();
+            iterator.remove();
+            usedBytes -= eldest.size();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void removeIf(Predicate<String> keyPredicate) {
+        Iterator<Map.Entry<String, HttpCacheEntry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, HttpCacheEntry> entry = iterator.next();
+            if (keyPredicate.test(entry.getKey())) {
+                iterator.remove();
+                usedBytes -= entry.getValue().size();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,66 @@
+package com.fate.nat_traversal.cluster;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群成员，heartbeat与routesVersion由成员自身按本地时钟递增，只与同一成员的旧值比较
+ */
+@Data
+public class ClusterMember implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+
+    private volatile String host;
+
+    /**
+     * 注册端口，重定向的被代理端点连接该端口
+     */
+    private volatile int port;
+
+    /**
+     * 节点间通信端口
+     */
+    private volatile int clusterPort;
+
+    /**
+     * 共享端口，与本节点的共享端口按顺序对应（同一机器上的多个节点端口不同）
+     */
+    private volatile List<Integer> vhostPorts = List.of();
+
+    private volatile long heartbeat;
+
+    private volatile long routesVersion;
+
+    private volatile double load;
+
+    /**
+     * 该成员经节点间链路测得的到其他节点的往返时间（毫秒），用于选择中转路径
+     */
+    private volatile Map<String, Double> rtts = Map.of();
+
+    private volatile boolean alive = true;
+
+    /**
+     * 本地收到新心跳的时间
+     */
+    private volatile long lastSeen = System.currentTimeMillis();
+
+    public String address() {
+        return host + ":" + port;
+    }
+
+    public String clusterAddress() {
+        return host + ":" + clusterPort;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fate.nat_traversal.cluster;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群路由：服务（服务组）所在的节点与代理端口
+ * @param key 服务组名，不属于服务组时为服务名
+ * @param node 节点id
+ * @param port 代理端口，仅按主机名路由的服务为虚拟端口
+ * @param hosts 共享端口上路由到该服务的主机名
+ */
+public record ClusterRoute(String key, String node, int port, Set<String> hosts) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.cluster;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群统计，shares为各存活节点在哈希环上占有的比例
+ */
+@Builder
+@Data
+public class ClusterStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Boolean enabled;
+    private String nodeId;
+    private Collection<ClusterMember> members;
+    private Map<String, Double> shares;
+    private Collection<ClusterRoute> routes;
+    private Long gossipRounds;
+    private Long gossipFailures;
+    private Long redirects;
+}
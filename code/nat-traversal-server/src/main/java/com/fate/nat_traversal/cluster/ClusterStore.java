@@ -0,0 +1,34 @@
+package com.fate.nat_traversal.cluster;
+
+import java.util.Collection;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群路由存储，默认为内存实现（由gossip同步到各节点）
+ * 替换为共享存储时声明一个 @Primary 的实现即可，各节点只写入自己的路由
+ */
+public interface ClusterStore {
+
+    /**
+     * 以节点的全部路由替换其旧路由
+     */
+    void replace(String node, Collection<ClusterRoute> routes);
+
+    void removeNode(String node);
+
+    /**
+     * 按服务（服务组）查找路由，多个节点都有时返回任一
+     */
+    ClusterRoute get(String key);
+
+    /**
+     * 按主机名查找路由，精确匹配优先，其次一级通配
+     */
+    ClusterRoute findByHost(String host);
+
+    Collection<ClusterRoute> routes(String node);
+
+    Collection<ClusterRoute> all();
+}
@@ -0,0 +1,78 @@
+package com.fate.nat_traversal.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 一致性哈希环：每个节点对应多个虚拟节点，键顺时针归属第一个虚拟节点
+ * 节点加入或离开只影响相邻区间的键，约 1/N 的键改变归属
+ */
+public class HashRing {
+
+    private final int virtualNodes;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public HashRing(int virtualNodes) {
+        this.virtualNodes = Math.max(virtualNodes, 1);
+    }
+
+    public synchronized void add(String node) {
+        for (int i = 0; i < virtualNodes; ++i) ring.put(hash(node + "#" + i), node);
+    }
+
+    public synchronized void remove(String node) {
+        for (int i = 0; i < virtualNodes; ++i) ring.remove(hash(node + "#" + i), node);
+    }
+
+    /**
+     * @return 键归属的节点，环为空时返回null
+     */
+    public synchronized String locate(String key) {
+        if (ring.isEmpty()) return null;
+        SortedMap<Long, String> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * 各节点占有的哈希区间比例
+     */
+    public synchronized Map<String, Double> shares() {
+        Map<String, Double> shares = new TreeMap<>();
+        if (ring.isEmpty()) return shares;
+        if (ring.size() == 1) {
+            shares.put(ring.firstEntry().getValue(), 1.0);
+            return shares;
+        }
+        long previous = ring.lastKey();
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            // 区间长度按无符号差计算，首段跨过环的起点
+            shares.merge(entry.getValue(), unsigned(entry.getKey() - previous) / Math.pow(2, 64), Double::sum);
+            previous = entry.getKey();
+        }
+        return shares;
+    }
+
+    private static double unsigned(long value) {
+        return value >= 0 ? value : value + Math.pow(2, 64);
+    }
+
+    // MD5的前8字节，分布均匀且各节点计算一致
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; ++i) hash = (hash << 8) | (digest[i] & 0xFF);
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
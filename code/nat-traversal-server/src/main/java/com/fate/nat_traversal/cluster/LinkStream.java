@@ -0,0 +1,201 @@
+package com.fate.nat_traversal.cluster;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 节点间链路上的一个双向流，接口与Socket一致：输入输出流、半关闭与关闭
+ * 两个方向各自FIN后正常结束，任一方异常关闭时发送RESET
+ * 输入单线程读、输出单线程写
+ */
+public class LinkStream implements Closeable {
+
+    private static final byte[] EOF = new byte[0];
+
+    private final RelayLink link;
+
+    @Getter
+    private final int id;
+
+    private final int window;
+
+    // 接收的数据帧，已由发送方按窗口限制总量
+    private final LinkedBlockingQueue<byte[]> inbound = new LinkedBlockingQueue<>();
+
+    private byte[] current;
+
+    private int position;
+
+    // 已读出未归还的字节数，仅读线程访问
+    private int consumed;
+
+    // 发送额度，由this保护
+    private int credit;
+
+    private volatile boolean reset;
+
+    private final AtomicBoolean outputShutdown = new AtomicBoolean(false);
+
+    private volatile boolean inputFinished;
+
+    private final InputStream input = new InputStream() {
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return LinkStream.this.read(bytes, offset, length);
+        }
+    };
+
+    private final OutputStream output = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            LinkStream.this.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            shutdownOutput();
+        }
+    };
+
+    LinkStream(RelayLink link, int id, int window) {
+        this.link = link;
+        this.id = id;
+        this.window = window;
+        this.credit = window;
+    }
+
+    public InputStream getInputStream() {
+        return input;
+    }
+
+    public OutputStream getOutputStream() {
+        return output;
+    }
+
+    public String getPeer() {
+        return link.getPeer();
+    }
+
+    /**
+     * 本端发送结束（FIN），仍可继续读
+     */
+    public void shutdownOutput() throws IOException {
+        if (reset || !outputShutdown.compareAndSet(false, true)) return;
+        link.send(RelayLink.FIN, id, EOF);
+        if (inputFinished) link.remove(id);
+    }
+
+    /**
+     * 两个方向都已结束时只释放本地状态，否则向对端发送RESET
+     */
+    @Override
+    public void close() {
+        if (!reset && !(outputShutdown.get() && inputFinished)) {
+            try {
+                link.send(RelayLink.RESET, id, EOF);
+            } catch (IOException e) {}
+        }
+        abort();
+    }
+
+    private int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (current == null || position == current.length) {
+            if (current == EOF) return -1;
+            try {
+                current = inbound.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            position = 0;
+            if (current == EOF) {
+                if (reset) throw new IOException("Stream reset");
+                return -1;
+            }
+        }
+
+        int n = Math.min(length, current.length - position);
+        System.arraycopy(current, position, bytes, offset, n);
+        position += n;
+
+        consumed += n;
+        if (consumed >= window / 2) {
+            link.send(RelayLink.WINDOW, id, ByteBuffer.allocate(Integer.BYTES).putInt(consumed).array());
+            consumed = 0;
+        }
+        return n;
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int n;
+            synchronized (this) {
+                while (credit <= 0 && !reset) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+                if (reset) throw new IOException("Stream reset");
+                n = Math.min(Math.min(length, credit), RelayLink.MAX_FRAME);
+                credit -= n;
+            }
+            link.send(RelayLink.DATA, id, bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    void receive(byte[] payload) {
+        inbound.offer(payload);
+    }
+
+    void receiveFin() {
+        inputFinished = true;
+        inbound.offer(EOF);
+        if (outputShutdown.get()) link.remove(id);
+    }
+
+    synchronized void credit(int bytes) {
+        credit += bytes;
+        notifyAll();
+    }
+
+    /**
+     * 本地终止：唤醒读写双方，不通知对端
+     */
+    void abort() {
+        boolean finished = outputShutdown.get() && inputFinished;
+        reset = !finished;
+        link.remove(id);
+        inbound.offer(EOF);
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.fate.nat_traversal.cluster;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 内存路由存储：节点id-该节点的路由，另按键、主机名建立索引，首次注册的重定向与共享端口未命中时的查找不随路由总数增长
+ * 写入（gossip合并）串行，查找无锁；先写入新索引再删除旧项，替换过程中查找不会落空
+ */
+@Component
+public class MemoryClusterStore implements ClusterStore {
+
+    private final Map<String, List<ClusterRoute>> nodeRoutes = new ConcurrentHashMap<>();
+
+    // 键-(节点id-路由)，同一键可能短暂存在于多个节点
+    private final Map<String, Map<String, ClusterRoute>> byKey = new ConcurrentHashMap<>();
+
+    // 主机名（含 *.example.com 形式的通配名）-(节点id-路由)
+    private final Map<String, Map<String, ClusterRoute>> byHost = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized void replace(String node, Collection<ClusterRoute> routes) {
+        List<ClusterRoute> current = List.copyOf(routes);
+        for (ClusterRoute route : current) {
+            byKey.computeIfAbsent(route.key(), key -> new ConcurrentHashMap<>()).put(node, route);
+            for (String host : route.hosts()) byHost.computeIfAbsent(host, key -> new ConcurrentHashMap<>()).put(node, route);
+        }
+        List<ClusterRoute> previous = nodeRoutes.put(node, current);
+        if (previous != null) unindex(node, previous, current);
+    }
+
+    @Override
+    public synchronized void removeNode(String node) {
+        List<ClusterRoute> previous = nodeRoutes.remove(node);
+        if (previous != null) unindex(node, previous, List.of());
+    }
+
+    @Override
+    public ClusterRoute get(String key) {
+        return any(byKey.get(key));
+    }
+
+    @Override
+    public ClusterRoute findByHost(String host) {
+        if (host == null) return null;
+        ClusterRoute route = any(byHost.get(host));
+        if (route != null || host.indexOf('.') <= 0) return route;
+        return any(byHost.get("*" + host.substring(host.indexOf('.'))));
+    }
+
+    @Override
+    public Collection<ClusterRoute> routes(String node) {
+        return nodeRoutes.getOrDefault(node, List.of());
+    }
+
+    @Override
+    public Collection<ClusterRoute> all() {
+        List<ClusterRoute> all = new ArrayList<>();
+        nodeRoutes.values().forEach(all::addAll);
+        return all;
+    }
+
+    // 删除节点旧路由中不再出现的键与主机名
+    private void unindex(String node, List<ClusterRoute> previous, List<ClusterRoute> current) {
+        Set<String> keys = new HashSet<>();
+        Set<String> hosts = new HashSet<>();
+        for (ClusterRoute route : current) {
+            keys.add(route.key());
+            hosts.addAll(route.hosts());
+        }
+        for (ClusterRoute route : previous) {
+            if (!keys.contains(route.key())) detach(byKey, route.key(), node);
+            for (String host : route.hosts()) {
+                if (!hosts.contains(host)) detach(byHost, host, node);
+            }
+        }
+    }
+
+    private static void detach(Map<String, Map<String, ClusterRoute>> index, String name, String node) {
+        index.computeIfPresent(name, (key, routes) -> {
+            routes.remove(node);
+            return routes.isEmpty() ? null : routes;
+        });
+    }
+
+    private static ClusterRoute any(Map<String, ClusterRoute> routes) {
+        if (routes == null) return null;
+        for (ClusterRoute route : routes.values()) return route;
+        return null;
+    }
+}
@@ -0,0 +1,248 @@
+package com.fate.nat_traversal.cluster;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 节点间常驻链路：一条TCP连接上复用多个双向流
+ *  1. 帧结构 type(1字节) streamId(4字节) length(4字节) payload，单帧payload不超过MAX_FRAME
+ *  2. 每个流按接收窗口做流控：发送方消耗额度，接收方读出半个窗口后以WINDOW归还，读线程从不因单个流阻塞
+ *  3. PING携带发送时刻，对端原样以PONG返回，往返时间按指数加权平均
+ * 发起方的流id为奇数，接收方为偶数，双方都可打开流
+ */
+@Slf4j
+public class RelayLink implements Closeable {
+
+    public static final byte OPEN = 1;
+    public static final byte DATA = 2;
+    public static final byte FIN = 3;
+    public static final byte RESET = 4;
+    public static final byte WINDOW = 5;
+    public static final byte PING = 6;
+    public static final byte PONG = 7;
+
+    public static final int MAX_FRAME = 16384;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final double RTT_WEIGHT = 0.2;
+
+    /**
+     * 对端节点id
+     */
+    @Getter
+    private final String peer;
+
+    /**
+     * 是否由本节点发起
+     */
+    @Getter
+    private final boolean initiator;
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final DataOutputStream out;
+
+    private final Object writeLock = new Object();
+
+    private final Map<Integer, LinkStream> streams = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId;
+
+    private final int window;
+
+    // 对端打开的流：(流, 目标)，在读线程回调，不能阻塞
+    private final BiConsumer<LinkStream, String> acceptor;
+
+    private final Consumer<RelayLink> closeCallback;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private volatile double rtt = -1;
+
+    @Getter
+    private volatile long lastReceived = System.currentTimeMillis();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    public RelayLink(String peer, Socket socket, boolean initiator, int window,
+                     BiConsumer<LinkStream, String> acceptor, Consumer<RelayLink> closeCallback) throws IOException {
+        this.peer = peer;
+        this.socket = socket;
+        this.initiator = initiator;
+        this.window = window;
+        this.acceptor = acceptor;
+        this.closeCallback = closeCallback;
+        this.nextId = new AtomicInteger(initiator ? 1 : 2);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), MAX_FRAME * 4));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), MAX_FRAME + 9));
+    }
+
+    public void start() {
+        Thread reader = new Thread(this::read, "relay-link-" + peer);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * 打开到目标的流
+     * @param target 目标nodeId:端口及参数
+     */
+    public LinkStream open(String target) throws IOException {
+        int id = nextId.getAndAdd(2);
+        LinkStream stream = new LinkStream(this, id, window);
+        streams.put(id, stream);
+        try {
+            send(OPEN, id, target.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            streams.remove(id);
+            throw e;
+        }
+        return stream;
+    }
+
+    public void ping() {
+        try {
+            send(PING, 0, ByteBuffer.allocate(Long.BYTES).putLong(System.nanoTime()).array());
+        } catch (IOException e) {
+            log.info("RelayLink(peer: {}) ping failed;(Exception: {})", peer, e.getMessage());
+        }
+    }
+
+    /**
+     * 往返时间（毫秒），尚未测得时为负数
+     */
+    public double rtt() {
+        return rtt;
+    }
+
+    public int streams() {
+        return streams.size();
+    }
+
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    void send(byte type, int id, byte[] payload) throws IOException {
+        send(type, id, payload, 0, payload.length);
+    }
+
+    void send(byte type, int id, byte[] payload, int offset, int length) throws IOException {
+        if (closed.get()) throw new IOException("RelayLink closed");
+        try {
+            synchronized (writeLock) {
+                out.writeByte(type);
+                out.writeInt(id);
+                out.writeInt(length);
+                out.write(payload, offset, length);
+                out.flush();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        bytesSent.add(length);
+    }
+
+    void remove(int id) {
+        streams.remove(id);
+    }
+
+    private void read() {
+        try {
+            while (!closed.get()) {
+                byte type = in.readByte();
+                int id = in.readInt();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FRAME) throw new IOException("Illegal frame length: " + length);
+                byte[] payload = length == 0 ? EMPTY : new byte[length];
+                in.readFully(payload);
+                lastReceived = System.currentTimeMillis();
+                bytesReceived.add(length);
+                dispatch(type, id, payload);
+            }
+        } catch (IOException e) {
+            if (!closed.get()) log.info("RelayLink(peer: {}) read failed;(Exception: {})", peer, e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    private void dispatch(byte type, int id, byte[] payload) throws IOException {
+        switch (type) {
+            case OPEN -> {
+                LinkStream stream = new LinkStream(this, id, window);
+                streams.put(id, stream);
+                acceptor.accept(stream, new String(payload, StandardCharsets.UTF_8));
+            }
+            case DATA -> {
+                LinkStream stream = streams.get(id);
+                if (stream != null && payload.length > 0) stream.receive(payload);
+            }
+            case FIN -> {
+                LinkStream stream = streams.get(id);
+                if (stream != null) stream.receiveFin();
+            }
+            case RESET -> {
+                LinkStream stream = streams.get(id);
+                if (stream != null) stream.abort();
+            }
+            case WINDOW -> {
+                LinkStream stream = streams.get(id);
+                if (stream != null) stream.credit(ByteBuffer.wrap(payload).getInt());
+            }
+            case PING -> send(PONG, id, payload);
+            case PONG -> {
+                double sample = (System.nanoTime() - ByteBuffer.wrap(payload).getLong()) / 1_000_000.0;
+                rtt = rtt < 0 ? sample : rtt * (1 - RTT_WEIGHT) + sample * RTT_WEIGHT;
+            }
+            default -> throw new IOException("Unknown frame type: " + type);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            socket.close();
+        } catch (IOException e) {}
+        new ArrayList<>(streams.values()).forEach(LinkStream::abort);
+        streams.clear();
+        closeCallback.accept(this);
+        log.info("RelayLink(peer: {}) closed", peer);
+    }
+}
@@ -0,0 +1,49 @@
+package com.fate.nat_traversal.cluster;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 节点间链路统计，paths为到各节点的下一跳，fronts为前置端口及其所在节点
+ */
+@Builder
+@Data
+public class RelayLinkStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Boolean enabled;
+    private Collection<Link> links;
+    private Map<String, String> paths;
+    private Map<Integer, String> fronts;
+    private Long opened;
+    private Long relayed;
+    private Long accepted;
+    private Long fronted;
+    private Long forwards;
+    private Long failures;
+
+    @Builder
+    @Data
+    public static class Link implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String peer;
+        private Boolean initiator;
+        private Double rtt;
+        private Integer streams;
+        private Long bytesSent;
+        private Long bytesReceived;
+    }
+}
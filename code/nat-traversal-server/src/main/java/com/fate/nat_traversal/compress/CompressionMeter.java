@@ -0,0 +1,77 @@
+package com.fate.nat_traversal.compress;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 单个被代理端点透传流的压缩计量，由该端点的所有透传线程共同累加
+ * 耗时取线程CPU时间，不支持时退回墙钟时间
+ */
+public class CompressionMeter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    // 送入压缩的原始字节与压缩输出
+    private final LongAdder compressIn = new LongAdder();
+    private final LongAdder compressOut = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    // 绕过压缩原样发送的字节
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    private final LongAdder decompressIn = new LongAdder();
+    private final LongAdder decompressOut = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    public static long now() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    public void onCompressed(int raw, int compressed, long nanos) {
+        compressIn.add(raw);
+        compressOut.add(compressed);
+        compressNanos.add(nanos);
+    }
+
+    public void onStored(int raw) {
+        storedBytes.add(raw);
+    }
+
+    public void onBypass() {
+        bypasses.increment();
+    }
+
+    public void onDecompressed(int compressed, int raw, long nanos) {
+        decompressIn.add(compressed);
+        decompressOut.add(raw);
+        decompressNanos.add(nanos);
+    }
+
+    public CompressionStats.CompressionStatsBuilder stats() {
+        long in = compressIn.sum();
+        long out = compressOut.sum();
+        long stored = storedBytes.sum();
+        long decIn = decompressIn.sum();
+        long decOut = decompressOut.sum();
+        return CompressionStats.builder()
+                .cpuTime(CPU_TIME)
+                .compressedInBytes(in)
+                .compressedOutBytes(out)
+                .ratio(in == 0 ? null : (double) out / in)
+                .storedBytes(stored)
+                .wireRatio(in + stored == 0 ? null : (double) (out + stored) / (in + stored))
+                .bypasses(bypasses.sum())
+                .compressMillis(compressNanos.sum() / 1_000_000.0)
+                .decompressedInBytes(decIn)
+                .decompressedOutBytes(decOut)
+                .decompressRatio(decOut == 0 ? null : (double) decIn / decOut)
+                .decompressMillis(decompressNanos.sum() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,41 @@
+package com.fate.nat_traversal.compress;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 单个被代理端点的透传压缩统计，压缩比 = 压缩后/压缩前
+ */
+@Builder
+@Data
+public class CompressionStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String session;
+    private String codec;
+    // 耗时是否为线程CPU时间
+    private Boolean cpuTime;
+
+    // 发送方向
+    private Long compressedInBytes;
+    private Long compressedOutBytes;
+    private Double ratio;
+    private Long storedBytes;
+    private Double wireRatio;
+    private Long bypasses;
+    private Double compressMillis;
+
+    // 接收方向
+    private Long decompressedInBytes;
+    private Long decompressedOutBytes;
+    private Double decompressRatio;
+    private Double decompressMillis;
+}
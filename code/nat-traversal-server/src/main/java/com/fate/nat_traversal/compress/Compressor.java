@@ -0,0 +1,17 @@
+package com.fate.nat_traversal.compress;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 单个透传方向的流式压缩，压缩上下文跨数据块保留，每块输出可被对端立即完整解出
+ */
+public interface Compressor {
+
+    byte[] compress(byte[] data);
+
+    /**
+     * 释放本地内存
+     */
+    void close();
+}
@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.compress;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * Deflate流式压缩：nowrap省去zlib头尾，每块以SYNC_FLUSH结束，后续块可引用之前的数据
+ */
+public class DeflateCompressor implements Compressor {
+
+    private final Deflater deflater;
+
+    public DeflateCompressor(int level) {
+        deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        deflater.setInput(data);
+        byte[] out = new byte[data.length + (data.length >> 3) + 64];
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(out, length, out.length - length, Deflater.SYNC_FLUSH);
+            // 输出缓冲未写满即刷新完成
+            if (length < out.length) break;
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+}
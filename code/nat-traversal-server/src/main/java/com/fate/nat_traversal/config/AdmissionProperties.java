@@ -0,0 +1,39 @@
+package com.fate.nat_traversal.config;
+
+import com.fate.nat_traversal.enums.RejectActionEnum;
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/24 20:30
+ *
+ * 过载准入控制配置
+ */
+@Data
+public class AdmissionProperties {
+
+    /**
+     * 连接等待透传槽位的最长时间（毫秒），超时即丢弃
+     */
+    private Long maxWait = 3000L;
+
+    /**
+     * CoDel目标排队时延（毫秒），0则不启用
+     */
+    private Long codelTarget = 100L;
+
+    /**
+     * CoDel观察窗口（毫秒），排队时延持续超过目标一个窗口后开始丢弃
+     */
+    private Long codelInterval = 1000L;
+
+    /**
+     * 拒绝连接的方式
+     */
+    private RejectActionEnum rejectAction = RejectActionEnum.CLOSE;
+
+    /**
+     * HTTP 503响应的Retry-After（秒）
+     */
+    private Integer retryAfter = 5;
+}
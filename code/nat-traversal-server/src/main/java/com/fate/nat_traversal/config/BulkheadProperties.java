@@ -0,0 +1,33 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/23 20:30
+ *
+ * 透传连接隔离舱配置
+ */
+@Data
+public class BulkheadProperties {
+
+    /**
+     * 中继同时透传的连接总数，为空则取max-client-connection
+     */
+    private Integer capacity;
+
+    /**
+     * 每个被代理端点保留的最少连接数；端点空闲时保留槽位可被其他端点借用
+     */
+    private Integer reserved = 2;
+
+    /**
+     * 单个被代理端点最多可占用的总容量比例
+     */
+    private Double maxShare = 1.0;
+
+    /**
+     * 每个被代理端点等待队列长度
+     */
+    private Integer queueCapacity = 16;
+}
@@ -0,0 +1,78 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群配置：多个中继节点通过gossip交换成员与路由，服务按一致性哈希归属节点
+ */
+@Data
+public class ClusterProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * 节点id，为空时取 advertised-host:reg-port
+     */
+    private String nodeId;
+
+    /**
+     * 被代理端点与其他节点访问本节点使用的地址，为空时取本机地址
+     */
+    private String advertisedHost;
+
+    /**
+     * 节点间通信端口（明文，应只在内网开放）
+     */
+    private Integer port = 7946;
+
+    /**
+     * 初始连接的节点 host:port（节点间通信端口）
+     */
+    private List<String> seeds = new ArrayList<>();
+
+    /**
+     * gossip间隔（毫秒）
+     */
+    private Long gossipInterval = 1000L;
+
+    /**
+     * 每轮gossip的节点数
+     */
+    private Integer fanout = 2;
+
+    /**
+     * 超过该时间（毫秒）未收到新心跳的节点视为失效，移出哈希环并删除其路由
+     */
+    private Long failTimeout = 5000L;
+
+    /**
+     * 每个节点在哈希环上的虚拟节点数
+     */
+    private Integer virtualNodes = 128;
+
+    /**
+     * 为其他节点的独占代理端口在本节点开放前置端口，访客连接最近的节点，经节点间常驻链路转发到服务所在节点
+     */
+    private Boolean front = false;
+
+    /**
+     * 前置端口相对原代理端口的偏移，同一机器上的多个节点需错开
+     */
+    private Integer frontPortOffset = 0;
+
+    /**
+     * 节点间链路每个流的接收窗口（字节），未确认的数据达到窗口时发送方暂停
+     */
+    private Integer linkWindow = 262144;
+
+    /**
+     * 经中转节点的往返时间比直连至少低该比例时才绕行，避免测量抖动引起路径来回切换
+     */
+    private Double relayMargin = 0.2;
+}
@@ -0,0 +1,48 @@
+package com.fate.nat_traversal.config;
+
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 透传流压缩配置：被代理端点注册时携带支持的算法，服务器按codecs顺序选取双方都支持的算法
+ * 仅压缩服务器与被代理端点间的透传Socket，默认不开启
+ */
+@Data
+public class CompressionProperties {
+
+    /**
+     * 是否接受被代理端点的压缩请求
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 接受的算法，按优先级排列
+     */
+    private List<CompressionCodecEnum> codecs = new ArrayList<>(List.of(CompressionCodecEnum.DEFLATE));
+
+    /**
+     * 压缩级别，透传以速度优先
+     */
+    private Integer level = 1;
+
+    /**
+     * 小于此值的数据块原样发送（字节）
+     */
+    private Integer minBytes = 256;
+
+    /**
+     * 压缩后/压缩前大于此值视为压缩效果差，如已压缩的图片、视频、TLS流量
+     */
+    private Double bypassRatio = 0.9;
+
+    /**
+     * 压缩效果差时原样发送的字节数，之后重新试压缩
+     */
+    private Long bypassBytes = 1024 * 1024L;
+}
@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * HTTP边缘缓存配置，服务注册时携带“;;cache:true”启用
+ */
+@Data
+public class HttpCacheProperties {
+
+    /**
+     * 总开关，关闭后忽略服务的启用请求
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 缓存总容量（字节）
+     */
+    private Long maxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 单个响应最大缓存体积（字节）
+     */
+    private Integer maxEntryBytes = 1024 * 1024;
+
+    /**
+     * 请求/响应头最大长度（字节）
+     */
+    private Integer maxHeadBytes = 16 * 1024;
+
+    /**
+     * 命中后等待同一连接下个请求的时间（毫秒）
+     */
+    private Integer keepAliveTimeout = 5000;
+}
@@ -0,0 +1,39 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * I/O引擎配置：代理端口、共享端口、前置端口的监听以及节点间连接使用的引擎
+ */
+@Data
+public class IoProperties {
+
+    /**
+     * 引擎名：blocking（每个监听端口一个accept线程）/ nio（单个selector线程监听全部端口，连接交由工作线程处理）
+     * 其他引擎以IoEngine实现声明为Spring Bean后按名称选择
+     */
+    private String engine = "blocking";
+
+    /**
+     * nio引擎处理新连接的工作线程数
+     */
+    private Integer workers = 4;
+
+    /**
+     * nio引擎等待工作线程处理的新连接上限，超出时直接关闭
+     */
+    private Integer workerQueue = 256;
+
+    /**
+     * 复用缓冲大小（字节）
+     */
+    private Integer bufferSize = 16384;
+
+    /**
+     * 空闲时保留的复用缓冲数
+     */
+    private Integer maxPooledBuffers = 256;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 透传缓冲内存配置
+ */
+@Data
+public class MemoryProperties {
+
+    /**
+     * 进程级缓冲内存预算（字节）
+     */
+    private Long maxBytes = 256L * 1024 * 1024;
+
+    /**
+     * 单个连接单个方向在途数据高水位（字节），达到后暂停读取
+     */
+    private Long highWatermark = 256L * 1024;
+
+    /**
+     * 低水位（字节），在途数据回落至此后恢复读取
+     */
+    private Long lowWatermark = 64L * 1024;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * Minecraft分帧透传配置，服务注册时携带“;;protocol:minecraft”启用
+ */
+@Data
+public class MinecraftProperties {
+
+    /**
+     * 总开关，关闭后忽略服务的启用请求
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 不完整包最大暂存字节数，更大的包到达多少写出多少
+     */
+    private Integer maxHoldBytes = 16 * 1024;
+
+    /**
+     * 小包上限（字节），只含小包的写出不受带宽整形等待
+     */
+    private Integer smallPacketBytes = 512;
+}
@@ -0,0 +1,25 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞协调配置
+ */
+@Data
+public class PunchProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * NAT类型探测端口，被代理端点从同一本地端口分别连接注册端口与此端口比较映射地址；为空则不开启
+     */
+    private Integer probePort;
+
+    /**
+     * 等待被代理端点应答的超时时间（毫秒），超时后访问端回落到中继
+     */
+    private Long timeout = 5000L;
+}
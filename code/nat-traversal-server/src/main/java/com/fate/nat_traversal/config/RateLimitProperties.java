@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/22 20:30
+ *
+ * 限速配置，0表示不限制
+ */
+@Data
+public class RateLimitProperties {
+
+    /**
+     * 单个被代理端点带宽（字节/秒，双向合计）
+     */
+    private Long backendBytesPerSecond = 0L;
+
+    /**
+     * 单个被代理端点新建连接速率（个/秒）
+     */
+    private Long backendConnectionsPerSecond = 0L;
+
+    /**
+     * 单个客户端ip带宽（字节/秒，双向合计）
+     */
+    private Long clientBytesPerSecond = 0L;
+
+    /**
+     * 单个客户端ip新建连接速率（个/秒）
+     */
+    private Long clientConnectionsPerSecond = 0L;
+
+    /**
+     * 突发容量，按秒计
+     */
+    private Long burstSeconds = 1L;
+}
@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/08 20:30
+ *
+ * 被代理端点注册准入配置，服务重启后大量被代理端点同时重连时按速率处理注册
+ */
+@Data
+public class RegistrationProperties {
+
+    /**
+     * 每秒处理的注册数
+     */
+    private Integer ratePerSecond = 50;
+
+    /**
+     * 空闲时可立即处理的注册数
+     */
+    private Integer burst = 20;
+
+    /**
+     * 排队等待处理的注册上限，超出时立即回复稍后重试
+     */
+    private Integer queueCapacity = 512;
+
+    /**
+     * 注册排队的最长时间（毫秒），超时回复稍后重试
+     */
+    private Long maxWait = 10000L;
+
+    /**
+     * 代理注册已满时回复的重试间隔（毫秒）
+     */
+    private Long fullRetryAfter = 30000L;
+}
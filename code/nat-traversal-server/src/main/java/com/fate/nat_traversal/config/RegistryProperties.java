@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/09 20:30
+ *
+ * 持久化注册表配置：会话、恢复凭证与代理端口写入内存映射日志，重启后重新绑定原代理端口并等待被代理端点恢复
+ */
+@Data
+public class RegistryProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * 日志文件路径
+     */
+    private String path = "./data/registry.journal";
+
+    /**
+     * 日志初始映射大小（字节，须大于0），写满时压缩为有效记录，仍不足则扩大
+     */
+    private Integer capacity = 1048576;
+
+    /**
+     * 每次写入后刷盘，关闭时只依赖页缓存，进程重启不丢失，系统掉电可能丢失最近的记录
+     */
+    private Boolean sync = false;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/26 20:30
+ *
+ * 透传读写方式配置
+ */
+@Data
+public class RelayProperties {
+
+    /**
+     * 流水线透传：每个方向增加一个读线程，经环形缓冲与写线程解耦
+     */
+    private Boolean pipelined = false;
+
+    /**
+     * 环形缓冲槽位数，即单个方向最多预读的数据块数
+     */
+    private Integer ringSlots = 8;
+
+    /**
+     * 槽位大小（字节），即预读时单次读取的最大字节数
+     */
+    private Integer slotSize = 8192;
+}
@@ -0,0 +1,20 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/05 20:30
+ *
+ * 通信连接断开后的会话恢复配置
+ */
+@Data
+public class ResumeProperties {
+
+    private Boolean enabled = true;
+
+    /**
+     * 通信连接断开后保留会话、代理端口与透传Socket池的时间（毫秒），期间被代理端点可凭恢复凭证接管
+     */
+    private Long grace = 30000L;
+}
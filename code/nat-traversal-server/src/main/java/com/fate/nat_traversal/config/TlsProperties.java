@@ -0,0 +1,55 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * 注册端口加密配置：被代理端点的通信连接与透传Socket均经TLS，证书从keyStore加载
+ * 开启后明文被代理端点无法注册，默认不开启
+ */
+@Data
+public class TlsProperties {
+
+    private Boolean enabled = false;
+
+    /**
+     * 证书与私钥，PKCS12或JKS文件路径
+     */
+    private String keyStore;
+
+    private String keyStorePassword;
+
+    private String keyStoreType = "PKCS12";
+
+    private List<String> protocols = new ArrayList<>(List.of("TLSv1.3"));
+
+    /**
+     * 会话缓存数量，0不限
+     */
+    private Integer sessionCacheSize = 1000;
+
+    /**
+     * 会话可恢复时长（秒），透传Socket在此期间以会话恢复代替完整握手
+     */
+    private Integer sessionTimeout = 86400;
+
+    /**
+     * 握手超时（毫秒），同时限制握手后读取首条消息的时间
+     */
+    private Integer handshakeTimeout = 3000;
+
+    /**
+     * 注册端口握手线程数，接收线程只负责accept，握手与首条消息在此线程池中进行
+     */
+    private Integer handshakeThreads = 16;
+
+    /**
+     * 等待握手的连接数上限，超出时直接关闭
+     */
+    private Integer handshakeBacklog = 256;
+}
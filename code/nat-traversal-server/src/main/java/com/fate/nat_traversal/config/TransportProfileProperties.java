@@ -0,0 +1,64 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/27 20:30
+ *
+ * 单个传输配置档：Socket参数与写出合并策略
+ */
+@Data
+public class TransportProfileProperties {
+
+    /**
+     * TCP_NODELAY，关闭Nagle算法
+     */
+    private Boolean tcpNoDelay = false;
+
+    /**
+     * SO_SNDBUF（字节），0为系统默认
+     */
+    private Integer sendBufferSize = 0;
+
+    /**
+     * SO_RCVBUF（字节），0为系统默认
+     */
+    private Integer receiveBufferSize = 0;
+
+    /**
+     * SO_KEEPALIVE
+     */
+    private Boolean keepAlive = false;
+
+    /**
+     * 写出合并窗口（微秒）：读到一块后在窗口内继续收集后续数据再一次写出，0为逐块写出
+     */
+    private Long coalesceMicros = 0L;
+
+    /**
+     * 单次合并写出的最大字节数，同时决定无需等待时一次可收集的已到达数据量
+     */
+    private Integer coalesceBytes = 64 * 1024;
+
+    public static TransportProfileProperties interactive() {
+        TransportProfileProperties profile = new TransportProfileProperties();
+        profile.setTcpNoDelay(true);
+        profile.setSendBufferSize(32 * 1024);
+        profile.setReceiveBufferSize(32 * 1024);
+        profile.setKeepAlive(true);
+        return profile;
+    }
+
+    public static TransportProfileProperties bulk() {
+        TransportProfileProperties profile = new TransportProfileProperties();
+        // 合并由透传自行完成，不再叠加Nagle延迟
+        profile.setTcpNoDelay(true);
+        profile.setSendBufferSize(1024 * 1024);
+        profile.setReceiveBufferSize(1024 * 1024);
+        profile.setKeepAlive(true);
+        profile.setCoalesceMicros(200L);
+        profile.setCoalesceBytes(256 * 1024);
+        return profile;
+    }
+}
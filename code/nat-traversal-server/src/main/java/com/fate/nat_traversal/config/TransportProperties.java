@@ -0,0 +1,39 @@
+package com.fate.nat_traversal.config;
+
+import com.fate.nat_traversal.enums.TransportProfileEnum;
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2025/12/27 20:30
+ *
+ * 传输配置档，服务注册时携带“;;transport:interactive|bulk”指定，未指定的服务使用默认配置档
+ */
+@Data
+public class TransportProperties {
+
+    /**
+     * 默认配置档，同时决定透传Socket池的缓冲大小
+     */
+    private TransportProfileEnum profile = TransportProfileEnum.STANDARD;
+
+    private TransportProfileProperties standard = new TransportProfileProperties();
+
+    private TransportProfileProperties interactive = TransportProfileProperties.interactive();
+
+    private TransportProfileProperties bulk = TransportProfileProperties.bulk();
+
+    /**
+     * @param profile 为null时返回默认配置档
+     */
+    public TransportProfileProperties get(TransportProfileEnum profile) {
+        switch (profile == null ? this.profile : profile) {
+            case INTERACTIVE:
+                return interactive;
+            case BULK:
+                return bulk;
+            default:
+                return standard;
+        }
+    }
+}
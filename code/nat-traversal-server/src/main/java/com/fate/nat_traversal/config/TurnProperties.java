@@ -1,5 +1,6 @@
 package com.fate.nat_traversal.config;
 
+import com.fate.nat_traversal.enums.LoadBalanceStrategyEnum;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -22,4 +23,114 @@ public class TurnProperties {
     private Integer maxServerProxy;
 
     private Integer maxClientConnection;
+
+    /**
+     * 服务组副本负载均衡策略
+     */
+    private LoadBalanceStrategyEnum loadBalance = LoadBalanceStrategyEnum.LEAST_CONNECTIONS;
+
+    /**
+     * 共享端口虚拟主机路由
+     */
+    private VirtualHostProperties vhost = new VirtualHostProperties();
+
+    /**
+     * HTTP边缘缓存
+     */
+    private HttpCacheProperties httpCache = new HttpCacheProperties();
+
+    /**
+     * 被代理端点与客户端ip限速
+     */
+    private RateLimitProperties rateLimit = new RateLimitProperties();
+
+    /**
+     * 透传连接隔离舱与公平调度
+     */
+    private BulkheadProperties bulkhead = new BulkheadProperties();
+
+    /**
+     * 过载准入控制
+     */
+    private AdmissionProperties admission = new AdmissionProperties();
+
+    /**
+     * 透传缓冲内存预算与水位
+     */
+    private MemoryProperties memory = new MemoryProperties();
+
+    /**
+     * 透传读写方式
+     */
+    private RelayProperties relay = new RelayProperties();
+
+    /**
+     * 传输配置档：Socket参数与写出合并
+     */
+    private TransportProperties transport = new TransportProperties();
+
+    /**
+     * 透传Socket缓冲自动调整
+     */
+    private BufferTuningProperties tuning = new BufferTuningProperties();
+
+    /**
+     * Minecraft分帧透传
+     */
+    private MinecraftProperties minecraft = new MinecraftProperties();
+
+    /**
+     * 透传流压缩
+     */
+    private CompressionProperties compression = new CompressionProperties();
+
+    /**
+     * 注册端口TLS加密
+     */
+    private TlsProperties tls = new TlsProperties();
+
+    /**
+     * UDP转发
+     */
+    private UdpProperties udp = new UdpProperties();
+
+    /**
+     * 直连打洞协调
+     */
+    private PunchProperties punch = new PunchProperties();
+
+    /**
+     * 会话恢复
+     */
+    private ResumeProperties resume = new ResumeProperties();
+
+    /**
+     * 可恢复透传流
+     */
+    private StreamProperties stream = new StreamProperties();
+
+    /**
+     * 多路径条带
+     */
+    private StripeProperties stripe = new StripeProperties();
+
+    /**
+     * 注册准入
+     */
+    private RegistrationProperties registration = new RegistrationProperties();
+
+    /**
+     * 持久化注册表
+     */
+    private RegistryProperties registry = new RegistryProperties();
+
+    /**
+     * 集群
+     */
+    private ClusterProperties cluster = new ClusterProperties();
+
+    /**
+     * I/O引擎
+     */
+    private IoProperties io = new IoProperties();
 }
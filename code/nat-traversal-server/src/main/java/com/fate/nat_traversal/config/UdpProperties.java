@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP转发配置，被代理端点注册服务时携带udp选项后在同号端口上转发UDP
+ */
+@Data
+public class UdpProperties {
+
+    private Boolean enabled = true;
+
+    /**
+     * 来源地址会话的空闲过期时间（毫秒）
+     */
+    private Long idleTimeout = 60000L;
+
+    /**
+     * 单个端口的最大会话数，超出的新来源数据报丢弃
+     */
+    private Integer maxFlows = 1024;
+
+    /**
+     * 单次写入隧道的批量上限（字节），批量只包含已到达的数据报，不为凑批等待
+     */
+    private Integer batchBytes = 65536;
+
+    /**
+     * UDP接收缓冲（字节），0取系统默认
+     */
+    private Integer receiveBufferSize = 1024 * 1024;
+}
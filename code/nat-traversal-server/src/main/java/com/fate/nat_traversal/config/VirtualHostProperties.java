@@ -0,0 +1,40 @@
+package com.fate.nat_traversal.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/20 20:30
+ *
+ * 虚拟主机路由配置：共享端口按 HTTP Host / TLS SNI / Minecraft握手地址 分发连接
+ */
+@Data
+public class VirtualHostProperties {
+
+    /**
+     * 共享监听端口，为空则不启用
+     */
+    private List<Integer> ports = new ArrayList<>();
+
+    /**
+     * 读取首包的超时时间（毫秒）
+     */
+    private Integer peekTimeout = 3000;
+
+    /**
+     * 首包最大读取字节数，超出仍无法识别则关闭连接；TLS ClientHello超出时按记录长度继续读取，至多64KiB
+     */
+    private Integer maxPeekBytes = 8192;
+
+    /**
+     * 按主机名路由的服务是否仍分配独立代理端口
+     */
+    private Boolean dedicatedPort = false;
+
+    public boolean isEnabled() {
+        return ports != null && !ports.isEmpty();
+    }
+}
@@ -0,0 +1,164 @@
+package com.fate.nat_traversal.engine;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 阻塞引擎：每个监听端口一个常驻accept线程，新连接在该线程内处理
+ */
+@Slf4j
+@Component
+public class BlockingIoEngine implements IoEngine {
+
+    public static final String NAME = "blocking";
+
+    private static final Set<BlockingListener> LISTENERS = ConcurrentHashMap.newKeySet();
+
+    // 监听任务常驻，排队的监听永远不会执行，线程不足时直接拒绝
+    private ThreadPoolExecutor acceptPool;
+
+    private final LongAdder accepted = new LongAdder();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public IoListener bind(int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket();
+        try {
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        return new BlockingListener(serverSocket);
+    }
+
+    @Override
+    public Socket newSocket() {
+        return new Socket();
+    }
+
+    @Override
+    public int listeners() {
+        return LISTENERS.size();
+    }
+
+    @Override
+    public int acceptThreads() {
+        return acceptPool == null ? 0 : acceptPool.getActiveCount();
+    }
+
+    @Override
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    @Override
+    public long rejected() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+        LISTENERS.forEach(BlockingListener::close);
+        if (acceptPool != null) acceptPool.shutdownNow();
+    }
+
+    private synchronized ThreadPoolExecutor acceptPool() {
+        if (acceptPool == null) {
+            // 代理端口（含前置端口）之外还有共享端口
+            int threads = turnProperties.getMaxServerProxy() + turnProperties.getVhost().getPorts().size();
+            acceptPool = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.MINUTES, new SynchronousQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+            acceptPool.allowCoreThreadTimeOut(true);
+        }
+        return acceptPool;
+    }
+
+    private class BlockingListener implements IoListener {
+
+        private final ServerSocket serverSocket;
+
+        private BlockingListener(ServerSocket serverSocket) {
+            this.serverSocket = serverSocket;
+        }
+
+        @Override
+        public int getLocalPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return serverSocket.isClosed();
+        }
+
+        @Override
+        public boolean start(Consumer<Socket> handler) {
+            try {
+                acceptPool().execute(() -> accept(handler));
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+            LISTENERS.add(this);
+            return true;
+        }
+
+        private void accept(Consumer<Socket> handler) {
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) log.warn("Listener(port: {}) Accept Connection interrupt;(Exception: {})", serverSocket.getLocalPort(), e.getMessage());
+                    continue;
+                }
+                accepted.increment();
+                try {
+                    handler.accept(socket);
+                } catch (RuntimeException e) {
+                    log.warn("Listener(port: {}) handle connection failed;(Exception: {})", serverSocket.getLocalPort(), e.getMessage());
+                    closeQuietly(socket);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            LISTENERS.remove(this);
+            try {
+                serverSocket.close();
+            } catch (IOException e) {}
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.engine;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 租用的复用缓冲，用完关闭归还；关闭后不能再访问array
+ */
+public class BufferLease implements AutoCloseable {
+
+    private final BufferPool pool;
+
+    private byte[] array;
+
+    BufferLease(BufferPool pool, byte[] array) {
+        this.pool = pool;
+        this.array = array;
+    }
+
+    public byte[] array() {
+        return array;
+    }
+
+    @Override
+    public void close() {
+        if (array == null) return;
+        pool.release(array);
+        array = null;
+    }
+}
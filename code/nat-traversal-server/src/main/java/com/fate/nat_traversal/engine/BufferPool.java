@@ -0,0 +1,67 @@
+package com.fate.nat_traversal.engine;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 固定大小的缓冲池，空闲缓冲超过上限时交给GC
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+
+    private final int maxPooled;
+
+    private final ConcurrentLinkedQueue<byte[]> pooled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    private final AtomicInteger leased = new AtomicInteger();
+
+    private final LongAdder misses = new LongAdder();
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public BufferLease lease() {
+        byte[] array = pooled.poll();
+        if (array != null) {
+            pooledCount.decrementAndGet();
+        } else {
+            array = new byte[bufferSize];
+            misses.increment();
+        }
+        leased.incrementAndGet();
+        return new BufferLease(this, array);
+    }
+
+    void release(byte[] array) {
+        leased.decrementAndGet();
+        if (pooledCount.incrementAndGet() <= maxPooled) {
+            pooled.offer(array);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+
+    public int leased() {
+        return leased.get();
+    }
+
+    public int pooled() {
+        return pooledCount.get();
+    }
+
+    /**
+     * 池中无空闲缓冲而新分配的次数
+     */
+    public long misses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,43 @@
+package com.fate.nat_traversal.engine;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * I/O引擎：提供监听与连接，按 nat-traversal.turn.io.engine 的名称选择
+ * 新增引擎（如基于原生epoll的实现）只需声明一个实现该接口的Spring Bean
+ * 交出的连接都是阻塞模式的Socket，透传流程与引擎无关
+ */
+public interface IoEngine {
+
+    String name();
+
+    /**
+     * 绑定监听端口，调用IoListener.start后才接受连接
+     */
+    IoListener bind(int port) throws IOException;
+
+    /**
+     * 未连接的Socket，由调用方绑定、设置选项并连接
+     */
+    Socket newSocket() throws IOException;
+
+    int listeners();
+
+    /**
+     * 用于接受连接的线程数
+     */
+    int acceptThreads();
+
+    long accepted();
+
+    /**
+     * 因处理能力不足被直接关闭的连接数
+     */
+    long rejected();
+
+    void shutdown();
+}
@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.engine;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * I/O引擎统计，engines为可选择的引擎名
+ */
+@Builder
+@Data
+public class IoEngineStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String engine;
+    private Collection<String> engines;
+    private Integer listeners;
+    private Integer acceptThreads;
+    private Long accepted;
+    private Long rejected;
+    private Integer buffersLeased;
+    private Integer buffersPooled;
+    private Long bufferMisses;
+}
@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.engine;
+
+import java.io.Closeable;
+import java.net.Socket;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 引擎的监听端口
+ */
+public interface IoListener extends Closeable {
+
+    int getLocalPort();
+
+    boolean isClosed();
+
+    /**
+     * 开始接受连接，同一端口的连接可能在不同线程处理
+     * @param handler 处理新连接，不应长时间阻塞
+     * @return 引擎资源不足时返回false，调用方负责关闭
+     */
+    boolean start(Consumer<Socket> handler);
+
+    @Override
+    void close();
+}
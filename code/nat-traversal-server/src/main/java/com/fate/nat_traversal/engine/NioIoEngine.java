@@ -0,0 +1,248 @@
+package com.fate.nat_traversal.engine;
+
+import com.fate.nat_traversal.config.IoProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * NIO引擎：
+ *  1. 单个selector线程以非阻塞方式监听全部端口（Linux上JDK的selector即epoll），监听端口数不再占用线程
+ *  2. 接受的连接切换为阻塞模式，交由固定数量的工作线程处理，等待队列满时直接关闭
+ *  3. 交出的Socket由SocketChannel提供，连接也由SocketChannel创建
+ */
+@Slf4j
+@Component
+public class NioIoEngine implements IoEngine {
+
+    public static final String NAME = "nio";
+
+    // 每个端口每轮最多接受的连接数，避免单个端口占满selector线程
+    private static final int MAX_ACCEPTS_PER_ROUND = 64;
+
+    private static final Set<NioListener> LISTENERS = ConcurrentHashMap.newKeySet();
+
+    // 待注册到selector的监听端口，由selector线程注册
+    private final Queue<NioListener> pending = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+
+    private ThreadPoolExecutor workers;
+
+    private volatile boolean closed;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public IoListener bind(int port) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new NioListener(channel);
+    }
+
+    @Override
+    public Socket newSocket() throws IOException {
+        return SocketChannel.open().socket();
+    }
+
+    @Override
+    public int listeners() {
+        return LISTENERS.size();
+    }
+
+    @Override
+    public int acceptThreads() {
+        return selector == null ? 0 : 1 + workers.getActiveCount();
+    }
+
+    @Override
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    @Override
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        closed = true;
+        LISTENERS.forEach(NioListener::close);
+        if (selector == null) return;
+        selector.wakeup();
+        workers.shutdownNow();
+    }
+
+    private synchronized boolean start() {
+        if (selector != null) return true;
+        if (closed) return false;
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            log.error("NIO engine selector open failed;(Exception: {})", e.getMessage());
+            return false;
+        }
+        IoProperties io = turnProperties.getIo();
+        workers = new ThreadPoolExecutor(io.getWorkers(), io.getWorkers(), 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(io.getWorkerQueue()), new ThreadPoolExecutor.AbortPolicy());
+
+        Thread thread = new Thread(this::select, "nio-acceptor");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("NIO engine started, workers: {}", io.getWorkers());
+        return true;
+    }
+
+    private void select() {
+        while (!closed) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                log.warn("NIO engine select failed;(Exception: {})", e.getMessage());
+                continue;
+            }
+
+            NioListener listener;
+            while ((listener = pending.poll()) != null) {
+                try {
+                    listener.channel.register(selector, SelectionKey.OP_ACCEPT, listener);
+                } catch (ClosedChannelException e) {}
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid() && key.isAcceptable()) accept((NioListener) key.attachment());
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {}
+    }
+
+    private void accept(NioListener listener) {
+        for (int i = 0; i < MAX_ACCEPTS_PER_ROUND; ++i) {
+            SocketChannel channel;
+            try {
+                channel = listener.channel.accept();
+                if (channel == null) return;
+                channel.configureBlocking(true);
+            } catch (IOException e) {
+                if (!listener.isClosed()) log.warn("Listener(port: {}) Accept Connection interrupt;(Exception: {})", listener.port, e.getMessage());
+                return;
+            }
+            accepted.increment();
+
+            Socket socket = channel.socket();
+            try {
+                workers.execute(() -> {
+                    try {
+                        listener.handler.accept(socket);
+                    } catch (RuntimeException e) {
+                        log.warn("Listener(port: {}) handle connection failed;(Exception: {})", listener.port, e.getMessage());
+                        close(socket);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                log.warn("Listener(port: {}) too many pending connections, connection(ip: {}) will be close.", listener.port, socket.getRemoteSocketAddress());
+                close(socket);
+            }
+        }
+    }
+
+    private class NioListener implements IoListener {
+
+        private final ServerSocketChannel channel;
+
+        // 关闭后仍用于日志
+        private final int port;
+
+        private volatile Consumer<Socket> handler;
+
+        private NioListener(ServerSocketChannel channel) {
+            this.channel = channel;
+            this.port = channel.socket().getLocalPort();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return port;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !channel.isOpen();
+        }
+
+        @Override
+        public boolean start(Consumer<Socket> handler) {
+            if (!NioIoEngine.this.start()) return false;
+            this.handler = handler;
+            LISTENERS.add(this);
+            pending.add(this);
+            selector.wakeup();
+            return true;
+        }
+
+        @Override
+        public void close() {
+            LISTENERS.remove(this);
+            try {
+                channel.close();
+            } catch (IOException e) {}
+            // 关闭的通道在下一轮select时注销
+            if (selector != null) selector.wakeup();
+        }
+    }
+
+    private void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
@@ -0,0 +1,13 @@
+package com.fate.nat_traversal.enums;
+
+/**
+ * 透传连接准入结果
+ */
+public enum AdmissionEnum {
+    // 立即获得槽位
+    ADMITTED,
+    // 进入等待队列，获得槽位后异步建立透传
+    QUEUED,
+    // 拒绝
+    REJECTED
+}
@@ -0,0 +1,11 @@
+package com.fate.nat_traversal.enums;
+
+/**
+ * 副本负载均衡策略
+ */
+public enum LoadBalanceStrategyEnum {
+    // 加权最少连接
+    LEAST_CONNECTIONS,
+    // 加权EWMA建连延迟
+    EWMA_LATENCY
+}
@@ -0,0 +1,39 @@
+package com.fate.nat_traversal.enums;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * NAT类型，由被代理端点从同一本地端口探测服务器两个端口得到的映射地址判断
+ */
+public enum NatTypeEnum {
+
+    /**
+     * 映射地址与本地地址相同，未经过NAT
+     */
+    OPEN,
+
+    /**
+     * 映射与目的地址无关，可打洞
+     */
+    CONE,
+
+    /**
+     * 不同目的地址映射到不同端口，对端为SYMMETRIC时无法打洞
+     */
+    SYMMETRIC,
+
+    /**
+     * 未探测或服务器未开启探测端口
+     */
+    UNKNOWN;
+
+    public static NatTypeEnum parse(String value) {
+        if (value == null) return UNKNOWN;
+        try {
+            return valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+}
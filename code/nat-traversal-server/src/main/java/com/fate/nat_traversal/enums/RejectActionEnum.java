@@ -0,0 +1,13 @@
+package com.fate.nat_traversal.enums;
+
+/**
+ * 过载时拒绝客户端连接的方式
+ */
+public enum RejectActionEnum {
+    // 正常关闭（FIN）
+    CLOSE,
+    // 立即复位（RST），客户端可马上感知并重试
+    RST,
+    // HTTP请求返回503并携带Retry-After，非HTTP连接按RST处理
+    HTTP_503
+}
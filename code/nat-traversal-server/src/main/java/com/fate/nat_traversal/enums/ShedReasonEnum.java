@@ -0,0 +1,23 @@
+package com.fate.nat_traversal.enums;
+
+/**
+ * 过载丢弃原因
+ */
+public enum ShedReasonEnum {
+    // 被代理端点等待队列已满
+    QUEUE_FULL,
+    // 排队超过最长等待时间
+    DEADLINE,
+    // 队列持续积压，按CoDel丢弃
+    CODEL,
+    // 线程池已满
+    POOL_FULL,
+    // 缓冲内存预算耗尽
+    MEMORY,
+    // 连接速率超限
+    RATE_LIMIT,
+    // 被代理端点已关闭，等待中的连接被丢弃
+    BACKEND_CLOSED,
+    // 代理注册已满
+    REGISTRATION
+}
@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.limit;
+
+import com.fate.nat_traversal.enums.RejectActionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2025/12/24 20:30
+ *
+ * 准入控制统计
+ */
+@Builder
+@Data
+public class AdmissionStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private RejectActionEnum rejectAction;
+    private Integer capacity;
+    private Integer active;
+    private Integer queued;
+    private Long dequeued;
+    private Double avgQueueDelayMillis;
+    private Double maxQueueDelayMillis;
+    private Boolean shedding;
+    private Map<ShedReasonEnum, Long> shed;
+    private Long rejected;
+}
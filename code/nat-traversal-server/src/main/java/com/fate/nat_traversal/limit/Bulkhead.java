@@ -0,0 +1,81 @@
+package com.fate.nat_traversal.limit;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * @author fate
+ * @date 2025/12/23 20:30
+ *
+ * 单个被代理端点的透传隔离舱：活跃连接数、等待队列与调度计数
+ * 由FairScheduler统一加锁访问
+ */
+public class Bulkhead {
+
+    @Getter
+    private final String backendSession;
+
+    @Getter
+    @Setter
+    private int weight = 1;
+
+    @Getter
+    private int active = 0;
+
+    /**
+     * 差额轮询（DRR）的剩余额度
+     */
+    double deficit = 0;
+
+    final Deque<PendingTask> queue = new ArrayDeque<>();
+
+    @Getter
+    private long admitted = 0;
+
+    @Getter
+    private long queued = 0;
+
+    @Getter
+    private long rejected = 0;
+
+    @Getter
+    private long shed = 0;
+
+    @Getter
+    private int maxQueueLength = 0;
+
+    public Bulkhead(String backendSession) {
+        this.backendSession = backendSession;
+    }
+
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    void onAdmitted() {
+        active++;
+        admitted++;
+    }
+
+    void onReleased() {
+        active--;
+    }
+
+    void onQueued(PendingTask task) {
+        queue.add(task);
+        queued++;
+        maxQueueLength = Math.max(maxQueueLength, queue.size());
+    }
+
+    void onRejected() {
+        rejected++;
+    }
+
+    PendingTask onShed(PendingTask task) {
+        shed++;
+        return task;
+    }
+}
@@ -0,0 +1,87 @@
+package com.fate.nat_traversal.limit;
+
+/**
+ * @author fate
+ * @date 2025/12/24 20:30
+ *
+ * CoDel（Controlled Delay）排队时延控制：
+ *  1. 出队时计算排队时延，持续超过target达一个interval视为队列积压
+ *  2. 积压期间按 interval / sqrt(count) 的间隔逐步加快丢弃，时延回落至target以下即停止
+ * 由FairScheduler加锁访问
+ */
+public class CoDel {
+
+    private final long targetNanos;
+
+    private final long intervalNanos;
+
+    // 时延首次超过target后的观察截止时间，0表示未超过
+    private long firstAboveTime = 0;
+
+    private boolean dropping = false;
+
+    private long dropNext = 0;
+
+    private int count = 0;
+
+    public CoDel(long targetNanos, long intervalNanos) {
+        this.targetNanos = targetNanos;
+        this.intervalNanos = Math.max(intervalNanos, 1);
+    }
+
+    public boolean isEnabled() {
+        return targetNanos > 0;
+    }
+
+    public boolean isDropping() {
+        return dropping;
+    }
+
+    /**
+     * 出队时调用
+     * @param sojourn 该连接的排队时延
+     * @return 是否丢弃该连接
+     */
+    public boolean shouldDrop(long sojourn, long now) {
+        if (!isEnabled()) return false;
+
+        boolean okToDrop = okToDrop(sojourn, now);
+        if (dropping) {
+            if (!okToDrop) {
+                dropping = false;
+                return false;
+            }
+            if (now - dropNext >= 0) {
+                count++;
+                dropNext = controlLaw(dropNext);
+                return true;
+            }
+            return false;
+        }
+
+        if (okToDrop) {
+            dropping = true;
+            // 刚退出丢弃状态不久则沿用之前的丢弃频率
+            count = count > 2 && now - dropNext < 8 * intervalNanos ? count - 2 : 1;
+            dropNext = controlLaw(now);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean okToDrop(long sojourn, long now) {
+        if (sojourn < targetNanos) {
+            firstAboveTime = 0;
+            return false;
+        }
+        if (firstAboveTime == 0) {
+            firstAboveTime = now + intervalNanos;
+            return false;
+        }
+        return now - firstAboveTime >= 0;
+    }
+
+    private long controlLaw(long time) {
+        return time + (long) (intervalNanos / Math.sqrt(count));
+    }
+}
@@ -0,0 +1,248 @@
+package com.fate.nat_traversal.limit;
+
+import com.fate.nat_traversal.enums.AdmissionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+
+import java.util.*;
+
+/**
+ * @author fate
+ * @date 2025/12/23 20:30
+ *
+ * 透传槽位调度：
+ *  1. 总容量capacity，每个被代理端点保留reserved个槽位；保留只对有活跃或排队连接的端点生效，
+ *     空闲端点的保留槽位可被其他端点借用（工作保持），借出的槽位在连接结束后归还，不抢占
+ *  2. 单个被代理端点最多占用maxPerBackend个槽位
+ *  3. 槽位不足时按被代理端点排队，释放槽位后按权重差额轮询（DRR）分配，避免单个端点占满
+ *  4. 排队超过maxWait的连接丢弃；出队时按CoDel判断队列是否积压，积压则丢弃
+ * 调度只发生在连接建立与结束时，整体加锁即可
+ */
+public class FairScheduler {
+
+    private final int capacity;
+
+    private final int reserved;
+
+    private final int maxPerBackend;
+
+    private final int queueCapacity;
+
+    private final long maxWaitNanos;
+
+    private final CoDel codel;
+
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    // 有等待连接的被代理端点，轮询顺序
+    private final Deque<Bulkhead> backlog = new ArrayDeque<>();
+
+    private int totalActive = 0;
+
+    // 排队后获得槽位的连接数与排队时延
+    private long dequeued = 0;
+
+    private long totalDelayNanos = 0;
+
+    private long maxDelayNanos = 0;
+
+    public FairScheduler(int capacity, int reserved, double maxShare, int queueCapacity, long maxWaitNanos, CoDel codel) {
+        this.capacity = Math.max(capacity, 1);
+        this.reserved = Math.max(reserved, 0);
+        this.maxPerBackend = Math.max(this.reserved, (int) Math.ceil(this.capacity * maxShare));
+        this.queueCapacity = Math.max(queueCapacity, 0);
+        this.maxWaitNanos = maxWaitNanos;
+        this.codel = codel;
+    }
+
+    public synchronized AdmissionEnum admit(String session, PendingTask task) {
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(session, Bulkhead::new);
+
+        // 保留槽位直接获得；共享槽位需无其他可获得槽位的端点排队，保证公平（已达单端点上限的排队端点不阻塞其他端点）
+        boolean fair = bulkhead.getActive() < reserved || backlog.stream().noneMatch(this::canAdmit);
+        if (fair && canAdmit(bulkhead)) {
+            grant(bulkhead);
+            return AdmissionEnum.ADMITTED;
+        }
+
+        if (bulkhead.queue.size() >= queueCapacity) {
+            bulkhead.onRejected();
+            return AdmissionEnum.REJECTED;
+        }
+
+        bulkhead.onQueued(task);
+        if (!backlog.contains(bulkhead)) backlog.addLast(bulkhead);
+        return AdmissionEnum.QUEUED;
+    }
+
+    /**
+     * 释放槽位
+     * @return 因此获得槽位与被丢弃的等待连接，由调用方在锁外执行
+     */
+    public synchronized Dispatch release(String session) {
+        Bulkhead bulkhead = bulkheads.get(session);
+        if (bulkhead == null || bulkhead.getActive() <= 0) return Dispatch.EMPTY;
+
+        bulkhead.onReleased();
+        totalActive--;
+        List<PendingTask> dropped = new ArrayList<>();
+        return new Dispatch(schedule(dropped), dropped);
+    }
+
+    /**
+     * 移除被代理端点，其等待连接全部丢弃
+     */
+    public synchronized Dispatch remove(String session) {
+        Bulkhead bulkhead = bulkheads.remove(session);
+        if (bulkhead == null) return Dispatch.EMPTY;
+
+        backlog.remove(bulkhead);
+        totalActive -= bulkhead.getActive();
+        List<PendingTask> dropped = new ArrayList<>();
+        bulkhead.queue.forEach(task -> dropped.add(task.shed(ShedReasonEnum.BACKEND_CLOSED)));
+        bulkhead.queue.clear();
+        return new Dispatch(schedule(dropped), dropped);
+    }
+
+    /**
+     * 丢弃排队超过maxWait的连接；无槽位释放时队列不会出队，需定时调用
+     */
+    public synchronized List<PendingTask> expire() {
+        if (backlog.isEmpty()) return List.of();
+
+        long now = System.nanoTime();
+        List<PendingTask> dropped = new ArrayList<>();
+        Iterator<Bulkhead> iterator = backlog.iterator();
+        while (iterator.hasNext()) {
+            Bulkhead bulkhead = iterator.next();
+            // 队列按入队顺序排列，队首未超时则其后均未超时
+            while (!bulkhead.queue.isEmpty() && bulkhead.queue.peekFirst().waited(now) > maxWaitNanos) {
+                dropped.add(bulkhead.onShed(bulkhead.queue.pollFirst().shed(ShedReasonEnum.DEADLINE)));
+            }
+            if (bulkhead.queue.isEmpty()) {
+                bulkhead.deficit = 0;
+                iterator.remove();
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * 登记被代理端点，多个服务取最大权重
+     */
+    public synchronized void setWeight(String session, int weight) {
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(session, Bulkhead::new);
+        bulkhead.setWeight(Math.max(bulkhead.getWeight(), weight));
+    }
+
+    public synchronized List<Bulkhead> getBulkheads() {
+        return new ArrayList<>(bulkheads.values());
+    }
+
+    public synchronized int getTotalActive() {
+        return totalActive;
+    }
+
+    public synchronized int getTotalQueued() {
+        int queued = 0;
+        for (Bulkhead bulkhead : backlog) {
+            queued += bulkhead.queue.size();
+        }
+        return queued;
+    }
+
+    public synchronized long getDequeued() {
+        return dequeued;
+    }
+
+    public synchronized long getTotalDelayNanos() {
+        return totalDelayNanos;
+    }
+
+    public synchronized long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    public synchronized boolean isShedding() {
+        return codel.isDropping();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private List<PendingTask> schedule(List<PendingTask> dropped) {
+        List<PendingTask> granted = new ArrayList<>();
+        long now = System.nanoTime();
+        int idle = 0;
+        while (!backlog.isEmpty() && idle < backlog.size()) {
+            Bulkhead bulkhead = backlog.pollFirst();
+            boolean progressed = false;
+
+            if (canAdmit(bulkhead)) {
+                bulkhead.deficit = Math.min(bulkhead.deficit + bulkhead.getWeight(), bulkhead.getWeight());
+                while (bulkhead.deficit >= 1 && !bulkhead.queue.isEmpty() && canAdmit(bulkhead)) {
+                    PendingTask task = bulkhead.queue.pollFirst();
+                    long sojourn = task.waited(now);
+                    if (sojourn > maxWaitNanos) {
+                        dropped.add(bulkhead.onShed(task.shed(ShedReasonEnum.DEADLINE)));
+                        continue;
+                    }
+                    if (codel.shouldDrop(sojourn, now)) {
+                        dropped.add(bulkhead.onShed(task.shed(ShedReasonEnum.CODEL)));
+                        continue;
+                    }
+
+                    grant(bulkhead);
+                    granted.add(task);
+                    dequeued++;
+                    totalDelayNanos += sojourn;
+                    maxDelayNanos = Math.max(maxDelayNanos, sojourn);
+                    bulkhead.deficit -= 1;
+                    progressed = true;
+                }
+            }
+
+            if (bulkhead.queue.isEmpty()) {
+                bulkhead.deficit = 0;
+            } else {
+                backlog.addLast(bulkhead);
+            }
+            idle = progressed ? 0 : idle + 1;
+        }
+        return granted;
+    }
+
+    private boolean canAdmit(Bulkhead bulkhead) {
+        if (totalActive >= capacity) return false;
+        if (bulkhead.getActive() < reserved) return true;
+        if (bulkhead.getActive() >= maxPerBackend) return false;
+        return capacity - totalActive > heldBack(bulkhead);
+    }
+
+    /**
+     * 其他忙碌端点尚未用满的保留槽位，空闲端点不占保留
+     */
+    private int heldBack(Bulkhead except) {
+        if (reserved == 0) return 0;
+        int held = 0;
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            if (bulkhead == except || (bulkhead.getActive() == 0 && bulkhead.queue.isEmpty())) continue;
+            held += Math.max(reserved - bulkhead.getActive(), 0);
+        }
+        return held;
+    }
+
+    private void grant(Bulkhead bulkhead) {
+        bulkhead.onAdmitted();
+        totalActive++;
+    }
+
+    /**
+     * 一次调度的结果
+     * @param granted 获得槽位的等待连接
+     * @param dropped 被丢弃的等待连接
+     */
+    public record Dispatch(List<PendingTask> granted, List<PendingTask> dropped) {
+        static final Dispatch EMPTY = new Dispatch(List.of(), List.of());
+    }
+}
@@ -0,0 +1,129 @@
+package com.fate.nat_traversal.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 单个连接单个方向的在途数据窗口：
+ *  1. 读到数据后申请额度，写出后释放；在途字节达到高水位即暂停读取，回落至低水位后恢复
+ *  2. 额度同时计入进程级内存预算，预算耗尽时同样暂停读取
+ * 读写在同一线程时在途数据至多一个数据块，水位只约束读写分离的透传
+ */
+public class FlowWindow {
+
+    // 等待期间检查连接是否已关闭
+    private static final long WAIT_MILLIS = 100;
+
+    private final MemoryBudget budget;
+
+    private final long highWatermark;
+
+    private final long lowWatermark;
+
+    private long inFlight = 0;
+
+    private boolean paused = false;
+
+    private boolean closed = false;
+
+    public FlowWindow(MemoryBudget budget, long highWatermark, long lowWatermark) {
+        this.budget = budget;
+        this.highWatermark = Math.max(highWatermark, 1);
+        this.lowWatermark = Math.min(Math.max(lowWatermark, 0), this.highWatermark);
+    }
+
+    /**
+     * 申请在途数据额度，超过水位或预算耗尽时阻塞
+     * @return 窗口已关闭返回false
+     */
+    public boolean acquire(int bytes) {
+        synchronized (this) {
+            while (!closed && (paused || inFlight >= highWatermark)) {
+                if (!paused) {
+                    paused = true;
+                    budget.onPause();
+                }
+                try {
+                    wait(WAIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (closed) return false;
+        }
+
+        boolean waited = false;
+        while (!budget.tryAcquire(bytes)) {
+            if (isClosed()) return false;
+            if (!waited) {
+                waited = true;
+                budget.onWait();
+            }
+            budget.awaitRelease(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized (this) {
+            if (closed) {
+                budget.release(bytes);
+                return false;
+            }
+            inFlight += bytes;
+        }
+        return true;
+    }
+
+    /**
+     * 不等待地申请额度，超过水位或预算不足时返回false
+     */
+    public boolean tryAcquire(int bytes) {
+        synchronized (this) {
+            if (closed || paused || inFlight + bytes > highWatermark) return false;
+            if (!budget.tryAcquire(bytes)) return false;
+            inFlight += bytes;
+        }
+        return true;
+    }
+
+    public void release(int bytes) {
+        synchronized (this) {
+            if (closed) return;
+            inFlight -= bytes;
+            if (paused && inFlight <= lowWatermark) {
+                paused = false;
+                budget.onResume();
+                notifyAll();
+            }
+        }
+        budget.release(bytes);
+    }
+
+    /**
+     * 关闭窗口，归还全部在途额度并唤醒等待的读线程
+     */
+    public void close() {
+        long remaining;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            remaining = inFlight;
+            inFlight = 0;
+            if (paused) {
+                paused = false;
+                budget.onResume();
+            }
+            notifyAll();
+        }
+        budget.release(remaining);
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized long getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.limit;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 缓冲内存使用统计
+ */
+@Builder
+@Data
+public class MemoryStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long maxBytes;
+    private Long usedBytes;
+    private Long peakBytes;
+    private Long highWatermark;
+    private Long lowWatermark;
+    private Integer pausedWindows;
+    private Long pauses;
+    private Long budgetWaits;
+    private Long budgetWaitMillis;
+}
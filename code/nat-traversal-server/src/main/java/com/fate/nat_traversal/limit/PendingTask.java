@@ -0,0 +1,59 @@
+package com.fate.nat_traversal.limit;
+
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2025/12/23 20:30
+ *
+ * 等待透传槽位的连接
+ */
+public class PendingTask {
+
+    /**
+     * 获得槽位后执行
+     */
+    private final Runnable onGranted;
+
+    /**
+     * 被丢弃时执行（超时、队列积压、被代理端点关闭等）
+     */
+    private final Consumer<ShedReasonEnum> onRejected;
+
+    @Getter
+    private final long enqueuedAt = System.nanoTime();
+
+    /**
+     * 被丢弃的原因，由调度器设置
+     */
+    @Getter
+    private ShedReasonEnum shedReason;
+
+    public PendingTask(Runnable onGranted, Consumer<ShedReasonEnum> onRejected) {
+        this.onGranted = onGranted;
+        this.onRejected = onRejected;
+    }
+
+    public void grant() {
+        onGranted.run();
+    }
+
+    public void reject() {
+        onRejected.accept(shedReason);
+    }
+
+    /**
+     * 已排队时长（纳秒）
+     */
+    public long waited(long now) {
+        return now - enqueuedAt;
+    }
+
+    PendingTask shed(ShedReasonEnum reason) {
+        this.shedReason = reason;
+        return this;
+    }
+}
@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.limit;
+
+import lombok.Getter;
+
+/**
+ * @author fate
+ * @date 2025/12/22 20:30
+ *
+ * 单个被代理端点或客户端ip的限速桶，未配置的维度为null
+ */
+@Getter
+public class RateLimits {
+
+    private final TokenBucket bytes;
+
+    private final TokenBucket connections;
+
+    public RateLimits(long bytesPerSecond, long connectionsPerSecond, long burstSeconds) {
+        this.bytes = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond, bytesPerSecond * burstSeconds) : null;
+        this.connections = connectionsPerSecond > 0 ? new TokenBucket(connectionsPerSecond, connectionsPerSecond * burstSeconds) : null;
+    }
+
+    public boolean allowConnection() {
+        return connections == null || connections.tryAcquire(1);
+    }
+
+    public boolean isIdle() {
+        return (bytes == null || bytes.isIdle()) && (connections == null || connections.isIdle());
+    }
+}
@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.limit;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/08 20:30
+ *
+ * 注册准入统计，rejected为回复稍后重试的注册（队列满或排队超时）
+ */
+@Builder
+@Data
+public class RegistrationStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Integer ratePerSecond;
+    private Integer queued;
+    private Long admitted;
+    private Long rejectedQueueFull;
+    private Long rejectedDeadline;
+    private Double avgWaitMillis;
+    private Double maxWaitMillis;
+    private Long retryAfterMillis;
+}
@@ -0,0 +1,36 @@
+package com.fate.nat_traversal.limit;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author fate
+ * @date 2025/12/22 20:30
+ *
+ * 单个透传连接的带宽整形，同时受被代理端点与客户端ip两个令牌桶约束
+ * 令牌不足时阻塞当前透传线程，即对该连接施加背压
+ */
+public class Throttle {
+
+    private final TokenBucket backendBytes;
+
+    private final TokenBucket clientBytes;
+
+    public Throttle(TokenBucket backendBytes, TokenBucket clientBytes) {
+        this.backendBytes = backendBytes;
+        this.clientBytes = clientBytes;
+    }
+
+    public void acquire(int bytes) {
+        acquire(bytes, false);
+    }
+
+    /**
+     * @param priority 优先写出：照常扣减令牌但不等待，欠下的令牌由后续写出等待补偿
+     */
+    public void acquire(int bytes, boolean priority) {
+        long wait = 0;
+        if (backendBytes != null) wait = backendBytes.reserve(bytes);
+        if (clientBytes != null) wait = Math.max(wait, clientBytes.reserve(bytes));
+        if (wait > 0 && !priority) LockSupport.parkNanos(wait);
+    }
+}
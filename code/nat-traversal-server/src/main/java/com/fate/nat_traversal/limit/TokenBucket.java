@@ -0,0 +1,113 @@
+package com.fate.nat_traversal.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2025/12/22 20:30
+ *
+ * 无锁令牌桶，以GCRA（理论到达时间）实现，单个CAS完成补充与扣减
+ * rate 每秒令牌数；burst 桶容量
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long rate;
+
+    private final long burst;
+
+    /**
+     * 每个令牌的间隔（纳秒，按1/1024精度保存，避免大速率时取整为0）
+     */
+    private final long scaledInterval;
+
+    private final long burstNanos;
+
+    // 理论到达时间：令牌恰好耗尽的时刻
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+    private final AtomicLong acquired = new AtomicLong();
+
+    private final AtomicLong throttled = new AtomicLong();
+
+    private final AtomicLong throttledNanos = new AtomicLong();
+
+    public TokenBucket(long rate, long burst) {
+        this.rate = rate;
+        this.burst = Math.max(burst, 1);
+        this.scaledInterval = Math.max((NANOS_PER_SECOND << 10) / rate, 1);
+        this.burstNanos = cost(this.burst);
+    }
+
+    /**
+     * 立即获取，令牌不足则拒绝（用于连接速率）
+     */
+    public boolean tryAcquire(long permits) {
+        long cost = cost(permits);
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + cost;
+            if (next - now > burstNanos) {
+                throttled.incrementAndGet();
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                acquired.addAndGet(permits);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 预支令牌，返回需等待的纳秒数（用于带宽整形，调用方自行休眠）
+     */
+    public long reserve(long permits) {
+        long cost = cost(permits);
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + cost;
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                acquired.addAndGet(permits);
+                long wait = next - now - burstNanos;
+                if (wait <= 0) return 0;
+                throttled.incrementAndGet();
+                throttledNanos.addAndGet(wait);
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * 桶是否已满（空闲），可用于清理
+     */
+    public boolean isIdle() {
+        return theoreticalArrival.get() <= System.nanoTime();
+    }
+
+    public long getRate() {
+        return rate;
+    }
+
+    public long getBurst() {
+        return burst;
+    }
+
+    public long getAcquired() {
+        return acquired.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getThrottledMillis() {
+        return throttledNanos.get() / 1_000_000;
+    }
+
+    private long cost(long permits) {
+        return (permits * scaledInterval) >> 10;
+    }
+}
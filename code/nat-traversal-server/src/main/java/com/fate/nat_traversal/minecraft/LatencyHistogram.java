@@ -0,0 +1,76 @@
+package com.fate.nat_traversal.minecraft;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * 固定分桶的时延直方图（微秒），无锁
+ */
+public class LatencyHistogram {
+
+    // 各桶上界（微秒），最后一个桶无上界
+    private static final long[] BOUNDS = {100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(nanos / 1000, 0);
+        int index = 0;
+        while (index < BOUNDS.length && micros > BOUNDS[index]) index++;
+        buckets.incrementAndGet(index);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getAvgMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / n;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * 分位数所在桶的上界，落在最后一个桶时取最大值
+     */
+    public long percentile(double quantile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long target = (long) Math.ceil(n * quantile);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; ++i) {
+            seen += buckets.get(i);
+            if (seen >= target) return BOUNDS[i];
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * 桶上界 - 计数，如 "<=100us"
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS.length; ++i) {
+            result.put("<=" + BOUNDS[i] + "us", buckets.get(i));
+        }
+        result.put(">" + BOUNDS[BOUNDS.length - 1] + "us", buckets.get(BOUNDS.length));
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fate.nat_traversal.minecraft;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * 单个Minecraft连接的协议状态，由两个方向的分帧器共享
+ */
+@Getter
+@Setter
+public class MinecraftSession {
+
+    public enum State { HANDSHAKE, STATUS, LOGIN, PLAY }
+
+    private volatile State state = State.HANDSHAKE;
+
+    /**
+     * 压缩阈值，-1表示未开启压缩
+     */
+    private volatile int compressionThreshold = -1;
+
+    private volatile boolean encryptionRequested = false;
+
+    /**
+     * 已开启加密，此后无法解析分帧，两个方向均按普通数据透传
+     */
+    private volatile boolean encrypted = false;
+
+    /**
+     * 分帧格式错误，已退回普通透传
+     */
+    private volatile boolean invalid = false;
+}
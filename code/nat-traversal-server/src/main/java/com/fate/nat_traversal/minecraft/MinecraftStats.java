@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.minecraft;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * Minecraft分帧透传统计
+ */
+@Builder
+@Data
+public class MinecraftStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private List<Integer> ports;
+    private Long connections;
+    // 开启加密后退回普通透传的连接数
+    private Long encrypted;
+    // 分帧格式错误退回普通透传的连接数
+    private Long invalid;
+    // 仅含小包、带宽整形时优先写出的次数
+    private Long priorityWrites;
+    private List<PacketLatencyStats> packets;
+}
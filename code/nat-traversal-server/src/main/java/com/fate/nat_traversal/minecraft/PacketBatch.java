@@ -0,0 +1,21 @@
+package com.fate.nat_traversal.minecraft;
+
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * 一次写出的数据：只包含完整的包，超过暂存上限的大包除外
+ * @param bytes 待写出的数据，可能为空（数据不足一个包，暂存等待后续数据）
+ * @param priority 仅包含小包，带宽整形时优先写出
+ * @param timings 本次写出后完整送达的包
+ */
+public record PacketBatch(byte[] bytes, boolean priority, List<PacketTiming> timings) {
+
+    /**
+     * @param type 包类型：方向/协议状态/包ID
+     * @param arrivedAt 包首字节到达中继的时间（System.nanoTime）
+     */
+    public record PacketTiming(String type, long arrivedAt) {}
+}
@@ -0,0 +1,254 @@
+package com.fate.nat_traversal.minecraft;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * Minecraft单方向分帧：包格式为 length(VarInt) + data，开启压缩后 data 为 dataLength(VarInt) + (zlib压缩的)包ID与内容
+ *  1. 只按包边界写出，不足一个包的数据暂存至后续数据到达，小包不会被拆到两次写出中
+ *  2. 超过maxHoldBytes的大包（如区块数据）不暂存，到达多少写出多少
+ *  3. 跟踪握手、登录阶段的压缩与加密：开启加密后数据不可解析，分帧格式错误时同样退回普通透传
+ * 仅由所在透传线程访问
+ */
+public class PacketFramer {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // 协议允许的最大包长，length至多3字节VarInt
+    private static final int MAX_PACKET_LENGTH = (1 << 21) - 1;
+
+    private static final int MAX_LENGTH_BYTES = 3;
+
+    // 握手包上限与HostSniffer一致：地址至多255个字符（UTF-8至多4字节）
+    private static final int MAX_HANDSHAKE_LENGTH = 1024;
+    private static final int MAX_ADDRESS_LENGTH = 255;
+
+    // 旧版（1.6及以前）服务器列表Ping首字节
+    private static final int LEGACY_PING = 0xFE;
+
+    private static final int HANDSHAKE = 0x00;
+    private static final int ENCRYPTION = 0x01;
+    private static final int LOGIN_SUCCESS = 0x02;
+    private static final int SET_COMPRESSION = 0x03;
+
+    private final MinecraftSession session;
+
+    private final boolean clientbound;
+
+    private final int maxHoldBytes;
+
+    private final int smallPacketBytes;
+
+    private final Inflater inflater = new Inflater();
+
+    // (状态, 包ID) - 类型名
+    private final Map<Integer, String> types = new HashMap<>();
+
+    // 暂存的不完整包
+    private byte[] pending = EMPTY;
+
+    private long pendingSince;
+
+    // 正在边到边发的大包剩余字节数
+    private int streamRemaining = 0;
+
+    private PacketBatch.PacketTiming streaming;
+
+    private boolean opaque = false;
+
+    public PacketFramer(MinecraftSession session, boolean clientbound, int maxHoldBytes, int smallPacketBytes) {
+        this.session = session;
+        this.clientbound = clientbound;
+        this.maxHoldBytes = maxHoldBytes;
+        this.smallPacketBytes = smallPacketBytes;
+    }
+
+    public PacketBatch feed(byte[] chunk) {
+        long now = System.nanoTime();
+        if (!opaque && session.isEncrypted()) opaque = true;
+        if (opaque) return new PacketBatch(concat(drain(), chunk, 0), false, List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(chunk.length + pending.length);
+        List<PacketBatch.PacketTiming> timings = new ArrayList<>();
+        boolean priority = true;
+
+        int offset = 0;
+        if (streamRemaining > 0) {
+            offset = Math.min(streamRemaining, chunk.length);
+            out.write(chunk, 0, offset);
+            streamRemaining -= offset;
+            priority = false;
+            if (streamRemaining == 0) {
+                timings.add(streaming);
+                streaming = null;
+            }
+            if (offset == chunk.length) return new PacketBatch(out.toByteArray(), false, timings);
+        }
+
+        long since = pending.length > 0 ? pendingSince : now;
+        byte[] data = concat(pending, chunk, offset);
+        pending = EMPTY;
+
+        int pos = 0;
+        while (pos < data.length) {
+            long arrivedAt = pos == 0 ? since : now;
+            if (!clientbound && session.getState() == MinecraftSession.State.HANDSHAKE && (data[pos] & 0xFF) == LEGACY_PING) {
+                fallback(out, data, pos, false);
+                break;
+            }
+
+            int[] cursor = {pos};
+            Integer length = VarInt.read(data, data.length, cursor);
+            if (length == null) {
+                if (cursor[0] < 0 || data.length - pos >= MAX_LENGTH_BYTES) {
+                    fallback(out, data, pos, true);
+                } else {
+                    hold(data, pos, arrivedAt);
+                }
+                break;
+            }
+            if (length <= 0 || length > MAX_PACKET_LENGTH || cursor[0] - pos > MAX_LENGTH_BYTES) {
+                fallback(out, data, pos, true);
+                break;
+            }
+
+            int end = cursor[0] + length;
+            if (end <= data.length) {
+                String type = inspect(data, cursor[0], end);
+                out.write(data, pos, end - pos);
+                timings.add(new PacketBatch.PacketTiming(type, arrivedAt));
+                if (end - pos > smallPacketBytes) priority = false;
+                pos = end;
+                // 加密应答之后的数据已加密
+                if (session.isEncrypted()) {
+                    fallback(out, data, pos, false);
+                    break;
+                }
+                continue;
+            }
+
+            if (end - pos > maxHoldBytes) {
+                streaming = new PacketBatch.PacketTiming(inspect(data, cursor[0], data.length), arrivedAt);
+                out.write(data, pos, data.length - pos);
+                streamRemaining = end - data.length;
+                priority = false;
+                break;
+            }
+
+            hold(data, pos, arrivedAt);
+            break;
+        }
+        return new PacketBatch(out.toByteArray(), priority && !timings.isEmpty(), timings);
+    }
+
+    /**
+     * 取出暂存的不完整数据，连接结束时原样写出
+     */
+    public byte[] drain() {
+        byte[] bytes = pending;
+        pending = EMPTY;
+        return bytes;
+    }
+
+    public boolean isOpaque() {
+        return opaque;
+    }
+
+    public void close() {
+        inflater.end();
+    }
+
+    private void hold(byte[] data, int pos, long arrivedAt) {
+        pending = Arrays.copyOfRange(data, pos, data.length);
+        pendingSince = arrivedAt;
+    }
+
+    private void fallback(ByteArrayOutputStream out, byte[] data, int pos, boolean invalid) {
+        out.write(data, pos, data.length - pos);
+        opaque = true;
+        if (invalid) session.setInvalid(true);
+    }
+
+    /**
+     * 解析包ID并跟踪协议状态
+     * @return 包类型名
+     */
+    private String inspect(byte[] data, int from, int end) {
+        MinecraftSession.State state = session.getState();
+        int[] cursor = {from};
+        Integer packetId;
+        if (session.getCompressionThreshold() >= 0) {
+            Integer dataLength = VarInt.read(data, end, cursor);
+            if (dataLength == null) return type(state, -1);
+            packetId = dataLength == 0 ? VarInt.read(data, end, cursor) : inflateId(data, cursor[0], end);
+        } else {
+            packetId = VarInt.read(data, end, cursor);
+        }
+        if (packetId == null || packetId < 0) return type(state, -1);
+
+        if (clientbound) {
+            if (state == MinecraftSession.State.LOGIN) {
+                if (packetId == ENCRYPTION) session.setEncryptionRequested(true);
+                if (packetId == SET_COMPRESSION && session.getCompressionThreshold() < 0) {
+                    Integer threshold = VarInt.read(data, end, cursor);
+                    if (threshold != null) session.setCompressionThreshold(threshold);
+                }
+                if (packetId == LOGIN_SUCCESS) session.setState(MinecraftSession.State.PLAY);
+            }
+        } else {
+            if (state == MinecraftSession.State.HANDSHAKE && packetId == HANDSHAKE) {
+                session.setState(end - from > MAX_HANDSHAKE_LENGTH ? MinecraftSession.State.LOGIN : nextState(data, cursor, end));
+            } else if (state == MinecraftSession.State.LOGIN && packetId == ENCRYPTION && session.isEncryptionRequested()) {
+                session.setEncrypted(true);
+            }
+        }
+        return type(state, packetId);
+    }
+
+    // 握手包：protocol(VarInt) address(String) port(u16) nextState(VarInt)，1为状态查询，2、3为登录
+    private MinecraftSession.State nextState(byte[] data, int[] cursor, int end) {
+        if (VarInt.read(data, end, cursor) == null) return MinecraftSession.State.LOGIN;
+        Integer addressLength = VarInt.read(data, end, cursor);
+        if (addressLength == null || addressLength < 0 || addressLength > MAX_ADDRESS_LENGTH * 4) return MinecraftSession.State.LOGIN;
+        // 地址与端口须在包内，先比较再前移游标，避免越界
+        if (addressLength > end - cursor[0] - 2) return MinecraftSession.State.LOGIN;
+        cursor[0] += addressLength + 2;
+        Integer next = cursor[0] < end ? VarInt.read(data, end, cursor) : null;
+        return next != null && next == 1 ? MinecraftSession.State.STATUS : MinecraftSession.State.LOGIN;
+    }
+
+    // 压缩包只解压开头几个字节取包ID
+    private Integer inflateId(byte[] data, int from, int end) {
+        byte[] head = new byte[5];
+        inflater.reset();
+        inflater.setInput(data, from, end - from);
+        try {
+            int length = inflater.inflate(head);
+            return VarInt.read(head, length, new int[]{0});
+        } catch (DataFormatException e) {
+            return null;
+        }
+    }
+
+    private String type(MinecraftSession.State state, int packetId) {
+        int key = state.ordinal() << 16 | (packetId < 0 || packetId > 0xFF ? 0xFFFF : packetId);
+        return types.computeIfAbsent(key, k -> (clientbound ? "clientbound/" : "serverbound/") + state + "/"
+                + (packetId < 0 || packetId > 0xFF ? "unknown" : String.format("0x%02X", packetId)));
+    }
+
+    private static byte[] concat(byte[] head, byte[] chunk, int offset) {
+        if (head.length == 0) return offset == 0 ? chunk : Arrays.copyOfRange(chunk, offset, chunk.length);
+        byte[] result = Arrays.copyOf(head, head.length + chunk.length - offset);
+        System.arraycopy(chunk, offset, result, head.length, chunk.length - offset);
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.minecraft;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * 单个包类型在中继的停留时延：首字节到达至写出完成
+ */
+@Builder
+@Data
+public class PacketLatencyStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String type;
+    private Long count;
+    private Long avgMicros;
+    private Long p50Micros;
+    private Long p99Micros;
+    private Long maxMicros;
+    private Map<String, Long> buckets;
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.minecraft;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * Minecraft协议VarInt：每字节低7位为数据，最高位表示后续还有字节，至多5字节
+ */
+public class VarInt {
+
+    /**
+     * 读取VarInt，数据不足返回null且cursor不变；格式错误返回null且cursor置为-1
+     */
+    public static Integer read(byte[] data, int limit, int[] cursor) {
+        int value = 0;
+        int pos = cursor[0];
+        for (int i = 0; i < 5; ++i) {
+            if (pos >= limit) return null;
+            int b = data[pos++] & 0xFF;
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                cursor[0] = pos;
+                return value;
+            }
+        }
+        cursor[0] = -1;
+        return null;
+    }
+}
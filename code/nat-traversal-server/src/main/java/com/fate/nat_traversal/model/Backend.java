@@ -1,11 +1,15 @@
 package com.fate.nat_traversal.model;
 
+import com.fate.nat_traversal.limit.TokenBucket;
 import com.fate.nat_traversal.util.ConcurrentWriteSocket;
 import lombok.Data;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author fate
@@ -19,6 +23,7 @@ public class Backend {
 
     private static final long ONLINE_TIMEOUT = 3000;
     private static final long COMMUNICATION_FREQUENT_TIME = 500;
+    private static final long COMMUNICATION_BURST = 64;
     /**
      * 会话id
      */
@@ -28,7 +33,7 @@ public class Backend {
      * 服务端点通信Socket
      * 单线程读，多线程写，因此必须使用写安全类型
      */
-    private ConcurrentWriteSocket communicationSocket;
+    private volatile ConcurrentWriteSocket communicationSocket;
 
     /**
      * 服务端点ip
@@ -46,15 +51,43 @@ public class Backend {
     private Integer port;
 
     /**
-     * 透传代理端口
+     * 透传代理端口（首个注册服务的端口）
      */
     private Integer proxyPort;
 
+    /**
+     * 已注册服务
+     * 代理端口-服务名，同一通信连接可注册多个服务，共享心跳与透传Socket池
+     */
+    private final Map<Integer, String> services = new ConcurrentHashMap<>();
+
+    /**
+     * 与其他被代理端点共享的服务组代理端口
+     */
+    private final Set<Integer> groupPorts = ConcurrentHashMap.newKeySet();
+
     /**
      * 在线状态
      */
     private Long lastPingTime = System.currentTimeMillis();
 
+    /**
+     * 通信消息限速：平均每COMMUNICATION_FREQUENT_TIME毫秒一条，允许短时突发（如启动时批量注册服务）
+     */
+    private final TokenBucket messageBucket = new TokenBucket(1000 / COMMUNICATION_FREQUENT_TIME, COMMUNICATION_BURST);
+
+    private volatile boolean tooFrequent = false;
+
+    /**
+     * 会话恢复凭证，未开启会话恢复时为null
+     */
+    private volatile String resumeToken;
+
+    /**
+     * 通信连接断开的时间，在线时为0
+     */
+    private volatile long detachedTime = 0;
+
 
     public Backend(Socket socket) {
         this.communicationSocket = new ConcurrentWriteSocket(socket);
@@ -64,6 +97,15 @@ public class Backend {
         this.lastPingTime = System.currentTimeMillis();
     }
 
+    /**
+     * 由持久化注册表恢复的会话，尚无通信连接，等待被代理端点凭恢复凭证接管
+     */
+    public Backend(String session, String resumeToken) {
+        this.session = session;
+        this.resumeToken = resumeToken;
+        this.detachedTime = System.currentTimeMillis();
+    }
+
     public String getSession() {
         if (session == null) {
             synchronized (this) {
@@ -81,9 +123,8 @@ public class Backend {
         return System.currentTimeMillis() - lastPingTime <= ONLINE_TIMEOUT;
     }
 
-    // todo
     public boolean communicationTooFrequent() {
-        return false;
+        return tooFrequent;
     }
 
     public void refreshOnlineTime() {
@@ -91,10 +132,15 @@ public class Backend {
     }
 
     public boolean proxiedTo(Integer port) {
-        return this.proxyPort != null && this.proxyPort == port;
+        return port != null && services.containsKey(port);
+    }
+
+    public String getServiceName(Integer port) {
+        return port == null ? null : services.get(port);
     }
 
     public boolean send(String message) {
+        if (communicationSocket == null) return false;
         try {
             communicationSocket.writeString(message);
         } catch (IOException e) {
@@ -103,15 +149,39 @@ public class Backend {
         return true;
     }
 
+    /**
+     * 以新的通信连接接管会话，会话id与已注册服务不变
+     */
+    public void resume(ConcurrentWriteSocket socket) {
+        this.communicationSocket = socket;
+        this.host = ((InetSocketAddress)socket.getSOCKET().getRemoteSocketAddress()).getHostString();
+        this.port = ((InetSocketAddress)socket.getSOCKET().getRemoteSocketAddress()).getPort();
+        this.detachedTime = 0;
+        refreshOnlineTime();
+    }
+
+    public boolean isDetached() {
+        return detachedTime != 0;
+    }
+
     public String read() throws IOException {
-        return communicationSocket.readString();
+        return read(communicationSocket);
+    }
+
+    /**
+     * 从指定的通信连接读取，会话恢复后旧连接的读线程不会读到新连接
+     */
+    public String read(ConcurrentWriteSocket socket) throws IOException {
+        String message = socket.readString();
+        if (message != null && !messageBucket.tryAcquire(1)) tooFrequent = true;
+        return message;
     }
 
     public boolean isClosed() {
-        return communicationSocket.isClosed();
+        return communicationSocket == null || communicationSocket.isClosed();
     }
 
     public void close() {
-        if (!communicationSocket.isClosed()) communicationSocket.close();
+        if (!isClosed()) communicationSocket.close();
     }
 }
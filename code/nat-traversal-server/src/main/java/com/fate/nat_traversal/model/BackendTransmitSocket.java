@@ -1,5 +1,6 @@
 package com.fate.nat_traversal.model;
 
+import com.fate.nat_traversal.stream.TunnelStream;
 import lombok.*;
 
 import java.io.IOException;
@@ -25,6 +26,11 @@ public class BackendTransmitSocket extends CommonSocket{
     // 被代理端的原始端口，非NAT分配端口
     private Integer originalPort;
 
+    @Getter
+    @Setter
+    // 分帧流（可恢复透传流或条带流），设置后读写经由流，原Socket断开不视为关闭
+    private volatile TunnelStream stream;
+
     private static final Long KEEP_ALIVE_TIME = 1000 * 60 * 5L;
 
     private Long lastActiveTime = System.currentTimeMillis();
@@ -44,12 +50,44 @@ public class BackendTransmitSocket extends CommonSocket{
     @Override
     public byte[] read() throws IOException {
         refreshActiveTime();
-        return super.read();
+        return stream == null ? super.read() : stream.read();
+    }
+
+    @Override
+    public int read(byte[] buffer) throws IOException {
+        refreshActiveTime();
+        return stream == null ? super.read(buffer) : stream.read(buffer);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return stream == null ? super.available() : stream.available();
     }
 
     @Override
     public void write(byte[] bytes) throws IOException {
         refreshActiveTime();
-        super.write(bytes);
+        if (stream == null) {
+            super.write(bytes);
+        } else {
+            stream.write(bytes);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return stream == null ? super.isClosed() : stream.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) stream.close();
+        super.close();
+    }
+
+    @Override
+    public boolean closeUnchecked() {
+        if (stream != null) stream.close();
+        return super.closeUnchecked();
     }
 }
@@ -1,11 +1,18 @@
 package com.fate.nat_traversal.model;
 
+import com.fate.nat_traversal.limit.Throttle;
+import com.fate.nat_traversal.minecraft.MinecraftSession;
+import com.fate.nat_traversal.util.ResponseFilter;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author fate
@@ -33,16 +40,115 @@ public class ClientSocket extends CommonSocket{
     @Setter
     private String BackendSession;
 
+    /**
+     * 被请求的服务名
+     */
+    @Getter
+    @Setter
+    private String serviceName;
+
+    /**
+     * 连接结束回调，仅触发一次
+     */
+    @Setter
+    private Runnable finishCallback;
+
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    /**
+     * 路由时已预读的首包，透传时优先发送
+     */
+    @Getter
+    @Setter
+    private volatile byte[] peeked;
+
+    /**
+     * 响应过滤器，如HTTP缓存记录
+     */
+    @Getter
+    @Setter
+    private volatile ResponseFilter responseFilter;
+
+    /**
+     * 带宽整形，未限速时为null
+     */
+    @Getter
+    @Setter
+    private volatile Throttle throttle;
+
+    /**
+     * Minecraft分帧透传的协议状态，未启用时为null
+     */
+    @Getter
+    @Setter
+    private volatile MinecraftSession minecraftSession;
+
+    /**
+     * 经节点间链路转发而来的连接（来自本机回环地址）的原始访客ip，限速按该ip计
+     */
+    @Setter
+    private volatile String originIp;
+
     public ClientSocket(Socket socket) {
         super(socket);
     }
 
-    public void init(int requestPort, String BackendSession) {
+    public void init(int requestPort, String BackendSession, String serviceName) {
         this.requestPort = requestPort;
         this.BackendSession = BackendSession;
+        this.serviceName = serviceName;
         session = generateSession();
     }
 
+    @Override
+    public byte[] read() throws IOException {
+        byte[] bytes = peeked;
+        if (bytes != null) {
+            peeked = null;
+            return bytes;
+        }
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] buffer) throws IOException {
+        byte[] bytes = peeked;
+        if (bytes != null) {
+            int length = Math.min(bytes.length, buffer.length);
+            System.arraycopy(bytes, 0, buffer, 0, length);
+            peeked = length < bytes.length ? Arrays.copyOfRange(bytes, length, bytes.length) : null;
+            return length;
+        }
+        return super.read(buffer);
+    }
+
+    @Override
+    public int available() throws IOException {
+        byte[] bytes = peeked;
+        return bytes != null ? bytes.length : super.available();
+    }
+
+    public void finish() {
+        if (finishCallback != null && finished.compareAndSet(false, true)) {
+            finishCallback.run();
+        }
+    }
+
+    /**
+     * 以RST立即关闭连接，不等待未发送数据
+     */
+    public void reset() {
+        try {
+            getSocket().setSoLinger(true, 0);
+        } catch (IOException e) {}
+        closeUnchecked();
+    }
+
+    public String getRemoteIp() {
+        if (originIp != null) return originIp;
+        return ((InetSocketAddress) getSocket().getRemoteSocketAddress()).getAddress().getHostAddress();
+    }
+
     public String generateSession() {
         return "Client-"+getSocket().getRemoteSocketAddress().toString() + "-" + System.currentTimeMillis();
     }
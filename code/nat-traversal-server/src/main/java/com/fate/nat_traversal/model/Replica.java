@@ -0,0 +1,98 @@
+package com.fate.nat_traversal.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 服务组副本，即注册到同一服务名下的某个被代理端点的某个服务
+ */
+public class Replica {
+
+    private static final double EWMA_ALPHA = 0.3;
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+    private static final long UNHEALTHY_COOLDOWN = 10_000;
+
+    @Getter
+    private final String backendSession;
+
+    @Getter
+    private final String serviceName;
+
+    @Getter
+    private final int weight;
+
+    /**
+     * 排空中，不再分配新连接，已有连接不受影响
+     */
+    @Getter
+    @Setter
+    private volatile boolean draining = false;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    private final AtomicLong totalConnections = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long unhealthyUntil = 0;
+
+    /**
+     * 建连延迟EWMA（毫秒），0表示尚无样本
+     */
+    @Getter
+    private volatile double ewmaLatency = 0;
+
+    public Replica(String backendSession, String serviceName, int weight) {
+        this.backendSession = backendSession;
+        this.serviceName = serviceName;
+        this.weight = Math.max(weight, 1);
+    }
+
+    public boolean isAvailable() {
+        return !draining && System.currentTimeMillis() >= unhealthyUntil;
+    }
+
+    public void acquire() {
+        activeConnections.incrementAndGet();
+        totalConnections.incrementAndGet();
+    }
+
+    public void release() {
+        activeConnections.decrementAndGet();
+    }
+
+    public void recordSuccess(long latencyMillis) {
+        consecutiveFailures.set(0);
+        double ewma = ewmaLatency;
+        ewmaLatency = ewma == 0 ? latencyMillis : ewma * (1 - EWMA_ALPHA) + latencyMillis * EWMA_ALPHA;
+    }
+
+    // 连续失败后短暂摘除
+    public void recordFailure() {
+        failures.incrementAndGet();
+        if (consecutiveFailures.incrementAndGet() >= MAX_CONSECUTIVE_FAILURES) {
+            unhealthyUntil = System.currentTimeMillis() + UNHEALTHY_COOLDOWN;
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public long getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,41 @@
+package com.fate.nat_traversal.model;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 服务组，同名服务的多个副本共享一个代理端口
+ */
+public class ServiceGroup {
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final Integer proxyPort;
+
+    /**
+     * 读多写少，选择副本时无锁遍历
+     */
+    @Getter
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+
+    public ServiceGroup(String name, Integer proxyPort) {
+        this.name = name;
+        this.proxyPort = proxyPort;
+    }
+
+    public Replica getReplica(String backendSession, String serviceName) {
+        for (Replica replica : replicas) {
+            if (replica.getBackendSession().equals(backendSession) && replica.getServiceName().equals(serviceName)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.fate.nat_traversal.punch;
+
+import com.fate.nat_traversal.enums.NatTypeEnum;
+import com.fate.nat_traversal.model.CommonSocket;
+import lombok.Getter;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 等待被代理端点应答的直连请求，持有访问端的协调连接
+ */
+@Getter
+public class PendingPunch {
+
+    private final String id;
+
+    private final CommonSocket visitor;
+
+    /**
+     * 服务器观察到的访问端映射地址
+     */
+    private final String publicAddress;
+
+    /**
+     * 访问端上报的本地地址，同一局域网内直连使用
+     */
+    private final String localAddress;
+
+    private final NatTypeEnum natType;
+
+    private final long deadline;
+
+    public PendingPunch(String id, CommonSocket visitor, String publicAddress, String localAddress, NatTypeEnum natType, long deadline) {
+        this.id = id;
+        this.visitor = visitor;
+        this.publicAddress = publicAddress;
+        this.localAddress = localAddress;
+        this.natType = natType;
+        this.deadline = deadline;
+    }
+}
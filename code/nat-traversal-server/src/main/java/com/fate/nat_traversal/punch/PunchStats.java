@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.punch;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞协调统计；打洞本身在两端之间进行，成功与否见被代理端点统计
+ */
+@Builder
+@Data
+public class PunchStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Boolean enabled;
+    private Integer probePort;
+    private Long probes;
+    private Long requests;
+    private Long exchanged;
+    private Long refused;
+    private Long timeouts;
+    private Integer pending;
+}
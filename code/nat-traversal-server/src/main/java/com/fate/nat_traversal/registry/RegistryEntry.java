@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.registry;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2026/01/09 20:30
+ *
+ * 注册表中一个被代理端点的会话：恢复凭证及按注册顺序排列的服务，首个服务的端口为会话的代理端口
+ */
+@Data
+public class RegistryEntry {
+
+    private final String session;
+
+    private volatile String resumeToken;
+
+    /**
+     * 代理端口-服务
+     */
+    private final Map<Integer, Service> services = new LinkedHashMap<>();
+
+    /**
+     * @param name 服务名
+     * @param options 注册选项（“;;key:value”格式，不含恢复凭证）
+     */
+    public record Service(String name, String options) {}
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.registry;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/09 20:30
+ *
+ * 持久化注册表统计，restored为启动时恢复的会话数，replayMillis为启动时重放日志的耗时
+ */
+@Builder
+@Data
+public class RegistryStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Boolean enabled;
+    private Integer sessions;
+    private Integer services;
+    private Integer records;
+    private Integer journalBytes;
+    private Integer capacity;
+    private Long compactions;
+    private Integer restored;
+    private Double replayMillis;
+}
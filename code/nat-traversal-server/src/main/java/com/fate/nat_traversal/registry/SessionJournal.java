@@ -0,0 +1,154 @@
+package com.fate.nat_traversal.registry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * @author fate
+ * @date 2026/01/09 20:30
+ *
+ * 内存映射的追加写日志
+ * 记录格式：长度(int) + CRC32(int) + 内容，映射区未写部分为0，长度为0即日志末尾
+ * 追加时先写CRC与内容、最后写长度，进程在写入中途退出只会留下长度为0的尾部；CRC不符的记录（系统崩溃时的残页）及其后内容丢弃
+ * 写入映射区即进入页缓存，进程重启不丢失；系统掉电需force
+ */
+public class SessionJournal implements Closeable {
+
+    private static final int HEADER = 8;
+
+    // 单个映射区的上限
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE;
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private int records = 0;
+
+    public SessionJournal(Path path, int capacity) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("Journal capacity must be positive: " + capacity);
+        this.path = path;
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        map(path, Math.max(capacity, (int) Math.min(Files.exists(path) ? Files.size(path) : 0, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * 从头重放有效记录，并将写位置移到最后一条有效记录之后
+     * @return 有效记录数
+     */
+    public synchronized int replay(Consumer<ByteBuffer> consumer) {
+        CRC32 crc = new CRC32();
+        int position = 0;
+        records = 0;
+        while (position + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - HEADER) break;
+
+            ByteBuffer record = buffer.slice(position + HEADER, length);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) break;
+
+            consumer.accept(record.asReadOnlyBuffer());
+            position += HEADER + length;
+            records++;
+        }
+        // 丢弃残缺的尾部，之后的追加不会与其拼接
+        for (int i = position; i < Math.min(position + HEADER, buffer.capacity()); ++i) buffer.put(i, (byte) 0);
+        buffer.position(position);
+        return records;
+    }
+
+    /**
+     * 追加一条记录
+     * @return 空间不足返回false，需先压缩
+     */
+    public synchronized boolean append(byte[] record) {
+        int position = buffer.position();
+        if (buffer.capacity() - position < HEADER + record.length + HEADER) return false;
+
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        buffer.put(position + HEADER, record);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, record.length);
+        buffer.position(position + HEADER + record.length);
+        records++;
+        return true;
+    }
+
+    /**
+     * 以给定记录重写日志：写入临时文件后原子替换，容量不足时扩大
+     * 替换成功后改用临时文件的映射，替换失败（如不支持原子移动、文件被占用）时删除临时文件，原日志保持可用
+     */
+    public synchronized void rewrite(List<byte[]> live, int capacity) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("Journal capacity must be positive: " + capacity);
+        long required = HEADER;
+        for (byte[] record : live) required += HEADER + record.length;
+        if (required > MAX_CAPACITY) throw new IOException("Live records (" + required + " bytes) exceed journal limit");
+        // 保留一半空间给后续追加
+        long size = capacity;
+        while (size < required * 2 && size < MAX_CAPACITY) size *= 2;
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        SessionJournal compacted = new SessionJournal(temp, (int) Math.min(size, MAX_CAPACITY));
+        try {
+            for (byte[] record : live) {
+                if (!compacted.append(record)) throw new IOException("Compacted journal overflow");
+            }
+            compacted.force();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            compacted.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        // 已打开的通道随文件改名，仍指向新日志
+        FileChannel previous = channel;
+        channel = compacted.channel;
+        buffer = compacted.buffer;
+        records = compacted.records;
+        previous.close();
+    }
+
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    public synchronized int size() {
+        return buffer.position();
+    }
+
+    public synchronized int capacity() {
+        return buffer.capacity();
+    }
+
+    public synchronized int records() {
+        return records;
+    }
+
+    private void map(Path path, int capacity) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    // 映射区在缓冲被回收后释放，关闭通道不影响已映射的内容
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
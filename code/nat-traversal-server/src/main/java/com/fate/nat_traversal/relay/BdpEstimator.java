@@ -0,0 +1,102 @@
+package com.fate.nat_traversal.relay;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 单条透传链路的带宽时延积估算：
+ *  1. RTT取心跳往返时间的EWMA
+ *  2. 吞吐取时间窗口内单次传输的最大速率，窗口过期后以新采样替换
+ *  3. 按传输开始时是否已应用调整后的缓冲，分别累计调整前后的吞吐
+ */
+public class BdpEstimator {
+
+    private static final double RTT_ALPHA = 0.125;
+
+    private final long rateWindowNanos;
+
+    private double srttNanos = 0;
+
+    private long rttSamples = 0;
+
+    // 字节/秒
+    private double maxRate = 0;
+
+    private long maxRateAt = 0;
+
+    private long baselineBytes = 0;
+    private long baselineNanos = 0;
+    private long baselineTransfers = 0;
+
+    private long tunedBytes = 0;
+    private long tunedNanos = 0;
+    private long tunedTransfers = 0;
+
+    public BdpEstimator(long rateWindowMillis) {
+        this.rateWindowNanos = TimeUnit.MILLISECONDS.toNanos(rateWindowMillis);
+    }
+
+    public synchronized void onRtt(long nanos) {
+        if (nanos <= 0) return;
+        srttNanos = rttSamples == 0 ? nanos : srttNanos * (1 - RTT_ALPHA) + nanos * RTT_ALPHA;
+        rttSamples++;
+    }
+
+    /**
+     * @param tuned 传输开始时是否已应用调整后的缓冲
+     */
+    public synchronized void onTransfer(long bytes, long nanos, boolean tuned) {
+        if (bytes <= 0 || nanos <= 0) return;
+
+        long now = System.nanoTime();
+        double rate = bytes * 1e9 / nanos;
+        if (rate >= maxRate || now - maxRateAt > rateWindowNanos) {
+            maxRate = rate;
+            maxRateAt = now;
+        }
+
+        if (tuned) {
+            tunedBytes += bytes;
+            tunedNanos += nanos;
+            tunedTransfers++;
+        } else {
+            baselineBytes += bytes;
+            baselineNanos += nanos;
+            baselineTransfers++;
+        }
+    }
+
+    /**
+     * @return 带宽时延积（字节），RTT或吞吐尚无采样时返回0
+     */
+    public synchronized long bdp() {
+        if (rttSamples == 0 || maxRate == 0) return 0;
+        return (long) (maxRate * srttNanos / 1e9);
+    }
+
+    public synchronized double getRttMillis() {
+        return srttNanos / 1e6;
+    }
+
+    public synchronized long getMaxThroughput() {
+        return (long) maxRate;
+    }
+
+    public synchronized long getBaselineThroughput() {
+        return baselineNanos == 0 ? 0 : (long) (baselineBytes * 1e9 / baselineNanos);
+    }
+
+    public synchronized long getTunedThroughput() {
+        return tunedNanos == 0 ? 0 : (long) (tunedBytes * 1e9 / tunedNanos);
+    }
+
+    public synchronized long getBaselineTransfers() {
+        return baselineTransfers;
+    }
+
+    public synchronized long getTunedTransfers() {
+        return tunedTransfers;
+    }
+}
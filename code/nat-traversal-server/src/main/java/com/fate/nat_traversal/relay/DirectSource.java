@@ -0,0 +1,87 @@
+package com.fate.nat_traversal.relay;
+
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.model.CommonSocket;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author fate
+ * @date 2025/12/26 20:30
+ *
+ * 同步读取：透传线程自行读取，写出完成前不再读取下一块
+ */
+public class DirectSource implements RelaySource {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // 单次不阻塞读取的最大字节数
+    private static final int MAX_POLL_BYTES = 64 * 1024;
+
+    private final CommonSocket socket;
+
+    private final FlowWindow window;
+
+    /**
+     * 按链路调整后的读取缓冲，为null时使用Socket默认读取大小
+     */
+    private final byte[] readBuffer;
+
+    public DirectSource(CommonSocket socket, FlowWindow window) {
+        this(socket, window, 0);
+    }
+
+    public DirectSource(CommonSocket socket, FlowWindow window, int readSize) {
+        this.socket = socket;
+        this.window = window;
+        this.readBuffer = readSize > 0 ? new byte[readSize] : null;
+    }
+
+    @Override
+    public byte[] read() throws IOException {
+        byte[] buffer = readBuffer == null ? socket.read() : readInto(readBuffer);
+        // 内存预算耗尽时在此暂停，不再继续读取
+        if (buffer == null || !window.acquire(buffer.length)) return null;
+        return buffer;
+    }
+
+    @Override
+    public byte[] poll() throws IOException {
+        int available = socket.available();
+        if (available <= 0) return EMPTY;
+
+        // 先按可读字节数申请额度，读取后归还多余部分
+        int size = Math.min(available, MAX_POLL_BYTES);
+        if (!window.tryAcquire(size)) return EMPTY;
+        byte[] buffer = new byte[size];
+        int length;
+        try {
+            length = socket.read(buffer);
+        } catch (IOException e) {
+            window.release(size);
+            throw e;
+        }
+        if (length == -1) {
+            window.release(size);
+            return null;
+        }
+        if (length < size) window.release(size - length);
+        return length < size ? Arrays.copyOf(buffer, length) : buffer;
+    }
+
+    private byte[] readInto(byte[] readBuffer) throws IOException {
+        int length = socket.read(readBuffer);
+        return length == -1 ? null : Arrays.copyOf(readBuffer, length);
+    }
+
+    @Override
+    public void release(int bytes) {
+        window.release(bytes);
+    }
+
+    @Override
+    public void close() {
+        window.close();
+    }
+}
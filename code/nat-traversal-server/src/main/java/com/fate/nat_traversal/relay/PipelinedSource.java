@@ -0,0 +1,116 @@
+package com.fate.nat_traversal.relay;
+
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.model.CommonSocket;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author fate
+ * @date 2025/12/26 20:30
+ *
+ * 流水线读取：独立的读线程预读至环形缓冲，透传线程写出上一块时继续读取下一块
+ *  1. 预读量受环形缓冲槽位数与在途窗口高水位共同约束
+ *  2. 复用的透传Socket读到结束标识即停止预读，避免读走下一次连接的数据
+ *  3. 读满的槽位缓冲直接交给透传线程写出，release时归还环形缓冲复用；未读满的按实际长度复制
+ */
+public class PipelinedSource implements RelaySource, Runnable {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final CommonSocket socket;
+
+    private final FlowWindow window;
+
+    private final SpscRing ring;
+
+    /**
+     * 结束标识，数据块以此结尾时停止预读；为null则读至对端关闭
+     */
+    private final byte[] endMarker;
+
+    private volatile IOException error;
+
+    // 已交给透传线程、尚未归还的槽位缓冲
+    private byte[] handed;
+
+    public PipelinedSource(CommonSocket socket, FlowWindow window, SpscRing ring, byte[] endMarker) {
+        this.socket = socket;
+        this.window = window;
+        this.ring = ring;
+        this.endMarker = endMarker;
+    }
+
+    /**
+     * 读线程
+     */
+    @Override
+    public void run() {
+        while (true) {
+            byte[] slot = ring.claim();
+            if (slot == null) return;
+
+            int length;
+            try {
+                length = socket.read(slot);
+            } catch (IOException e) {
+                error = e;
+                ring.publish(-1);
+                return;
+            }
+
+            if (length == -1 || !window.acquire(length)) {
+                ring.publish(-1);
+                return;
+            }
+            ring.publish(length);
+
+            if (endMarker != null && endsWith(slot, length, endMarker)) return;
+        }
+    }
+
+    @Override
+    public byte[] read() throws IOException {
+        if (!ring.await()) return null;
+
+        int length = ring.length();
+        if (length == -1) {
+            if (error != null) throw error;
+            return null;
+        }
+        byte[] chunk = length == ring.buffer().length ? ring.take() : null;
+        if (chunk == null) {
+            chunk = Arrays.copyOf(ring.buffer(), length);
+        } else {
+            handed = chunk;
+        }
+        ring.consume();
+        return chunk;
+    }
+
+    @Override
+    public byte[] poll() throws IOException {
+        return ring.isReady() ? read() : EMPTY;
+    }
+
+    @Override
+    public void release(int bytes) {
+        window.release(bytes);
+        if (handed != null) {
+            ring.recycle(handed);
+            handed = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        ring.close();
+        window.close();
+    }
+
+    private static boolean endsWith(byte[] bytes, int length, byte[] suffix) {
+        if (length < suffix.length) return false;
+        return Arrays.equals(bytes, length - suffix.length, length, suffix, 0, suffix.length);
+    }
+}
@@ -0,0 +1,145 @@
+package com.fate.nat_traversal.relay;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author fate
+ * @date 2025/12/26 20:30
+ *
+ * 单生产者单消费者的有界环形缓冲，无锁：
+ *  1. 槽位预分配固定大小的缓冲并循环复用，生产者直接读入槽位，不再逐块分配
+ *  2. head仅由消费者推进，tail仅由生产者推进；一方等待时park，另一方推进后unpark
+ *  3. 消费者可取走槽位缓冲直接写出，由备用缓冲补位，写出后归还为新的备用缓冲
+ */
+public class SpscRing {
+
+    // 等待时定期醒来检查关闭状态
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final byte[][] buffers;
+
+    private final int[] lengths;
+
+    private final int mask;
+
+    // 备用缓冲，仅由消费者访问；为null表示已换入槽位、取走的缓冲尚未归还
+    private byte[] spare;
+
+    // 消费位置
+    private final AtomicLong head = new AtomicLong();
+
+    // 生产位置
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile Thread waitingProducer;
+
+    private volatile Thread waitingConsumer;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param slots 槽位数，向上取整为2的幂
+     */
+    public SpscRing(int slots, int slotSize) {
+        int capacity = Integer.highestOneBit(Math.max(slots, 2) - 1) << 1;
+        buffers = new byte[capacity][slotSize];
+        lengths = new int[capacity];
+        mask = capacity - 1;
+        spare = new byte[slotSize];
+    }
+
+    // ---------- 生产者 ----------
+
+    /**
+     * 等待空闲槽位
+     * @return 槽位缓冲，环已关闭返回null
+     */
+    public byte[] claim() {
+        while (!closed && tail.get() - head.get() > mask) {
+            waitingProducer = Thread.currentThread();
+            if (tail.get() - head.get() > mask) LockSupport.parkNanos(this, PARK_NANOS);
+            waitingProducer = null;
+        }
+        return closed ? null : buffers[(int) (tail.get() & mask)];
+    }
+
+    /**
+     * 发布已写入槽位的数据，length为-1表示结束
+     */
+    public void publish(int length) {
+        long position = tail.get();
+        lengths[(int) (position & mask)] = length;
+        tail.set(position + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) LockSupport.unpark(consumer);
+    }
+
+    // ---------- 消费者 ----------
+
+    /**
+     * 等待数据
+     * @return 环已关闭返回false
+     */
+    public boolean await() {
+        while (!closed && tail.get() == head.get()) {
+            waitingConsumer = Thread.currentThread();
+            if (tail.get() == head.get()) LockSupport.parkNanos(this, PARK_NANOS);
+            waitingConsumer = null;
+        }
+        return tail.get() != head.get();
+    }
+
+    /**
+     * 是否有已发布的数据（含结束标记），不等待
+     */
+    public boolean isReady() {
+        return tail.get() != head.get();
+    }
+
+    public byte[] buffer() {
+        return buffers[(int) (head.get() & mask)];
+    }
+
+    public int length() {
+        return lengths[(int) (head.get() & mask)];
+    }
+
+    /**
+     * 取走当前槽位的缓冲，以备用缓冲补位，随后仍需consume
+     * @return 上次取走的缓冲尚未归还时返回null
+     */
+    public byte[] take() {
+        if (spare == null) return null;
+        int index = (int) (head.get() & mask);
+        byte[] buffer = buffers[index];
+        buffers[index] = spare;
+        spare = null;
+        return buffer;
+    }
+
+    /**
+     * 归还take取走的缓冲
+     */
+    public void recycle(byte[] buffer) {
+        spare = buffer;
+    }
+
+    /**
+     * 归还当前槽位
+     */
+    public void consume() {
+        head.set(head.get() + 1);
+        Thread producer = waitingProducer;
+        if (producer != null) LockSupport.unpark(producer);
+    }
+
+    public void close() {
+        closed = true;
+        Thread producer = waitingProducer;
+        if (producer != null) LockSupport.unpark(producer);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) LockSupport.unpark(consumer);
+    }
+}
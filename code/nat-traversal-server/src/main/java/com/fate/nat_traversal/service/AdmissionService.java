@@ -0,0 +1,34 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import com.fate.nat_traversal.limit.AdmissionStats;
+import com.fate.nat_traversal.model.ClientSocket;
+
+/**
+ * @author fate
+ * @date 2025/12/24 20:30
+ *
+ * 过载准入控制服务：记录丢弃原因，并按配置的方式拒绝客户端连接
+ */
+public interface AdmissionService {
+
+    /**
+     * 记录一次过载丢弃
+     */
+    void recordShed(ShedReasonEnum reason);
+
+    /**
+     * 按配置的拒绝方式关闭客户端连接
+     */
+    void reject(ClientSocket cSocket);
+
+    /**
+     * 记录丢弃并拒绝客户端连接
+     */
+    default void shed(ClientSocket cSocket, ShedReasonEnum reason) {
+        recordShed(reason);
+        reject(cSocket);
+    }
+
+    AdmissionStats getStats();
+}
@@ -2,9 +2,13 @@ package com.fate.nat_traversal.service;
 
 
 import com.fate.nat_traversal.model.Backend;
+import com.fate.nat_traversal.util.Consumer2;
+import com.fate.nat_traversal.util.Function3;
 import org.springframework.beans.factory.DisposableBean;
 
-import java.util.function.Consumer;
+import java.net.Socket;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author fate
@@ -22,6 +26,16 @@ public interface BackendCommunicationService extends DisposableBean {
 
     String PS_CLOSED = PROTOCOL_PREFIX + "PS Closed";
 
+    // 同一通信连接上追加注册被代理服务，消息体：serviceName
+    String REGISTER_SERVICE = PROTOCOL_PREFIX + "Register Service:";
+    String REGISTER_SERVICE_SUCCESS = PROTOCOL_PREFIX + "Register Service Success:";
+    String REGISTER_SERVICE_ERROR = PROTOCOL_PREFIX + "Register Service Error:";
+
+    String DEFAULT_SERVICE = "default";
+
+    // 服务组副本排空，消息体：serviceName[;;drain:false]
+    String DRAIN_SERVICE = PROTOCOL_PREFIX + "Drain Service:";
+
     String REQUIRE_SOCKET = PROTOCOL_PREFIX + "Require Socket:";
     String REQUIRE_SOCKET_ERROR = PROTOCOL_PREFIX + "Require Socket Error:";
 
@@ -31,6 +45,48 @@ public interface BackendCommunicationService extends DisposableBean {
     String REGISTER_TRANSMIT_SOCKET_SUCCESS = PROTOCOL_PREFIX + "Register Transmit Socket Success";
     String REGISTER_TRANSMIT_SOCKET_ERROR = PROTOCOL_PREFIX + "Register Transmit Socket ERROR";
 
+    // UDP隧道：session;;port:proxyPort，成功回复后开始双向传输数据报帧
+    String REGISTER_UDP_TUNNEL = PROTOCOL_PREFIX + "Register UDP Tunnel Session:";
+    String REGISTER_UDP_TUNNEL_SUCCESS = PROTOCOL_PREFIX + "Register UDP Tunnel Success";
+    String REGISTER_UDP_TUNNEL_ERROR = PROTOCOL_PREFIX + "Register UDP Tunnel ERROR";
+
+    // 中继探测：回复负载 load;;proxies:n;;capacity:n，连接保持为备用通信连接，可继续探测或发送注册消息
+    String RELAY_PROBE = PROTOCOL_PREFIX + "Relay Probe";
+    String RELAY_PROBE_RESULT = PROTOCOL_PREFIX + "Relay Probe Result:";
+
+    // NAT类型探测，回复探测连接的映射地址：ip:port[;;probe:probePort]
+    String PUNCH_PROBE = PROTOCOL_PREFIX + "Punch Probe";
+    String PUNCH_PROBE_RESULT = PROTOCOL_PREFIX + "Punch Probe Result:";
+
+    // 访问端请求直连：proxyPort;;local:ip:port;;nat:type
+    String PUNCH_REQUEST = PROTOCOL_PREFIX + "Punch Request:";
+    // 通过通信连接通知被代理端点：punchId;;port:proxyPort
+    String PUNCH = PROTOCOL_PREFIX + "Punch:";
+    // 被代理端点应答：punchId;;local:ip:port;;nat:type[;;refuse:true]
+    String PUNCH_ANSWER = PROTOCOL_PREFIX + "Punch Answer:";
+    // 回复双方对端候选地址：punchId;;peer:ip:port;;local:ip:port，回复后服务器关闭连接
+    String PUNCH_PEER = PROTOCOL_PREFIX + "Punch Peer:";
+    String PUNCH_REFUSED = PROTOCOL_PREFIX + "Punch Refused:";
+
+    // 可恢复透传流重新附着：streamId;;ack:已收到字节数，成功回复本端已收到字节数并换行，随后双方重放
+    String RESUME_STREAM = PROTOCOL_PREFIX + "Resume Stream:";
+    String RESUME_STREAM_SUCCESS = PROTOCOL_PREFIX + "Resume Stream Success:";
+    String RESUME_STREAM_ERROR = PROTOCOL_PREFIX + "Resume Stream Error";
+
+    // 集群节点间通信端口上的gossip：双方各发送“Cluster Gossip:nodeId”，随后逐行发送成员及其路由，以“Cluster End”结束
+    // 成员：nodeId;;host:host;;port:注册端口;;cluster-port:port;;heartbeat:n;;routes-version:n;;load:x[;;vhost-ports:80,443][;;rtt:nodeId=毫秒,...][;;left:true]
+    // 路由：key;;port:代理端口;;hosts:host1,host2，属于之前最近的成员
+    String CLUSTER_GOSSIP = PROTOCOL_PREFIX + "Cluster Gossip:";
+    String CLUSTER_MEMBER = PROTOCOL_PREFIX + "Cluster Member:";
+    String CLUSTER_ROUTE = PROTOCOL_PREFIX + "Cluster Route:";
+    String CLUSTER_END = PROTOCOL_PREFIX + "Cluster End";
+
+    // 节点间常驻链路：发起方发送“Cluster Link:nodeId”，接收方回复“Cluster Link Success”并换行，随后双方改用二进制帧
+    // 帧：type(1字节) streamId(4字节) length(4字节) payload，OPEN的payload为“目标nodeId:目标端口;;client:访客ip”
+    // 每个节点使用自己发起的链路打开流，对方发起的链路只应答
+    String CLUSTER_LINK = PROTOCOL_PREFIX + "Cluster Link:";
+    String CLUSTER_LINK_SUCCESS = PROTOCOL_PREFIX + "Cluster Link Success";
+
     String PING = PROTOCOL_PREFIX + "Ping:";
     String PONG = PROTOCOL_PREFIX + "Pong";
 
@@ -45,6 +101,18 @@ public interface BackendCommunicationService extends DisposableBean {
 
     boolean register(Backend backend, int proxyPort);
 
+    /**
+     * 凭恢复凭证以新的通信连接接管保留的会话
+     * @param reply 接管成功后的回复，先于该连接上的其他消息写出
+     * @return 被接管的被代理端点，凭证无效或会话已释放时返回null
+     */
+    Backend resume(String token, Socket socket, Function<Backend, String> reply);
+
+    /**
+     * 登记由持久化注册表恢复的会话，代理端口已由Server重新绑定，宽限期内未被恢复则释放
+     */
+    boolean restore(Backend backend);
+
     void requireSocket(String session, int num);
 
     boolean send(String session, String message);
@@ -53,9 +121,15 @@ public interface BackendCommunicationService extends DisposableBean {
 
     /**
      * 关闭回调
-     * @param consumer 关闭回调，意在Server调用close后释放Server资源
+     * @param consumer (session, 代理端口) 关闭回调，意在Server调用close后释放Server资源
+     */
+    void closeCallback(Consumer2<String, Integer> consumer);
+
+    /**
+     * 追加服务注册回调
+     * @param function (被代理端点, 服务名, 注册参数) -> 代理端口，失败返回null；意在由Server分配代理端口
      */
-    void closeCallback(Consumer<Integer> consumer);
+    void registerServiceCallback(Function3<Backend, String, Map<String, String>, Integer> function);
 
     void close(int port);
 
@@ -2,7 +2,7 @@ package com.fate.nat_traversal.service;
 
 import com.fate.nat_traversal.model.ClientSocket;
 import com.fate.nat_traversal.util.Consumer2;
-import com.fate.nat_traversal.util.Function2;
+import com.fate.nat_traversal.util.Function3;
 import org.springframework.beans.factory.DisposableBean;
 
 import java.net.Socket;
@@ -21,7 +21,11 @@ public interface BackendTransmitService extends DisposableBean {
 
     void requireSocketCallback(Consumer2<String , Integer> consumer);
 
-    void awareSocketCallback(Function2<String , Integer, Boolean> consumer);
+    /**
+     * 唤醒透传Socket回调
+     * @param consumer (session, 透传Socket原始端口, 服务名) -> 是否发送成功
+     */
+    void awareSocketCallback(Function3<String, Integer, String, Boolean> consumer);
 
     void close(String session);
 
@@ -0,0 +1,37 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.relay.BufferTuningStats;
+import com.fate.nat_traversal.relay.TransferMeter;
+
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 透传Socket缓冲自动调整，按被代理端点的透传链路分别估算
+ */
+public interface BufferTuningService {
+
+    /**
+     * 透传Socket唤醒时的Ping/Pong往返时间
+     */
+    void onRtt(String session, long nanos);
+
+    /**
+     * 单次透传结束，传输量足够时计入吞吐采样
+     * @param tuned 传输开始时是否已应用调整后的缓冲
+     */
+    void onTransfer(String session, TransferMeter meter, boolean tuned);
+
+    /**
+     * 按当前估算设置透传Socket缓冲；未开启、尚无估算或默认配置档已指定缓冲时不设置
+     * @return 单次读取大小，未调整返回0
+     */
+    int apply(Socket socket, String session);
+
+    void remove(String session);
+
+    List<BufferTuningStats> getStats();
+}
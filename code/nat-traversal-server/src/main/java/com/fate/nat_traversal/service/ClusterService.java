@@ -0,0 +1,109 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.cluster.ClusterMember;
+import com.fate.nat_traversal.cluster.ClusterRoute;
+import com.fate.nat_traversal.cluster.ClusterStats;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.net.Socket;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群：节点间gossip交换成员与路由，服务按一致性哈希归属节点，注册到非归属节点时重定向
+ */
+public interface ClusterService extends DisposableBean {
+
+    boolean isEnabled();
+
+    /**
+     * 注册时确定归属节点：已有路由的节点优先（服务组的其余副本、重连的被代理端点），否则按一致性哈希
+     * @param key 服务组名，不属于服务组时为被代理端点地址与服务名
+     * @return 归属其他存活节点时返回该节点的注册地址 host:port，否则返回null在本节点注册
+     */
+    String redirect(String key);
+
+    /**
+     * 发布本节点的服务路由
+     */
+    void publish(String key, int port, Set<String> hosts);
+
+    /**
+     * 代理端口释放后撤回路由
+     */
+    void withdraw(int port);
+
+    ClusterMember self();
+
+    /**
+     * 其他存活节点
+     */
+    Collection<ClusterMember> peers();
+
+    /**
+     * 存活节点，本节点或未知时返回null
+     */
+    ClusterMember peer(String node);
+
+    /**
+     * 按主机名查找其他存活节点上的路由
+     */
+    ClusterRoute findByHost(String host);
+
+    /**
+     * 其他存活节点上的全部路由
+     */
+    Collection<ClusterRoute> remoteRoutes();
+
+    /**
+     * 本节点共享端口按顺序对应到指定节点的共享端口（同一机器上的多个节点端口不同）
+     */
+    int vhostPort(String node, int vhostPort);
+
+    /**
+     * 是否为本节点发布的代理端口或共享端口，节点间链路上的流只能连接这些端口
+     */
+    boolean isLocalTarget(int port);
+
+    /**
+     * 记录经节点间链路测得的往返时间，随gossip发布
+     */
+    void reportRtt(String node, double millis);
+
+    /**
+     * 按各节点发布的往返时间选择到目标节点的下一跳：直连，或经一个往返时间之和明显更低的中转节点
+     * @return 下一跳节点id，目标不可达时返回null
+     */
+    String nextHop(String node);
+
+    /**
+     * 节点间链路连接回调：集群端口上收到“Cluster Link:”时移交socket
+     * @param consumer (socket, 对端nodeId)
+     */
+    void linkCallback(BiConsumer<Socket, String> consumer);
+
+    /**
+     * 其他节点的路由或存活状态变化回调，在gossip线程执行
+     */
+    void routesCallback(Runnable runnable);
+
+    /**
+     * 负载回调
+     * @param supplier 当前代理端口数
+     */
+    void loadCallback(IntSupplier supplier);
+
+    ClusterStats getStats();
+
+    void shutdown();
+
+    @Override
+    default void destroy() throws Exception {
+        shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.compress.CompressionStats;
+import com.fate.nat_traversal.compress.FrameDecoder;
+import com.fate.nat_traversal.compress.FrameEncoder;
+
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 透传流压缩，按被代理端点在注册时协商
+ */
+public interface CompressionService {
+
+    /**
+     * 协商压缩算法
+     * @param offered 被代理端点支持的算法，逗号分隔
+     * @return 选定的算法名，不压缩返回null
+     */
+    String negotiate(String session, String offered);
+
+    /**
+     * @return 未协商压缩返回null
+     */
+    FrameEncoder newEncoder(String session);
+
+    /**
+     * @param endMarker 该方向的结束标识
+     * @return 未协商压缩返回null
+     */
+    FrameDecoder newDecoder(String session, byte[] endMarker);
+
+    void remove(String session);
+
+    List<CompressionStats> getStats();
+}
@@ -0,0 +1,31 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.cache.HttpCacheStats;
+import com.fate.nat_traversal.model.ClientSocket;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * HTTP边缘缓存服务，仅对注册时启用缓存的代理端口生效
+ */
+public interface HttpCacheService {
+
+    void enable(int proxyPort);
+
+    /**
+     * 停用并清除该代理端口的缓存
+     */
+    void disable(int proxyPort);
+
+    boolean isEnabled(int proxyPort);
+
+    /**
+     * 读取连接上的HTTP请求，命中缓存则直接响应，直到出现未命中请求；
+     * 未命中时将已读取的数据及响应记录器设置到cSocket，交由调用方透传
+     * @return false 表示连接已由缓存处理完毕并关闭，无需透传
+     */
+    boolean prepare(int proxyPort, ClientSocket cSocket);
+
+    HttpCacheStats getStats();
+}
@@ -0,0 +1,42 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.engine.BufferLease;
+import com.fate.nat_traversal.engine.IoEngineStats;
+import com.fate.nat_traversal.engine.IoListener;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * I/O引擎：按配置选择的引擎提供监听端口与连接，以及复用缓冲
+ */
+public interface IoEngineService extends DisposableBean {
+
+    /**
+     * 绑定监听端口，调用IoListener.start后才接受连接
+     */
+    IoListener bind(int port) throws IOException;
+
+    /**
+     * 未连接的Socket
+     */
+    Socket newSocket() throws IOException;
+
+    /**
+     * 租用复用缓冲，用完关闭归还
+     */
+    BufferLease lease();
+
+    IoEngineStats getStats();
+
+    void shutdown();
+
+    @Override
+    default void destroy() throws Exception {
+        shutdown();
+    }
+}
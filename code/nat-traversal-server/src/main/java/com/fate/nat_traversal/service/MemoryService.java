@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.MemoryBudget;
+import com.fate.nat_traversal.limit.MemoryStats;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 透传缓冲内存预算服务
+ */
+public interface MemoryService {
+
+    /**
+     * 为连接的一个透传方向创建在途数据窗口
+     */
+    FlowWindow newWindow();
+
+    /**
+     * 申请暂存缓冲额度，不等待
+     */
+    boolean tryAcquire(long bytes);
+
+    /**
+     * 申请暂存缓冲额度，预算耗尽时最多等待timeoutMillis
+     */
+    boolean acquire(long bytes, long timeoutMillis);
+
+    void release(long bytes);
+
+    MemoryBudget getBudget();
+
+    MemoryStats getStats();
+}
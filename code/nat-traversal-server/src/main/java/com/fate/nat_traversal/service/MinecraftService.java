@@ -0,0 +1,40 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.minecraft.MinecraftSession;
+import com.fate.nat_traversal.minecraft.MinecraftStats;
+import com.fate.nat_traversal.minecraft.PacketBatch;
+import com.fate.nat_traversal.minecraft.PacketFramer;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * Minecraft分帧透传服务，仅对注册时启用的代理端口生效
+ */
+public interface MinecraftService {
+
+    void enable(int proxyPort);
+
+    void disable(int proxyPort);
+
+    boolean isEnabled(int proxyPort);
+
+    MinecraftSession newSession();
+
+    /**
+     * @param clientbound true 为服务端到玩家方向
+     */
+    PacketFramer newFramer(MinecraftSession session, boolean clientbound);
+
+    /**
+     * 写出完成，记录包时延
+     */
+    void onWritten(PacketBatch batch);
+
+    /**
+     * 连接结束，统计退回普通透传的原因
+     */
+    void onClosed(MinecraftSession session);
+
+    MinecraftStats getStats();
+}
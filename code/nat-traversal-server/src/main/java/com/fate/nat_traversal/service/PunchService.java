@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.punch.PunchStats;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞协调：交换访问端与被代理端点的候选地址，不参与后续传输
+ */
+public interface PunchService {
+
+    /**
+     * 回复探测连接的映射地址并关闭
+     */
+    void probe(CommonSocket socket);
+
+    /**
+     * 访问端请求直连，通知代理端口所属的被代理端点；不阻塞调用线程
+     * @param body proxyPort;;local:ip:port;;nat:type
+     */
+    void request(CommonSocket socket, String body);
+
+    /**
+     * 被代理端点应答，向双方回复对端候选地址
+     * @param body punchId;;local:ip:port;;nat:type[;;refuse:true]
+     */
+    void answer(CommonSocket socket, String body);
+
+    PunchStats getStats();
+}
@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.limit.RateLimits;
+import com.fate.nat_traversal.limit.Throttle;
+
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2025/12/22 20:30
+ *
+ * 被代理端点与客户端ip限速服务
+ */
+public interface RateLimitService {
+
+    boolean allowClientConnection(String ip);
+
+    boolean allowBackendConnection(String backendSession);
+
+    /**
+     * 透传连接的带宽整形器，未配置带宽限制时返回null
+     */
+    Throttle throttle(String backendSession, String ip);
+
+    void remove(String backendSession);
+
+    Map<String, RateLimits> getBackendLimits();
+
+    Map<String, RateLimits> getClientLimits();
+}
@@ -0,0 +1,34 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.limit.RegistrationStats;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.util.Consumer2;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * @author fate
+ * @date 2026/01/08 20:30
+ *
+ * 注册准入：注册消息排队后按速率处理，过载时回复携带重试间隔的注册失败
+ */
+public interface RegistrationService extends DisposableBean {
+
+    /**
+     * 注册消息进入准入队列，队列已满时立即回复稍后重试
+     */
+    void submit(CommonSocket socket, String msg);
+
+    /**
+     * 准入后的注册处理回调，避免依赖循环
+     */
+    void registerCallback(Consumer2<CommonSocket, String> consumer);
+
+    RegistrationStats getStats();
+
+    void shutdown();
+
+    @Override
+    default void destroy() throws Exception {
+        shutdown();
+    }
+}
@@ -0,0 +1,43 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.model.Backend;
+import com.fate.nat_traversal.registry.RegistryEntry;
+import com.fate.nat_traversal.registry.RegistryStats;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2026/01/09 20:30
+ *
+ * 持久化注册表：记录可恢复会话的恢复凭证与代理端口，重启后据此重新绑定端口
+ */
+public interface RegistryService {
+
+    boolean isEnabled();
+
+    /**
+     * 启动时重放日志
+     * @return 上次运行时未释放的会话
+     */
+    Collection<RegistryEntry> load();
+
+    /**
+     * 记录已注册服务，会话未开启恢复时不记录
+     * @param options 注册选项，恢复凭证不写入
+     */
+    void register(Backend backend, int port, String serviceName, Map<String, String> options);
+
+    /**
+     * 服务的代理端口已释放，会话的服务全部释放后不再恢复
+     */
+    void unregister(String session, int port);
+
+    /**
+     * 刷盘并停止记录，关闭过程中释放的会话保留在日志中，重启后恢复
+     */
+    void shutdown();
+
+    RegistryStats getStats();
+}
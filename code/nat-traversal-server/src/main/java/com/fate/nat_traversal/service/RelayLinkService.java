@@ -0,0 +1,53 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.cluster.ClusterRoute;
+import com.fate.nat_traversal.cluster.RelayLinkStats;
+import com.fate.nat_traversal.model.ClientSocket;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 节点间转发：访客连接最近的节点，经节点间常驻的多路复用链路到达被代理端点所在节点，路径按测得的往返时间选择
+ */
+public interface RelayLinkService extends DisposableBean {
+
+    boolean isEnabled();
+
+    /**
+     * 前置端口上的连接转发到服务所在节点的代理端口
+     * @return 已转发返回true
+     */
+    boolean front(ClusterRoute route, ClientSocket cSocket);
+
+    /**
+     * 共享端口上本地无路由的连接转发到服务所在节点对应的共享端口
+     * @param peeked 已预读的首包
+     * @return 已转发返回true
+     */
+    boolean forward(int vhostPort, String host, ClientSocket cSocket, byte[] peeked);
+
+    /**
+     * 经链路到达本节点的连接来自回环地址，还原原始访客ip
+     */
+    void resolveOrigin(ClientSocket cSocket);
+
+    /**
+     * 前置端口回调
+     * @param supplier 前置端口-所在节点
+     */
+    void frontsCallback(Supplier<Map<Integer, String>> supplier);
+
+    RelayLinkStats getStats();
+
+    void shutdown();
+
+    @Override
+    default void destroy() throws Exception {
+        shutdown();
+    }
+}
@@ -0,0 +1,43 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.model.Replica;
+import com.fate.nat_traversal.model.ServiceGroup;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 服务组（同名多副本）注册与副本选择服务
+ */
+public interface ServiceGroupService {
+
+    ServiceGroup getGroup(String name);
+
+    ServiceGroup getGroupByPort(int proxyPort);
+
+    Collection<ServiceGroup> getGroups();
+
+    /**
+     * 创建服务组，调用方需保证同名服务组只创建一次
+     */
+    ServiceGroup createGroup(String name, int proxyPort);
+
+    Replica join(String name, String backendSession, String serviceName, int weight);
+
+    /**
+     * 副本离开服务组
+     * @return 服务组是否已无副本（已移除），意在由调用方释放代理端口
+     */
+    boolean leave(int proxyPort, String backendSession);
+
+    /**
+     * 选择副本
+     * @param excluded 本次连接已尝试失败的副本
+     */
+    Replica select(int proxyPort, Set<Replica> excluded);
+
+    boolean drain(String backendSession, String serviceName, boolean draining);
+}
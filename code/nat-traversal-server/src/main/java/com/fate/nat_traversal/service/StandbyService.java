@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.standby.StandbyStats;
+import com.fate.nat_traversal.util.Consumer2;
+
+import java.util.function.IntSupplier;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 中继探测：被代理端点按RTT与负载选择中继，并与次优中继保持备用通信连接，故障时直接在其上注册
+ */
+public interface StandbyService {
+
+    /**
+     * 回复首个探测并保持连接，后续探测在独立线程上回复，收到注册消息后交给注册回调
+     */
+    void hold(CommonSocket socket);
+
+    /**
+     * 注册回调
+     * @param consumer (备用连接, 注册消息)，意在由Server完成注册
+     */
+    void registerCallback(Consumer2<CommonSocket, String> consumer);
+
+    /**
+     * 负载回调
+     * @param supplier 当前代理端口数
+     */
+    void loadCallback(IntSupplier supplier);
+
+    StandbyStats getStats();
+}
@@ -0,0 +1,41 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.stream.ResumableStream;
+import com.fate.nat_traversal.stream.StreamStats;
+
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复透传流：被代理端点注册时请求，之后该会话的透传Socket按帧传输，断开后在新连接上续传
+ */
+public interface StreamService {
+
+    /**
+     * 被代理端点请求可恢复透传流，服务端关闭该功能时忽略
+     */
+    void enable(String session);
+
+    boolean isEnabled(String session);
+
+    /**
+     * 在透传Socket上新建流，流id经透传Socket唤醒消息告知被代理端点
+     */
+    ResumableStream open(String session, Socket socket);
+
+    /**
+     * 被代理端点在新连接上重新附着流
+     * @param body streamId;;ack:已收到字节数
+     */
+    void resume(CommonSocket socket, String body);
+
+    /**
+     * 会话关闭，中断其全部流
+     */
+    void remove(String session);
+
+    StreamStats getStats();
+}
@@ -0,0 +1,32 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.stream.StripeStats;
+import com.fate.nat_traversal.stream.StripedStream;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带：注册时请求条带的代理端口，其每个客户端连接拆分到多条透传Socket并行传输
+ */
+public interface StripeService {
+
+    /**
+     * @param paths 被代理端点请求的路径数，超过上限时取上限
+     */
+    void enable(int proxyPort, int paths);
+
+    void disable(int proxyPort);
+
+    /**
+     * @return 代理端口的路径数，未开启条带返回1
+     */
+    int paths(int proxyPort);
+
+    /**
+     * 新建条带流，流id经透传Socket唤醒消息告知被代理端点，路径在Pong之后加入
+     */
+    StripedStream open();
+
+    StripeStats getStats();
+}
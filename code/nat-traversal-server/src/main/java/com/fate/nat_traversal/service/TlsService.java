@@ -0,0 +1,35 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.tls.TlsStats;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * 注册端口TLS加密
+ */
+public interface TlsService {
+
+    boolean isEnabled();
+
+    /**
+     * @return 未绑定的注册端口ServerSocket，开启TLS时为SSLServerSocket
+     */
+    ServerSocket newServerSocket() throws IOException;
+
+    /**
+     * 完成接收连接的握手，未开启TLS时直接返回true
+     */
+    boolean handshake(Socket socket);
+
+    /**
+     * 获取透传Socket的耗时
+     */
+    void onOpen(long nanos, boolean spare);
+
+    TlsStats getStats();
+}
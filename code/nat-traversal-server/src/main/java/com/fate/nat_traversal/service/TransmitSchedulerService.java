@@ -0,0 +1,52 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.enums.AdmissionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import com.fate.nat_traversal.limit.Bulkhead;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2025/12/23 20:30
+ *
+ * 透传槽位调度服务：按被代理端点隔离并公平分配中继的透传容量
+ */
+public interface TransmitSchedulerService {
+
+    /**
+     * 申请透传槽位
+     * @param onGranted 排队后获得槽位时执行，需为非阻塞操作
+     * @param onRejected 排队后被丢弃时执行
+     */
+    AdmissionEnum admit(String backendSession, Runnable onGranted, Consumer<ShedReasonEnum> onRejected);
+
+    void release(String backendSession);
+
+    void register(String backendSession, int weight);
+
+    void remove(String backendSession);
+
+    List<Bulkhead> getBulkheads();
+
+    int getCapacity();
+
+    int getTotalActive();
+
+    int getTotalQueued();
+
+    /**
+     * 排队后获得槽位的连接数
+     */
+    long getDequeued();
+
+    long getTotalQueueDelayNanos();
+
+    long getMaxQueueDelayNanos();
+
+    /**
+     * 是否处于CoDel丢弃状态
+     */
+    boolean isShedding();
+}
@@ -0,0 +1,26 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.config.TransportProfileProperties;
+
+/**
+ * @author fate
+ * @date 2025/12/27 20:30
+ *
+ * 传输配置档服务，按代理端口记录注册时指定的配置档
+ */
+public interface TransportService {
+
+    /**
+     * @param profile 配置档名，为空或无法识别时使用默认配置档
+     */
+    void register(int proxyPort, String profile);
+
+    void unregister(int proxyPort);
+
+    /**
+     * 代理端口的配置档，未登记时返回默认配置档
+     */
+    TransportProfileProperties profile(int proxyPort);
+
+    TransportProfileProperties defaultProfile();
+}
@@ -0,0 +1,30 @@
+package com.fate.nat_traversal.service;
+
+import com.fate.nat_traversal.udp.UdpStats;
+
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP转发，UDP代理端口与TCP代理端口同号
+ */
+public interface UdpRelayService {
+
+    /**
+     * 在代理端口上开始接收UDP
+     */
+    boolean open(String session, int port);
+
+    /**
+     * 绑定被代理端点建立的UDP隧道，成功时由隧道写出注册成功回复
+     * @return 端口未开启UDP或不属于该被代理端点返回false
+     */
+    boolean attach(String session, int port, Socket socket);
+
+    void close(int port);
+
+    List<UdpStats> getStats();
+}
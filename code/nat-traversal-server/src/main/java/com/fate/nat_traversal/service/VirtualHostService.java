@@ -0,0 +1,28 @@
+package com.fate.nat_traversal.service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author fate
+ * @date 2025/12/20 20:30
+ *
+ * 虚拟主机路由表：主机名-代理端口
+ */
+public interface VirtualHostService {
+
+    /**
+     * 绑定主机名到代理端口，支持 "*.example.com" 形式的一级通配
+     * @return 主机名已被其他代理端口占用时返回false
+     */
+    boolean route(Set<String> hosts, int proxyPort);
+
+    void unroute(int proxyPort);
+
+    /**
+     * 按主机名查找代理端口，精确匹配优先，其次一级通配
+     */
+    Integer resolve(String host);
+
+    Map<String, Integer> getRoutes();
+}
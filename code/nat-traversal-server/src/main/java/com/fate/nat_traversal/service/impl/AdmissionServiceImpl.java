@@ -0,0 +1,111 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.AdmissionProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.RejectActionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import com.fate.nat_traversal.limit.AdmissionStats;
+import com.fate.nat_traversal.model.ClientSocket;
+import com.fate.nat_traversal.service.AdmissionService;
+import com.fate.nat_traversal.service.HttpCacheService;
+import com.fate.nat_traversal.service.TransmitSchedulerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * @author fate
+ * @date 2025/12/24 20:30
+ *
+ * 过载准入控制：
+ *  1. 连接在透传队列中等待槽位，超过最长等待或队列积压（CoDel）时丢弃
+ *  2. 丢弃、超限的连接按配置关闭：FIN、RST，或对HTTP请求返回503
+ *  3. 按原因记录丢弃次数，排队时延由透传槽位调度统计
+ */
+@Slf4j
+@Service
+public class AdmissionServiceImpl implements AdmissionService {
+
+    private static final Pattern HTTP_REQUEST_LINE = Pattern.compile("^[A-Z]{3,7} \\S+ HTTP/1\\.[01]\r?\n");
+
+    private static final Map<ShedReasonEnum, AtomicLong> SHED = new ConcurrentHashMap<>();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private TransmitSchedulerService transmitSchedulerService;
+
+    @Autowired
+    private HttpCacheService httpCacheService;
+
+    @Override
+    public void recordShed(ShedReasonEnum reason) {
+        SHED.computeIfAbsent(reason, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public void reject(ClientSocket cSocket) {
+        if (cSocket.isClosed()) return;
+        rejected.incrementAndGet();
+
+        AdmissionProperties admission = turnProperties.getAdmission();
+        RejectActionEnum action = admission.getRejectAction();
+        if (action == RejectActionEnum.HTTP_503 && isHttp(cSocket)) {
+            String response = "HTTP/1.1 503 Service Unavailable\r\n"
+                    + "Retry-After: " + admission.getRetryAfter() + "\r\n"
+                    + "Content-Length: 0\r\n"
+                    + "Connection: close\r\n\r\n";
+            try {
+                cSocket.write(response.getBytes(StandardCharsets.ISO_8859_1));
+                cSocket.getSocket().shutdownOutput();
+            } catch (IOException e) {
+                if (log.isDebugEnabled()) log.debug("ClientSocket(ip: {}) 503 not sent;(Exception: {})", cSocket.getRemoteSocketAddress(), e.getMessage());
+            }
+            cSocket.closeUnchecked();
+        } else if (action == RejectActionEnum.CLOSE) {
+            cSocket.closeUnchecked();
+        } else {
+            cSocket.reset();
+        }
+    }
+
+    @Override
+    public AdmissionStats getStats() {
+        Map<ShedReasonEnum, Long> shed = new EnumMap<>(ShedReasonEnum.class);
+        SHED.forEach((reason, count) -> shed.put(reason, count.get()));
+
+        long dequeued = transmitSchedulerService.getDequeued();
+        return AdmissionStats.builder()
+                .rejectAction(turnProperties.getAdmission().getRejectAction())
+                .capacity(transmitSchedulerService.getCapacity())
+                .active(transmitSchedulerService.getTotalActive())
+                .queued(transmitSchedulerService.getTotalQueued())
+                .dequeued(dequeued)
+                .avgQueueDelayMillis(dequeued == 0 ? 0 : transmitSchedulerService.getTotalQueueDelayNanos() / 1e6 / dequeued)
+                .maxQueueDelayMillis(transmitSchedulerService.getMaxQueueDelayNanos() / 1e6)
+                .shedding(transmitSchedulerService.isShedding())
+                .shed(shed)
+                .rejected(rejected.get())
+                .build();
+    }
+
+    // HTTP缓存端口，或预读的首包为HTTP/1.x请求行
+    private boolean isHttp(ClientSocket cSocket) {
+        if (httpCacheService.isEnabled(cSocket.getRequestPort())) return true;
+        byte[] peeked = cSocket.getPeeked();
+        if (peeked == null) return false;
+        int length = Math.min(peeked.length, 1024);
+        return HTTP_REQUEST_LINE.matcher(new String(peeked, 0, length, StandardCharsets.ISO_8859_1)).find();
+    }
+}
@@ -5,7 +5,13 @@ import com.fate.nat_traversal.enums.WorkingStatusEnum;
 import com.fate.nat_traversal.model.Backend;
 import com.fate.nat_traversal.service.BackendCommunicationService;
 import com.fate.nat_traversal.service.BackendTransmitService;
+import com.fate.nat_traversal.service.RateLimitService;
+import com.fate.nat_traversal.service.ServiceGroupService;
 import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+import com.fate.nat_traversal.util.Consumer2;
+import com.fate.nat_traversal.util.Function3;
+import com.fate.nat_traversal.util.MessageUtil;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +19,14 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @author: Fate
@@ -34,6 +42,13 @@ import java.util.function.Consumer;
  *  4. 客户端连接后，通过透传socket发送“Client Connection:session”，正式建立连接。
  *  5. 客户端关闭，则透过传socket，返回“Client Closed”消息，防止PS端读阻塞；同理被代理的服务socket关闭，返回"Server Closed"消息，防止代理端读阻塞；
  *  6. 被代理端点关闭时， 发送“PS Closed”
+ *  7. 同一通信连接可注册多个服务：注册时发送“Register PS;;service:name”，后续服务发送“Register Service:name”，
+ *     服务器返回“Register Service Success:name;;port:port”；透传时通过“Aware Socket:port;;service:name”告知服务端点需连接的本地服务
+ *  8. 注册时携带“;;group:group;;weight:weight”则加入同名服务组，多个被代理端点共享同一代理端口；
+ *     发送“Drain Service:name”后该副本不再分配新连接，“Drain Service:name;;drain:false”恢复
+ *  9. 注册成功回复携带“;;resume:token”；通信连接非正常断开后会话、代理端口与透传Socket池保留一段时间，
+ *     被代理端点重连时发送“Register PS;;resume:token”接管，回复原session、端口及“;;services:name=port,...”
+ *     开启持久化注册表时会话在服务器重启后恢复，原代理端口重新绑定，同样凭恢复凭证接管
  *
  */
 @Slf4j
@@ -41,11 +56,16 @@ import java.util.function.Consumer;
 public class BackendCommunicationServiceImpl implements BackendCommunicationService {
 
     // 注册表
-    // 被代理端口-session
+    // 被代理端口-session（独占端口，服务组端口由ServiceGroupService维护）
     private static final Map<Integer, String> PORT_REFLECTION = new ConcurrentHashMap<>();
     // session-Backend
     private static final Map<String, Backend> REGISTER_INFO = new ConcurrentHashMap<>();
 
+    // 恢复凭证-session
+    private static final Map<String, String> RESUME_TOKENS = new ConcurrentHashMap<>();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     // 黑名单
     private static final Set<Backend> BLACK_LIST = ConcurrentHashMap.newKeySet();
 
@@ -55,7 +75,9 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
     // 运行状态
     private WorkingStatusEnum workingStatus = WorkingStatusEnum.INIT;
 
-    private Consumer<Integer> closeCallback = null;
+    private Consumer2<String, Integer> closeCallback = null;
+
+    private Function3<Backend, String, Map<String, String>, Integer> registerServiceCallback = null;
 
     @Autowired
     private TurnProperties turnProperties;
@@ -66,6 +88,12 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
     @Autowired
     private BackendTransmitService transmitService;
 
+    @Autowired
+    private ServiceGroupService serviceGroupService;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
     @PostConstruct
     private void init() {
         communicationPool = new ThreadPoolExecutor(
@@ -80,27 +108,25 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
 
         // 定时清理
         taskScheduler.submit(() -> {
-            List<Integer> toRemove = new ArrayList<>();
-            PORT_REFLECTION.forEach((port, session) -> {
-                Backend ps = REGISTER_INFO.get(session);
+            List<String> toRemove = new ArrayList<>();
+            REGISTER_INFO.forEach((session, ps) -> {
+                // 等待恢复的会话由宽限期到期后释放
+                if (ps.isDetached()) return;
                 if (ps.isClosed() || !ps.isOnline()) {
-                    toRemove.add(port);
+                    toRemove.add(session);
                 }
             });
 
-            if (log.isDebugEnabled()) {
-                StringBuilder sb = new StringBuilder();
-                toRemove.forEach(port -> {
-                    sb.append("proxy port: " + port + "; session: " + PORT_REFLECTION.get(port) + "、");
-                });
-                sb.deleteCharAt(sb.length()-1);
-
-                log.debug("BackendCommunicationService remove useless Backend: ({})", sb.toString());
+            if (log.isDebugEnabled() && !toRemove.isEmpty()) {
+                log.debug("BackendCommunicationService remove useless Backend: ({})", String.join("、", toRemove));
             }
 
-            toRemove.forEach(this::close);
+            toRemove.forEach(this::closeSession);
         }, 5, 5, TimeUnit.MINUTES);
 
+        // 释放宽限期内未恢复的会话
+        taskScheduler.submit(this::expireDetached, 1, 1, TimeUnit.SECONDS);
+
         // 更新状态
         workingStatus = WorkingStatusEnum.WORKING;
     }
@@ -108,69 +134,191 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
     @Override
     public boolean register(Backend backend, int proxyPort) {
         if (unworkable()) return false;
-        if (PORT_REFLECTION.size() >= turnProperties.getMaxServerProxy()) return false;
+        if (REGISTER_INFO.size() >= turnProperties.getMaxServerProxy()) return false;
         if (!doRegisterFilter(backend.getCommunicationSocket().getSOCKET())) return false;
 
-        PORT_REFLECTION.put(proxyPort, backend.getSession());
+        if (!backend.getGroupPorts().contains(proxyPort)) PORT_REFLECTION.put(proxyPort, backend.getSession());
         REGISTER_INFO.put(backend.getSession(), backend);
 
+        if (turnProperties.getResume().getEnabled()) {
+            backend.setResumeToken(newToken());
+            RESUME_TOKENS.put(backend.getResumeToken(), backend.getSession());
+        }
+
         // 启动通信线程
-        communicationPool.submit(() -> {
-            int readErrTimes = 0;
-
-            while (!backend.isClosed() && backend.isOnline()) {
-                String msg = null;
-                try {
-                    msg = backend.read();
-                } catch (IOException e) {
-                    readErrTimes++;
-                    logError("Backend(session: {}) Read Error(Exception: {})", backend.getSession(), e.getMessage());
-
-                    if (readErrTimes > 5) {
-                        backend.close();
-                        break;
-                    }
+        communicationPool.submit(() -> communicate(backend));
 
-                    continue;
+        log.info("Backend(session: {}) Register Success", backend.getSession());
+        return true;
+    }
+
+    @Override
+    public Backend resume(String token, Socket socket, Function<Backend, String> reply) {
+        if (unworkable() || token == null) return null;
+        String session = RESUME_TOKENS.get(token);
+        Backend backend = session == null ? null : REGISTER_INFO.get(session);
+        if (backend == null) return null;
+
+        ConcurrentWriteSocket communicationSocket = new ConcurrentWriteSocket(socket);
+        ConcurrentWriteSocket previous;
+        synchronized (backend) {
+            if (!token.equals(backend.getResumeToken())) return null;
+            // 回复先于切换写出，接管后其他线程的消息才会写入新连接
+            try {
+                communicationSocket.writeString(reply.apply(backend));
+            } catch (IOException e) {
+                return null;
+            }
+            previous = backend.getCommunicationSocket();
+            backend.resume(communicationSocket);
+        }
+        // 服务器尚未察觉旧连接断开时，由新连接取代；重启后恢复的会话没有旧连接
+        if (previous != null && !previous.isClosed()) previous.close();
+
+        communicationPool.submit(() -> communicate(backend));
+        log.info("Backend(session: {}) Resumed from {}", backend.getSession(), socket.getRemoteSocketAddress());
+        return backend;
+    }
+
+    @Override
+    public boolean restore(Backend backend) {
+        if (unworkable() || backend.getResumeToken() == null) return false;
+
+        backend.getServices().keySet().stream()
+                .filter(port -> !backend.getGroupPorts().contains(port))
+                .forEach(port -> PORT_REFLECTION.put(port, backend.getSession()));
+        REGISTER_INFO.put(backend.getSession(), backend);
+        RESUME_TOKENS.put(backend.getResumeToken(), backend.getSession());
+
+        log.info("Backend(session: {}) Restored, keep ports {} for {} ms", backend.getSession(),
+                backend.getServices().keySet(), turnProperties.getResume().getGrace());
+        return true;
+    }
+
+    private void communicate(Backend backend) {
+        ConcurrentWriteSocket socket = backend.getCommunicationSocket();
+        int readErrTimes = 0;
+        // 被代理端点主动关闭或通信过频时直接释放会话，不等待恢复
+        boolean release = false;
+
+        while (!socket.isClosed() && backend.isOnline()) {
+            String msg = null;
+            try {
+                msg = backend.read(socket);
+            } catch (IOException e) {
+                if (socket.isClosed()) break;
+                readErrTimes++;
+                logError("Backend(session: {}) Read Error(Exception: {})", backend.getSession(), e.getMessage());
+
+                if (readErrTimes > 5) {
+                    socket.close();
+                    break;
                 }
 
-                if (msg == null) break;
-
-                // 处理不同信息
-                if (msg.startsWith(PING)) {
-                    String session = msg.substring(PING.length());
-                    Backend ps = REGISTER_INFO.get(session);
-                    if (ps == null || ps.communicationTooFrequent()) {
-                        if (ps != null) {
-                            ps.close();
-                            if (ps.communicationTooFrequent()) {
-                                log.warn("Backend(session: {}) communication too frequent, maybe Attack!", session);
-                            }
-                        }
-                        REGISTER_INFO.remove(session);
-                    } else {
-                        ps.refreshOnlineTime();
-                        ps.send(PONG);
-                    }
-                } else {
-                    if (log.isDebugEnabled())
-                        log.debug("Backend(session: {}) Receive message: {}", backend.getSession(), msg);
+                continue;
+            }
+
+            if (msg == null) break;
 
-                    // todo 处理不同信息
+            if (backend.communicationTooFrequent()) {
+                log.warn("Backend(session: {}) communication too frequent, maybe Attack!", backend.getSession());
+                release = true;
+                break;
+            }
 
-                    if (msg.equals(PS_CLOSED)) {
-                        break;
+            // 处理不同信息
+            if (msg.startsWith(PING)) {
+                String session = msg.substring(PING.length());
+                Backend ps = REGISTER_INFO.get(session);
+                if (ps == null || ps.communicationTooFrequent()) {
+                    if (ps != null) {
+                        ps.close();
+                        if (ps.communicationTooFrequent()) {
+                            log.warn("Backend(session: {}) communication too frequent, maybe Attack!", session);
+                        }
                     }
+                } else {
+                    ps.refreshOnlineTime();
+                    ps.send(PONG);
+                }
+            } else {
+                if (log.isDebugEnabled())
+                    log.debug("Backend(session: {}) Receive message: {}", backend.getSession(), msg);
+
+                // todo 处理不同信息
+
+                if (msg.equals(PS_CLOSED)) {
+                    release = true;
+                    break;
+                } else if (msg.startsWith(REGISTER_SERVICE)) {
+                    backend.refreshOnlineTime();
+                    String body = msg.substring(REGISTER_SERVICE.length());
+                    registerService(backend, MessageUtil.head(body), MessageUtil.options(body));
+                } else if (msg.startsWith(DRAIN_SERVICE)) {
+                    String body = msg.substring(DRAIN_SERVICE.length());
+                    boolean draining = !"false".equals(MessageUtil.options(body).get("drain"));
+                    serviceGroupService.drain(backend.getSession(), MessageUtil.head(body), draining);
                 }
             }
+        }
 
-            close(proxyPort);
-        });
+        synchronized (backend) {
+            // 已被新连接接管
+            if (backend.getCommunicationSocket() != socket) return;
+            if (!release && detach(backend)) return;
+        }
+        closeSession(backend.getSession());
+    }
 
-        log.info("Backend(session: {}) Register Success", backend.getSession());
+    // 通信连接断开，保留会话等待恢复
+    private boolean detach(Backend backend) {
+        if (unworkable() || backend.getResumeToken() == null || !REGISTER_INFO.containsKey(backend.getSession())) return false;
+
+        backend.close();
+        backend.setDetachedTime(System.currentTimeMillis());
+        log.info("Backend(session: {}) Detached, keep ports {} for {} ms", backend.getSession(),
+                backend.getServices().keySet(), turnProperties.getResume().getGrace());
         return true;
     }
 
+    private void expireDetached() {
+        long now = System.currentTimeMillis();
+        long grace = turnProperties.getResume().getGrace();
+        REGISTER_INFO.forEach((session, backend) -> {
+            synchronized (backend) {
+                if (!backend.isDetached() || now - backend.getDetachedTime() < grace) return;
+                // 作废凭证，之后的恢复请求按新注册处理
+                backend.setResumeToken(null);
+            }
+            log.info("Backend(session: {}) not resumed in {} ms", session, grace);
+            closeSession(session);
+        });
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    // 在已注册的通信连接上追加服务
+    private void registerService(Backend backend, String serviceName, Map<String, String> options) {
+        if (serviceName.isEmpty() || backend.getServices().containsValue(serviceName)) {
+            backend.send(REGISTER_SERVICE_ERROR + serviceName + MessageUtil.option("reason", "Duplicate Service"));
+            return;
+        }
+
+        Integer proxyPort = registerServiceCallback == null ? null : registerServiceCallback.apply(backend, serviceName, options);
+        if (proxyPort == null) {
+            backend.send(REGISTER_SERVICE_ERROR + serviceName + MessageUtil.option("reason", "Register Proxy Error"));
+            return;
+        }
+
+        if (!backend.getGroupPorts().contains(proxyPort)) PORT_REFLECTION.put(proxyPort, backend.getSession());
+        backend.send(REGISTER_SERVICE_SUCCESS + serviceName + MessageUtil.option("port", proxyPort));
+        log.info("Backend(session: {}) Register Service(name: {}; port: {}) Success", backend.getSession(), serviceName, proxyPort);
+    }
+
     @Override
     public void requireSocket(String session, int num) {
         if (unworkable()) return;
@@ -179,25 +327,33 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
 
     @Override
     public Backend getBackend(int proxyPort) {
-        return REGISTER_INFO.get(PORT_REFLECTION.get(proxyPort));
+        String session = PORT_REFLECTION.get(proxyPort);
+        return session == null ? null : REGISTER_INFO.get(session);
     }
 
     @Override
     public void close(int port) {
+        String session = PORT_REFLECTION.get(port);
+        if (session != null) closeSession(session);
+    }
+
+    // 同一被代理端点的所有服务端口（含服务组端口）一并释放
+    private void closeSession(String session) {
         if (workingStatus == WorkingStatusEnum.CLOSED) return;
 
-        String session = PORT_REFLECTION.get(port);
+        Backend backend = REGISTER_INFO.remove(session);
+        if (backend == null) return;
+        RESUME_TOKENS.values().remove(session);
+
         transmitService.close(session);
-        PORT_REFLECTION.remove(port);
-        Backend backend = REGISTER_INFO.get(session);
+        rateLimitService.remove(session);
+        backend.close();
 
-        if (backend != null) {
-            backend.close();
-            REGISTER_INFO.remove(backend.getSession());
-        }
+        List<Integer> ports = new ArrayList<>(backend.getServices().keySet());
+        ports.forEach(port -> PORT_REFLECTION.remove(port, session));
 
-        if (closeCallback != null) closeCallback.accept(port);
-        log.info("Backend(session: {}) Closed", session);
+        if (closeCallback != null) ports.forEach(port -> closeCallback.accept(session, port));
+        log.info("Backend(session: {}; ports: {}) Closed", session, ports);
     }
 
     @Override
@@ -205,11 +361,8 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
         if (workingStatus == WorkingStatusEnum.CLOSED || workingStatus == WorkingStatusEnum.CLOSING) return;
 
         log.info("Shutdown BackendCommunicationService...");
-        List<Integer> ports = new ArrayList<>();
-        PORT_REFLECTION.forEach((port, session) -> {
-            ports.add(port);
-        });
-        ports.forEach(this::close);
+        List<String> sessions = new ArrayList<>(REGISTER_INFO.keySet());
+        sessions.forEach(this::closeSession);
 
         workingStatus = WorkingStatusEnum.CLOSED;
         log.info("Shutdown BackendCommunicationService Gracefully");
@@ -219,14 +372,20 @@ public class BackendCommunicationServiceImpl implements BackendCommunicationServ
     public boolean send(String session, String message) {
         if (unworkable()) return false;
         if (log.isDebugEnabled()) log.debug(" Send message to Backend(session: {}): {}", session, message);
-        return REGISTER_INFO.get(session).send(message);
+        Backend backend = REGISTER_INFO.get(session);
+        return backend != null && backend.send(message);
     }
 
     @Override
-    public void closeCallback(Consumer<Integer> consumer) {
+    public void closeCallback(Consumer2<String, Integer> consumer) {
         this.closeCallback = consumer;
     }
 
+    @Override
+    public void registerServiceCallback(Function3<Backend, String, Map<String, String>, Integer> function) {
+        this.registerServiceCallback = function;
+    }
+
     // 注册过滤器
     private boolean doRegisterFilter(Socket socket) {
         if (BLACK_LIST.contains(socket)) {
@@ -1,14 +1,49 @@
 package com.fate.nat_traversal.service.impl;
 
+import com.fate.nat_traversal.compress.FrameDecoder;
+import com.fate.nat_traversal.compress.FrameEncoder;
+import com.fate.nat_traversal.config.RelayProperties;
+import com.fate.nat_traversal.config.TransportProfileProperties;
 import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.AdmissionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
 import com.fate.nat_traversal.enums.WorkingStatusEnum;
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.Throttle;
 import com.fate.nat_traversal.model.ClientSocket;
 import com.fate.nat_traversal.model.BackendTransmitSocket;
+import com.fate.nat_traversal.minecraft.MinecraftSession;
+import com.fate.nat_traversal.minecraft.PacketBatch;
+import com.fate.nat_traversal.minecraft.PacketFramer;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.relay.CoalescingSource;
+import com.fate.nat_traversal.relay.DirectSource;
+import com.fate.nat_traversal.relay.PipelinedSource;
+import com.fate.nat_traversal.relay.RelaySource;
+import com.fate.nat_traversal.relay.SpscRing;
+import com.fate.nat_traversal.relay.TransferMeter;
+import com.fate.nat_traversal.stream.ResumableStream;
+import com.fate.nat_traversal.stream.StripedStream;
+import com.fate.nat_traversal.stream.TunnelStream;
+import com.fate.nat_traversal.service.AdmissionService;
 import com.fate.nat_traversal.service.BackendCommunicationService;
 import com.fate.nat_traversal.service.BackendTransmitService;
+import com.fate.nat_traversal.service.BufferTuningService;
+import com.fate.nat_traversal.service.CompressionService;
+import com.fate.nat_traversal.service.MemoryService;
+import com.fate.nat_traversal.service.MinecraftService;
+import com.fate.nat_traversal.service.RateLimitService;
+import com.fate.nat_traversal.service.StreamService;
+import com.fate.nat_traversal.service.StripeService;
 import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.service.TransmitSchedulerService;
+import com.fate.nat_traversal.service.TransportService;
 import com.fate.nat_traversal.util.Consumer2;
-import com.fate.nat_traversal.util.Function2;
+import com.fate.nat_traversal.util.Function3;
+import com.fate.nat_traversal.util.MessageUtil;
+import com.fate.nat_traversal.util.ResponseFilter;
+import com.fate.nat_traversal.util.SocketOptions;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +54,7 @@ import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author fate
@@ -35,15 +71,24 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
     private static final Map<String, LinkedBlockingQueue<BackendTransmitSocket>> SPARE_TRANSMIT_SOCKETS = new ConcurrentHashMap<>();
     private static final Map<String, LinkedList<BackendTransmitSocket>> BUSY_TRANSMIT_SOCKETS = new ConcurrentHashMap<>();
 
+    private static final int PONG_TIMEOUT = 3000;
+
+    private static final byte[] PONG_BYTES = BackendCommunicationService.TSPONG.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SERVER_CLOSED_BYTES = BackendCommunicationService.SERVER_CLOSED.getBytes(StandardCharsets.UTF_8);
+
     // 客户端数据传输线程池
     private ThreadPoolExecutor transmitPool;
 
+    // 条带路径获取线程池，满时不再扩展路径
+    private ThreadPoolExecutor stripePool;
+
     // 运行状态
     private WorkingStatusEnum workingStatus = WorkingStatusEnum.INIT;
 
     private Consumer2<String, Integer> requireSocketCallback;
 
-    private Function2<String, Integer, Boolean> awareSocketCallback;
+    private Function3<String, Integer, String, Boolean> awareSocketCallback;
 
 
     @Autowired
@@ -52,16 +97,56 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
     @Autowired
     private TaskSchedulerService taskScheduler;
 
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private TransmitSchedulerService transmitScheduler;
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private MemoryService memoryService;
+
+    @Autowired
+    private TransportService transportService;
+
+    @Autowired
+    private BufferTuningService bufferTuningService;
+
+    @Autowired
+    private MinecraftService minecraftService;
+
+    @Autowired
+    private CompressionService compressionService;
+
+    @Autowired
+    private TlsService tlsService;
+
+    @Autowired
+    private StreamService streamService;
+
+    @Autowired
+    private StripeService stripeService;
+
     @PostConstruct
     private void init() {
+        // 每个透传槽位占用两个阻塞线程（流水线模式另加两个读线程），另留排队连接建立透传的线程；
+        // 任务排队会使已获得槽位的连接无线程可用，故核心线程数即最大线程数，空闲回收
+        int capacity = transmitScheduler.getCapacity();
+        int threads = capacity * (turnProperties.getRelay().getPipelined() ? 5 : 3);
         transmitPool= new ThreadPoolExecutor(
-                turnProperties.getMaxClientConnection()*2/3,
-                turnProperties.getMaxClientConnection()*2,
+                threads,
+                threads,
                 5,
                 TimeUnit.MINUTES,
-                new LinkedBlockingDeque<>(turnProperties.getMaxClientConnection()*2),
+                new LinkedBlockingDeque<>(capacity*2),
                 new ThreadPoolExecutor.AbortPolicy()
         );
+        transmitPool.allowCoreThreadTimeOut(true);
+
+        stripePool = new ThreadPoolExecutor(0, capacity, 1, TimeUnit.MINUTES, new SynchronousQueue<>(), new ThreadPoolExecutor.DiscardPolicy());
 
         // 定时清理
         taskScheduler.submit(() -> {
@@ -101,6 +186,7 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
     public boolean registerTransmit(String session, int originalPort, Socket socket) {
         if (unworkable()) return false;
 
+        SocketOptions.apply(socket, transportService.defaultProfile());
         BackendTransmitSocket tSocket = new BackendTransmitSocket(socket);
         tSocket.setBackendSession(session);
         tSocket.setOriginalPort(originalPort);
@@ -124,19 +210,38 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
     @Override
     public boolean transmitClient(ClientSocket cSocket) {
         if (unworkable()) return false;
-        BackendTransmitSocket tSocket = getTransmitSocket(cSocket.getBackendSession());
-
-       if (tSocket == null) {
-           return false;
-       }
+        String session = cSocket.getBackendSession();
+
+        // 槽位不足时排队，获得槽位后在透传线程池中建立透传
+        AdmissionEnum admission = transmitScheduler.admit(session,
+                () -> submitQueuedTransmit(cSocket),
+                reason -> {
+                    admissionService.shed(cSocket, reason);
+                    cSocket.finish();
+                });
 
-       return submitC2PSTransmitTask(cSocket, tSocket) && submitPS2CTransmitTask(tSocket, cSocket);
+        switch (admission) {
+            case ADMITTED:
+                if (startTransmit(cSocket)) return true;
+                transmitScheduler.release(session);
+                return false;
+            case QUEUED:
+                return true;
+            default:
+                admissionService.recordShed(ShedReasonEnum.QUEUE_FULL);
+                return false;
+        }
     }
 
     @Override
     public void close(String session) {
         if (workingStatus == WorkingStatusEnum.CLOSED) return;
 
+        transmitScheduler.remove(session);
+        bufferTuningService.remove(session);
+        compressionService.remove(session);
+        streamService.remove(session);
+
         LinkedBlockingQueue<BackendTransmitSocket> spareSocketQueue = SPARE_TRANSMIT_SOCKETS.get(session);
         if (spareSocketQueue != null) {
             spareSocketQueue.forEach(tSocket -> tSocket.closeUnchecked());
@@ -170,6 +275,7 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
         BUSY_TRANSMIT_SOCKETS.clear();
 
         transmitPool.shutdown();
+        stripePool.shutdown();
 
         workingStatus = WorkingStatusEnum.CLOSED;
         log.info("Shutdown BackendTransmitService gracefully");
@@ -181,7 +287,7 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
     }
 
     @Override
-    public void awareSocketCallback(Function2<String, Integer, Boolean> consumer) {
+    public void awareSocketCallback(Function3<String, Integer, String, Boolean> consumer) {
         this.awareSocketCallback = consumer;
     }
 
@@ -190,13 +296,103 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
         requireSocketCallback.accept(session, num);
     }
 
-    private boolean awareSocket(String session, int port) {
+    private boolean awareSocket(String session, int port, String serviceName) {
         if (unworkable()) return false;
-        return awareSocketCallback.apply(session, port);
+        return awareSocketCallback.apply(session, port, serviceName);
+    }
+
+    private void submitQueuedTransmit(ClientSocket cSocket) {
+        try {
+            transmitPool.execute(() -> {
+                if (!startTransmit(cSocket)) {
+                    transmitScheduler.release(cSocket.getBackendSession());
+                    admissionService.reject(cSocket);
+                    cSocket.finish();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            transmitScheduler.release(cSocket.getBackendSession());
+            admissionService.shed(cSocket, ShedReasonEnum.POOL_FULL);
+            cSocket.finish();
+        }
+    }
+
+    private boolean startTransmit(ClientSocket cSocket) {
+        if (unworkable()) return false;
+        LinkedBlockingQueue<BackendTransmitSocket> spareSockets = SPARE_TRANSMIT_SOCKETS.get(cSocket.getBackendSession());
+        boolean spare = spareSockets != null && !spareSockets.isEmpty();
+        long openAt = System.nanoTime();
+        BackendTransmitSocket tSocket = getTransmitSocket(cSocket.getBackendSession(), cSocket.getServiceName(), stripeService.paths(cSocket.getRequestPort()));
+
+        if (tSocket == null) {
+            return false;
+        }
+        tlsService.onOpen(System.nanoTime() - openAt, spare);
+
+        cSocket.setThrottle(rateLimitService.throttle(cSocket.getBackendSession(), cSocket.getRemoteIp()));
+
+        // 客户端连接按代理端口的配置档设置，复用的透传Socket只切换TCP_NODELAY
+        TransportProfileProperties profile = transportService.profile(cSocket.getRequestPort());
+        SocketOptions.apply(cSocket.getSocket(), profile);
+        SocketOptions.applyNoDelay(tSocket.getSocket(), profile);
+        // 按链路BDP调整透传Socket缓冲与单次读取大小
+        int readSize = bufferTuningService.apply(tSocket.getSocket(), tSocket.getBackendSession());
+        if (minecraftService.isEnabled(cSocket.getRequestPort())) cSocket.setMinecraftSession(minecraftService.newSession());
+
+        // 两个方向均结束后才归还Socket，避免残留的读线程抢读下一次连接的数据
+        AtomicInteger transmitting = new AtomicInteger(2);
+        if (!submitC2PSTransmitTask(cSocket, tSocket, transmitting, profile, readSize)) {
+            tSocket.closeUnchecked();
+            returnTransmitSocket(tSocket);
+            return false;
+        }
+        if (!submitPS2CTransmitTask(tSocket, cSocket, transmitting, profile, readSize)) {
+            tSocket.closeUnchecked();
+            return false;
+        }
+        return true;
+    }
+
+    // 获取Socket，透传Socket池按被代理端点共享，唤醒时指定需连接的服务；stripePaths大于1时拆分到多条透传Socket
+    private BackendTransmitSocket getTransmitSocket(String session, String serviceName, int stripePaths) {
+        BackendTransmitSocket tSocket = pollTransmitSocket(session, serviceName);
+        if (tSocket == null) return null;
+
+        // 流id随Ping下发，Pong之后该Socket按帧传输；可恢复透传流与条带不叠加，可恢复优先
+        ResumableStream resumable = streamService.isEnabled(session) ? streamService.open(session, tSocket.getSocket()) : null;
+        StripedStream striped = resumable == null && stripePaths > 1 ? stripeService.open() : null;
+        String ping = BackendCommunicationService.TSPING
+                + (resumable == null ? "" : MessageUtil.option("stream", resumable.getId()))
+                + (striped == null ? "" : MessageUtil.option("stripe", striped.getId()) + MessageUtil.option("path", 0));
+
+        long rtt = ping(tSocket, session, ping, resumable != null || striped != null);
+        if (rtt < 0) {
+            if (resumable != null) resumable.close();
+            if (striped != null) striped.close();
+            tSocket.closeUnchecked();
+            return getTransmitSocket(session, serviceName, stripePaths);
+        }
+
+        if (striped != null) {
+            striped.addPath(tSocket.getSocket(), rtt);
+            tSocket.setStream(striped);
+            extendStripe(striped, session, serviceName, stripePaths);
+        } else {
+            tSocket.setStream(resumable);
+        }
+
+        LinkedList<BackendTransmitSocket> busySockets = BUSY_TRANSMIT_SOCKETS.get(session);
+        if (busySockets != null) {
+            synchronized (busySockets) {
+                busySockets.add(tSocket);
+            }
+        }
+
+        return tSocket;
     }
 
-    // 获取Socket
-    private BackendTransmitSocket getTransmitSocket(String session) {
+    // 从池中取出透传Socket并唤醒
+    private BackendTransmitSocket pollTransmitSocket(String session, String serviceName) {
         if (unworkable()) return null;
 
         int retry = 0;
@@ -228,36 +424,73 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
             }
         }
 
-        if (tSocket == null && retry == 3) {
+        if (tSocket == null) {
             log.warn("BackendTransmitSocket(session: {}) not available!", session);
+            return null;
         }
 
-        if (!awareSocket(session, tSocket.getOriginalPort())) {
+        if (!awareSocket(session, tSocket.getOriginalPort(), serviceName)) {
             tSocket.closeUnchecked();
+            return null;
         }
+        return tSocket;
+    }
 
-        tSocket.writeUnchecked(BackendCommunicationService.TSPING);
+    // 发送Ping并等待Pong，返回往返时延，失败返回-1
+    private long ping(BackendTransmitSocket tSocket, String session, String ping, boolean framed) {
+        long pingAt = System.nanoTime();
+        tSocket.writeUnchecked(ping);
 
         try {
-            if (!tSocket.readString().equals(BackendCommunicationService.TSPONG)) {
-                return getTransmitSocket(session);
-            }
+            // Pong超时视为失效Socket，避免代理监听线程永久阻塞
+            tSocket.getSocket().setSoTimeout(PONG_TIMEOUT);
+            // 流模式下Pong后紧跟数据帧，只读取Pong本身
+            String pong = !framed ? tSocket.readString()
+                    : new String(tSocket.getSocket().getInputStream().readNBytes(PONG_BYTES.length), StandardCharsets.UTF_8);
+            tSocket.getSocket().setSoTimeout(0);
+            if (!BackendCommunicationService.TSPONG.equals(pong)) return -1;
         } catch (IOException e) {
-            logError("Pong not received Error");
-            e.printStackTrace();
-            return getTransmitSocket(session);
+            logError("Pong not received Error: {}", e.getMessage());
+            return -1;
         }
 
-        if (tSocket != null) {
-            BUSY_TRANSMIT_SOCKETS.get(session).add(tSocket);
-        }
+        long rtt = System.nanoTime() - pingAt;
+        bufferTuningService.onRtt(session, rtt);
+        return rtt;
+    }
 
-        return tSocket;
+    // 条带的其余路径异步获取，取不到时以已有路径传输
+    private void extendStripe(StripedStream stream, String session, String serviceName, int paths) {
+        stripePool.execute(() -> {
+            for (int index = 1; index < paths && !stream.isClosed() && !unworkable(); ++index) {
+                BackendTransmitSocket tSocket = pollTransmitSocket(session, serviceName);
+                if (tSocket == null) return;
+                long rtt = ping(tSocket, session, BackendCommunicationService.TSPING
+                        + MessageUtil.option("stripe", stream.getId()) + MessageUtil.option("path", index), true);
+                if (rtt < 0 || !stream.addPath(tSocket.getSocket(), rtt)) {
+                    tSocket.closeUnchecked();
+                    return;
+                }
+            }
+        });
     }
 
     // 归还Socket
     private void returnTransmitSocket(BackendTransmitSocket tSocket) {
-        BUSY_TRANSMIT_SOCKETS.get(tSocket.getBackendSession()).remove(tSocket);
+        LinkedList<BackendTransmitSocket> busySockets = BUSY_TRANSMIT_SOCKETS.get(tSocket.getBackendSession());
+        if (busySockets != null) {
+            synchronized (busySockets) {
+                busySockets.remove(tSocket);
+            }
+        }
+
+        // 分帧流结束后关闭其透传Socket，不回收
+        TunnelStream stream = tSocket.getStream();
+        if (stream != null) {
+            stream.finish();
+            tSocket.closeUnchecked();
+            return;
+        }
 
         if (unworkable() || !tSocket.isAlive()) {
             tSocket.closeUnchecked();
@@ -266,18 +499,36 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
 
         if (tSocket != null && !tSocket.isClosed() && tSocket.isAlive()) {
             if (log.isDebugEnabled()) log.debug("BackendTransmitSocket(session: {}, ip: {}) recircled", tSocket.getBackendSession(), tSocket.getRemoteSocketAddress().toString());
-            SPARE_TRANSMIT_SOCKETS.get(tSocket.getBackendSession()).add(tSocket);
+            LinkedBlockingQueue<BackendTransmitSocket> spareSockets = SPARE_TRANSMIT_SOCKETS.get(tSocket.getBackendSession());
+            if (spareSockets == null) {
+                tSocket.closeUnchecked();
+                return;
+            }
+            spareSockets.add(tSocket);
         }
     }
 
-    private boolean submitC2PSTransmitTask(ClientSocket cSocket, BackendTransmitSocket psSocket) {
+    private void releaseTransmitSocket(BackendTransmitSocket tSocket, AtomicInteger transmitting) {
+        if (transmitting.decrementAndGet() == 0) {
+            returnTransmitSocket(tSocket);
+            transmitScheduler.release(tSocket.getBackendSession());
+        }
+    }
+
+    private boolean submitC2PSTransmitTask(ClientSocket cSocket, BackendTransmitSocket psSocket, AtomicInteger transmitting, TransportProfileProperties profile, int readSize) {
         try {
             transmitPool.submit(() -> {
                 if (log.isDebugEnabled()) log.debug("ClientSocket-C2PS(session: {}; ip: {}) Start transmit in (port: {}; remote ip: {})", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString(), psSocket.getLocalPort(), psSocket.getRemoteSocketAddress().toString());
+                RelaySource source = newSource(cSocket, null, profile, readSize);
+                TransferMeter meter = new TransferMeter();
+                PacketFramer framer = cSocket.getMinecraftSession() == null ? null : minecraftService.newFramer(cSocket.getMinecraftSession(), false);
+                FrameEncoder encoder = compressionService.newEncoder(psSocket.getBackendSession());
+                // 分帧或压缩异常时透传Socket中的帧状态未知，不再归还复用
+                boolean broken = false;
                 while (!cSocket.isClosed() && !psSocket.isClosed()) {
                     byte[] buffer = null;
                     try {
-                        buffer = cSocket.read();
+                        buffer = source.read();
                     } catch (IOException e) {
                         log.info("ClientSocket-C2PS(session: {}; ip: {}) Connection interrupt; (Error: {})", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString(), e.getMessage());
                         break;
@@ -293,16 +544,49 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
                         break;
                     }
 
-                    if (!psSocket.writeUnchecked(buffer) && !unworkable()) {
+                    int charged = buffer.length;
+                    PacketBatch batch;
+                    byte[] payload;
+                    try {
+                        // Minecraft分帧：只写出完整的包
+                        batch = framer == null ? null : framer.feed(buffer);
+                        if (batch != null) buffer = batch.bytes();
+                        payload = encoder == null || buffer.length == 0 ? buffer : encoder.encode(buffer);
+                    } catch (RuntimeException e) {
+                        log.warn("ClientSocket-C2PS(session: {}; ip: {}) Malformed data, connection will be close; (Error: {})", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString(), e.toString());
+                        broken = true;
+                        break;
+                    }
+
+                    Throttle throttle = cSocket.getThrottle();
+                    if (throttle != null) throttle.acquire(buffer.length, batch != null && batch.priority());
+
+                    if (buffer.length > 0 && !psSocket.writeUnchecked(payload) && !unworkable()) {
                         if (!psSocket.isPositiveClosed())
                             logError("BackendTransmitSocket-C2PS(session: {}; ip: {}) Connection interrupt;", psSocket.getBackendSession(), psSocket.getRemoteSocketAddress().toString());
                         break;
                     }
+                    if (batch != null) minecraftService.onWritten(batch);
+                    meter.record(charged);
+                    source.release(charged);
                 }
 
+                source.close();
+                bufferTuningService.onTransfer(psSocket.getBackendSession(), meter, readSize > 0);
                 cSocket.closeUnchecked();
-                psSocket.writeUnchecked(BackendCommunicationService.CLIENT_CLOSED);
-                returnTransmitSocket(psSocket);
+                if (framer != null) {
+                    // 暂存的不完整包原样写出
+                    byte[] rest = framer.drain();
+                    if (!broken && rest.length > 0) psSocket.writeUnchecked(encoder == null ? rest : encoder.encode(rest));
+                    framer.close();
+                }
+                if (encoder != null) encoder.close();
+                if (broken) {
+                    psSocket.closeUnchecked();
+                } else {
+                    psSocket.writeUnchecked(BackendCommunicationService.CLIENT_CLOSED);
+                }
+                releaseTransmitSocket(psSocket, transmitting);
                 log.info("ClientSocket-C2PS(session: {}; ip: {}) Connection closed", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString());
             });
         }catch (RejectedExecutionException e) {
@@ -311,38 +595,101 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
         return true;
     }
 
-    private boolean submitPS2CTransmitTask(BackendTransmitSocket psSocket, ClientSocket cSocket) {
+    private boolean submitPS2CTransmitTask(BackendTransmitSocket psSocket, ClientSocket cSocket, AtomicInteger transmitting, TransportProfileProperties profile, int readSize) {
         try {
             transmitPool.submit(() -> {
-              while (!cSocket.isClosed() && !psSocket.isClosed()) {
+                // 客户端关闭后仍需读至“Server Closed”，保证归还时透传Socket中无残留数据
+                RelaySource source = newSource(psSocket, SERVER_CLOSED_BYTES, profile, readSize);
+                TransferMeter meter = new TransferMeter();
+                MinecraftSession minecraftSession = cSocket.getMinecraftSession();
+                PacketFramer framer = minecraftSession == null ? null : minecraftService.newFramer(minecraftSession, true);
+                FrameDecoder decoder = compressionService.newDecoder(psSocket.getBackendSession(), SERVER_CLOSED_BYTES);
+                while (!psSocket.isClosed()) {
                     byte[] buffer = null;
+                    // 在途额度按透传Socket上读出的字节计
+                    int charged = 0;
                     try {
-                        buffer = psSocket.read();
+                        buffer = source.read();
+                        if (buffer != null) {
+                            charged = buffer.length;
+                            if (decoder != null) buffer = decoder.decode(buffer);
+                        }
                     } catch (IOException e) {
                         if (!psSocket.isPositiveClosed())
                             logError("BackendTransmitSocket-PS2C(session: {}; ip: {}) Connection interrupt; (Error: {})", psSocket.getBackendSession(), psSocket.getRemoteSocketAddress().toString(), e.getMessage());
+                        psSocket.closeUnchecked();
+                        break;
+                    }
+
+                    if (buffer == null) {
+                        psSocket.closeUnchecked();
                         break;
                     }
 
+                    meter.record(charged);
+
                     if (log.isDebugEnabled()) {
                         String msg = bytesToString(buffer);
                         log.debug("ClientSocket-PS2C(session: {}; ip: {}) Returned: \n {}", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString(), msg);
                     }
 
-                    if (bytesToString(buffer).equals(BackendCommunicationService.SERVER_CLOSED)) {
-                        break;
+                    // 结束标识可能与末尾数据粘连
+                    boolean serverClosed = endsWith(buffer, SERVER_CLOSED_BYTES);
+                    if (serverClosed) {
+                        buffer = Arrays.copyOf(buffer, buffer.length - SERVER_CLOSED_BYTES.length);
+                    }
+
+                    ResponseFilter responseFilter = cSocket.getResponseFilter();
+                    if (responseFilter != null) {
+                        buffer = responseFilter.filter(buffer);
+                        if (serverClosed) buffer = concat(buffer, responseFilter.flush());
                     }
 
+                    // Minecraft分帧：只写出完整的包，结束时暂存的不完整包原样写出
+                    PacketBatch batch;
                     try {
-                        cSocket.write(buffer);
-                    } catch (IOException e) {
-                        if (log.isDebugEnabled())
-                            log.debug("ClientSocket-PS2C(session: {}; ip: {}) Closed", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString());
+                        batch = framer == null ? null : framer.feed(buffer);
+                    } catch (RuntimeException e) {
+                        log.warn("ClientSocket-PS2C(session: {}; ip: {}) Malformed data, connection will be close; (Error: {})", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString(), e.toString());
+                        // 未读到结束标识，透传Socket不能归还
+                        psSocket.closeUnchecked();
                         break;
                     }
+                    if (batch != null) {
+                        buffer = batch.bytes();
+                        if (serverClosed) buffer = concat(buffer, framer.drain());
+                    }
+
+                    if (buffer.length > 0 && !cSocket.isClosed()) {
+                        Throttle throttle = cSocket.getThrottle();
+                        if (throttle != null) throttle.acquire(buffer.length, batch != null && batch.priority());
+                        try {
+                            cSocket.write(buffer);
+                        } catch (IOException e) {
+                            if (log.isDebugEnabled())
+                                log.debug("ClientSocket-PS2C(session: {}; ip: {}) Closed", cSocket.getSession(), cSocket.getRemoteSocketAddress().toString());
+                            cSocket.closeUnchecked();
+                        }
+                    }
+                    if (batch != null) minecraftService.onWritten(batch);
+
+                    if (serverClosed) {
+                        break;
+                    }
+                    source.release(charged);
                 }
 
+                source.close();
+                bufferTuningService.onTransfer(psSocket.getBackendSession(), meter, readSize > 0);
+                if (cSocket.getResponseFilter() != null) cSocket.getResponseFilter().close();
+                if (framer != null) {
+                    framer.close();
+                    minecraftService.onClosed(minecraftSession);
+                }
+                if (decoder != null) decoder.close();
                 cSocket.closeUnchecked();
+                cSocket.finish();
+                releaseTransmitSocket(psSocket, transmitting);
             });
         }catch (RejectedExecutionException e) {
             return false;
@@ -350,6 +697,41 @@ public class BackendTransmitServiceImpl implements BackendTransmitService {
         return true;
     }
 
+    // 创建透传方向的数据来源，流水线模式下读线程提交失败则退回同步读取；配置档开启合并时包装合并写出
+    private RelaySource newSource(CommonSocket socket, byte[] endMarker, TransportProfileProperties profile, int readSize) {
+        RelaySource source = newSource(socket, endMarker, readSize);
+        if (profile.getCoalesceMicros() <= 0) return source;
+        return new CoalescingSource(source, profile.getCoalesceMicros(), profile.getCoalesceBytes(), endMarker);
+    }
+
+    private RelaySource newSource(CommonSocket socket, byte[] endMarker, int readSize) {
+        FlowWindow window = memoryService.newWindow();
+        RelayProperties relay = turnProperties.getRelay();
+        if (relay.getPipelined()) {
+            int slotSize = readSize > 0 ? readSize : relay.getSlotSize();
+            PipelinedSource source = new PipelinedSource(socket, window, new SpscRing(relay.getRingSlots(), slotSize), endMarker);
+            try {
+                transmitPool.execute(source);
+                return source;
+            } catch (RejectedExecutionException e) {
+                log.warn("Transmit pool full, pipelined relay falls back to direct read");
+            }
+        }
+        return new DirectSource(socket, window, readSize);
+    }
+
+    private byte[] concat(byte[] a, byte[] b) {
+        if (b.length == 0) return a;
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private boolean endsWith(byte[] bytes, byte[] suffix) {
+        if (bytes.length < suffix.length) return false;
+        return Arrays.equals(bytes, bytes.length - suffix.length, bytes.length, suffix, 0, suffix.length);
+    }
+
     private String bytesToString(byte[] bytes) {
         return new String(bytes, StandardCharsets.UTF_8);
     }
@@ -0,0 +1,116 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.BufferTuningProperties;
+import com.fate.nat_traversal.config.TransportProfileProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.relay.BdpEstimator;
+import com.fate.nat_traversal.relay.BufferTuningStats;
+import com.fate.nat_traversal.relay.TransferMeter;
+import com.fate.nat_traversal.service.BufferTuningService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author fate
+ * @date 2025/12/28 20:30
+ *
+ * 透传Socket缓冲自动调整：
+ *  1. 缓冲 = clamp(BDP * gain, minBufferSize, maxBufferSize)，BDP = 平滑RTT * 窗口内最大吞吐
+ *  2. 透传Socket复用，每次透传开始时按最新估算重新设置；单次读取大小随之调整
+ *  3. 传输开始时是否已调整决定吞吐计入调整前还是调整后
+ */
+@Slf4j
+@Service
+public class BufferTuningServiceImpl implements BufferTuningService {
+
+    // 被代理端点session-链路估算
+    private static final Map<String, BdpEstimator> ESTIMATORS = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public void onRtt(String session, long nanos) {
+        if (!turnProperties.getTuning().getEnabled()) return;
+        estimator(session).onRtt(nanos);
+    }
+
+    @Override
+    public void onTransfer(String session, TransferMeter meter, boolean tuned) {
+        BufferTuningProperties tuning = turnProperties.getTuning();
+        if (!tuning.getEnabled() || meter.getBytes() < tuning.getSampleBytes()) return;
+        estimator(session).onTransfer(meter.getBytes(), meter.getNanos(), tuned);
+    }
+
+    @Override
+    public int apply(Socket socket, String session) {
+        BufferTuningProperties tuning = turnProperties.getTuning();
+        if (!tuning.getEnabled()) return 0;
+
+        // 配置档显式指定的缓冲优先
+        TransportProfileProperties profile = turnProperties.getTransport().get(null);
+        if (profile.getSendBufferSize() > 0 || profile.getReceiveBufferSize() > 0) return 0;
+
+        BdpEstimator estimator = ESTIMATORS.get(session);
+        int size = estimator == null ? 0 : bufferSize(estimator, tuning);
+        if (size <= 0) return 0;
+        try {
+            socket.setSendBufferSize(size);
+            socket.setReceiveBufferSize(size);
+        } catch (SocketException e) {
+            log.warn("Tune socket buffer failed: {}", e.getMessage());
+            return 0;
+        }
+        return readSize(size, tuning);
+    }
+
+    @Override
+    public void remove(String session) {
+        ESTIMATORS.remove(session);
+    }
+
+    @Override
+    public List<BufferTuningStats> getStats() {
+        BufferTuningProperties tuning = turnProperties.getTuning();
+        List<BufferTuningStats> stats = new ArrayList<>();
+        ESTIMATORS.forEach((session, estimator) -> {
+            int size = bufferSize(estimator, tuning);
+            stats.add(BufferTuningStats.builder()
+                    .session(session)
+                    .rttMillis(estimator.getRttMillis())
+                    .maxThroughput(estimator.getMaxThroughput())
+                    .bdp(estimator.bdp())
+                    .bufferSize(size)
+                    .readSize(readSize(size, tuning))
+                    .baselineThroughput(estimator.getBaselineThroughput())
+                    .baselineTransfers(estimator.getBaselineTransfers())
+                    .tunedThroughput(estimator.getTunedThroughput())
+                    .tunedTransfers(estimator.getTunedTransfers())
+                    .build());
+        });
+        return stats;
+    }
+
+    private BdpEstimator estimator(String session) {
+        return ESTIMATORS.computeIfAbsent(session, key -> new BdpEstimator(turnProperties.getTuning().getRateWindow()));
+    }
+
+    private int bufferSize(BdpEstimator estimator, BufferTuningProperties tuning) {
+        long bdp = estimator.bdp();
+        if (bdp <= 0) return 0;
+        long size = (long) (bdp * tuning.getGain());
+        return (int) Math.min(Math.max(size, tuning.getMinBufferSize()), tuning.getMaxBufferSize());
+    }
+
+    private int readSize(int bufferSize, BufferTuningProperties tuning) {
+        return bufferSize <= 0 ? 0 : Math.min(bufferSize, tuning.getMaxReadBytes());
+    }
+}
@@ -0,0 +1,518 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.cluster.ClusterMember;
+import com.fate.nat_traversal.cluster.ClusterRoute;
+import com.fate.nat_traversal.cluster.ClusterStats;
+import com.fate.nat_traversal.cluster.ClusterStore;
+import com.fate.nat_traversal.cluster.HashRing;
+import com.fate.nat_traversal.config.ClusterProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.exception.ProxyServerStartErrorException;
+import com.fate.nat_traversal.service.ClusterService;
+import com.fate.nat_traversal.service.IoEngineService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.util.ConcurrentWriteSocket;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+import static com.fate.nat_traversal.service.BackendCommunicationService.*;
+
+/**
+ * @author fate
+ * @date 2026/01/10 20:30
+ *
+ * 集群：
+ *  1. 节点在独立的节点间端口上每轮随机选取fanout个节点（及配置的种子节点）做push-pull gossip，交换存活成员与各成员的全部路由
+ *  2. 成员心跳与路由版本由成员自身递增，收到更新的心跳即刷新存活时间，超过failTimeout未刷新的节点移出哈希环并删除其路由；
+ *     正常关闭的节点发送left通知，其他节点立即移除
+ *  3. 首个服务注册时按键确定归属节点，不归属本节点则回复重定向，被代理端点改连归属节点；已注册的会话与追加的服务不迁移，
+ *     节点加入或离开只改变约 1/N 的键的归属，且已有路由的键仍留在原节点
+ *  4. 成员随gossip发布经节点间链路测得的往返时间，按此选择直连或经一个中转节点到达目标节点（见RelayLinkService）
+ */
+@Slf4j
+@Service
+public class ClusterServiceImpl implements ClusterService {
+
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private static final int READ_TIMEOUT = 2000;
+
+    // 节点id-成员（含本节点），集群状态均属于节点实例，同一JVM中可运行多个节点
+    private final Map<String, ClusterMember> members = new ConcurrentHashMap<>();
+
+    // 本节点路由：代理端口-路由
+    private final Map<Integer, ClusterRoute> localRoutes = new ConcurrentHashMap<>();
+
+    private ClusterMember self;
+
+    private HashRing ring;
+
+    private ServerSocket clusterSocket;
+
+    // 本节点到其他节点的往返时间（毫秒），即self.rtts
+    private final Map<String, Double> rtts = new ConcurrentHashMap<>();
+
+    private IntSupplier loadSupplier = () -> 0;
+
+    // 未启用节点间链路时直接关闭
+    private BiConsumer<Socket, String> linkConsumer = (socket, node) -> close(socket);
+
+    private Runnable routesRunnable = () -> {};
+
+    private final LongAdder gossipRounds = new LongAdder();
+    private final LongAdder gossipFailures = new LongAdder();
+    private final LongAdder redirects = new LongAdder();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private ClusterStore store;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @Autowired
+    private IoEngineService ioEngineService;
+
+    @PostConstruct
+    private void init() {
+        ClusterProperties cluster = turnProperties.getCluster();
+        if (!cluster.getEnabled()) return;
+
+        String host = cluster.getAdvertisedHost();
+        if (host == null || host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostAddress();
+            } catch (IOException e) {
+                host = InetAddress.getLoopbackAddress().getHostAddress();
+            }
+        }
+        String id = cluster.getNodeId() == null || cluster.getNodeId().isBlank() ? host + ":" + turnProperties.getRegPort() : cluster.getNodeId();
+
+        self = new ClusterMember(id);
+        self.setHost(host);
+        self.setPort(turnProperties.getRegPort());
+        self.setClusterPort(cluster.getPort());
+        if (turnProperties.getVhost().isEnabled()) self.setVhostPorts(List.copyOf(turnProperties.getVhost().getPorts()));
+        self.setHeartbeat(System.currentTimeMillis());
+        self.setRoutesVersion(System.currentTimeMillis());
+        self.setRtts(rtts);
+        members.put(id, self);
+
+        ring = new HashRing(cluster.getVirtualNodes());
+        ring.add(id);
+
+        try {
+            clusterSocket = new ServerSocket();
+            clusterSocket.setReuseAddress(true);
+            clusterSocket.bind(new InetSocketAddress(cluster.getPort()));
+        } catch (IOException e) {
+            throw new ProxyServerStartErrorException("Cluster Listener(port: " + cluster.getPort() + ") Start Error");
+        }
+        Thread acceptor = new Thread(this::accept, "cluster");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        taskScheduler.submit(this::gossip, cluster.getGossipInterval(), cluster.getGossipInterval(), TimeUnit.MILLISECONDS);
+        log.info("Cluster node {} started, cluster port: {}, seeds: {}", id, cluster.getPort(), cluster.getSeeds());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return self != null;
+    }
+
+    @Override
+    public String redirect(String key) {
+        if (!isEnabled()) return null;
+
+        ClusterRoute route = store.get(key);
+        String node = route != null ? route.node() : ring.locate(key);
+        if (node == null || node.equals(self.getId())) return null;
+
+        ClusterMember owner = members.get(node);
+        if (owner == null || !owner.isAlive()) return null;
+        redirects.increment();
+        return owner.address();
+    }
+
+    @Override
+    public void publish(String key, int port, Set<String> hosts) {
+        if (!isEnabled()) return;
+        Set<String> normalized = hosts.stream().map(host -> host.trim().toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        localRoutes.put(port, new ClusterRoute(key, self.getId(), port, normalized));
+        routesChanged();
+    }
+
+    @Override
+    public void withdraw(int port) {
+        if (!isEnabled()) return;
+        if (localRoutes.remove(port) != null) routesChanged();
+    }
+
+    @Override
+    public ClusterMember self() {
+        return self;
+    }
+
+    @Override
+    public Collection<ClusterMember> peers() {
+        if (!isEnabled()) return List.of();
+        return members.values().stream().filter(member -> member != self && member.isAlive()).toList();
+    }
+
+    @Override
+    public ClusterMember peer(String node) {
+        if (!isEnabled() || node == null) return null;
+        ClusterMember member = members.get(node);
+        return member == null || member == self || !member.isAlive() ? null : member;
+    }
+
+    @Override
+    public ClusterRoute findByHost(String host) {
+        if (!isEnabled() || host == null) return null;
+        ClusterRoute route = store.findByHost(host.toLowerCase(Locale.ROOT));
+        return route == null || peer(route.node()) == null ? null : route;
+    }
+
+    @Override
+    public Collection<ClusterRoute> remoteRoutes() {
+        if (!isEnabled()) return List.of();
+        return store.all().stream().filter(route -> peer(route.node()) != null).toList();
+    }
+
+    @Override
+    public int vhostPort(String node, int vhostPort) {
+        ClusterMember owner = peer(node);
+        int index = self.getVhostPorts().indexOf(vhostPort);
+        return owner != null && index >= 0 && index < owner.getVhostPorts().size() ? owner.getVhostPorts().get(index) : vhostPort;
+    }
+
+    @Override
+    public boolean isLocalTarget(int port) {
+        return isEnabled() && (localRoutes.containsKey(port) || self.getVhostPorts().contains(port));
+    }
+
+    @Override
+    public void reportRtt(String node, double millis) {
+        if (peer(node) != null) rtts.put(node, Math.round(millis * 100) / 100.0);
+    }
+
+    @Override
+    public String nextHop(String node) {
+        ClusterMember target = peer(node);
+        if (target == null) return null;
+        Double direct = rtts.get(node);
+        if (direct == null) return node;
+
+        // 只考虑一个中转节点，中转节点总是直连目标，不会形成环路
+        String hop = node;
+        double best = direct * (1 - turnProperties.getCluster().getRelayMargin());
+        for (ClusterMember via : peers()) {
+            if (via == target) continue;
+            Double first = rtts.get(via.getId());
+            Double second = via.getRtts().get(node);
+            if (first == null || second == null || first + second >= best) continue;
+            hop = via.getId();
+            best = first + second;
+        }
+        return hop;
+    }
+
+    @Override
+    public void linkCallback(BiConsumer<Socket, String> consumer) {
+        this.linkConsumer = consumer;
+    }
+
+    @Override
+    public void routesCallback(Runnable runnable) {
+        this.routesRunnable = runnable;
+    }
+
+    @Override
+    public void loadCallback(IntSupplier supplier) {
+        this.loadSupplier = supplier;
+    }
+
+    @Override
+    public ClusterStats getStats() {
+        return ClusterStats.builder()
+                .enabled(isEnabled())
+                .nodeId(isEnabled() ? self.getId() : null)
+                .members(new ArrayList<>(members.values()))
+                .shares(isEnabled() ? ring.shares() : Map.of())
+                .routes(store.all())
+                .gossipRounds(gossipRounds.sum())
+                .gossipFailures(gossipFailures.sum())
+                .redirects(redirects.sum())
+                .build();
+    }
+
+    @Override
+    public void shutdown() {
+        if (!isEnabled() || clusterSocket.isClosed()) return;
+
+        // 通知其他节点立即移除本节点，未送达的由失效检测移除
+        self.setHeartbeat(Math.max(System.currentTimeMillis(), self.getHeartbeat() + 1));
+        String digest = digest(true);
+        members.values().stream()
+                .filter(member -> member != self && member.isAlive())
+                .forEach(member -> exchange(member.clusterAddress(), digest));
+
+        close(clusterSocket);
+        log.info("Cluster node {} left", self.getId());
+    }
+
+    private void routesChanged() {
+        synchronized (self) {
+            self.setRoutesVersion(Math.max(System.currentTimeMillis(), self.getRoutesVersion() + 1));
+            store.replace(self.getId(), localRoutes.values());
+        }
+    }
+
+    private void gossip() {
+        if (clusterSocket.isClosed()) return;
+        gossipRounds.increment();
+
+        ClusterProperties cluster = turnProperties.getCluster();
+        self.setHeartbeat(Math.max(System.currentTimeMillis(), self.getHeartbeat() + 1));
+        self.setLoad(turnProperties.getMaxServerProxy() <= 0 ? 1.0
+                : Math.min(1.0, (double) loadSupplier.getAsInt() / turnProperties.getMaxServerProxy()));
+        detectFailures();
+
+        List<String> peers = members.values().stream()
+                .filter(member -> member != self && member.isAlive())
+                .map(ClusterMember::clusterAddress)
+                .collect(Collectors.toList());
+        Collections.shuffle(peers);
+        Set<String> targets = new LinkedHashSet<>(peers.subList(0, Math.min(cluster.getFanout(), peers.size())));
+        // 种子节点尚未加入时持续尝试
+        if (peers.isEmpty()) targets.addAll(cluster.getSeeds());
+        targets.remove(self.clusterAddress());
+
+        String digest = digest(false);
+        targets.forEach(target -> exchange(target, digest));
+    }
+
+    private void detectFailures() {
+        long now = System.currentTimeMillis();
+        long failTimeout = turnProperties.getCluster().getFailTimeout();
+        boolean changed = false;
+        for (ClusterMember member : members.values()) {
+            if (member != self && member.isAlive() && now - member.getLastSeen() > failTimeout) {
+                remove(member, "failed");
+                changed = true;
+            }
+        }
+        if (changed) routesRunnable.run();
+    }
+
+    private void remove(ClusterMember member, String reason) {
+        synchronized (members) {
+            if (!member.isAlive()) return;
+            member.setAlive(false);
+            ring.remove(member.getId());
+            store.removeNode(member.getId());
+            rtts.remove(member.getId());
+        }
+        log.info("Cluster node {} {}, ring shares: {}", member.getId(), reason, ring.shares());
+    }
+
+    private void exchange(String address, String digest) {
+        int index = address.lastIndexOf(':');
+        if (index <= 0) return;
+        try (Socket socket = ioEngineService.newSocket()) {
+            socket.connect(new InetSocketAddress(address.substring(0, index), Integer.parseInt(address.substring(index + 1))), CONNECT_TIMEOUT);
+            socket.setSoTimeout(READ_TIMEOUT);
+            ConcurrentWriteSocket peer = new ConcurrentWriteSocket(socket);
+            peer.write(digest.getBytes(StandardCharsets.UTF_8));
+            merge(read(peer, peer.readString()));
+        } catch (IOException | RuntimeException e) {
+            gossipFailures.increment();
+            if (log.isDebugEnabled()) log.debug("Gossip with {} failed;(Exception: {})", address, e.getMessage());
+        }
+    }
+
+    private void accept() {
+        while (!clusterSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = clusterSocket.accept();
+            } catch (IOException e) {
+                continue;
+            }
+            // gossip消息很小，直接在accept线程处理，读超时限制单个节点的占用
+            boolean linked = false;
+            try {
+                socket.setSoTimeout(READ_TIMEOUT);
+                ConcurrentWriteSocket peer = new ConcurrentWriteSocket(socket);
+                String header = peer.readString();
+                // 发起方在收到应答前不发送帧，缓冲中不会有多读的数据
+                if (header != null && header.startsWith(CLUSTER_LINK)) {
+                    linked = true;
+                    linkConsumer.accept(socket, header.substring(CLUSTER_LINK.length()));
+                    continue;
+                }
+                merge(read(peer, header));
+                peer.write(digest(false).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                if (log.isDebugEnabled()) log.debug("Gossip from {} failed;(Exception: {})", socket.getRemoteSocketAddress(), e.getMessage());
+            } finally {
+                if (!linked) close(socket);
+            }
+        }
+    }
+
+    // 本节点视角的存活成员及其路由
+    private String digest(boolean left) {
+        StringBuilder digest = new StringBuilder(CLUSTER_GOSSIP + self.getId() + "\n");
+        members.values().forEach(member -> {
+            if (member != self && !member.isAlive()) return;
+            digest.append(CLUSTER_MEMBER).append(member.getId())
+                    .append(MessageUtil.option("host", member.getHost()))
+                    .append(MessageUtil.option("port", member.getPort()))
+                    .append(MessageUtil.option("cluster-port", member.getClusterPort()))
+                    .append(MessageUtil.option("heartbeat", member.getHeartbeat()))
+                    .append(MessageUtil.option("routes-version", member.getRoutesVersion()))
+                    .append(MessageUtil.option("load", member.getLoad()))
+                    .append(member.getVhostPorts().isEmpty() ? "" : MessageUtil.option("vhost-ports",
+                            member.getVhostPorts().stream().map(String::valueOf).collect(Collectors.joining(","))))
+                    .append(member.getRtts().isEmpty() ? "" : MessageUtil.option("rtt", member.getRtts().entrySet().stream()
+                            .map(rtt -> rtt.getKey() + "=" + rtt.getValue()).collect(Collectors.joining(","))))
+                    .append(member == self && left ? MessageUtil.option("left", true) : "")
+                    .append('\n');
+            for (ClusterRoute route : member == self ? localRoutes.values() : store.routes(member.getId())) {
+                digest.append(CLUSTER_ROUTE).append(route.key())
+                        .append(MessageUtil.option("port", route.port()))
+                        .append(route.hosts().isEmpty() ? "" : MessageUtil.option("hosts", String.join(",", route.hosts())))
+                        .append('\n');
+            }
+        });
+        return digest.append(CLUSTER_END).append('\n').toString();
+    }
+
+    private List<MemberDigest> read(ConcurrentWriteSocket peer, String header) throws IOException {
+        if (header == null || !header.startsWith(CLUSTER_GOSSIP)) throw new IOException("Unexpected gossip: " + header);
+
+        List<MemberDigest> digests = new ArrayList<>();
+        MemberDigest current = null;
+        String line;
+        while ((line = peer.readString()) != null && !line.equals(CLUSTER_END)) {
+            if (line.startsWith(CLUSTER_MEMBER)) {
+                String body = line.substring(CLUSTER_MEMBER.length());
+                Map<String, String> options = MessageUtil.options(body);
+                ClusterMember member = new ClusterMember(MessageUtil.head(body));
+                member.setHost(options.get("host"));
+                member.setPort(Integer.parseInt(options.get("port")));
+                member.setClusterPort(Integer.parseInt(options.get("cluster-port")));
+                member.setHeartbeat(Long.parseLong(options.get("heartbeat")));
+                member.setRoutesVersion(Long.parseLong(options.get("routes-version")));
+                member.setLoad(Double.parseDouble(options.getOrDefault("load", "0")));
+                if (options.containsKey("vhost-ports")) {
+                    member.setVhostPorts(Arrays.stream(options.get("vhost-ports").split(",")).map(Integer::valueOf).toList());
+                }
+                if (options.containsKey("rtt")) {
+                    Map<String, Double> measured = new HashMap<>();
+                    for (String rtt : options.get("rtt").split(",")) {
+                        int index = rtt.lastIndexOf('=');
+                        if (index > 0) measured.put(rtt.substring(0, index), Double.parseDouble(rtt.substring(index + 1)));
+                    }
+                    member.setRtts(measured);
+                }
+                current = new MemberDigest(member, "true".equals(options.get("left")), new ArrayList<>());
+                digests.add(current);
+            } else if (line.startsWith(CLUSTER_ROUTE) && current != null) {
+                String body = line.substring(CLUSTER_ROUTE.length());
+                Map<String, String> options = MessageUtil.options(body);
+                String hosts = options.get("hosts");
+                current.routes().add(new ClusterRoute(MessageUtil.head(body), current.member().getId(),
+                        Integer.parseInt(options.get("port")), hosts == null ? Set.of() : Set.of(hosts.split(","))));
+            }
+        }
+        return digests;
+    }
+
+    private void merge(List<MemberDigest> digests) {
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        for (MemberDigest digest : digests) {
+            ClusterMember incoming = digest.member();
+            if (incoming.getId().equals(self.getId())) continue;
+
+            synchronized (members) {
+                ClusterMember known = members.computeIfAbsent(incoming.getId(), id -> {
+                    ClusterMember member = new ClusterMember(id);
+                    member.setAlive(false);
+                    member.setHeartbeat(-1);
+                    member.setRoutesVersion(-1);
+                    return member;
+                });
+
+                if (incoming.getHeartbeat() > known.getHeartbeat()) {
+                    known.setHost(incoming.getHost());
+                    known.setPort(incoming.getPort());
+                    known.setClusterPort(incoming.getClusterPort());
+                    known.setVhostPorts(incoming.getVhostPorts());
+                    known.setHeartbeat(incoming.getHeartbeat());
+                    known.setLoad(incoming.getLoad());
+                    known.setRtts(incoming.getRtts());
+                    known.setLastSeen(now);
+                    if (digest.left()) {
+                        remove(known, "left");
+                        changed = true;
+                        continue;
+                    }
+                    if (!known.isAlive()) {
+                        known.setAlive(true);
+                        ring.add(known.getId());
+                        changed = true;
+                        log.info("Cluster node {} joined at {}, ring shares: {}", known.getId(), known.address(), ring.shares());
+                    }
+                }
+
+                if (known.isAlive() && incoming.getRoutesVersion() > known.getRoutesVersion()) {
+                    known.setRoutesVersion(incoming.getRoutesVersion());
+                    store.replace(known.getId(), digest.routes());
+                    changed = true;
+                }
+            }
+        }
+        if (changed) routesRunnable.run();
+    }
+
+    private void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {}
+    }
+
+    private record MemberDigest(ClusterMember member, boolean left, List<ClusterRoute> routes) {}
+}
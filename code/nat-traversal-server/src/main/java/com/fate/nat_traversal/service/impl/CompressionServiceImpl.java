@@ -0,0 +1,99 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.compress.CompressionMeter;
+import com.fate.nat_traversal.compress.CompressionStats;
+import com.fate.nat_traversal.compress.FrameDecoder;
+import com.fate.nat_traversal.compress.FrameEncoder;
+import com.fate.nat_traversal.config.CompressionProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+import com.fate.nat_traversal.service.CompressionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author fate
+ * @date 2025/12/30 20:30
+ *
+ * 透传流压缩：
+ *  1. 被代理端点注册时携带支持的算法，按本端codecs顺序选取第一个双方都支持的算法
+ *  2. 透传Socket按被代理端点共享，协商结果对该端点的所有透传生效，每次透传各自建立压缩上下文
+ *  3. 压缩比与CPU耗时按被代理端点累计
+ */
+@Slf4j
+@Service
+public class CompressionServiceImpl implements CompressionService {
+
+    // 被代理端点session-协商的算法
+    private static final Map<String, CompressionCodecEnum> CODECS = new ConcurrentHashMap<>();
+
+    // 被代理端点session-压缩计量
+    private static final Map<String, CompressionMeter> METERS = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public String negotiate(String session, String offered) {
+        CompressionProperties compression = turnProperties.getCompression();
+        if (!compression.getEnabled() || offered == null || offered.isBlank()) return null;
+
+        Set<CompressionCodecEnum> supported = new HashSet<>();
+        for (String name : offered.split(",")) {
+            CompressionCodecEnum codec = CompressionCodecEnum.parse(name);
+            if (codec != null) supported.add(codec);
+        }
+        for (CompressionCodecEnum codec : compression.getCodecs()) {
+            if (supported.contains(codec)) {
+                CODECS.put(session, codec);
+                METERS.put(session, new CompressionMeter());
+                log.info("Backend(session: {}) transmit compression: {}", session, codec.name().toLowerCase());
+                return codec.name().toLowerCase();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public FrameEncoder newEncoder(String session) {
+        CompressionCodecEnum codec = CODECS.get(session);
+        CompressionMeter meter = METERS.get(session);
+        if (codec == null || meter == null) return null;
+        return new FrameEncoder(codec, turnProperties.getCompression(), meter);
+    }
+
+    @Override
+    public FrameDecoder newDecoder(String session, byte[] endMarker) {
+        CompressionMeter meter = METERS.get(session);
+        if (!CODECS.containsKey(session) || meter == null) return null;
+        return new FrameDecoder(endMarker, meter);
+    }
+
+    @Override
+    public void remove(String session) {
+        CODECS.remove(session);
+        METERS.remove(session);
+    }
+
+    @Override
+    public List<CompressionStats> getStats() {
+        List<CompressionStats> stats = new ArrayList<>();
+        CODECS.forEach((session, codec) -> {
+            CompressionMeter meter = METERS.get(session);
+            if (meter == null) return;
+            stats.add(meter.stats()
+                    .session(session)
+                    .codec(codec.name().toLowerCase())
+                    .build());
+        });
+        return stats;
+    }
+}
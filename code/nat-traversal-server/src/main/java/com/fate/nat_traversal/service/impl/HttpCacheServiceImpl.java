@@ -0,0 +1,232 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.cache.*;
+import com.fate.nat_traversal.config.HttpCacheProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.model.ClientSocket;
+import com.fate.nat_traversal.service.HttpCacheService;
+import com.fate.nat_traversal.service.MemoryService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2025/12/21 20:30
+ *
+ * HTTP边缘缓存：
+ *  1. 仅缓存无请求体、无Authorization/Range的GET请求的200响应，需有Content-Length
+ *     携带Cookie的请求仅使用与写入声明了Cache-Control: public的响应，其余直接透传
+ *  2. 遵循Cache-Control（no-store/private/no-cache/max-age/s-maxage）与Expires
+ *  3. 过期且带ETag的缓存，转发请求时追加If-None-Match，后端返回304则以缓存响应客户端
+ *  4. 命中的连接保持keep-alive继续处理后续请求，首个未命中请求起转为普通透传
+ */
+@Slf4j
+@Service
+public class HttpCacheServiceImpl implements HttpCacheService {
+
+    // 启用缓存的代理端口
+    private static final Set<Integer> ENABLED_PORTS = ConcurrentHashMap.newKeySet();
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private LruHttpCache cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong bypasses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private MemoryService memoryService;
+
+    @PostConstruct
+    private void init() {
+        cache = new LruHttpCache(turnProperties.getHttpCache().getMaxBytes());
+    }
+
+    @Override
+    public void enable(int proxyPort) {
+        if (!turnProperties.getHttpCache().getEnabled()) {
+            log.warn("HttpCache disabled, port: {} will be transmitted directly", proxyPort);
+            return;
+        }
+        ENABLED_PORTS.add(proxyPort);
+        log.info("HttpCache enabled on port: {}", proxyPort);
+    }
+
+    @Override
+    public void disable(int proxyPort) {
+        if (!ENABLED_PORTS.remove(proxyPort)) return;
+        String prefix = proxyPort + KEY_SEPARATOR;
+        cache.removeIf(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public boolean isEnabled(int proxyPort) {
+        return ENABLED_PORTS.contains(proxyPort);
+    }
+
+    @Override
+    public boolean prepare(int proxyPort, ClientSocket cSocket) {
+        HttpCacheProperties properties = turnProperties.getHttpCache();
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        boolean first = true;
+
+        try {
+            cSocket.getSocket().setSoTimeout(properties.getKeepAliveTimeout());
+            while (true) {
+                HttpHead request = readHead(cSocket, pending, properties.getMaxHeadBytes());
+                if (request == null) {
+                    // 非HTTP或头部过长，直接透传；命中后的空闲连接则关闭
+                    if (first || pending.size() > 0) return tunnel(cSocket, pending.toByteArray(), null);
+                    cSocket.closeUnchecked();
+                    return false;
+                }
+                first = false;
+
+                byte[] data = pending.toByteArray();
+                byte[] rest = Arrays.copyOfRange(data, request.getLength(), data.length);
+
+                if (!cacheable(request)) {
+                    bypasses.incrementAndGet();
+                    return tunnel(cSocket, data, null);
+                }
+
+                String key = key(proxyPort, request);
+                HttpCacheEntry entry = cache.get(key);
+                // 携带Cookie的响应可能因人而异，缓存未声明public时不使用
+                boolean cookie = request.has("Cookie");
+                if (cookie && entry != null && !entry.isPublicResponse()) {
+                    bypasses.incrementAndGet();
+                    return tunnel(cSocket, data, null);
+                }
+                Map<String, String> requestCacheControl = request.cacheControl();
+                boolean forceRevalidate = requestCacheControl.containsKey("no-cache") || "0".equals(requestCacheControl.get("max-age"));
+
+                if (entry != null && entry.isFresh() && !forceRevalidate) {
+                    hits.incrementAndGet();
+                    boolean keepAlive = request.keepAlive();
+                    String ifNoneMatch = request.get("If-None-Match");
+                    byte[] response = ifNoneMatch != null && entry.getEtag() != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(entry.getEtag()))
+                            ? entry.toNotModified(keepAlive)
+                            : entry.toResponse(!request.method().equals("HEAD"), keepAlive, "HIT");
+                    cSocket.write(response);
+                    bytesSaved.addAndGet(response.length);
+
+                    if (!keepAlive) {
+                        cSocket.closeUnchecked();
+                        return false;
+                    }
+                    pending.reset();
+                    pending.write(rest);
+                    continue;
+                }
+
+                misses.incrementAndGet();
+                if (request.method().equals("HEAD") || requestCacheControl.containsKey("no-store")) {
+                    return tunnel(cSocket, data, null);
+                }
+
+                // 过期缓存带ETag且客户端未自行发起条件请求时，由中继发起重新验证
+                boolean revalidate = entry != null && entry.getEtag() != null
+                        && !request.has("If-None-Match") && !request.has("If-Modified-Since");
+                byte[] head = revalidate ? request.withHeader("If-None-Match", entry.getEtag()) : Arrays.copyOf(data, request.getLength());
+
+                HttpResponseRecorder recorder = new HttpResponseRecorder(key, request.keepAlive(), cookie, revalidate ? entry : null,
+                        properties.getMaxHeadBytes(), properties.getMaxEntryBytes(), cache::put, this::onRevalidated, memoryService.getBudget());
+                return tunnel(cSocket, concat(head, rest), recorder);
+            }
+        } catch (IOException e) {
+            log.info("HttpCache(port: {}) ClientSocket(ip: {}) closed;(Exception: {})", proxyPort, cSocket.getRemoteSocketAddress(), e.getMessage());
+            cSocket.closeUnchecked();
+            return false;
+        }
+    }
+
+    @Override
+    public HttpCacheStats getStats() {
+        long hit = hits.get();
+        long miss = misses.get();
+        return HttpCacheStats.builder()
+                .hits(hit)
+                .misses(miss)
+                .revalidations(revalidations.get())
+                .bypasses(bypasses.get())
+                .hitRatio(hit + miss == 0 ? 0 : (double) hit / (hit + miss))
+                .bytesSaved(bytesSaved.get())
+                .evictions(cache.evictions())
+                .entries(cache.size())
+                .usedBytes(cache.usedBytes())
+                .build();
+    }
+
+    private void onRevalidated(HttpCacheEntry entry) {
+        revalidations.incrementAndGet();
+        bytesSaved.addAndGet(entry.getBody().length);
+    }
+
+    private boolean tunnel(ClientSocket cSocket, byte[] peeked, HttpResponseRecorder recorder) throws IOException {
+        cSocket.getSocket().setSoTimeout(0);
+        if (peeked.length > 0) cSocket.setPeeked(peeked);
+        cSocket.setResponseFilter(recorder);
+        return true;
+    }
+
+    /**
+     * 读取至请求头完整
+     * @return 超时、连接关闭或头部过长时返回null
+     */
+    private HttpHead readHead(ClientSocket cSocket, ByteArrayOutputStream pending, int maxHeadBytes) throws IOException {
+        while (true) {
+            byte[] data = pending.toByteArray();
+            HttpHead head = HttpHead.parse(data, data.length);
+            if (head != null) return head;
+            if (data.length > maxHeadBytes) return null;
+
+            byte[] bytes;
+            try {
+                bytes = cSocket.read();
+            } catch (SocketTimeoutException e) {
+                return null;
+            }
+            if (bytes == null) return null;
+            pending.write(bytes);
+        }
+    }
+
+    private boolean cacheable(HttpHead request) {
+        String method = request.method();
+        if (!method.equals("GET") && !method.equals("HEAD")) return false;
+        if (request.has("Authorization") || request.has("Range") || request.has("Upgrade") || request.has("Transfer-Encoding")) return false;
+        return request.contentLength() <= 0;
+    }
+
+    // 代理端口|Host|请求路径|Accept-Encoding
+    private String key(int proxyPort, HttpHead request) {
+        String host = request.get("Host");
+        String encoding = request.get("Accept-Encoding");
+        return proxyPort + KEY_SEPARATOR + (host == null ? "" : host.toLowerCase()) + KEY_SEPARATOR + request.target()
+                + KEY_SEPARATOR + (encoding == null ? "" : encoding.replace(" ", ""));
+    }
+
+    private byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.IoProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.engine.BufferLease;
+import com.fate.nat_traversal.engine.BufferPool;
+import com.fate.nat_traversal.engine.IoEngine;
+import com.fate.nat_traversal.engine.IoEngineStats;
+import com.fate.nat_traversal.engine.IoListener;
+import com.fate.nat_traversal.exception.ProxyServerStartErrorException;
+import com.fate.nat_traversal.service.IoEngineService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * I/O引擎：启动时按名称从已声明的IoEngine中选择，未知名称时启动失败
+ */
+@Slf4j
+@Service
+public class IoEngineServiceImpl implements IoEngineService {
+
+    private IoEngine engine;
+
+    private BufferPool bufferPool;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private List<IoEngine> engines;
+
+    @PostConstruct
+    private void init() {
+        IoProperties io = turnProperties.getIo();
+        engine = engines.stream()
+                .filter(candidate -> candidate.name().equalsIgnoreCase(io.getEngine()))
+                .findFirst()
+                .orElseThrow(() -> new ProxyServerStartErrorException("Unknown I/O engine: " + io.getEngine() + ", available: " + names()));
+        bufferPool = new BufferPool(io.getBufferSize(), io.getMaxPooledBuffers());
+        log.info("I/O engine: {}", engine.name());
+    }
+
+    @Override
+    public IoListener bind(int port) throws IOException {
+        return engine.bind(port);
+    }
+
+    @Override
+    public Socket newSocket() throws IOException {
+        return engine.newSocket();
+    }
+
+    @Override
+    public BufferLease lease() {
+        return bufferPool.lease();
+    }
+
+    @Override
+    public IoEngineStats getStats() {
+        return IoEngineStats.builder()
+                .engine(engine.name())
+                .engines(names())
+                .listeners(engine.listeners())
+                .acceptThreads(engine.acceptThreads())
+                .accepted(engine.accepted())
+                .rejected(engine.rejected())
+                .buffersLeased(bufferPool.leased())
+                .buffersPooled(bufferPool.pooled())
+                .bufferMisses(bufferPool.misses())
+                .build();
+    }
+
+    @Override
+    public void shutdown() {
+        engine.shutdown();
+    }
+
+    private List<String> names() {
+        return engines.stream().map(IoEngine::name).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.MemoryProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.MemoryBudget;
+import com.fate.nat_traversal.limit.MemoryStats;
+import com.fate.nat_traversal.service.MemoryService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2025/12/25 20:30
+ *
+ * 透传缓冲内存预算服务
+ */
+@Service
+public class MemoryServiceImpl implements MemoryService {
+
+    private MemoryBudget budget;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @PostConstruct
+    private void init() {
+        budget = new MemoryBudget(turnProperties.getMemory().getMaxBytes());
+    }
+
+    @Override
+    public FlowWindow newWindow() {
+        MemoryProperties memory = turnProperties.getMemory();
+        return new FlowWindow(budget, memory.getHighWatermark(), memory.getLowWatermark());
+    }
+
+    @Override
+    public boolean tryAcquire(long bytes) {
+        return budget.tryAcquire(bytes);
+    }
+
+    @Override
+    public boolean acquire(long bytes, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!budget.tryAcquire(bytes)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            budget.awaitRelease(remaining, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    @Override
+    public void release(long bytes) {
+        budget.release(bytes);
+    }
+
+    @Override
+    public MemoryBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public MemoryStats getStats() {
+        MemoryProperties memory = turnProperties.getMemory();
+        return MemoryStats.builder()
+                .maxBytes(budget.getMaxBytes())
+                .usedBytes(budget.getUsed())
+                .peakBytes(budget.getPeak())
+                .highWatermark(memory.getHighWatermark())
+                .lowWatermark(memory.getLowWatermark())
+                .pausedWindows(budget.getPausedWindows())
+                .pauses(budget.getPauses())
+                .budgetWaits(budget.getWaits())
+                .budgetWaitMillis(budget.getWaitMillis())
+                .build();
+    }
+}
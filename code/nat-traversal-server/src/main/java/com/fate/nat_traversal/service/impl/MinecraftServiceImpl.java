@@ -0,0 +1,118 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.MinecraftProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.minecraft.*;
+import com.fate.nat_traversal.service.MinecraftService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2025/12/29 20:30
+ *
+ * Minecraft分帧透传：
+ *  1. 两个方向按包边界写出，小包不拆分
+ *  2. 只含小包的写出在带宽整形时优先，不等待令牌，由后续大包补偿
+ *  3. 按方向/协议状态/包ID记录包在中继的停留时延直方图，用于定位抖动来源
+ */
+@Slf4j
+@Service
+public class MinecraftServiceImpl implements MinecraftService {
+
+    // 启用分帧的代理端口
+    private static final Set<Integer> ENABLED_PORTS = ConcurrentHashMap.newKeySet();
+
+    // 包类型-时延直方图
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong encrypted = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong priorityWrites = new AtomicLong();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public void enable(int proxyPort) {
+        if (!turnProperties.getMinecraft().getEnabled()) {
+            log.warn("Minecraft framing disabled, port: {} will be transmitted directly", proxyPort);
+            return;
+        }
+        ENABLED_PORTS.add(proxyPort);
+        log.info("Minecraft framing enabled on port: {}", proxyPort);
+    }
+
+    @Override
+    public void disable(int proxyPort) {
+        ENABLED_PORTS.remove(proxyPort);
+    }
+
+    @Override
+    public boolean isEnabled(int proxyPort) {
+        return ENABLED_PORTS.contains(proxyPort);
+    }
+
+    @Override
+    public MinecraftSession newSession() {
+        connections.incrementAndGet();
+        return new MinecraftSession();
+    }
+
+    @Override
+    public PacketFramer newFramer(MinecraftSession session, boolean clientbound) {
+        MinecraftProperties properties = turnProperties.getMinecraft();
+        return new PacketFramer(session, clientbound, properties.getMaxHoldBytes(), properties.getSmallPacketBytes());
+    }
+
+    @Override
+    public void onWritten(PacketBatch batch) {
+        if (batch.priority()) priorityWrites.incrementAndGet();
+        if (batch.timings().isEmpty()) return;
+
+        long now = System.nanoTime();
+        for (PacketBatch.PacketTiming timing : batch.timings()) {
+            HISTOGRAMS.computeIfAbsent(timing.type(), type -> new LatencyHistogram()).record(now - timing.arrivedAt());
+        }
+    }
+
+    @Override
+    public void onClosed(MinecraftSession session) {
+        if (session.isEncrypted()) encrypted.incrementAndGet();
+        else if (session.isInvalid()) invalid.incrementAndGet();
+    }
+
+    @Override
+    public MinecraftStats getStats() {
+        List<PacketLatencyStats> packets = new ArrayList<>();
+        HISTOGRAMS.forEach((type, histogram) -> packets.add(PacketLatencyStats.builder()
+                .type(type)
+                .count(histogram.getCount())
+                .avgMicros(histogram.getAvgMicros())
+                .p50Micros(histogram.percentile(0.5))
+                .p99Micros(histogram.percentile(0.99))
+                .maxMicros(histogram.getMaxMicros())
+                .buckets(histogram.getBuckets())
+                .build()));
+        packets.sort(Comparator.comparing(PacketLatencyStats::getType));
+
+        return MinecraftStats.builder()
+                .ports(new ArrayList<>(ENABLED_PORTS))
+                .connections(connections.get())
+                .encrypted(encrypted.get())
+                .invalid(invalid.get())
+                .priorityWrites(priorityWrites.get())
+                .packets(packets)
+                .build();
+    }
+}
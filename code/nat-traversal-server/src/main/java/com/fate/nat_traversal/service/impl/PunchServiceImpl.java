@@ -0,0 +1,210 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.PunchProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.NatTypeEnum;
+import com.fate.nat_traversal.model.Backend;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.punch.PendingPunch;
+import com.fate.nat_traversal.punch.PunchStats;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.PunchService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/03 20:30
+ *
+ * 直连打洞协调，相当于STUN加候选地址交换：
+ *  1. 探测：服务器回复连接的映射地址，被代理端点从同一本地端口探测注册端口与探测端口，判断NAT类型
+ *  2. 访问端经注册端口发起请求，服务器记下其映射地址，通过通信连接通知被代理端点
+ *  3. 被代理端点从新的本地端口应答，服务器向双方回复对端的映射地址与本地地址后先行关闭连接，
+ *     双方随即从同一本地端口同时发起连接
+ *  4. 双方都是SYMMETRIC、被代理端点拒绝或超时未应答时回复拒绝，访问端回落到中继
+ */
+@Slf4j
+@Service
+public class PunchServiceImpl implements PunchService, DisposableBean {
+
+    // punchId-等待应答的请求
+    private static final Map<String, PendingPunch> PENDING = new ConcurrentHashMap<>();
+
+    private static final AtomicLong PUNCH_ID = new AtomicLong(0);
+
+    private ServerSocket probeSocket;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder exchanged = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private BackendCommunicationService backendCommunicationService;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @PostConstruct
+    private void init() {
+        PunchProperties punch = turnProperties.getPunch();
+        if (!punch.getEnabled()) return;
+
+        taskScheduler.submit(this::expire, 1, 1, TimeUnit.SECONDS);
+
+        if (punch.getProbePort() == null) return;
+        try {
+            probeSocket = new ServerSocket();
+            probeSocket.bind(new InetSocketAddress(punch.getProbePort()));
+        } catch (IOException e) {
+            log.warn("Open punch probe port({}) failed: {}", punch.getProbePort(), e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            while (!probeSocket.isClosed()) {
+                try {
+                    probe(new CommonSocket(probeSocket.accept()));
+                } catch (IOException e) {
+                    if (!probeSocket.isClosed()) log.warn("Punch probe accept error: {}", e.getMessage());
+                }
+            }
+        }, "punch-probe");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Punch probe listening on port: {}", punch.getProbePort());
+    }
+
+    @Override
+    public void probe(CommonSocket socket) {
+        probes.increment();
+        // 注册端口上的探测附带探测端口，被代理端点再从同一本地端口探测该端口
+        boolean onProbePort = probeSocket != null && socket.getLocalPort() == probeSocket.getLocalPort();
+        socket.writeUnchecked(BackendCommunicationService.PUNCH_PROBE_RESULT + address(socket.getSocket())
+                + (probeSocket == null || onProbePort ? "" : MessageUtil.option("probe", probeSocket.getLocalPort())));
+        socket.closeUnchecked();
+    }
+
+    @Override
+    public void request(CommonSocket socket, String body) {
+        requests.increment();
+        if (!turnProperties.getPunch().getEnabled()) {
+            refuse(socket, "disabled");
+            return;
+        }
+
+        Backend backend;
+        try {
+            backend = backendCommunicationService.getBackend(Integer.parseInt(MessageUtil.head(body)));
+        } catch (NumberFormatException e) {
+            backend = null;
+        }
+        if (backend == null) {
+            refuse(socket, "no such service");
+            return;
+        }
+
+        Map<String, String> options = MessageUtil.options(body);
+        String id = "Punch-" + PUNCH_ID.incrementAndGet();
+        PendingPunch pending = new PendingPunch(id, socket, address(socket.getSocket()), options.get("local"),
+                NatTypeEnum.parse(options.get("nat")), System.currentTimeMillis() + turnProperties.getPunch().getTimeout());
+        PENDING.put(id, pending);
+
+        if (!backendCommunicationService.send(backend.getSession(), BackendCommunicationService.PUNCH + id + MessageUtil.option("port", MessageUtil.head(body)))) {
+            PENDING.remove(id);
+            refuse(socket, "backend unreachable");
+        }
+    }
+
+    @Override
+    public void answer(CommonSocket socket, String body) {
+        PendingPunch pending = PENDING.remove(MessageUtil.head(body));
+        if (pending == null) {
+            refuse(socket, "expired");
+            return;
+        }
+
+        Map<String, String> options = MessageUtil.options(body);
+        NatTypeEnum natType = NatTypeEnum.parse(options.get("nat"));
+        if ("true".equals(options.get("refuse"))) {
+            refuse(pending.getVisitor(), "refused by backend");
+            socket.closeUnchecked();
+            return;
+        }
+        if (natType == NatTypeEnum.SYMMETRIC && pending.getNatType() == NatTypeEnum.SYMMETRIC) {
+            refuse(pending.getVisitor(), "both symmetric");
+            refuse(socket, "both symmetric");
+            return;
+        }
+
+        // 双方都收到对端地址后由服务器先关闭，TIME_WAIT留在服务器侧，双方可立即复用本地端口
+        String backendPublic = address(socket.getSocket());
+        socket.writeUnchecked(BackendCommunicationService.PUNCH_PEER + pending.getId()
+                + MessageUtil.option("peer", pending.getPublicAddress()) + MessageUtil.option("local", pending.getLocalAddress()));
+        pending.getVisitor().writeUnchecked(BackendCommunicationService.PUNCH_PEER + pending.getId()
+                + MessageUtil.option("peer", backendPublic) + MessageUtil.option("local", options.get("local")));
+        socket.closeUnchecked();
+        pending.getVisitor().closeUnchecked();
+        exchanged.increment();
+        if (log.isDebugEnabled()) log.debug("Punch({}) exchanged: {} <-> {}", pending.getId(), pending.getPublicAddress(), backendPublic);
+    }
+
+    @Override
+    public PunchStats getStats() {
+        return PunchStats.builder()
+                .enabled(turnProperties.getPunch().getEnabled())
+                .probePort(probeSocket == null || probeSocket.isClosed() ? null : probeSocket.getLocalPort())
+                .probes(probes.sum())
+                .requests(requests.sum())
+                .exchanged(exchanged.sum())
+                .refused(refused.sum())
+                .timeouts(timeouts.sum())
+                .pending(PENDING.size())
+                .build();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (probeSocket != null) probeSocket.close();
+        PENDING.values().forEach(pending -> pending.getVisitor().closeUnchecked());
+        PENDING.clear();
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        PENDING.values().forEach(pending -> {
+            if (now < pending.getDeadline() || PENDING.remove(pending.getId()) == null) return;
+            timeouts.increment();
+            refuse(pending.getVisitor(), "timeout");
+        });
+    }
+
+    private void refuse(CommonSocket socket, String reason) {
+        refused.increment();
+        socket.writeUnchecked(BackendCommunicationService.PUNCH_REFUSED + reason);
+        socket.closeUnchecked();
+    }
+
+    private String address(Socket socket) {
+        InetSocketAddress address = (InetSocketAddress) socket.getRemoteSocketAddress();
+        return address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+}
@@ -0,0 +1,108 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.RateLimitProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.limit.RateLimits;
+import com.fate.nat_traversal.limit.Throttle;
+import com.fate.nat_traversal.service.RateLimitService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2025/12/22 20:30
+ *
+ * 限速服务，令牌桶按被代理端点session与客户端ip懒创建，透传路径上仅有CAS操作
+ */
+@Slf4j
+@Service
+public class RateLimitServiceImpl implements RateLimitService {
+
+    // session-限速桶
+    private static final Map<String, RateLimits> BACKEND_LIMITS = new ConcurrentHashMap<>();
+    // 客户端ip-限速桶
+    private static final Map<String, RateLimits> CLIENT_LIMITS = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @PostConstruct
+    private void init() {
+        // 定时清理空闲的客户端ip限速桶
+        taskScheduler.submit(() -> CLIENT_LIMITS.values().removeIf(RateLimits::isIdle), 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public boolean allowClientConnection(String ip) {
+        RateLimitProperties properties = turnProperties.getRateLimit();
+        if (properties.getClientConnectionsPerSecond() <= 0 || ip == null) return true;
+
+        if (clientLimits(ip).allowConnection()) return true;
+        log.warn("Client(ip: {}) connection rate limited", ip);
+        return false;
+    }
+
+    @Override
+    public boolean allowBackendConnection(String backendSession) {
+        RateLimitProperties properties = turnProperties.getRateLimit();
+        if (properties.getBackendConnectionsPerSecond() <= 0 || backendSession == null) return true;
+
+        if (backendLimits(backendSession).allowConnection()) return true;
+        log.warn("Backend(session: {}) connection rate limited", backendSession);
+        return false;
+    }
+
+    @Override
+    public Throttle throttle(String backendSession, String ip) {
+        RateLimitProperties properties = turnProperties.getRateLimit();
+        boolean backendLimited = properties.getBackendBytesPerSecond() > 0 && backendSession != null;
+        boolean clientLimited = properties.getClientBytesPerSecond() > 0 && ip != null;
+        if (!backendLimited && !clientLimited) return null;
+
+        return new Throttle(
+                backendLimited ? backendLimits(backendSession).getBytes() : null,
+                clientLimited ? clientLimits(ip).getBytes() : null);
+    }
+
+    @Override
+    public void remove(String backendSession) {
+        BACKEND_LIMITS.remove(backendSession);
+    }
+
+    @Override
+    public Map<String, RateLimits> getBackendLimits() {
+        return Collections.unmodifiableMap(BACKEND_LIMITS);
+    }
+
+    @Override
+    public Map<String, RateLimits> getClientLimits() {
+        return Collections.unmodifiableMap(CLIENT_LIMITS);
+    }
+
+    private RateLimits backendLimits(String backendSession) {
+        RateLimitProperties properties = turnProperties.getRateLimit();
+        RateLimits limits = BACKEND_LIMITS.get(backendSession);
+        if (limits != null) return limits;
+        return BACKEND_LIMITS.computeIfAbsent(backendSession, key -> new RateLimits(
+                properties.getBackendBytesPerSecond(), properties.getBackendConnectionsPerSecond(), properties.getBurstSeconds()));
+    }
+
+    private RateLimits clientLimits(String ip) {
+        RateLimitProperties properties = turnProperties.getRateLimit();
+        RateLimits limits = CLIENT_LIMITS.get(ip);
+        if (limits != null) return limits;
+        return CLIENT_LIMITS.computeIfAbsent(ip, key -> new RateLimits(
+                properties.getClientBytesPerSecond(), properties.getClientConnectionsPerSecond(), properties.getBurstSeconds()));
+    }
+}
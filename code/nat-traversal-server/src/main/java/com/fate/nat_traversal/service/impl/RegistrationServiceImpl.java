@@ -0,0 +1,157 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.RegistrationProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import com.fate.nat_traversal.limit.RegistrationStats;
+import com.fate.nat_traversal.limit.TokenBucket;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.service.AdmissionService;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.RegistrationService;
+import com.fate.nat_traversal.util.Consumer2;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author fate
+ * @date 2026/01/08 20:30
+ *
+ * 注册准入：
+ *  1. accept线程只将注册消息放入有界队列，单个注册线程按令牌桶速率依次处理，注册仍保持串行
+ *  2. 队列已满或排队超过最长时间时回复 Server Busy 并附带 retry-after（按当前队列长度与速率估算的排空时间）
+ *  3. 被代理端点按提示的时间加随机抖动后重试，避免同时重连
+ */
+@Slf4j
+@Service
+public class RegistrationServiceImpl implements RegistrationService {
+
+    // 最小重试间隔（毫秒）
+    private static final long MIN_RETRY_AFTER = 1000;
+
+    private LinkedBlockingQueue<PendingRegistration> queue;
+
+    private TokenBucket bucket;
+
+    private volatile boolean running = true;
+
+    private Consumer2<CommonSocket, String> registerCallback;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedDeadline = new LongAdder();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private volatile long maxWaitNanos = 0;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @PostConstruct
+    private void init() {
+        RegistrationProperties registration = turnProperties.getRegistration();
+        queue = new LinkedBlockingQueue<>(registration.getQueueCapacity());
+        bucket = new TokenBucket(registration.getRatePerSecond(), registration.getBurst());
+
+        Thread worker = new Thread(this::work, "registration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void submit(CommonSocket socket, String msg) {
+        if (!queue.offer(new PendingRegistration(socket, msg, System.nanoTime()))) {
+            rejectedQueueFull.increment();
+            reject(socket);
+        }
+    }
+
+    @Override
+    public void registerCallback(Consumer2<CommonSocket, String> consumer) {
+        this.registerCallback = consumer;
+    }
+
+    @Override
+    public RegistrationStats getStats() {
+        long count = admitted.sum();
+        return RegistrationStats.builder()
+                .ratePerSecond(turnProperties.getRegistration().getRatePerSecond())
+                .queued(queue.size())
+                .admitted(count)
+                .rejectedQueueFull(rejectedQueueFull.sum())
+                .rejectedDeadline(rejectedDeadline.sum())
+                .avgWaitMillis(count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count)
+                .maxWaitMillis(maxWaitNanos / 1e6)
+                .retryAfterMillis(retryAfter())
+                .build();
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        PendingRegistration pending;
+        while ((pending = queue.poll()) != null) {
+            pending.socket().closeUnchecked();
+        }
+    }
+
+    private void work() {
+        long maxWait = TimeUnit.MILLISECONDS.toNanos(turnProperties.getRegistration().getMaxWait());
+        while (running) {
+            PendingRegistration pending;
+            try {
+                pending = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            // 排队超时的注册不占用令牌，被代理端大概率已在等待中放弃
+            if (System.nanoTime() - pending.enqueuedAt() > maxWait) {
+                rejectedDeadline.increment();
+                reject(pending.socket());
+                continue;
+            }
+
+            long wait = bucket.reserve(1);
+            if (wait > 0) LockSupport.parkNanos(wait);
+            long waited = System.nanoTime() - pending.enqueuedAt();
+
+            admitted.increment();
+            totalWaitNanos.addAndGet(waited);
+            if (waited > maxWaitNanos) maxWaitNanos = waited;
+            try {
+                registerCallback.accept(pending.socket(), pending.msg());
+            } catch (RuntimeException e) {
+                log.warn("Backend(ip: {}) register failed: {}", pending.socket().getRemoteSocketAddress(), e.getMessage());
+                pending.socket().closeUnchecked();
+            }
+        }
+    }
+
+    // 回复稍后重试，通信连接按行读取
+    private void reject(CommonSocket socket) {
+        admissionService.recordShed(ShedReasonEnum.REGISTRATION);
+        socket.writeUnchecked(BackendCommunicationService.REGISTER_PS_ERROR + "Server Busy"
+                + MessageUtil.option("retry-after", retryAfter()) + "\n");
+        socket.closeUnchecked();
+    }
+
+    // 当前队列按速率排空所需的时间
+    private long retryAfter() {
+        long drain = (queue.size() + 1) * 1000L / turnProperties.getRegistration().getRatePerSecond();
+        return Math.max(drain, MIN_RETRY_AFTER);
+    }
+
+    private record PendingRegistration(CommonSocket socket, String msg, long enqueuedAt) {}
+}
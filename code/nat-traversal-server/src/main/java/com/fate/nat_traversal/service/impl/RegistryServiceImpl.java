@@ -0,0 +1,236 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.RegistryProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.exception.ProxyServerStartErrorException;
+import com.fate.nat_traversal.model.Backend;
+import com.fate.nat_traversal.registry.RegistryEntry;
+import com.fate.nat_traversal.registry.RegistryStats;
+import com.fate.nat_traversal.registry.SessionJournal;
+import com.fate.nat_traversal.service.RegistryService;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2026/01/09 20:30
+ *
+ * 持久化注册表：
+ *  1. 内存中维护有效会话，每次变更追加一条日志记录：会话（session、恢复凭证）、服务（session、代理端口、服务名、选项）、释放服务（session、代理端口）
+ *  2. 日志写满时以内存中的有效会话重写（压缩），重写经临时文件原子替换，任一时刻磁盘上都是完整的日志
+ *  3. 启动时顺序重放日志重建有效会话，再压缩一次，由Server重新绑定代理端口并作为待恢复会话登记
+ */
+@Slf4j
+@Service
+public class RegistryServiceImpl implements RegistryService {
+
+    private static final byte SESSION = 1;
+    private static final byte SERVICE = 2;
+    private static final byte UNREGISTER = 3;
+
+    // session-会话
+    private static final Map<String, RegistryEntry> ENTRIES = new ConcurrentHashMap<>();
+
+    private SessionJournal journal;
+
+    private volatile boolean recording = false;
+
+    private final AtomicLong compactions = new AtomicLong();
+
+    private int restored = 0;
+
+    private double replayMillis = 0;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @PostConstruct
+    private void init() {
+        RegistryProperties registry = turnProperties.getRegistry();
+        if (!registry.getEnabled()) return;
+        if (registry.getCapacity() == null || registry.getCapacity() <= 0) {
+            throw new ProxyServerStartErrorException("Registry journal capacity must be positive: " + registry.getCapacity());
+        }
+        try {
+            journal = new SessionJournal(Path.of(registry.getPath()), registry.getCapacity());
+        } catch (IOException e) {
+            log.error("Open registry journal({}) failed, sessions will not survive restart;(Exception: {})", registry.getPath(), e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    @Override
+    public Collection<RegistryEntry> load() {
+        if (!isEnabled()) return List.of();
+
+        long start = System.nanoTime();
+        int records = journal.replay(this::apply);
+        // 仅有凭证而无服务的会话（注册中途退出）无法恢复
+        ENTRIES.values().removeIf(entry -> entry.getServices().isEmpty());
+        replayMillis = (System.nanoTime() - start) / 1e6;
+        restored = ENTRIES.size();
+
+        compact();
+        recording = true;
+        log.info("Registry journal replayed {} records in {} ms, {} sessions to restore", records, String.format("%.2f", replayMillis), restored);
+        return new ArrayList<>(ENTRIES.values());
+    }
+
+    @Override
+    public void register(Backend backend, int port, String serviceName, Map<String, String> options) {
+        if (!recording || backend.getResumeToken() == null) return;
+
+        StringBuilder serviceOptions = new StringBuilder();
+        options.forEach((key, value) -> {
+            if (!"resume".equals(key)) serviceOptions.append(MessageUtil.option(key, value));
+        });
+
+        synchronized (this) {
+            RegistryEntry entry = ENTRIES.get(backend.getSession());
+            if (entry == null) {
+                entry = new RegistryEntry(backend.getSession());
+                entry.setResumeToken(backend.getResumeToken());
+                ENTRIES.put(entry.getSession(), entry);
+                append(encode(SESSION, entry.getSession(), null, entry.getResumeToken(), null));
+            }
+            entry.getServices().put(port, new RegistryEntry.Service(serviceName, serviceOptions.toString()));
+            append(encode(SERVICE, entry.getSession(), port, serviceName, serviceOptions.toString()));
+        }
+    }
+
+    @Override
+    public void unregister(String session, int port) {
+        if (!recording) return;
+
+        synchronized (this) {
+            RegistryEntry entry = ENTRIES.get(session);
+            if (entry == null || entry.getServices().remove(port) == null) return;
+            if (entry.getServices().isEmpty()) ENTRIES.remove(session);
+            append(encode(UNREGISTER, session, port, null, null));
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (!isEnabled() || !recording) return;
+        recording = false;
+        try {
+            journal.force();
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Close registry journal failed;(Exception: {})", e.getMessage());
+        }
+        log.info("Registry journal closed with {} sessions", ENTRIES.size());
+    }
+
+    @Override
+    public RegistryStats getStats() {
+        return RegistryStats.builder()
+                .enabled(isEnabled())
+                .sessions(ENTRIES.size())
+                .services(ENTRIES.values().stream().mapToInt(entry -> entry.getServices().size()).sum())
+                .records(isEnabled() ? journal.records() : 0)
+                .journalBytes(isEnabled() ? journal.size() : 0)
+                .capacity(isEnabled() ? journal.capacity() : 0)
+                .compactions(compactions.get())
+                .restored(restored)
+                .replayMillis(replayMillis)
+                .build();
+    }
+
+    private void append(byte[] record) {
+        if (!journal.append(record)) {
+            compact();
+            if (!journal.append(record)) {
+                log.warn("Registry journal full, record dropped");
+                return;
+            }
+        }
+        if (turnProperties.getRegistry().getSync()) journal.force();
+    }
+
+    // 以有效会话重写日志
+    private synchronized void compact() {
+        List<byte[]> live = new ArrayList<>();
+        ENTRIES.values().forEach(entry -> {
+            live.add(encode(SESSION, entry.getSession(), null, entry.getResumeToken(), null));
+            entry.getServices().forEach((port, service) -> live.add(encode(SERVICE, entry.getSession(), port, service.name(), service.options())));
+        });
+        try {
+            journal.rewrite(live, turnProperties.getRegistry().getCapacity());
+            compactions.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Compact registry journal failed;(Exception: {})", e.getMessage());
+        }
+    }
+
+    private void apply(ByteBuffer record) {
+        byte type = record.get();
+        String session = readString(record);
+        switch (type) {
+            case SESSION -> {
+                RegistryEntry entry = new RegistryEntry(session);
+                entry.setResumeToken(readString(record));
+                ENTRIES.put(session, entry);
+            }
+            case SERVICE -> {
+                RegistryEntry entry = ENTRIES.get(session);
+                int port = record.getInt();
+                if (entry != null) entry.getServices().put(port, new RegistryEntry.Service(readString(record), readString(record)));
+            }
+            case UNREGISTER -> {
+                RegistryEntry entry = ENTRIES.get(session);
+                if (entry != null) entry.getServices().remove(record.getInt());
+                if (entry != null && entry.getServices().isEmpty()) ENTRIES.remove(session);
+            }
+            default -> log.warn("Unknown registry record type: {}", type);
+        }
+    }
+
+    // 类型 + session + [端口] + [字段1] + [字段2]，字符串为长度(short) + UTF-8
+    private byte[] encode(byte type, String session, Integer port, String first, String second) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            writeString(out, session);
+            if (port != null) out.writeInt(port);
+            if (first != null) writeString(out, first);
+            if (second != null) writeString(out, second);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
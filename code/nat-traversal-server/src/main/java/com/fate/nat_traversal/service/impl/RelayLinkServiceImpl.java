@@ -0,0 +1,494 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.cluster.ClusterMember;
+import com.fate.nat_traversal.cluster.ClusterRoute;
+import com.fate.nat_traversal.cluster.LinkStream;
+import com.fate.nat_traversal.cluster.RelayLink;
+import com.fate.nat_traversal.cluster.RelayLinkStats;
+import com.fate.nat_traversal.config.ClusterProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.engine.BufferLease;
+import com.fate.nat_traversal.model.ClientSocket;
+import com.fate.nat_traversal.service.ClusterService;
+import com.fate.nat_traversal.service.IoEngineService;
+import com.fate.nat_traversal.service.RelayLinkService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.util.MessageUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.fate.nat_traversal.service.BackendCommunicationService.*;
+
+/**
+ * @author fate
+ * @date 2026/01/11 20:30
+ *
+ * 节点间转发：
+ *  1. 每个节点与其他存活节点各保持一条自己发起的常驻链路（复用集群端口），每轮gossip间隔发送PING测量往返时间并随gossip发布
+ *  2. 访客连接前置端口或共享端口后，按ClusterService.nextHop选择直连或经一个中转节点，在链路上打开一个流；
+ *     中转节点直连目标节点继续转发，目标节点以回环地址连接本地的代理端口或共享端口，复用本地的准入、分发与透传
+ *  3. 每个流按窗口流控，慢访客只暂停自己的流；链路断开时其上的流全部终止，下一轮重新建立链路
+ *  4. 目标节点登记回环连接的本地端口与访客ip，accept后还原，限速仍按原始访客计
+ */
+@Slf4j
+@Service
+public class RelayLinkServiceImpl implements RelayLinkService {
+
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private static final int READ_TIMEOUT = 2000;
+
+    // 本节点发起的链路：对端nodeId-链路
+    private static final Map<String, RelayLink> OUTBOUND = new ConcurrentHashMap<>();
+
+    // 对端发起的链路
+    private static final Set<RelayLink> INBOUND = ConcurrentHashMap.newKeySet();
+
+    // 回环连接的本地端口-原始访客ip，accept后取出
+    private static final Map<Integer, String> ORIGINS = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+
+    private volatile boolean closed;
+
+    // 流与Socket之间的双向复制，每个流两个方向各一个线程
+    private ThreadPoolExecutor linkPool;
+
+    private Supplier<Map<Integer, String>> frontsSupplier = Map::of;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder fronted = new LongAdder();
+    private final LongAdder forwards = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @Autowired
+    private IoEngineService ioEngineService;
+
+    @PostConstruct
+    private void init() {
+        if (!clusterService.isEnabled()) return;
+        enabled = true;
+
+        int maxStreams = Math.max(turnProperties.getMaxClientConnection(), 1) * 4;
+        linkPool = new ThreadPoolExecutor(0, maxStreams, 1, TimeUnit.MINUTES, new SynchronousQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+
+        clusterService.linkCallback(this::accept);
+        long interval = turnProperties.getCluster().getGossipInterval();
+        taskScheduler.submit(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean front(ClusterRoute route, ClientSocket cSocket) {
+        if (!enabled || !carry(route.node(), route.port(), cSocket, null)) return false;
+        fronted.increment();
+        log.info("FrontSocket(service: {}) ClientSocket(ip: {}) carried to node {}", route.key(), cSocket.getRemoteSocketAddress(), route.node());
+        return true;
+    }
+
+    @Override
+    public boolean forward(int vhostPort, String host, ClientSocket cSocket, byte[] peeked) {
+        if (!enabled) return false;
+        ClusterRoute route = clusterService.findByHost(host);
+        if (route == null) return false;
+
+        if (!carry(route.node(), clusterService.vhostPort(route.node(), vhostPort), cSocket, peeked)) return false;
+        forwards.increment();
+        log.info("VirtualHostSocket(port: {}; host: {}) forwarded to node {}", vhostPort, host, route.node());
+        return true;
+    }
+
+    @Override
+    public void resolveOrigin(ClientSocket cSocket) {
+        if (ORIGINS.isEmpty() || !(cSocket.getRemoteSocketAddress() instanceof InetSocketAddress address)) return;
+        if (!address.getAddress().isLoopbackAddress()) return;
+        String ip = ORIGINS.remove(address.getPort());
+        if (ip != null) cSocket.setOriginIp(ip);
+    }
+
+    @Override
+    public void frontsCallback(Supplier<Map<Integer, String>> supplier) {
+        this.frontsSupplier = supplier;
+    }
+
+    @Override
+    public RelayLinkStats getStats() {
+        List<RelayLinkStats.Link> links = new ArrayList<>();
+        OUTBOUND.values().forEach(link -> links.add(linkStats(link)));
+        INBOUND.forEach(link -> links.add(linkStats(link)));
+
+        Map<String, String> paths = new LinkedHashMap<>();
+        if (enabled) clusterService.peers().forEach(peer -> paths.put(peer.getId(), clusterService.nextHop(peer.getId())));
+
+        return RelayLinkStats.builder()
+                .enabled(enabled)
+                .links(links)
+                .paths(paths)
+                .fronts(frontsSupplier.get())
+                .opened(opened.sum())
+                .relayed(relayed.sum())
+                .accepted(accepted.sum())
+                .fronted(fronted.sum())
+                .forwards(forwards.sum())
+                .failures(failures.sum())
+                .build();
+    }
+
+    @Override
+    public void shutdown() {
+        if (!enabled || closed) return;
+        closed = true;
+        OUTBOUND.values().forEach(RelayLink::close);
+        INBOUND.forEach(RelayLink::close);
+        linkPool.shutdownNow();
+    }
+
+    private RelayLinkStats.Link linkStats(RelayLink link) {
+        return RelayLinkStats.Link.builder()
+                .peer(link.getPeer())
+                .initiator(link.isInitiator())
+                .rtt(link.rtt() < 0 ? null : Math.round(link.rtt() * 100) / 100.0)
+                .streams(link.streams())
+                .bytesSent(link.bytesSent())
+                .bytesReceived(link.bytesReceived())
+                .build();
+    }
+
+    // 在下一跳链路上打开到目标节点端口的流，写入预读数据后与访客连接双向复制
+    private boolean carry(String node, int port, ClientSocket cSocket, byte[] peeked) {
+        String hop = clusterService.nextHop(node);
+        if (hop == null) return false;
+        RelayLink link = link(hop);
+        // 中转节点不可用时退回直连
+        if (link == null && !hop.equals(node)) link = link(node);
+        if (link == null) {
+            failures.increment();
+            return false;
+        }
+
+        LinkStream stream;
+        try {
+            stream = link.open(node + ":" + port + MessageUtil.option("client", cSocket.getRemoteIp()));
+            if (peeked != null && peeked.length > 0) stream.getOutputStream().write(peeked);
+        } catch (IOException e) {
+            log.info("Open stream to node {} via {} failed;(Exception: {})", node, link.getPeer(), e.getMessage());
+            failures.increment();
+            return false;
+        }
+        opened.increment();
+        splice(endpoint(cSocket.getSocket()), endpoint(stream));
+        return true;
+    }
+
+    // 对端打开的流，在链路读线程回调，连接目标交由linkPool
+    private void dispatch(LinkStream stream, String target) {
+        try {
+            linkPool.execute(() -> terminate(stream, target));
+        } catch (RejectedExecutionException e) {
+            log.warn("Too many relayed streams, stream from node {} will be reset.", stream.getPeer());
+            failures.increment();
+            stream.close();
+        }
+    }
+
+    private void terminate(LinkStream stream, String target) {
+        String head = MessageUtil.head(target);
+        int index = head.lastIndexOf(':');
+        String node = index > 0 ? head.substring(0, index) : "";
+        int port;
+        try {
+            port = Integer.parseInt(head.substring(index + 1));
+        } catch (NumberFormatException e) {
+            stream.close();
+            return;
+        }
+
+        if (!node.equals(clusterService.self().getId())) {
+            // 中转：直连目标节点，不再选择中转
+            RelayLink link = link(node);
+            LinkStream next = null;
+            try {
+                if (link != null) next = link.open(target);
+            } catch (IOException e) {
+                log.info("Relay stream to node {} failed;(Exception: {})", node, e.getMessage());
+            }
+            if (next == null) {
+                failures.increment();
+                stream.close();
+                return;
+            }
+            relayed.increment();
+            splice(endpoint(stream), endpoint(next));
+            return;
+        }
+
+        if (!clusterService.isLocalTarget(port)) {
+            log.info("Stream from node {} rejected, port {} is not a local route", stream.getPeer(), port);
+            failures.increment();
+            stream.close();
+            return;
+        }
+
+        // 先绑定本地端口并登记访客ip，accept时即可还原
+        Socket socket = null;
+        String client = MessageUtil.options(target).get("client");
+        Integer localPort = null;
+        try {
+            socket = ioEngineService.newSocket();
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+            socket.bind(new InetSocketAddress(loopback, 0));
+            localPort = socket.getLocalPort();
+            if (client != null) ORIGINS.put(localPort, client);
+            socket.connect(new InetSocketAddress(loopback, port), CONNECT_TIMEOUT);
+            socket.setTcpNoDelay(true);
+        } catch (IOException e) {
+            if (localPort != null) ORIGINS.remove(localPort);
+            log.info("Stream from node {} connect local port {} failed;(Exception: {})", stream.getPeer(), port, e.getMessage());
+            failures.increment();
+            close(socket);
+            stream.close();
+            return;
+        }
+        accepted.increment();
+        splice(endpoint(stream), endpoint(socket));
+    }
+
+    // 维护到其他存活节点的链路：补建断开的链路、测量往返时间、关闭长时间无数据的链路
+    private void maintain() {
+        if (closed) return;
+        long failTimeout = turnProperties.getCluster().getFailTimeout();
+        long now = System.currentTimeMillis();
+
+        Set<String> alive = new HashSet<>();
+        for (ClusterMember peer : clusterService.peers()) {
+            alive.add(peer.getId());
+            RelayLink link = link(peer.getId());
+            if (link == null) continue;
+            if (now - link.getLastReceived() > failTimeout) {
+                log.info("RelayLink(peer: {}) silent for {} ms, it will be reconnected.", peer.getId(), now - link.getLastReceived());
+                link.close();
+                continue;
+            }
+            if (link.rtt() >= 0) clusterService.reportRtt(peer.getId(), link.rtt());
+            link.ping();
+        }
+
+        OUTBOUND.values().forEach(link -> {
+            if (!alive.contains(link.getPeer())) link.close();
+        });
+        INBOUND.forEach(link -> {
+            if (now - link.getLastReceived() > failTimeout) link.close();
+        });
+    }
+
+    private RelayLink link(String node) {
+        RelayLink link = OUTBOUND.get(node);
+        if (link != null && !link.isClosed()) return link;
+
+        synchronized (OUTBOUND) {
+            link = OUTBOUND.get(node);
+            if (link != null && !link.isClosed()) return link;
+            ClusterMember peer = clusterService.peer(node);
+            if (peer == null || closed) return null;
+            link = connect(peer);
+            if (link != null) OUTBOUND.put(node, link);
+            return link;
+        }
+    }
+
+    private RelayLink connect(ClusterMember peer) {
+        Socket socket = null;
+        try {
+            socket = ioEngineService.newSocket();
+            socket.connect(new InetSocketAddress(peer.getHost(), peer.getClusterPort()), CONNECT_TIMEOUT);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT);
+            socket.getOutputStream().write((CLUSTER_LINK + clusterService.self().getId() + "\n").getBytes(StandardCharsets.UTF_8));
+            String reply = readLine(socket.getInputStream());
+            if (!CLUSTER_LINK_SUCCESS.equals(reply)) throw new IOException("Unexpected reply: " + reply);
+            socket.setSoTimeout(0);
+
+            RelayLink link = new RelayLink(peer.getId(), socket, true, turnProperties.getCluster().getLinkWindow(),
+                    this::dispatch, closedLink -> OUTBOUND.remove(closedLink.getPeer(), closedLink));
+            link.start();
+            log.info("RelayLink to node {} at {} established", peer.getId(), peer.clusterAddress());
+            return link;
+        } catch (IOException e) {
+            log.info("RelayLink to node {} at {} failed;(Exception: {})", peer.getId(), peer.clusterAddress(), e.getMessage());
+            failures.increment();
+            close(socket);
+            return null;
+        }
+    }
+
+    // 集群端口上收到的链路连接，在集群accept线程回调
+    private void accept(Socket socket, String peer) {
+        if (closed) {
+            close(socket);
+            return;
+        }
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(0);
+            socket.getOutputStream().write((CLUSTER_LINK_SUCCESS + "\n").getBytes(StandardCharsets.UTF_8));
+            RelayLink link = new RelayLink(peer, socket, false, turnProperties.getCluster().getLinkWindow(), this::dispatch, INBOUND::remove);
+            INBOUND.add(link);
+            link.start();
+            log.info("RelayLink from node {} accepted", peer);
+        } catch (IOException e) {
+            log.info("RelayLink from node {} failed;(Exception: {})", peer, e.getMessage());
+            close(socket);
+        }
+    }
+
+    // 逐字节读取应答行，避免读入其后的链路帧
+    private String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+    }
+
+    // 双向复制，两个方向都结束后关闭；任一方向异常时立即关闭两端
+    private void splice(Endpoint a, Endpoint b) {
+        AtomicInteger remaining = new AtomicInteger(2);
+        try {
+            linkPool.execute(() -> pump(a, b, remaining));
+            linkPool.execute(() -> pump(b, a, remaining));
+        } catch (RejectedExecutionException e) {
+            log.warn("Too many relayed streams, connection will be close.");
+            failures.increment();
+            close(a);
+            close(b);
+        }
+    }
+
+    private void pump(Endpoint from, Endpoint to, AtomicInteger remaining) {
+        try (BufferLease lease = ioEngineService.lease()) {
+            byte[] buffer = lease.array();
+            InputStream in = from.in();
+            OutputStream out = to.out();
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            to.shutdownOutput();
+        } catch (IOException e) {
+            close(from);
+            close(to);
+            return;
+        }
+        if (remaining.decrementAndGet() == 0) {
+            close(from);
+            close(to);
+        }
+    }
+
+    private Endpoint endpoint(Socket socket) {
+        return new Endpoint() {
+            @Override
+            public InputStream in() throws IOException {
+                return socket.getInputStream();
+            }
+
+            @Override
+            public OutputStream out() throws IOException {
+                return socket.getOutputStream();
+            }
+
+            @Override
+            public void shutdownOutput() throws IOException {
+                socket.shutdownOutput();
+            }
+
+            @Override
+            public void close() throws IOException {
+                socket.close();
+            }
+        };
+    }
+
+    private Endpoint endpoint(LinkStream stream) {
+        return new Endpoint() {
+            @Override
+            public InputStream in() {
+                return stream.getInputStream();
+            }
+
+            @Override
+            public OutputStream out() {
+                return stream.getOutputStream();
+            }
+
+            @Override
+            public void shutdownOutput() throws IOException {
+                stream.shutdownOutput();
+            }
+
+            @Override
+            public void close() {
+                stream.close();
+            }
+        };
+    }
+
+    private void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {}
+    }
+
+    // Socket与链路上的流统一为可双向复制的端点
+    private interface Endpoint extends Closeable {
+
+        InputStream in() throws IOException;
+
+        OutputStream out() throws IOException;
+
+        void shutdownOutput() throws IOException;
+    }
+}
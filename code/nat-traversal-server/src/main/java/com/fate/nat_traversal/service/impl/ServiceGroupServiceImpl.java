@@ -0,0 +1,132 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.balance.EwmaLatencyLoadBalancer;
+import com.fate.nat_traversal.balance.LeastConnectionsLoadBalancer;
+import com.fate.nat_traversal.balance.LoadBalancer;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.LoadBalanceStrategyEnum;
+import com.fate.nat_traversal.model.Replica;
+import com.fate.nat_traversal.model.ServiceGroup;
+import com.fate.nat_traversal.service.ServiceGroupService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author fate
+ * @date 2025/12/19 20:30
+ *
+ * 服务组注册与副本选择服务
+ */
+@Slf4j
+@Service
+public class ServiceGroupServiceImpl implements ServiceGroupService {
+
+    // 服务名-服务组
+    private static final Map<String, ServiceGroup> SERVICE_GROUPS = new ConcurrentHashMap<>();
+    // 代理端口-服务组
+    private static final Map<Integer, ServiceGroup> PORT_GROUPS = new ConcurrentHashMap<>();
+
+    private LoadBalancer loadBalancer;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @PostConstruct
+    private void init() {
+        loadBalancer = turnProperties.getLoadBalance() == LoadBalanceStrategyEnum.EWMA_LATENCY
+                ? new EwmaLatencyLoadBalancer()
+                : new LeastConnectionsLoadBalancer();
+    }
+
+    @Override
+    public ServiceGroup getGroup(String name) {
+        return SERVICE_GROUPS.get(name);
+    }
+
+    @Override
+    public ServiceGroup getGroupByPort(int proxyPort) {
+        return PORT_GROUPS.get(proxyPort);
+    }
+
+    @Override
+    public Collection<ServiceGroup> getGroups() {
+        return SERVICE_GROUPS.values();
+    }
+
+    @Override
+    public ServiceGroup createGroup(String name, int proxyPort) {
+        ServiceGroup group = new ServiceGroup(name, proxyPort);
+        synchronized (SERVICE_GROUPS) {
+            SERVICE_GROUPS.put(name, group);
+            PORT_GROUPS.put(proxyPort, group);
+        }
+        log.info("ServiceGroup(name: {}; port: {}) Created", name, proxyPort);
+        return group;
+    }
+
+    @Override
+    public Replica join(String name, String backendSession, String serviceName, int weight) {
+        Replica replica = new Replica(backendSession, serviceName, weight);
+        ServiceGroup group;
+        // 与leave互斥，避免加入一个刚被移除的服务组
+        synchronized (SERVICE_GROUPS) {
+            group = SERVICE_GROUPS.get(name);
+            if (group == null) return null;
+            group.getReplicas().add(replica);
+        }
+        log.info("ServiceGroup(name: {}) Replica(session: {}; service: {}; weight: {}) Joined", name, backendSession, serviceName, replica.getWeight());
+        return replica;
+    }
+
+    @Override
+    public boolean leave(int proxyPort, String backendSession) {
+        ServiceGroup group = PORT_GROUPS.get(proxyPort);
+        if (group == null) return false;
+
+        group.getReplicas().removeIf(replica -> replica.getBackendSession().equals(backendSession));
+        log.info("ServiceGroup(name: {}) Replica(session: {}) Left, remaining: {}", group.getName(), backendSession, group.getReplicas().size());
+
+        synchronized (SERVICE_GROUPS) {
+            if (group.getReplicas().isEmpty()) {
+                SERVICE_GROUPS.remove(group.getName());
+                PORT_GROUPS.remove(proxyPort);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Replica select(int proxyPort, Set<Replica> excluded) {
+        ServiceGroup group = PORT_GROUPS.get(proxyPort);
+        if (group == null) return null;
+
+        List<Replica> candidates = new ArrayList<>(group.getReplicas().size());
+        for (Replica replica : group.getReplicas()) {
+            if (replica.isAvailable() && !excluded.contains(replica)) candidates.add(replica);
+        }
+        return candidates.isEmpty() ? null : loadBalancer.select(candidates);
+    }
+
+    @Override
+    public boolean drain(String backendSession, String serviceName, boolean draining) {
+        for (ServiceGroup group : SERVICE_GROUPS.values()) {
+            Replica replica = group.getReplica(backendSession, serviceName);
+            if (replica != null) {
+                replica.setDraining(draining);
+                log.info("ServiceGroup(name: {}) Replica(session: {}; service: {}) draining: {}", group.getName(), backendSession, serviceName, draining);
+                return true;
+            }
+        }
+        return false;
+    }
+}
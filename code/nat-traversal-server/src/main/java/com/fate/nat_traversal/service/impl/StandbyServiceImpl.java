@@ -0,0 +1,147 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.StandbyService;
+import com.fate.nat_traversal.standby.StandbyStats;
+import com.fate.nat_traversal.util.Consumer2;
+import com.fate.nat_traversal.util.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 中继探测与备用通信连接：
+ *  1. 探测回复当前负载（代理端口数/上限），被代理端点结合RTT选择中继
+ *  2. 探测连接保持为备用通信连接，每条一个线程阻塞读，空闲超时关闭
+ *  3. 备用连接上收到注册消息时按普通注册处理，故障切换无需重新建连与TLS握手
+ */
+@Slf4j
+@Service
+public class StandbyServiceImpl implements StandbyService, DisposableBean {
+
+    // 备用连接空闲超时，被代理端点按更短的间隔探测
+    private static final int IDLE_TIMEOUT = 30000;
+
+    private static final Set<CommonSocket> STANDBY = ConcurrentHashMap.newKeySet();
+
+    private Consumer2<CommonSocket, String> registerCallback;
+
+    private IntSupplier loadCallback = () -> 0;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public void hold(CommonSocket socket) {
+        probes.increment();
+        if (!socket.writeUnchecked(result())) {
+            socket.closeUnchecked();
+            return;
+        }
+        // 每个被代理端点至多保持一条备用连接，超出上限时只回复探测
+        if (STANDBY.size() >= turnProperties.getMaxServerProxy()) {
+            socket.closeUnchecked();
+            return;
+        }
+        STANDBY.add(socket);
+
+        Thread thread = new Thread(() -> serve(socket), "standby-" + socket.getRemoteSocketAddress());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void registerCallback(Consumer2<CommonSocket, String> consumer) {
+        this.registerCallback = consumer;
+    }
+
+    @Override
+    public void loadCallback(IntSupplier supplier) {
+        this.loadCallback = supplier;
+    }
+
+    @Override
+    public StandbyStats getStats() {
+        int proxies = loadCallback.getAsInt();
+        int capacity = turnProperties.getMaxServerProxy();
+        return StandbyStats.builder()
+                .load(load(proxies, capacity))
+                .proxies(proxies)
+                .capacity(capacity)
+                .standby(STANDBY.size())
+                .probes(probes.sum())
+                .promoted(promoted.sum())
+                .expired(expired.sum())
+                .build();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        STANDBY.forEach(CommonSocket::closeUnchecked);
+        STANDBY.clear();
+    }
+
+    private void serve(CommonSocket socket) {
+        String register = null;
+        try {
+            socket.getSocket().setSoTimeout(IDLE_TIMEOUT);
+            while (!socket.isClosed()) {
+                String msg = socket.readString();
+                if (msg == null) break;
+                msg = msg.strip();
+
+                if (msg.startsWith(BackendCommunicationService.RELAY_PROBE)) {
+                    probes.increment();
+                    socket.write(result());
+                } else if (msg.startsWith(BackendCommunicationService.REGISTER_PS)) {
+                    socket.getSocket().setSoTimeout(0);
+                    register = msg;
+                    break;
+                } else {
+                    break;
+                }
+            }
+            if (register != null) {
+                STANDBY.remove(socket);
+                promoted.increment();
+                log.info("Standby connection({}) promoted", socket.getRemoteSocketAddress());
+                registerCallback.accept(socket, register);
+                return;
+            }
+        } catch (SocketTimeoutException e) {
+            expired.increment();
+        } catch (IOException e) {}
+
+        STANDBY.remove(socket);
+        socket.closeUnchecked();
+    }
+
+    private String result() {
+        int proxies = loadCallback.getAsInt();
+        int capacity = turnProperties.getMaxServerProxy();
+        // 被代理端点按行读取回复
+        return BackendCommunicationService.RELAY_PROBE_RESULT + load(proxies, capacity)
+                + MessageUtil.option("proxies", proxies) + MessageUtil.option("capacity", capacity) + "\n";
+    }
+
+    private double load(int proxies, int capacity) {
+        return capacity <= 0 ? 1.0 : Math.min(1.0, (double) proxies / capacity);
+    }
+}
@@ -0,0 +1,151 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.StreamProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.StreamService;
+import com.fate.nat_traversal.stream.ResumableStream;
+import com.fate.nat_traversal.stream.StreamStats;
+import com.fate.nat_traversal.util.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复透传流：
+ *  1. 透传Socket被唤醒时新建流，流id随唤醒消息下发，之后该透传Socket只承载这一个流
+ *  2. 透传Socket断开后流保留至恢复时限，被代理端点在注册端口上以流id重新附着，双方从对端已收到的位置重放
+ *  3. 流结束时关闭透传Socket，不回收到池中，避免残留帧进入下一个流
+ */
+@Slf4j
+@Service
+public class StreamServiceImpl implements StreamService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // 开启可恢复透传流的会话
+    private static final Set<String> SESSIONS = ConcurrentHashMap.newKeySet();
+
+    // 流id-流
+    private static final Map<String, ResumableStream> STREAMS = new ConcurrentHashMap<>();
+
+    // 流id-会话
+    private static final Map<String, String> STREAM_SESSIONS = new ConcurrentHashMap<>();
+
+    // 已关闭流的累计统计
+    private final AtomicLong lost = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong replayedBytes = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public void enable(String session) {
+        if (!turnProperties.getStream().getEnabled()) return;
+        SESSIONS.add(session);
+        log.info("Backend(session: {}) uses resumable streams", session);
+    }
+
+    @Override
+    public boolean isEnabled(String session) {
+        return session != null && SESSIONS.contains(session);
+    }
+
+    @Override
+    public ResumableStream open(String session, Socket socket) {
+        StreamProperties properties = turnProperties.getStream();
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        String id = HexFormat.of().formatHex(bytes);
+
+        ResumableStream stream = new ResumableStream(id, socket, properties.getReplayBuffer(), properties.getResumeTimeout());
+        stream.setCloseCallback(this::closed);
+        STREAMS.put(id, stream);
+        STREAM_SESSIONS.put(id, session);
+        return stream;
+    }
+
+    @Override
+    public void resume(CommonSocket socket, String body) {
+        String id = MessageUtil.head(body);
+        String ack = MessageUtil.options(body).get("ack");
+        ResumableStream stream = STREAMS.get(id);
+        if (stream == null || stream.isClosed() || ack == null) {
+            socket.writeUnchecked(BackendCommunicationService.RESUME_STREAM_ERROR + "\n");
+            socket.closeUnchecked();
+            return;
+        }
+
+        // 重放可能阻塞在对端读取上，不占用注册端口的accept线程
+        Thread thread = new Thread(() -> {
+            try {
+                byte[] reply = (BackendCommunicationService.RESUME_STREAM_SUCCESS + stream.getReceived() + "\n").getBytes(StandardCharsets.UTF_8);
+                stream.attach(socket.getSocket(), Long.parseLong(ack), reply);
+            } catch (IOException | NumberFormatException e) {
+                log.info("Stream({}) resume failed: {}", id, e.getMessage());
+                socket.writeUnchecked(BackendCommunicationService.RESUME_STREAM_ERROR + "\n");
+                socket.closeUnchecked();
+                stream.close();
+            }
+        }, "stream-resume-" + id);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void remove(String session) {
+        SESSIONS.remove(session);
+        STREAM_SESSIONS.forEach((id, streamSession) -> {
+            if (!streamSession.equals(session)) return;
+            ResumableStream stream = STREAMS.get(id);
+            if (stream != null) stream.close();
+        });
+    }
+
+    @Override
+    public StreamStats getStats() {
+        int detached = 0;
+        long lostCount = lost.get();
+        long resumedCount = resumed.get();
+        long replayed = replayedBytes.get();
+        for (ResumableStream stream : STREAMS.values()) {
+            if (!stream.isAttached()) detached++;
+            lostCount += stream.getLosses();
+            resumedCount += stream.getResumes();
+            replayed += stream.getReplayedBytes();
+        }
+        return StreamStats.builder()
+                .activeStreams(STREAMS.size())
+                .detachedStreams(detached)
+                .lost(lostCount)
+                .resumed(resumedCount)
+                .replayedBytes(replayed)
+                .failed(failed.get())
+                .build();
+    }
+
+    private void closed(ResumableStream stream) {
+        if (STREAMS.remove(stream.getId()) == null) return;
+        STREAM_SESSIONS.remove(stream.getId());
+        lost.addAndGet(stream.getLosses());
+        resumed.addAndGet(stream.getResumes());
+        replayedBytes.addAndGet(stream.getReplayedBytes());
+        if (stream.isExpired()) failed.incrementAndGet();
+    }
+}
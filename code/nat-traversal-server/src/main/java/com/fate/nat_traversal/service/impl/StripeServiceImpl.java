@@ -0,0 +1,108 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.StripeProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.service.StripeService;
+import com.fate.nat_traversal.stream.StripeStats;
+import com.fate.nat_traversal.stream.StripedStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带：
+ *  1. 首条透传Socket照常唤醒并绑定客户端连接，Ping携带流id与路径序号0
+ *  2. 其余路径从透传Socket池陆续获取，Ping携带流id与路径序号，被代理端点将其加入同一条带流而不连接本地服务
+ *  3. 流结束时关闭全部路径，不回收
+ */
+@Slf4j
+@Service
+public class StripeServiceImpl implements StripeService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // 代理端口-路径数
+    private static final Map<Integer, Integer> PORT_PATHS = new ConcurrentHashMap<>();
+
+    // 流id-流
+    private static final Map<String, StripedStream> STREAMS = new ConcurrentHashMap<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong maxReorderBytes = new AtomicLong();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public void enable(int proxyPort, int paths) {
+        StripeProperties stripe = turnProperties.getStripe();
+        if (!stripe.getEnabled() || paths <= 1) return;
+        PORT_PATHS.put(proxyPort, Math.min(paths, stripe.getMaxPaths()));
+        log.info("Proxy port {} stripes connections across {} paths", proxyPort, PORT_PATHS.get(proxyPort));
+    }
+
+    @Override
+    public void disable(int proxyPort) {
+        PORT_PATHS.remove(proxyPort);
+    }
+
+    @Override
+    public int paths(int proxyPort) {
+        return PORT_PATHS.getOrDefault(proxyPort, 1);
+    }
+
+    @Override
+    public StripedStream open() {
+        StripeProperties stripe = turnProperties.getStripe();
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        String id = HexFormat.of().formatHex(bytes);
+
+        StripedStream stream = new StripedStream(id, stripe.getChunkBytes(), stripe.getWindowBytes(), stripe.getPathQueueBytes());
+        stream.setCloseCallback(this::closed);
+        STREAMS.put(id, stream);
+        opened.incrementAndGet();
+        return stream;
+    }
+
+    @Override
+    public StripeStats getStats() {
+        int paths = 0;
+        long sent = bytesSent.get();
+        long received = bytesReceived.get();
+        long maxReorder = maxReorderBytes.get();
+        for (StripedStream stream : STREAMS.values()) {
+            paths += stream.getPathCount();
+            sent += stream.getBytesSent().get();
+            received += stream.getBytesReceived().get();
+            maxReorder = Math.max(maxReorder, stream.getMaxReorderBytes());
+        }
+        return StripeStats.builder()
+                .activeStreams(STREAMS.size())
+                .activePaths(paths)
+                .openedStreams(opened.get())
+                .bytesSent(sent)
+                .bytesReceived(received)
+                .maxReorderBytes(maxReorder)
+                .build();
+    }
+
+    private void closed(StripedStream stream) {
+        if (STREAMS.remove(stream.getId()) == null) return;
+        bytesSent.addAndGet(stream.getBytesSent().get());
+        bytesReceived.addAndGet(stream.getBytesReceived().get());
+        maxReorderBytes.accumulateAndGet(stream.getMaxReorderBytes(), Math::max);
+        if (log.isDebugEnabled()) log.debug("Stream({}) closed, bytes per path: {}", stream.getId(), stream.getPathBytes());
+    }
+}
@@ -0,0 +1,116 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.TlsProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.tls.HandshakeMeter;
+import com.fate.nat_traversal.tls.TlsStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * 注册端口TLS加密：
+ *  1. 注册端口换为SSLServerSocket，通信连接与透传Socket均加密
+ *  2. 服务端会话缓存与TLS 1.3会话票据使被代理端点新建透传Socket时以会话恢复代替完整握手
+ *  3. 恢复的会话沿用首次握手的创建时间，以此区分完整握手与会话恢复
+ */
+@Slf4j
+@Service
+public class TlsServiceImpl implements TlsService {
+
+    private final HandshakeMeter meter = new HandshakeMeter();
+
+    private volatile SSLContext sslContext;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public boolean isEnabled() {
+        return turnProperties.getTls().getEnabled();
+    }
+
+    @Override
+    public ServerSocket newServerSocket() throws IOException {
+        if (!isEnabled()) return new ServerSocket();
+
+        TlsProperties tls = turnProperties.getTls();
+        SSLServerSocket serverSocket = (SSLServerSocket) context().getServerSocketFactory().createServerSocket();
+        serverSocket.setEnabledProtocols(tls.getProtocols().toArray(new String[0]));
+        log.info("Register port TLS enabled, protocols: {}", tls.getProtocols());
+        return serverSocket;
+    }
+
+    @Override
+    public boolean handshake(Socket socket) {
+        if (!(socket instanceof SSLSocket sslSocket)) return true;
+
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            socket.setSoTimeout(turnProperties.getTls().getHandshakeTimeout());
+            sslSocket.startHandshake();
+            socket.setSoTimeout(0);
+        } catch (IOException e) {
+            meter.onFailed();
+            log.info("TLS handshake(ip: {}) failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            return false;
+        }
+        meter.onHandshake(System.nanoTime() - start, sslSocket.getSession().getCreationTime() < startMillis);
+        return true;
+    }
+
+    @Override
+    public void onOpen(long nanos, boolean spare) {
+        meter.onOpen(nanos, spare);
+    }
+
+    @Override
+    public TlsStats getStats() {
+        return meter.stats()
+                .enabled(isEnabled())
+                .protocol(isEnabled() ? String.join(",", turnProperties.getTls().getProtocols()) : null)
+                .build();
+    }
+
+    private SSLContext context() throws IOException {
+        if (sslContext != null) return sslContext;
+
+        TlsProperties tls = turnProperties.getTls();
+        if (tls.getKeyStore() == null) throw new IOException("TLS enabled but key-store not configured");
+        char[] password = tls.getKeyStorePassword() == null ? new char[0] : tls.getKeyStorePassword().toCharArray();
+        try (InputStream in = new FileInputStream(tls.getKeyStore())) {
+            KeyStore keyStore = KeyStore.getInstance(tls.getKeyStoreType());
+            keyStore.load(in, password);
+            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, password);
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagerFactory.getKeyManagers(), null, null);
+            SSLSessionContext sessionContext = context.getServerSessionContext();
+            sessionContext.setSessionCacheSize(tls.getSessionCacheSize());
+            sessionContext.setSessionTimeout(tls.getSessionTimeout());
+            sslContext = context;
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Load TLS key-store failed: " + e.getMessage(), e);
+        }
+    }
+}
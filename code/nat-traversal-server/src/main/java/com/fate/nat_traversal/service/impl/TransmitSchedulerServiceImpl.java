@@ -0,0 +1,132 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.AdmissionProperties;
+import com.fate.nat_traversal.config.BulkheadProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.AdmissionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import com.fate.nat_traversal.limit.Bulkhead;
+import com.fate.nat_traversal.limit.CoDel;
+import com.fate.nat_traversal.limit.FairScheduler;
+import com.fate.nat_traversal.limit.PendingTask;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.service.TransmitSchedulerService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2025/12/23 20:30
+ *
+ * 透传槽位调度服务
+ */
+@Slf4j
+@Service
+public class TransmitSchedulerServiceImpl implements TransmitSchedulerService {
+
+    // 排队超时检查周期
+    private static final long EXPIRE_PERIOD = 100;
+
+    private FairScheduler scheduler;
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @PostConstruct
+    private void init() {
+        BulkheadProperties bulkhead = turnProperties.getBulkhead();
+        AdmissionProperties admission = turnProperties.getAdmission();
+        int capacity = bulkhead.getCapacity() == null ? turnProperties.getMaxClientConnection() : bulkhead.getCapacity();
+        CoDel codel = new CoDel(TimeUnit.MILLISECONDS.toNanos(admission.getCodelTarget()), TimeUnit.MILLISECONDS.toNanos(admission.getCodelInterval()));
+        scheduler = new FairScheduler(capacity, bulkhead.getReserved(), bulkhead.getMaxShare(), bulkhead.getQueueCapacity(),
+                TimeUnit.MILLISECONDS.toNanos(admission.getMaxWait()), codel);
+
+        taskScheduler.submit(() -> reject(scheduler.expire()), EXPIRE_PERIOD, EXPIRE_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public AdmissionEnum admit(String backendSession, Runnable onGranted, Consumer<ShedReasonEnum> onRejected) {
+        AdmissionEnum admission = scheduler.admit(backendSession, new PendingTask(onGranted, onRejected));
+        if (admission == AdmissionEnum.REJECTED) {
+            log.warn("Backend(session: {}) transmit bulkhead full, connection rejected", backendSession);
+        } else if (admission == AdmissionEnum.QUEUED && log.isDebugEnabled()) {
+            log.debug("Backend(session: {}) transmit bulkhead busy, connection queued", backendSession);
+        }
+        return admission;
+    }
+
+    @Override
+    public void release(String backendSession) {
+        dispatch(scheduler.release(backendSession));
+    }
+
+    @Override
+    public void register(String backendSession, int weight) {
+        scheduler.setWeight(backendSession, weight);
+    }
+
+    @Override
+    public void remove(String backendSession) {
+        dispatch(scheduler.remove(backendSession));
+    }
+
+    @Override
+    public List<Bulkhead> getBulkheads() {
+        return scheduler.getBulkheads();
+    }
+
+    @Override
+    public int getCapacity() {
+        return scheduler.getCapacity();
+    }
+
+    @Override
+    public int getTotalActive() {
+        return scheduler.getTotalActive();
+    }
+
+    @Override
+    public int getTotalQueued() {
+        return scheduler.getTotalQueued();
+    }
+
+    @Override
+    public long getDequeued() {
+        return scheduler.getDequeued();
+    }
+
+    @Override
+    public long getTotalQueueDelayNanos() {
+        return scheduler.getTotalDelayNanos();
+    }
+
+    @Override
+    public long getMaxQueueDelayNanos() {
+        return scheduler.getMaxDelayNanos();
+    }
+
+    @Override
+    public boolean isShedding() {
+        return scheduler.isShedding();
+    }
+
+    private void dispatch(FairScheduler.Dispatch dispatch) {
+        reject(dispatch.dropped());
+        dispatch.granted().forEach(PendingTask::grant);
+    }
+
+    private void reject(List<PendingTask> dropped) {
+        if (dropped.isEmpty()) return;
+        log.warn("Transmit queue shed {} connection(s), reason: {}", dropped.size(), dropped.get(0).getShedReason());
+        dropped.forEach(PendingTask::reject);
+    }
+}
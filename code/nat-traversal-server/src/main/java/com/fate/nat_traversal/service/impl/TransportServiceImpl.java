@@ -0,0 +1,56 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.TransportProfileProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.enums.TransportProfileEnum;
+import com.fate.nat_traversal.service.TransportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author fate
+ * @date 2025/12/27 20:30
+ *
+ * 传输配置档：
+ *  1. 客户端连接按代理端口的配置档设置Socket参数，透传方向按配置档决定是否合并写出
+ *  2. 透传Socket池按被代理端点共享，缓冲大小取默认配置档，TCP_NODELAY随每次透传的配置档切换
+ */
+@Slf4j
+@Service
+public class TransportServiceImpl implements TransportService {
+
+    private static final Map<Integer, TransportProfileEnum> PORT_PROFILES = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Override
+    public void register(int proxyPort, String profile) {
+        TransportProfileEnum parsed = TransportProfileEnum.parse(profile);
+        if (parsed == null) {
+            if (profile != null) log.warn("Unknown transport profile: {}, port: {} uses default profile", profile, proxyPort);
+            return;
+        }
+        PORT_PROFILES.put(proxyPort, parsed);
+        log.info("Transport profile {} applied on port: {}", parsed, proxyPort);
+    }
+
+    @Override
+    public void unregister(int proxyPort) {
+        PORT_PROFILES.remove(proxyPort);
+    }
+
+    @Override
+    public TransportProfileProperties profile(int proxyPort) {
+        return turnProperties.getTransport().get(PORT_PROFILES.get(proxyPort));
+    }
+
+    @Override
+    public TransportProfileProperties defaultProfile() {
+        return turnProperties.getTransport().get(null);
+    }
+}
@@ -0,0 +1,101 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.config.UdpProperties;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.service.UdpRelayService;
+import com.fate.nat_traversal.udp.UdpRelay;
+import com.fate.nat_traversal.udp.UdpStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP转发：
+ *  1. 每个UDP代理端口一个DatagramChannel，被代理端点另建一条长连接隧道承载该端口的全部数据报
+ *  2. 隧道帧携带流id，被代理端点按流id为每个来源地址建立独立的本地Socket
+ *  3. 定时清理空闲会话
+ */
+@Slf4j
+@Service
+public class UdpRelayServiceImpl implements UdpRelayService {
+
+    // 代理端口-UDP转发
+    private static final Map<Integer, UdpRelay> RELAYS = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TurnProperties turnProperties;
+
+    @Autowired
+    private TaskSchedulerService taskScheduler;
+
+    @PostConstruct
+    private void init() {
+        taskScheduler.submit(() -> {
+            long idleTimeout = turnProperties.getUdp().getIdleTimeout();
+            RELAYS.values().forEach(relay -> relay.expire(idleTimeout));
+        }, 5, 5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean open(String session, int port) {
+        UdpProperties udp = turnProperties.getUdp();
+        if (!udp.getEnabled()) return false;
+
+        // 先关闭旧转发释放端口，否则新转发无法绑定
+        UdpRelay previous = RELAYS.remove(port);
+        if (previous != null) previous.close();
+        try {
+            UdpRelay relay = new UdpRelay(session, port, udp.getMaxFlows(), udp.getBatchBytes(), udp.getReceiveBufferSize());
+            RELAYS.put(port, relay);
+            relay.start();
+        } catch (IOException e) {
+            log.warn("Open UDP relay(port: {}) failed: {}", port, e.getMessage());
+            return false;
+        }
+        log.info("UDP relay(port: {}; session: {}) opened", port, session);
+        return true;
+    }
+
+    @Override
+    public boolean attach(String session, int port, Socket socket) {
+        UdpRelay relay = RELAYS.get(port);
+        if (relay == null || !relay.getSession().equals(session)) return false;
+        try {
+            relay.attach(socket, BackendCommunicationService.REGISTER_UDP_TUNNEL_SUCCESS.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.info("Attach UDP tunnel(port: {}) failed: {}", port, e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close(int port) {
+        UdpRelay relay = RELAYS.remove(port);
+        if (relay == null) return;
+        relay.close();
+        log.info("UDP relay(port: {}) closed", port);
+    }
+
+    @Override
+    public List<UdpStats> getStats() {
+        List<UdpStats> stats = new ArrayList<>();
+        RELAYS.values().forEach(relay -> stats.add(relay.getStats()));
+        return stats;
+    }
+}
@@ -0,0 +1,80 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.service.VirtualHostService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author fate
+ * @date 2025/12/20 20:30
+ *
+ * 虚拟主机路由表，查找为两次哈希查询，与注册数量无关
+ */
+@Slf4j
+@Service
+public class VirtualHostServiceImpl implements VirtualHostService {
+
+    private static final String WILDCARD = "*.";
+
+    // 主机名-代理端口
+    private static final Map<String, Integer> HOST_ROUTES = new ConcurrentHashMap<>();
+    // 代理端口-主机名
+    private static final Map<Integer, Set<String>> PORT_HOSTS = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean route(Set<String> hosts, int proxyPort) {
+        synchronized (HOST_ROUTES) {
+            for (String host : hosts) {
+                Integer port = HOST_ROUTES.get(normalize(host));
+                if (port != null && port != proxyPort) {
+                    log.warn("VirtualHost(host: {}) already routed to port: {}", host, port);
+                    return false;
+                }
+            }
+
+            Set<String> routed = PORT_HOSTS.computeIfAbsent(proxyPort, key -> ConcurrentHashMap.newKeySet());
+            for (String host : hosts) {
+                HOST_ROUTES.put(normalize(host), proxyPort);
+                routed.add(normalize(host));
+            }
+        }
+        log.info("VirtualHost(hosts: {}) routed to port: {}", hosts, proxyPort);
+        return true;
+    }
+
+    @Override
+    public void unroute(int proxyPort) {
+        synchronized (HOST_ROUTES) {
+            Set<String> hosts = PORT_HOSTS.remove(proxyPort);
+            if (hosts == null) return;
+            hosts.forEach(host -> HOST_ROUTES.remove(host, proxyPort));
+            log.info("VirtualHost(hosts: {}) unrouted", hosts);
+        }
+    }
+
+    @Override
+    public Integer resolve(String host) {
+        if (host == null || host.isEmpty()) return null;
+
+        Integer port = HOST_ROUTES.get(host);
+        if (port != null) return port;
+
+        int index = host.indexOf('.');
+        return index == -1 ? null : HOST_ROUTES.get(WILDCARD + host.substring(index + 1));
+    }
+
+    @Override
+    public Map<String, Integer> getRoutes() {
+        return Collections.unmodifiableMap(HOST_ROUTES);
+    }
+
+    private String normalize(String host) {
+        return host.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,29 @@
+package com.fate.nat_traversal.standby;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/04 20:30
+ *
+ * 中继探测与备用通信连接统计
+ */
+@Builder
+@Data
+public class StandbyStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Double load;
+    private Integer proxies;
+    private Integer capacity;
+    private Integer standby;
+    private Long probes;
+    private Long promoted;
+    private Long expired;
+}
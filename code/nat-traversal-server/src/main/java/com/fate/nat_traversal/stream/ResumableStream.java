@@ -0,0 +1,523 @@
+package com.fate.nat_traversal.stream;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2026/01/06 20:30
+ *
+ * 可恢复的透传流：透传Socket上按帧传输，断开后流不关闭，附着到新的透传Socket上续传
+ *  1. 帧结构：类型(1字节) + 序号(8字节) + 长度(4字节) + 数据；DATA的序号为首字节在流中的偏移，ACK的序号为已按序收到的字节数
+ *  2. 发送的数据在确认前保留在重放缓冲中，缓冲满时写入阻塞；每收到缓冲的1/4确认一次
+ *  3. 透传Socket断开后读写等待新的Socket附着，附着时双方从对端已收到的位置按原帧重放，重复部分由接收端丢弃
+ *  4. 超过恢复时限仍未附着则流关闭，读写抛出异常，上层按连接中断处理
+ *  5. 结束时互发FIN并等待对端FIN后关闭；主动中断时发送ABORT，对端立即关闭
+ * 上层的结束标识、压缩帧等仍在流内传输，不感知续传
+ */
+@Slf4j
+public class ResumableStream implements TunnelStream {
+
+    private static final byte DATA = 1;
+    private static final byte ACK = 2;
+    private static final byte FIN = 3;
+    private static final byte ABORT = 4;
+
+    private static final int HEADER_BYTES = 13;
+
+    // 对端帧长度上限，防止异常数据导致大块分配
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    private static final int INPUT_BUFFER_BYTES = 16 * 1024;
+
+    // 结束时等待对端FIN的时间
+    private static final int FINISH_TIMEOUT = 3000;
+
+    // 读线程在读时，结束方等待其收到FIN的检查间隔
+    private static final int FINISH_POLL = 50;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @Getter
+    private final String id;
+
+    private final ReplayBuffer replay;
+
+    private final long resumeTimeout;
+
+    // 单帧最大长度，同时是确认间隔
+    private final int frameBytes;
+
+    // 透传Socket写出锁，数据帧、确认与重放按序写出
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 附着状态与重放缓冲的锁，持有期间不做网络IO
+    private final Object state = new Object();
+
+    private volatile Socket link;
+
+    private long lostAt = 0;
+
+    private volatile boolean closed = false;
+
+    private volatile boolean finishing = false;
+
+    // 读锁，同一时刻只有一个线程从透传Socket读帧：读线程，或结束时读线程已退出后的finish
+    private final ReentrantLock readLock = new ReentrantLock();
+
+    // 收到对端FIN/ABORT时释放
+    private final CountDownLatch peerFinished = new CountDownLatch(1);
+
+    // 以下仅持有读锁时访问
+    private Socket inputLink;
+    private DataInputStream input;
+    private byte[] pending;
+    private int pendingPosition;
+
+    // 已按序收到的字节数
+    @Getter
+    private volatile long received = 0;
+
+    @Getter
+    private volatile long sent = 0;
+
+    private volatile long ackSent = 0;
+
+    private volatile boolean ackPending = false;
+
+    @Getter
+    private volatile int losses = 0;
+
+    @Getter
+    private volatile int resumes = 0;
+
+    @Getter
+    private volatile long replayedBytes = 0;
+
+    @Getter
+    private volatile boolean expired = false;
+
+    /**
+     * 透传Socket断开回调，被代理端点在此发起重连
+     */
+    @Setter
+    private Consumer<ResumableStream> lostCallback;
+
+    @Setter
+    private Consumer<ResumableStream> closeCallback;
+
+    public ResumableStream(String id, Socket socket, int bufferBytes, long resumeTimeout) {
+        this.id = id;
+        this.link = socket;
+        this.replay = new ReplayBuffer(bufferBytes);
+        this.resumeTimeout = resumeTimeout;
+        this.frameBytes = Math.max(1, bufferBytes / 4);
+    }
+
+    @Override
+    public byte[] read() throws IOException {
+        readLock.lock();
+        try {
+            if (!fill()) return null;
+            byte[] bytes = pendingPosition == 0 ? pending : Arrays.copyOfRange(pending, pendingPosition, pending.length);
+            pending = null;
+            return bytes;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer) throws IOException {
+        readLock.lock();
+        try {
+            if (!fill()) return -1;
+            int length = Math.min(buffer.length, pending.length - pendingPosition);
+            System.arraycopy(pending, pendingPosition, buffer, 0, length);
+            pendingPosition += length;
+            if (pendingPosition == pending.length) pending = null;
+            return length;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int available() {
+        byte[] bytes = pending;
+        return bytes == null ? 0 : bytes.length - pendingPosition;
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            int length = Math.min(frameBytes, bytes.length - offset);
+            writeData(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * 附着新的透传Socket，先写出回复，再从对端已收到的位置重放
+     * @param peerReceived 对端已按序收到的字节数
+     * @param reply 附着回复，为null时不回复
+     */
+    public void attach(Socket socket, long peerReceived, byte[] reply) throws IOException {
+        Socket previous;
+        List<Frame> frames = new ArrayList<>();
+        writeLock.lock();
+        try {
+            synchronized (state) {
+                if (closed) throw new IOException("Stream(" + id + ") closed");
+                if (peerReceived < replay.start() || peerReceived > replay.end()) {
+                    throw new IOException("Stream(" + id + ") cannot replay from " + peerReceived);
+                }
+                replay.ack(peerReceived);
+                replay.replay(peerReceived, (seq, bytes) -> frames.add(new Frame(seq, bytes)));
+                previous = link;
+                // 本端尚未发现旧连接断开
+                if (previous != null) losses++;
+                link = socket;
+                lostAt = 0;
+                state.notifyAll();
+            }
+            if (previous != null && previous != socket) closeQuietly(previous);
+
+            long replayed = 0;
+            try {
+                if (reply != null) {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(reply);
+                    out.flush();
+                }
+                for (Frame frame : frames) {
+                    send(socket, DATA, frame.seq(), frame.bytes(), 0, frame.bytes().length);
+                    replayed += frame.bytes().length;
+                }
+            } catch (IOException e) {
+                linkLost(socket, e);
+            }
+            resumes++;
+            replayedBytes += replayed;
+            log.info("Stream({}) resumed on {}, replayed {} bytes", id, socket.getRemoteSocketAddress(), replayed);
+        } finally {
+            writeLock.unlock();
+        }
+        trySendAck();
+    }
+
+    @Override
+    public void finish() {
+        Socket finishLink;
+        writeLock.lock();
+        try {
+            synchronized (state) {
+                if (closed || finishing) return;
+                finishing = true;
+                finishLink = link;
+            }
+            if (finishLink != null) send(finishLink, FIN, received, EMPTY, 0, 0);
+        } catch (IOException e) {
+            finishLink = null;
+        } finally {
+            writeLock.unlock();
+        }
+
+        // 对端未读完时关闭会触发RST，丢弃尚未送达的尾部数据
+        if (finishLink != null) awaitPeerFinished(finishLink);
+        close(false);
+    }
+
+    /**
+     * 等待对端FIN：读线程仍在读时由其收到FIN后释放；读线程已退出时取得读锁自行读帧，两者不会同时读同一透传Socket
+     */
+    private void awaitPeerFinished(Socket finishLink) {
+        long deadline = System.currentTimeMillis() + FINISH_TIMEOUT;
+        try {
+            while (peerFinished.getCount() > 0 && !closed) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) return;
+                if (!readLock.tryLock()) {
+                    peerFinished.await(Math.min(wait, FINISH_POLL), TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                try {
+                    drain(finishLink, wait);
+                    return;
+                } finally {
+                    readLock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 上层已不再读取，丢弃剩余数据帧直到对端FIN/ABORT
+    private void drain(Socket finishLink, long timeout) {
+        try {
+            finishLink.setSoTimeout((int) Math.max(timeout, 1));
+            DataInputStream in = input(finishLink);
+            while (peerFinished.getCount() > 0) {
+                byte type = in.readByte();
+                in.readLong();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FRAME_BYTES) return;
+                in.skipNBytes(length);
+                if (type == FIN || type == ABORT) peerFinished.countDown();
+            }
+        } catch (IOException e) {
+            // 超时或断开均不再等待
+        }
+    }
+
+    // 中断流，通知对端立即关闭
+    @Override
+    public void close() {
+        close(true);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isAttached() {
+        return link != null;
+    }
+
+    public Socket getLink() {
+        return link;
+    }
+
+    // 读取直到有待交付的数据，对端已结束返回false
+    private boolean fill() throws IOException {
+        while (pending == null) {
+            if (peerFinished.getCount() == 0) return false;
+            readFrame();
+        }
+        return true;
+    }
+
+    private void readFrame() throws IOException {
+        Socket current = awaitLink();
+        try {
+            DataInputStream in = input(current);
+            byte type = in.readByte();
+            long seq = in.readLong();
+            int length = in.readInt();
+            if (length < 0 || length > MAX_FRAME_BYTES) throw new IOException("Invalid frame length: " + length);
+            byte[] payload = length == 0 ? EMPTY : in.readNBytes(length);
+            if (payload.length < length) throw new EOFException();
+
+            switch (type) {
+                case DATA -> onData(seq, payload);
+                case ACK -> onAck(seq);
+                case FIN -> peerFinished.countDown();
+                case ABORT -> {
+                    close(false);
+                    throw new IOException("Stream(" + id + ") aborted by peer");
+                }
+                default -> throw new IOException("Unknown frame type: " + type);
+            }
+        } catch (IOException e) {
+            if (closed) throw e;
+            linkLost(current, e);
+        }
+    }
+
+    private void onData(long seq, byte[] payload) throws IOException {
+        if (seq > received) throw new IOException("Stream(" + id + ") gap: " + seq + " > " + received);
+        long skip = received - seq;
+        // 重放的重复部分
+        if (skip >= payload.length) return;
+
+        pending = skip == 0 ? payload : Arrays.copyOfRange(payload, (int) skip, payload.length);
+        pendingPosition = 0;
+        received += pending.length;
+        if (received - ackSent >= frameBytes) {
+            ackPending = true;
+            trySendAck();
+        }
+    }
+
+    private void onAck(long seq) {
+        synchronized (state) {
+            replay.ack(seq);
+            state.notifyAll();
+        }
+    }
+
+    private void writeData(byte[] bytes, int offset, int length) throws IOException {
+        reserve(length);
+        writeLock.lock();
+        try {
+            long seq;
+            Socket current;
+            synchronized (state) {
+                seq = replay.append(bytes, offset, length);
+                sent = replay.end();
+                current = link;
+            }
+            // 未附着时只进入重放缓冲，附着后重放
+            if (current != null) {
+                try {
+                    send(current, DATA, seq, bytes, offset, length);
+                } catch (IOException e) {
+                    linkLost(current, e);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        trySendAck();
+    }
+
+    // 等待重放缓冲有足够空间；已附着时随对端确认无限等待，未附着时等待至恢复时限
+    private void reserve(int length) throws IOException {
+        boolean timeout = false;
+        synchronized (state) {
+            while (!closed && replay.free() < length) {
+                long wait = link == null ? lostAt + resumeTimeout - System.currentTimeMillis() : 1000;
+                if (wait <= 0) {
+                    timeout = true;
+                    break;
+                }
+                await(wait);
+            }
+            if (!timeout && !closed) return;
+        }
+        if (timeout) expire();
+        throw new IOException("Stream(" + id + ") closed");
+    }
+
+    private Socket awaitLink() throws IOException {
+        boolean timeout = false;
+        synchronized (state) {
+            while (!closed && link == null) {
+                long wait = lostAt + resumeTimeout - System.currentTimeMillis();
+                if (wait <= 0) {
+                    timeout = true;
+                    break;
+                }
+                await(wait);
+            }
+            if (!timeout && !closed) return link;
+        }
+        if (timeout) expire();
+        throw new IOException("Stream(" + id + ") closed");
+    }
+
+    private void await(long millis) throws IOException {
+        try {
+            state.wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Stream(" + id + ") interrupted");
+        }
+    }
+
+    private void expire() {
+        if (closed) return;
+        expired = true;
+        log.info("Stream({}) not resumed in {} ms", id, resumeTimeout);
+        close(false);
+    }
+
+    // 读写线程共用确认发送，写出锁被占用时跳过，由持有者释放后补发
+    private void trySendAck() {
+        if (!ackPending || finishing || closed) return;
+        if (!writeLock.tryLock()) return;
+        Socket current = link;
+        try {
+            if (!ackPending || current == null) return;
+            long ack = received;
+            send(current, ACK, ack, EMPTY, 0, 0);
+            ackSent = ack;
+            ackPending = false;
+        } catch (IOException e) {
+            linkLost(current, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void linkLost(Socket lost, IOException cause) {
+        synchronized (state) {
+            if (closed || finishing || link != lost) return;
+            link = null;
+            lostAt = System.currentTimeMillis();
+            losses++;
+        }
+        closeQuietly(lost);
+        log.info("Stream({}) link lost: {}, wait for resume", id, cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage());
+        Consumer<ResumableStream> callback = lostCallback;
+        if (callback != null) callback.accept(this);
+    }
+
+    private void close(boolean notifyPeer) {
+        Socket current;
+        synchronized (state) {
+            if (closed) return;
+            closed = true;
+            current = link;
+            link = null;
+            state.notifyAll();
+        }
+        if (current != null) {
+            if (notifyPeer && !finishing && writeLock.tryLock()) {
+                try {
+                    send(current, ABORT, received, EMPTY, 0, 0);
+                } catch (IOException e) {
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            closeQuietly(current);
+        }
+        Consumer<ResumableStream> callback = closeCallback;
+        if (callback != null) callback.accept(this);
+    }
+
+    private DataInputStream input(Socket socket) throws IOException {
+        if (socket != inputLink) {
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), INPUT_BUFFER_BYTES));
+            inputLink = socket;
+        }
+        return input;
+    }
+
+    private void send(Socket socket, byte type, long seq, byte[] bytes, int offset, int length) throws IOException {
+        // 帧头与数据合并一次写出，TLS下只产生一条记录
+        byte[] frame = new byte[HEADER_BYTES + length];
+        ByteBuffer.wrap(frame).put(type).putLong(seq).putInt(length).put(bytes, offset, length);
+        OutputStream out = socket.getOutputStream();
+        out.write(frame);
+        out.flush();
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+
+    private record Frame(long seq, byte[] bytes) {}
+}
@@ -0,0 +1,450 @@
+package com.fate.nat_traversal.stream;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 多路径条带流：一个逻辑流拆分到多条透传Socket并行传输，接收端按序号重组
+ *  1. 帧结构：类型(1字节) + 序号(8字节) + 长度(4字节) + 数据；DATA的序号为首字节在流中的偏移，FIN的序号为流的总长度
+ *  2. 每条路径一个发送线程与一个接收线程，写入按块分配到 RTT + 排队字节 * 单字节发送耗时 最小且队列未满的路径
+ *  3. 单字节发送耗时由发送线程按阻塞写出的耗时平滑估计，拥塞或窗口较小的路径自然分得较少的数据
+ *  4. 接收端重组窗口有上限，超出窗口的帧阻塞其路径的接收线程；下一个待交付的帧总能被接收，不会互相等待
+ *  5. 路径可在传输中陆续加入；任一路径异常即中断整个流，由上层按连接中断处理
+ */
+@Slf4j
+public class StripedStream implements TunnelStream {
+
+    private static final byte DATA = 1;
+    private static final byte FIN = 3;
+
+    private static final int HEADER_BYTES = 13;
+
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    private static final int INPUT_BUFFER_BYTES = 64 * 1024;
+
+    // 结束时等待发送完成与对端FIN的时间
+    private static final int FINISH_TIMEOUT = 3000;
+
+    // 小于该长度的写出不参与发送耗时估计
+    private static final int MEASURE_MIN_BYTES = 4096;
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    // 发送线程退出标识
+    private static final byte[] POISON = new byte[0];
+
+    @Getter
+    private final String id;
+
+    private final int chunkBytes;
+
+    private final int windowBytes;
+
+    private final long pathQueueBytes;
+
+    private final List<Path> paths = new CopyOnWriteArrayList<>();
+
+    // 写入调度锁，等待路径队列空闲
+    private final Object scheduleLock = new Object();
+
+    // 重组锁
+    private final Object reorderLock = new Object();
+
+    // 序号-帧，guarded by reorderLock
+    private final Map<Long, byte[]> reorder = new HashMap<>();
+
+    private long reorderBytes = 0;
+
+    // 下一个待交付的序号，guarded by reorderLock
+    private long next = 0;
+
+    // 对端FIN携带的流总长度，-1为未结束
+    private long peerEnd = -1;
+
+    // 以下仅读线程访问
+    private byte[] pending;
+    private int pendingPosition;
+
+    // 下一个写入的序号，仅写线程访问
+    private long sent = 0;
+
+    private volatile boolean closed = false;
+
+    private volatile boolean finishing = false;
+
+    @Getter
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    @Getter
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @Getter
+    private volatile long maxReorderBytes = 0;
+
+    @Setter
+    private Consumer<StripedStream> closeCallback;
+
+    public StripedStream(String id, int chunkBytes, int windowBytes, int pathQueueBytes) {
+        this.id = id;
+        this.chunkBytes = chunkBytes;
+        this.windowBytes = windowBytes;
+        this.pathQueueBytes = pathQueueBytes;
+    }
+
+    /**
+     * 加入一条路径并启动其收发线程
+     * @param rttNanos 路径往返时延，未知时为0
+     */
+    public boolean addPath(Socket socket, long rttNanos) {
+        if (closed || finishing) return false;
+        Path path;
+        try {
+            path = new Path(paths.size(), socket, rttNanos);
+        } catch (IOException e) {
+            return false;
+        }
+        paths.add(path);
+        // 加入期间流已结束
+        if (closed || finishing) {
+            paths.remove(path);
+            closeQuietly(socket);
+            return false;
+        }
+        path.start();
+        synchronized (scheduleLock) {
+            scheduleLock.notifyAll();
+        }
+        return true;
+    }
+
+    public int getPathCount() {
+        return paths.size();
+    }
+
+    /**
+     * 各路径已发送的字节数
+     */
+    public List<Long> getPathBytes() {
+        List<Long> bytes = new ArrayList<>();
+        for (Path path : paths) bytes.add(path.sentBytes.get());
+        return bytes;
+    }
+
+    @Override
+    public byte[] read() throws IOException {
+        if (!fill()) return null;
+        byte[] bytes = pendingPosition == 0 ? pending : Arrays.copyOfRange(pending, pendingPosition, pending.length);
+        pending = null;
+        return bytes;
+    }
+
+    @Override
+    public int read(byte[] buffer) throws IOException {
+        if (!fill()) return -1;
+        int length = Math.min(buffer.length, pending.length - pendingPosition);
+        System.arraycopy(pending, pendingPosition, buffer, 0, length);
+        pendingPosition += length;
+        if (pendingPosition == pending.length) pending = null;
+        return length;
+    }
+
+    @Override
+    public int available() {
+        byte[] bytes = pending;
+        if (bytes != null) return bytes.length - pendingPosition;
+        synchronized (reorderLock) {
+            byte[] ready = reorder.get(next);
+            return ready == null ? 0 : ready.length;
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            int length = Math.min(chunkBytes, bytes.length - offset);
+            Path path = schedule(length);
+            byte[] frame = frame(DATA, sent, bytes, offset, length);
+            sent += length;
+            path.enqueue(frame, length);
+            bytesSent.addAndGet(length);
+            offset += length;
+        }
+    }
+
+    @Override
+    public void finish() {
+        synchronized (scheduleLock) {
+            if (closed || finishing) return;
+            finishing = true;
+        }
+
+        byte[] fin = frame(FIN, sent, POISON, 0, 0);
+        for (Path path : paths) path.enqueue(fin, 0);
+        // 发送线程写出FIN后退出，接收线程收到对端FIN后退出
+        long deadline = System.currentTimeMillis() + FINISH_TIMEOUT;
+        try {
+            for (Path path : paths) {
+                path.sender.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            for (Path path : paths) {
+                path.receiver.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        shutdown();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        shutdown();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // 读取直到有待交付的数据，对端已结束返回false
+    private boolean fill() throws IOException {
+        if (pending != null) return true;
+        synchronized (reorderLock) {
+            while (true) {
+                byte[] bytes = reorder.remove(next);
+                if (bytes != null) {
+                    next += bytes.length;
+                    reorderBytes -= bytes.length;
+                    reorderLock.notifyAll();
+                    pending = bytes;
+                    pendingPosition = 0;
+                    return true;
+                }
+                if (peerEnd >= 0 && next >= peerEnd) return false;
+                if (closed) throw new IOException("Stream(" + id + ") closed");
+                await(reorderLock);
+            }
+        }
+    }
+
+    // 选择 RTT + 排队耗时 最小且队列未满的路径，全部已满时等待
+    private Path schedule(int length) throws IOException {
+        synchronized (scheduleLock) {
+            while (true) {
+                if (closed || finishing) throw new IOException("Stream(" + id + ") closed");
+                Path best = null;
+                double bestCost = Double.MAX_VALUE;
+                for (Path path : paths) {
+                    long queued = path.queuedBytes.get();
+                    if (queued > 0 && queued + length > pathQueueBytes) continue;
+                    double cost = path.rttNanos + (queued + length) * path.nanosPerByte;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        best = path;
+                    }
+                }
+                if (best != null) return best;
+                await(scheduleLock);
+            }
+        }
+    }
+
+    private void onData(long seq, byte[] payload) throws IOException {
+        synchronized (reorderLock) {
+            // 超出重组窗口的帧等待前面的数据交付，待交付的帧总是接收
+            while (!closed && seq != next && seq + payload.length > next + windowBytes) {
+                await(reorderLock);
+            }
+            if (closed) throw new IOException("Stream(" + id + ") closed");
+            reorder.put(seq, payload);
+            reorderBytes += payload.length;
+            if (reorderBytes > maxReorderBytes) maxReorderBytes = reorderBytes;
+            reorderLock.notifyAll();
+        }
+        bytesReceived.addAndGet(payload.length);
+    }
+
+    private void onFin(long seq) {
+        synchronized (reorderLock) {
+            peerEnd = seq;
+            reorderLock.notifyAll();
+        }
+    }
+
+    private void onPathError(Path path, IOException e) {
+        if (closed) return;
+        // 对端结束后路径关闭属正常
+        synchronized (reorderLock) {
+            if (path.peerFinished) return;
+        }
+        log.info("Stream({}) path {} failed: {}", id, path.index, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        shutdown();
+    }
+
+    private void shutdown() {
+        synchronized (scheduleLock) {
+            if (closed) return;
+            closed = true;
+            scheduleLock.notifyAll();
+        }
+        synchronized (reorderLock) {
+            reorderLock.notifyAll();
+        }
+        for (Path path : paths) {
+            path.queue.offer(POISON);
+            closeQuietly(path.socket);
+        }
+        Consumer<StripedStream> callback = closeCallback;
+        if (callback != null) callback.accept(this);
+    }
+
+    private void await(Object lock) throws IOException {
+        try {
+            lock.wait(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Stream(" + id + ") interrupted");
+        }
+    }
+
+    private static byte[] frame(byte type, long seq, byte[] bytes, int offset, int length) {
+        // 帧头与数据合并一次写出
+        byte[] frame = new byte[HEADER_BYTES + length];
+        ByteBuffer.wrap(frame).put(type).putLong(seq).putInt(length).put(bytes, offset, length);
+        return frame;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+
+    private class Path {
+
+        private final int index;
+
+        private final Socket socket;
+
+        private final long rttNanos;
+
+        private final LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+
+        private final AtomicLong queuedBytes = new AtomicLong();
+
+        private final AtomicLong sentBytes = new AtomicLong();
+
+        // 单字节发送耗时（纳秒），0为尚未估计
+        private volatile double nanosPerByte = 0;
+
+        // guarded by reorderLock
+        private boolean peerFinished = false;
+
+        private final Thread sender;
+
+        private final Thread receiver;
+
+        private final OutputStream out;
+
+        private final DataInputStream in;
+
+        Path(int index, Socket socket, long rttNanos) throws IOException {
+            this.index = index;
+            this.socket = socket;
+            this.rttNanos = rttNanos;
+            this.out = socket.getOutputStream();
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), INPUT_BUFFER_BYTES));
+            this.sender = new Thread(this::send, "stripe-" + id + "-" + index + "-tx");
+            this.receiver = new Thread(this::receive, "stripe-" + id + "-" + index + "-rx");
+            sender.setDaemon(true);
+            receiver.setDaemon(true);
+        }
+
+        void start() {
+            sender.start();
+            receiver.start();
+        }
+
+        void enqueue(byte[] frame, int length) {
+            queuedBytes.addAndGet(length);
+            queue.offer(frame);
+        }
+
+        private void send() {
+            try {
+                while (!closed) {
+                    byte[] frame = queue.take();
+                    if (frame == POISON) return;
+                    int length = frame.length - HEADER_BYTES;
+                    long start = System.nanoTime();
+                    out.write(frame);
+                    out.flush();
+                    if (length >= MEASURE_MIN_BYTES) {
+                        double cost = (double) (System.nanoTime() - start) / length;
+                        nanosPerByte = nanosPerByte == 0 ? cost : nanosPerByte * (1 - EWMA_ALPHA) + cost * EWMA_ALPHA;
+                    }
+                    queuedBytes.addAndGet(-length);
+                    sentBytes.addAndGet(length);
+                    synchronized (scheduleLock) {
+                        scheduleLock.notifyAll();
+                    }
+                    if (frame[0] == FIN) return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                onPathError(this, e);
+            }
+        }
+
+        private void receive() {
+            try {
+                while (!closed) {
+                    byte type = in.readByte();
+                    long seq = in.readLong();
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_FRAME_BYTES) throw new IOException("Invalid frame length: " + length);
+                    byte[] payload = in.readNBytes(length);
+                    if (payload.length < length) throw new EOFException();
+
+                    if (type == DATA) {
+                        onData(seq, payload);
+                    } else if (type == FIN) {
+                        synchronized (reorderLock) {
+                            peerFinished = true;
+                        }
+                        onFin(seq);
+                        return;
+                    } else {
+                        throw new IOException("Unknown frame type: " + type);
+                    }
+                }
+            } catch (IOException e) {
+                onPathError(this, e);
+            }
+        }
+    }
+}
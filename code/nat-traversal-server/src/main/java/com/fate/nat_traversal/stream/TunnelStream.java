@@ -0,0 +1,41 @@
+package com.fate.nat_traversal.stream;
+
+import java.io.IOException;
+
+/**
+ * @author fate
+ * @date 2026/01/07 20:30
+ *
+ * 透传Socket上的分帧流，设置后透传Socket的读写经由流
+ */
+public interface TunnelStream {
+
+    /**
+     * @return 对端已结束返回null
+     */
+    byte[] read() throws IOException;
+
+    /**
+     * @return 对端已结束返回-1
+     */
+    int read(byte[] buffer) throws IOException;
+
+    /**
+     * 已收到未交付的字节数
+     */
+    int available();
+
+    void write(byte[] bytes) throws IOException;
+
+    /**
+     * 上层两个方向均已结束：与对端交换FIN后关闭
+     */
+    void finish();
+
+    /**
+     * 中断流
+     */
+    void close();
+
+    boolean isClosed();
+}
@@ -0,0 +1,61 @@
+package com.fate.nat_traversal.tls;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2025/12/31 20:30
+ *
+ * TLS握手与透传建立耗时计量
+ */
+public class HandshakeMeter {
+
+    private final LongAdder fullHandshakes = new LongAdder();
+    private final LongAdder fullNanos = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder resumedNanos = new LongAdder();
+    private final LongAdder failedHandshakes = new LongAdder();
+
+    private final LongAdder opens = new LongAdder();
+    private final LongAdder openNanos = new LongAdder();
+    private final LongAdder spareOpens = new LongAdder();
+
+    public void onHandshake(long nanos, boolean resumed) {
+        if (resumed) {
+            resumedHandshakes.increment();
+            resumedNanos.add(nanos);
+        } else {
+            fullHandshakes.increment();
+            fullNanos.add(nanos);
+        }
+    }
+
+    public void onFailed() {
+        failedHandshakes.increment();
+    }
+
+    /**
+     * @param spare 是否直接取得空闲透传Socket，无需等待新建
+     */
+    public void onOpen(long nanos, boolean spare) {
+        opens.increment();
+        openNanos.add(nanos);
+        if (spare) spareOpens.increment();
+    }
+
+    public TlsStats.TlsStatsBuilder stats() {
+        return TlsStats.builder()
+                .fullHandshakes(fullHandshakes.sum())
+                .fullHandshakeMillis(avgMillis(fullNanos.sum(), fullHandshakes.sum()))
+                .resumedHandshakes(resumedHandshakes.sum())
+                .resumedHandshakeMillis(avgMillis(resumedNanos.sum(), resumedHandshakes.sum()))
+                .failedHandshakes(failedHandshakes.sum())
+                .opens(opens.sum())
+                .openMillis(avgMillis(openNanos.sum(), opens.sum()))
+                .spareOpens(spareOpens.sum());
+    }
+
+    private Double avgMillis(long nanos, long count) {
+        return count == 0 ? null : nanos / 1_000_000.0 / count;
+    }
+}
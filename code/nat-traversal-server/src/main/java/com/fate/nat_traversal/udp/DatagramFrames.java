@@ -0,0 +1,38 @@
+package com.fate.nat_traversal.udp;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * UDP隧道帧：流id(4) + 长度(2) + 数据报，多帧连续写出
+ * 长度为CLOSED表示该流已过期关闭；UDP数据报最大65507字节，不与之冲突
+ */
+public class DatagramFrames {
+
+    public static final int HEADER_BYTES = 6;
+
+    public static final int MAX_DATAGRAM = 65507;
+
+    public static final int CLOSED = 0xFFFF;
+
+    // 读缓冲至少容纳一个完整帧
+    public static final int MIN_BUFFER = HEADER_BYTES + 0xFFFF;
+
+    public static int getInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    public static int getLength(byte[] bytes, int offset) {
+        return ((bytes[offset + 4] & 0xFF) << 8) | (bytes[offset + 5] & 0xFF);
+    }
+
+    public static void putHeader(byte[] bytes, int offset, int flowId, int length) {
+        bytes[offset] = (byte) (flowId >>> 24);
+        bytes[offset + 1] = (byte) (flowId >>> 16);
+        bytes[offset + 2] = (byte) (flowId >>> 8);
+        bytes[offset + 3] = (byte) flowId;
+        bytes[offset + 4] = (byte) (length >>> 8);
+        bytes[offset + 5] = (byte) length;
+    }
+}
@@ -0,0 +1,39 @@
+package com.fate.nat_traversal.udp;
+
+import java.net.SocketAddress;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * 单个来源地址的UDP会话
+ */
+public class UdpFlow {
+
+    private final int id;
+
+    private final SocketAddress address;
+
+    private volatile long lastActiveTime = System.currentTimeMillis();
+
+    public UdpFlow(int id, SocketAddress address) {
+        this.id = id;
+        this.address = address;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    public void touch(long now) {
+        lastActiveTime = now;
+    }
+
+    public boolean isIdle(long now, long idleMillis) {
+        return now - lastActiveTime > idleMillis;
+    }
+}
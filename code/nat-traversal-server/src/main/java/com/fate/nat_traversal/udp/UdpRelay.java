@@ -0,0 +1,315 @@
+package com.fate.nat_traversal.udp;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * 单个UDP代理端口的转发：
+ *  1. 接收线程：选择器就绪后非阻塞收完所有已到达的数据报，直接收进批量缓冲（预留帧头），整批一次写入隧道，不等待凑批
+ *  2. 隧道读线程：按帧解析后原地切片发送，不为单个数据报分配内存
+ *  3. 来源地址到流id的会话表，空闲过期后通知被代理端点关闭对应的本地Socket
+ * 隧道断开期间到达的数据报丢弃，被代理端点重连后恢复
+ */
+@Slf4j
+public class UdpRelay {
+
+    private final int port;
+
+    private final String session;
+
+    private final int maxFlows;
+
+    private final DatagramChannel channel;
+
+    private final Selector selector;
+
+    private final Map<SocketAddress, UdpFlow> flowsByAddress = new ConcurrentHashMap<>();
+
+    private final Map<Integer, UdpFlow> flowsById = new ConcurrentHashMap<>();
+
+    // 仅接收线程分配
+    private int nextFlowId = 0;
+
+    // 接收线程的批量缓冲，数据报之间连续存放
+    private final ByteBuffer batch;
+
+    private final Object tunnelLock = new Object();
+
+    private volatile Socket tunnel;
+
+    private volatile boolean closed = false;
+
+    private final LongAdder datagramsIn = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder datagramsOut = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public UdpRelay(String session, int port, int maxFlows, int batchBytes, int receiveBufferSize) throws IOException {
+        this.session = session;
+        this.port = port;
+        this.maxFlows = maxFlows;
+        this.batch = ByteBuffer.allocate(Math.max(batchBytes, 0) + DatagramFrames.MIN_BUFFER);
+        this.channel = DatagramChannel.open();
+        try {
+            if (receiveBufferSize > 0) channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::receive, "udp-relay-" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 绑定被代理端点建立的隧道，替换旧隧道
+     * @param reply 注册成功回复，在隧道可写入数据报帧前写出，保证先于首帧到达
+     */
+    public void attach(Socket socket, byte[] reply) throws IOException {
+        socket.setTcpNoDelay(true);
+        Socket previous;
+        synchronized (tunnelLock) {
+            OutputStream out = socket.getOutputStream();
+            out.write(reply);
+            out.flush();
+            previous = tunnel;
+            tunnel = socket;
+        }
+        closeQuietly(previous);
+
+        Thread thread = new Thread(() -> readTunnel(socket), "udp-tunnel-" + port);
+        thread.setDaemon(true);
+        thread.start();
+        log.info("UDP tunnel(port: {}; session: {}) attached", port, session);
+    }
+
+    public String getSession() {
+        return session;
+    }
+
+    /**
+     * 关闭空闲的流并通知被代理端点
+     */
+    public void expire(long idleMillis) {
+        long now = System.currentTimeMillis();
+        flowsById.values().forEach(flow -> {
+            if (!flow.isIdle(now, idleMillis)) return;
+            flowsById.remove(flow.getId());
+            flowsByAddress.remove(flow.getAddress());
+            expired.increment();
+            byte[] frame = new byte[DatagramFrames.HEADER_BYTES];
+            DatagramFrames.putHeader(frame, 0, flow.getId(), DatagramFrames.CLOSED);
+            writeTunnel(frame, frame.length);
+        });
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            selector.close();
+        } catch (IOException e) {}
+        try {
+            channel.close();
+        } catch (IOException e) {}
+        synchronized (tunnelLock) {
+            closeQuietly(tunnel);
+            tunnel = null;
+        }
+        flowsById.clear();
+        flowsByAddress.clear();
+    }
+
+    public UdpStats getStats() {
+        long batchCount = batches.sum();
+        return UdpStats.builder()
+                .port(port)
+                .session(session)
+                .tunnelAttached(tunnel != null && !tunnel.isClosed())
+                .flows(flowsById.size())
+                .datagramsIn(datagramsIn.sum())
+                .bytesIn(bytesIn.sum())
+                .batches(batchCount)
+                .datagramsPerBatch(batchCount == 0 ? null : (double) datagramsIn.sum() / batchCount)
+                .datagramsOut(datagramsOut.sum())
+                .bytesOut(bytesOut.sum())
+                .dropped(dropped.sum())
+                .expired(expired.sum())
+                .build();
+    }
+
+    private void receive() {
+        byte[] bytes = batch.array();
+        while (!closed) {
+            try {
+                selector.select();
+                selector.selectedKeys().clear();
+
+                while (true) {
+                    if (batch.remaining() < DatagramFrames.HEADER_BYTES + DatagramFrames.MAX_DATAGRAM) flush();
+
+                    int start = batch.position();
+                    batch.position(start + DatagramFrames.HEADER_BYTES);
+                    SocketAddress address = channel.receive(batch);
+                    if (address == null) {
+                        batch.position(start);
+                        break;
+                    }
+
+                    int length = batch.position() - start - DatagramFrames.HEADER_BYTES;
+                    UdpFlow flow = flow(address);
+                    if (flow == null) {
+                        batch.position(start);
+                        dropped.increment();
+                        continue;
+                    }
+                    flow.touch(System.currentTimeMillis());
+                    DatagramFrames.putHeader(bytes, start, flow.getId(), length);
+                    datagramsIn.increment();
+                    bytesIn.add(length);
+                }
+                flush();
+            } catch (IOException e) {
+                if (!closed) log.warn("UDP relay(port: {}) receive error: {}", port, e.getMessage());
+            } catch (Exception e) {
+                if (!closed) log.error("UDP relay(port: {}) receive error", port, e);
+            }
+        }
+    }
+
+    private UdpFlow flow(SocketAddress address) {
+        UdpFlow flow = flowsByAddress.get(address);
+        if (flow != null) return flow;
+        if (flowsById.size() >= maxFlows) return null;
+
+        flow = new UdpFlow(nextFlowId++ & Integer.MAX_VALUE, address);
+        flowsById.put(flow.getId(), flow);
+        flowsByAddress.put(address, flow);
+        return flow;
+    }
+
+    private void flush() {
+        int length = batch.position();
+        if (length == 0) return;
+        if (!writeTunnel(batch.array(), length)) {
+            // 隧道不可用，整批丢弃
+            dropped.add(countFrames(batch.array(), length));
+        }
+        batches.increment();
+        batch.clear();
+    }
+
+    private boolean writeTunnel(byte[] bytes, int length) {
+        synchronized (tunnelLock) {
+            Socket socket = tunnel;
+            if (socket == null || socket.isClosed()) return false;
+            try {
+                OutputStream out = socket.getOutputStream();
+                out.write(bytes, 0, length);
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                log.info("UDP tunnel(port: {}) write failed: {}", port, e.getMessage());
+                closeQuietly(socket);
+                tunnel = null;
+                return false;
+            }
+        }
+    }
+
+    private void readTunnel(Socket socket) {
+        ByteBuffer buffer = ByteBuffer.allocate(DatagramFrames.MIN_BUFFER * 2);
+        byte[] bytes = buffer.array();
+        int filled = 0;
+        try {
+            InputStream in = socket.getInputStream();
+            while (!closed && tunnel == socket) {
+                int n = in.read(bytes, filled, bytes.length - filled);
+                if (n < 0) break;
+                filled += n;
+
+                int offset = 0;
+                while (filled - offset >= DatagramFrames.HEADER_BYTES) {
+                    int flowId = DatagramFrames.getInt(bytes, offset);
+                    int length = DatagramFrames.getLength(bytes, offset);
+                    if (length == DatagramFrames.CLOSED) {
+                        offset += DatagramFrames.HEADER_BYTES;
+                        continue;
+                    }
+                    if (filled - offset < DatagramFrames.HEADER_BYTES + length) break;
+
+                    UdpFlow flow = flowsById.get(flowId);
+                    if (flow != null) {
+                        buffer.limit(offset + DatagramFrames.HEADER_BYTES + length).position(offset + DatagramFrames.HEADER_BYTES);
+                        // 发送缓冲已满时数据报丢弃
+                        if (channel.send(buffer, flow.getAddress()) > 0 || length == 0) {
+                            flow.touch(System.currentTimeMillis());
+                            datagramsOut.increment();
+                            bytesOut.add(length);
+                        } else {
+                            dropped.increment();
+                        }
+                        buffer.clear();
+                    } else {
+                        dropped.increment();
+                    }
+                    offset += DatagramFrames.HEADER_BYTES + length;
+                }
+
+                if (offset > 0) {
+                    System.arraycopy(bytes, offset, bytes, 0, filled - offset);
+                    filled -= offset;
+                }
+            }
+        } catch (IOException e) {
+            if (!closed && tunnel == socket) log.info("UDP tunnel(port: {}) read error: {}", port, e.getMessage());
+        }
+
+        synchronized (tunnelLock) {
+            if (tunnel == socket) tunnel = null;
+        }
+        closeQuietly(socket);
+        if (!closed) log.info("UDP tunnel(port: {}; session: {}) detached", port, session);
+    }
+
+    private int countFrames(byte[] bytes, int length) {
+        int count = 0;
+        for (int offset = 0; offset + DatagramFrames.HEADER_BYTES <= length; ++count) {
+            offset += DatagramFrames.HEADER_BYTES + DatagramFrames.getLength(bytes, offset);
+        }
+        return count;
+    }
+
+    private void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+}
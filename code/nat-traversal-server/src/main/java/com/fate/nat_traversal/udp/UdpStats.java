@@ -0,0 +1,34 @@
+package com.fate.nat_traversal.udp;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @author fate
+ * @date 2026/01/02 20:30
+ *
+ * 单个UDP代理端口的转发统计，in为客户端到被代理端点方向
+ */
+@Builder
+@Data
+public class UdpStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Integer port;
+    private String session;
+    private Boolean tunnelAttached;
+    private Integer flows;
+    private Long datagramsIn;
+    private Long bytesIn;
+    private Long batches;
+    private Double datagramsPerBatch;
+    private Long datagramsOut;
+    private Long bytesOut;
+    private Long dropped;
+    private Long expired;
+}
@@ -2,6 +2,7 @@ package com.fate.nat_traversal.util;
 
 import lombok.Getter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
@@ -21,6 +22,15 @@ public class ConcurrentWriteSocket {
 
     private final ReentrantLock LOCK;
 
+    // 消息以换行分隔，防止多条消息粘连或拆分；仅单线程读
+    private static final byte DELIMITER = '\n';
+
+    private final byte[] lineBuffer = new byte[1024];
+
+    private int linePos = 0;
+
+    private int lineLimit = 0;
+
     public ConcurrentWriteSocket(Socket socket) {
         this.SOCKET = socket;
         this.LOCK = new ReentrantLock();
@@ -47,13 +57,28 @@ public class ConcurrentWriteSocket {
     }
 
     public String readString() throws IOException {
-        byte[] read = read();
-        if (read == null) return null;
-        return new String(read, StandardCharsets.UTF_8);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            if (linePos >= lineLimit) {
+                int readLen = SOCKET.getInputStream().read(lineBuffer);
+                linePos = 0;
+                lineLimit = Math.max(readLen, 0);
+                if (readLen == -1) {
+                    return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+                }
+                continue;
+            }
+
+            byte b = lineBuffer[linePos++];
+            if (b == DELIMITER) {
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(b);
+        }
     }
 
     public void writeString(String string) throws IOException {
-        write(string.getBytes(StandardCharsets.UTF_8));
+        write((string + (char) DELIMITER).getBytes(StandardCharsets.UTF_8));
     }
 
     public boolean isClosed() {
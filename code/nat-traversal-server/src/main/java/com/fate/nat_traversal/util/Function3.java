@@ -0,0 +1,6 @@
+package com.fate.nat_traversal.util;
+
+@FunctionalInterface
+public interface Function3<A, B, C, D> {
+    D apply(A a, B b, C c);
+}
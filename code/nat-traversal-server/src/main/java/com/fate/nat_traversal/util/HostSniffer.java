@@ -0,0 +1,235 @@
+package com.fate.nat_traversal.util;
+
+import com.fate.nat_traversal.minecraft.VarInt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * @author fate
+ * @date 2025/12/20 20:30
+ *
+ * 从连接首包中解析目标主机名，支持：
+ *  1. TLS ClientHello 的 SNI 扩展
+ *  2. HTTP/1.x 请求头 Host
+ *  3. Minecraft 握手包（Handshake）中的服务器地址
+ * 返回值：主机名（小写）；null 表示数据不足需继续读取；空串表示无法识别
+ */
+public class HostSniffer {
+
+    public static final String UNKNOWN = "";
+
+    // ClientHello可拆分在多条记录中，携带后量子密钥共享时可超过max-peek-bytes，按记录长度继续读取至此上限
+    public static final int MAX_TLS_HELLO_BYTES = 64 * 1024;
+
+    private static final int TLS_HANDSHAKE = 0x16;
+    private static final int TLS_CLIENT_HELLO = 0x01;
+    private static final int TLS_EXT_SERVER_NAME = 0x0000;
+    private static final byte[] TLS_MALFORMED = new byte[0];
+
+    private static final int MC_MAX_HANDSHAKE_LENGTH = 1024;
+    private static final int MC_MAX_ADDRESS_LENGTH = 255;
+
+    public static String sniff(byte[] data, int length) {
+        if (length <= 0) return null;
+
+        int first = data[0] & 0xFF;
+        if (first == TLS_HANDSHAKE) return sniffTls(data, length);
+        if (isHttp(data, length)) return sniffHttp(data, length);
+        return sniffMinecraft(data, length);
+    }
+
+    // ---------- TLS ----------
+
+    /**
+     * 首包为TLS且ClientHello尚未读完时返回至少需要的总字节数（不超过MAX_TLS_HELLO_BYTES），否则返回0
+     */
+    public static int expected(byte[] data, int length) {
+        if (length <= 0 || (data[0] & 0xFF) != TLS_HANDSHAKE) return 0;
+
+        int[] need = {0};
+        if (reassemble(data, length, need) != null) return 0;
+        return Math.min(need[0], MAX_TLS_HELLO_BYTES);
+    }
+
+    private static String sniffTls(byte[] data, int length) {
+        // 记录层头：type(1) version(2) length(2)；握手头：type(1) length(3)
+        if (length < 9) return null;
+        int handshakeEnd = 5 + 4 + readUint24(data, 6);
+        // 常见情况：ClientHello完整位于首条记录内，原地解析
+        if (handshakeEnd <= 5 + readUint16(data, 3) && handshakeEnd <= length) {
+            return sniffClientHello(data, 5, handshakeEnd);
+        }
+
+        byte[] handshake = reassemble(data, length, new int[1]);
+        if (handshake == null) return null;
+        if (handshake == TLS_MALFORMED) return UNKNOWN;
+        return sniffClientHello(handshake, 0, handshake.length);
+    }
+
+    // 拼接连续握手记录的载荷得到完整的握手消息；数据不足返回null并在need[0]给出至少需要的总字节数
+    private static byte[] reassemble(byte[] data, int length, int[] need) {
+        byte[] handshake = new byte[length];
+        int size = 0;
+        int pos = 0;
+        while (true) {
+            int total = size >= 4 ? 4 + readUint24(handshake, 1) : -1;
+            if (total > MAX_TLS_HELLO_BYTES) return TLS_MALFORMED;
+            if (total != -1 && size >= total) return Arrays.copyOf(handshake, total);
+
+            if (pos + 5 > length) {
+                need[0] = pos + 5 + (total == -1 ? 4 - size : total - size);
+                return null;
+            }
+            int recordLength = readUint16(data, pos + 3);
+            if ((data[pos] & 0xFF) != TLS_HANDSHAKE || recordLength == 0) return TLS_MALFORMED;
+            if (pos + 5 + recordLength > length) {
+                need[0] = pos + 5 + recordLength;
+                return null;
+            }
+            System.arraycopy(data, pos + 5, handshake, size, recordLength);
+            size += recordLength;
+            pos += 5 + recordLength;
+        }
+    }
+
+    private static String sniffClientHello(byte[] data, int from, int end) {
+        int pos = from;
+        if ((data[pos] & 0xFF) != TLS_CLIENT_HELLO) return UNKNOWN;
+        // handshake type(1) length(3) client_version(2) random(32)
+        pos += 1 + 3 + 2 + 32;
+        if (pos + 1 > end) return UNKNOWN;
+
+        // session id
+        pos += 1 + (data[pos] & 0xFF);
+        if (pos + 2 > end) return UNKNOWN;
+        // cipher suites
+        pos += 2 + readUint16(data, pos);
+        if (pos + 1 > end) return UNKNOWN;
+        // compression methods
+        pos += 1 + (data[pos] & 0xFF);
+        if (pos + 2 > end) return UNKNOWN;
+
+        int extensionsEnd = Math.min(end, pos + 2 + readUint16(data, pos));
+        pos += 2;
+        while (pos + 4 <= extensionsEnd) {
+            int type = readUint16(data, pos);
+            int extLength = readUint16(data, pos + 2);
+            pos += 4;
+            if (pos + extLength > extensionsEnd) return UNKNOWN;
+
+            if (type == TLS_EXT_SERVER_NAME) {
+                // server_name_list length(2) name_type(1) name length(2) name
+                int namePos = pos + 2;
+                while (namePos + 3 <= pos + extLength) {
+                    int nameType = data[namePos] & 0xFF;
+                    int nameLength = readUint16(data, namePos + 1);
+                    namePos += 3;
+                    if (namePos + nameLength > pos + extLength) return UNKNOWN;
+                    if (nameType == 0) {
+                        return normalize(new String(data, namePos, nameLength, StandardCharsets.US_ASCII));
+                    }
+                    namePos += nameLength;
+                }
+                return UNKNOWN;
+            }
+            pos += extLength;
+        }
+        return UNKNOWN;
+    }
+
+    // ---------- HTTP ----------
+
+    // 请求行以大写方法名开头，如 "GET " "POST "
+    private static boolean isHttp(byte[] data, int length) {
+        for (int i = 0; i < Math.min(length, 8); ++i) {
+            int b = data[i] & 0xFF;
+            if (b == ' ') return i > 0;
+            if (b < 'A' || b > 'Z') return false;
+        }
+        return length < 8;
+    }
+
+    private static String sniffHttp(byte[] data, int length) {
+        int headerEnd = indexOf(data, length, "\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        if (headerEnd == -1) return null;
+
+        String[] lines = new String(data, 0, headerEnd, StandardCharsets.ISO_8859_1).split("\r\n");
+        for (int i = 1; i < lines.length; ++i) {
+            int index = lines[i].indexOf(':');
+            if (index <= 0) continue;
+            if (lines[i].substring(0, index).trim().equalsIgnoreCase("host")) {
+                return normalize(stripPort(lines[i].substring(index + 1).trim()));
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static String stripPort(String host) {
+        if (host.startsWith("[")) {
+            int index = host.indexOf(']');
+            return index == -1 ? host : host.substring(1, index);
+        }
+        int index = host.lastIndexOf(':');
+        return index == -1 ? host : host.substring(0, index);
+    }
+
+    // ---------- Minecraft ----------
+
+    // 握手包：length(VarInt) packetId(VarInt=0x00) protocol(VarInt) address(String) port(u16) nextState(VarInt)
+    private static String sniffMinecraft(byte[] data, int length) {
+        int[] cursor = {0};
+        Integer packetLength = readVarInt(data, length, cursor);
+        if (packetLength == null) return cursor[0] < 0 ? UNKNOWN : null;
+        if (packetLength <= 0 || packetLength > MC_MAX_HANDSHAKE_LENGTH) return UNKNOWN;
+
+        int end = cursor[0] + packetLength;
+        if (length < end) return null;
+
+        Integer packetId = readVarInt(data, end, cursor);
+        if (packetId == null || packetId != 0) return UNKNOWN;
+        if (readVarInt(data, end, cursor) == null) return UNKNOWN;
+
+        Integer addressLength = readVarInt(data, end, cursor);
+        if (addressLength == null || addressLength <= 0 || addressLength > MC_MAX_ADDRESS_LENGTH * 4) return UNKNOWN;
+        if (cursor[0] + addressLength + 2 > end) return UNKNOWN;
+
+        String address = new String(data, cursor[0], addressLength, StandardCharsets.UTF_8);
+        // Forge等客户端会在地址后追加 "\0FML\0" 等标记
+        int index = address.indexOf('\0');
+        if (index != -1) address = address.substring(0, index);
+        return normalize(address);
+    }
+
+    private static Integer readVarInt(byte[] data, int limit, int[] cursor) {
+        return VarInt.read(data, limit, cursor);
+    }
+
+    // ---------- common ----------
+
+    private static String normalize(String host) {
+        host = host.trim().toLowerCase(Locale.ROOT);
+        if (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+        return host;
+    }
+
+    private static int readUint16(byte[] data, int pos) {
+        return ((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF);
+    }
+
+    private static int readUint24(byte[] data, int pos) {
+        return ((data[pos] & 0xFF) << 16) | readUint16(data, pos + 1);
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] target) {
+        outer:
+        for (int i = 0; i <= length - target.length; ++i) {
+            for (int j = 0; j < target.length; ++j) {
+                if (data[i + j] != target[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fate.nat_traversal.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author fate
+ * @date 2025/12/18 20:30
+ *
+ * 协议消息参数解析
+ * 消息体结构：head;;key1:value1;;key2:value2，与“session;;port:port”保持一致
+ */
+public class MessageUtil {
+
+    public static final String SEPARATOR = ";;";
+
+    public static String head(String body) {
+        int index = body.indexOf(SEPARATOR);
+        return index == -1 ? body : body.substring(0, index);
+    }
+
+    public static Map<String, String> options(String body) {
+        Map<String, String> options = new HashMap<>();
+        String[] parts = body.split(SEPARATOR);
+        for (int i = 1; i < parts.length; ++i) {
+            int index = parts[i].indexOf(':');
+            if (index <= 0) continue;
+            options.put(parts[i].substring(0, index), parts[i].substring(index + 1));
+        }
+        return options;
+    }
+
+    public static String option(String key, Object value) {
+        return SEPARATOR + key + ":" + value;
+    }
+}
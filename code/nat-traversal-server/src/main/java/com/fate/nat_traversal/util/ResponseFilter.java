@@ -0,0 +1,22 @@
+package com.fate.nat_traversal.util;
+
+/**
+ * 透传响应过滤器，PS2C方向写回客户端前依次处理每个数据块
+ */
+public interface ResponseFilter {
+
+    /**
+     * @return 需写回客户端的数据，可为空数组（暂存）
+     */
+    byte[] filter(byte[] chunk);
+
+    /**
+     * 透传结束时取出暂存的数据
+     */
+    byte[] flush();
+
+    /**
+     * 透传结束（含异常中断）时释放暂存资源
+     */
+    default void close() {}
+}
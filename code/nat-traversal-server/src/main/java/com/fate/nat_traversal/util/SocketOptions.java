@@ -0,0 +1,42 @@
+package com.fate.nat_traversal.util;
+
+import com.fate.nat_traversal.config.TransportProfileProperties;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * @author fate
+ * @date 2025/12/27 20:30
+ *
+ * 按传输配置档设置Socket参数
+ */
+public class SocketOptions {
+
+    /**
+     * 设置全部参数，缓冲大小需在连接建立前设置才能影响TCP窗口扩大因子
+     */
+    public static boolean apply(Socket socket, TransportProfileProperties profile) {
+        try {
+            socket.setTcpNoDelay(profile.getTcpNoDelay());
+            socket.setKeepAlive(profile.getKeepAlive());
+            if (profile.getSendBufferSize() > 0) socket.setSendBufferSize(profile.getSendBufferSize());
+            if (profile.getReceiveBufferSize() > 0) socket.setReceiveBufferSize(profile.getReceiveBufferSize());
+        } catch (SocketException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 仅设置可随时切换的参数，用于按连接切换配置档的复用透传Socket
+     */
+    public static boolean applyNoDelay(Socket socket, TransportProfileProperties profile) {
+        try {
+            socket.setTcpNoDelay(profile.getTcpNoDelay());
+        } catch (SocketException e) {
+            return false;
+        }
+        return true;
+    }
+}
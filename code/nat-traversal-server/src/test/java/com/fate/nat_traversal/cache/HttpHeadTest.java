@@ -0,0 +1,98 @@
+package com.fate.nat_traversal.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class HttpHeadTest {
+
+    @Test
+    void parsesRequestLineAndHeaders() {
+        byte[] data = bytes("GET /index.html?q=1 HTTP/1.1\r\nHost: example.com\r\nAccept-Encoding: gzip\r\n\r\nbody");
+        HttpHead head = HttpHead.parse(data, data.length);
+
+        assertNotNull(head);
+        assertEquals("GET", head.method());
+        assertEquals("/index.html?q=1", head.target());
+        assertEquals("HTTP/1.1", head.version());
+        assertEquals("example.com", head.get("host"));
+        assertTrue(head.has("ACCEPT-ENCODING"));
+        assertFalse(head.has("Cookie"));
+        assertEquals(data.length - 4, head.getLength());
+    }
+
+    @Test
+    void incompleteHeadReturnsNull() {
+        byte[] data = bytes("GET / HTTP/1.1\r\nHost: example.com\r\n");
+
+        assertNull(HttpHead.parse(data, data.length));
+        assertNull(HttpHead.parse(bytes("GET / HTTP/1.1\r\n\r\n"), 10));
+    }
+
+    @Test
+    void keepAliveFollowsVersionAndConnection() {
+        assertTrue(head("GET / HTTP/1.1\r\n\r\n").keepAlive());
+        assertFalse(head("GET / HTTP/1.0\r\n\r\n").keepAlive());
+        assertFalse(head("GET / HTTP/1.1\r\nConnection: close\r\n\r\n").keepAlive());
+        assertTrue(head("GET / HTTP/1.0\r\nConnection: keep-alive\r\n\r\n").keepAlive());
+    }
+
+    @Test
+    void parsesResponseStatusAndLength() {
+        HttpHead head = head("HTTP/1.1 200 OK\r\nContent-Length: 42\r\n\r\n");
+
+        assertEquals(200, head.status());
+        assertEquals(42, head.contentLength());
+        assertEquals(-1, head("HTTP/1.1 abc\r\n\r\n").status());
+        assertEquals(-1, head("HTTP/1.1 200 OK\r\nContent-Length: x\r\n\r\n").contentLength());
+        assertEquals(-1, head("HTTP/1.1 200 OK\r\n\r\n").contentLength());
+    }
+
+    @Test
+    void cacheControlDirectivesAcrossHeaders() {
+        HttpHead head = head("HTTP/1.1 200 OK\r\nCache-Control: Public, max-age=\"60\"\r\nPragma: no-cache\r\n\r\n");
+        Map<String, String> directives = head.cacheControl();
+
+        assertEquals("", directives.get("public"));
+        assertEquals("60", directives.get("max-age"));
+        assertTrue(directives.containsKey("no-cache"));
+    }
+
+    @Test
+    void endToEndHeadersDropHopByHop() {
+        HttpHead head = head("HTTP/1.1 200 OK\r\nConnection: keep-alive\r\nContent-Type: text/plain\r\nTransfer-Encoding: chunked\r\nAge: 3\r\n\r\n");
+        List<String[]> headers = head.endToEndHeaders();
+
+        assertEquals(1, headers.size());
+        assertEquals("Content-Type", headers.get(0)[0]);
+    }
+
+    @Test
+    void withHeaderAppendsField() {
+        HttpHead head = head("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n");
+        byte[] rewritten = head.withHeader("If-None-Match", "\"v1\"");
+        HttpHead parsed = HttpHead.parse(rewritten, rewritten.length);
+
+        assertNotNull(parsed);
+        assertEquals("\"v1\"", parsed.get("If-None-Match"));
+        assertEquals("example.com", parsed.get("Host"));
+        assertEquals(rewritten.length, parsed.getLength());
+    }
+
+    private static HttpHead head(String text) {
+        byte[] data = bytes(text);
+        return HttpHead.parse(data, data.length);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
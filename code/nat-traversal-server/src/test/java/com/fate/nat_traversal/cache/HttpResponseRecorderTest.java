@@ -0,0 +1,113 @@
+package com.fate.nat_traversal.cache;
+
+import com.fate.nat_traversal.limit.MemoryBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class HttpResponseRecorderTest {
+
+    private final List<HttpCacheEntry> stored = new ArrayList<>();
+
+    @Test
+    void storesCacheableResponse() {
+        byte[] response = response("Cache-Control: max-age=60\r\n", "hello");
+        HttpResponseRecorder recorder = recorder(false);
+
+        assertArrayEquals(response, recorder.filter(response));
+        assertEquals(1, stored.size());
+        assertArrayEquals(bytes("hello"), stored.get(0).getBody());
+        assertFalse(stored.get(0).isPublicResponse());
+    }
+
+    @Test
+    void storesBodySplitAcrossChunks() {
+        byte[] response = response("Cache-Control: max-age=60\r\n", "hello world");
+        HttpResponseRecorder recorder = recorder(false);
+
+        recorder.filter(Arrays.copyOf(response, 10));
+        assertTrue(stored.isEmpty());
+        recorder.filter(Arrays.copyOfRange(response, 10, response.length));
+        assertEquals(1, stored.size());
+        assertArrayEquals(bytes("hello world"), stored.get(0).getBody());
+    }
+
+    @Test
+    void cookieRequestRequiresPublic() {
+        recorder(true).filter(response("Cache-Control: max-age=60\r\n", "hello"));
+        assertTrue(stored.isEmpty());
+
+        recorder(true).filter(response("Cache-Control: public, max-age=60\r\n", "hello"));
+        assertEquals(1, stored.size());
+        assertTrue(stored.get(0).isPublicResponse());
+    }
+
+    @Test
+    void privateOrSetCookieNotStored() {
+        recorder(false).filter(response("Cache-Control: private, max-age=60\r\n", "hello"));
+        recorder(false).filter(response("Cache-Control: max-age=60\r\nSet-Cookie: id=1\r\n", "hello"));
+        recorder(false).filter(response("Cache-Control: no-store\r\n", "hello"));
+
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    void revalidationResetsAge() {
+        recorder(false).filter(response("Cache-Control: max-age=0\r\nETag: \"v1\"\r\n", "hello"));
+        HttpCacheEntry entry = stored.get(0);
+        ReflectionTestUtils.setField(entry, "storedAt", System.currentTimeMillis() - 120_000);
+        assertFalse(entry.isFresh());
+        assertTrue(text(entry.toResponse(true, true, "HIT")).contains("Age: 120\r\n"));
+
+        List<HttpCacheEntry> revalidated = new ArrayList<>();
+        HttpResponseRecorder recorder = new HttpResponseRecorder("key", true, false, entry, 4096, 4096, stored::add, revalidated::add, new MemoryBudget(1 << 20));
+        String response = text(recorder.filter(bytes("HTTP/1.1 304 Not Modified\r\nCache-Control: max-age=60\r\nETag: \"v1\"\r\n\r\n")));
+
+        // 304后按重新取得计算Age，不再沿用首次存入时间
+        assertEquals(List.of(entry), revalidated);
+        assertTrue(response.contains("Age: 0\r\n"), response);
+        assertTrue(response.contains("X-Cache: REVALIDATED\r\n"), response);
+        assertTrue(response.endsWith("hello"), response);
+        assertTrue(entry.isFresh());
+        assertEquals(1, stored.size());
+    }
+
+    @Test
+    void freshnessPrefersSharedMaxAge() {
+        assertEquals(120_000, HttpResponseRecorder.freshness(head("Cache-Control: max-age=60, s-maxage=120\r\n")));
+        assertEquals(0, HttpResponseRecorder.freshness(head("Cache-Control: no-cache\r\nETag: \"v1\"\r\n")));
+        assertEquals(-1, HttpResponseRecorder.freshness(head("Cache-Control: no-cache\r\n")));
+        assertEquals(-1, HttpResponseRecorder.freshness(head("")));
+    }
+
+    private HttpResponseRecorder recorder(boolean requirePublic) {
+        return new HttpResponseRecorder("key", true, requirePublic, null, 4096, 4096, stored::add, entry -> {}, new MemoryBudget(1 << 20));
+    }
+
+    private static byte[] response(String headers, String body) {
+        return bytes("HTTP/1.1 200 OK\r\n" + headers + "Content-Length: " + body.length() + "\r\n\r\n" + body);
+    }
+
+    private static HttpHead head(String headers) {
+        byte[] data = bytes("HTTP/1.1 200 OK\r\n" + headers + "\r\n");
+        return HttpHead.parse(data, data.length);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
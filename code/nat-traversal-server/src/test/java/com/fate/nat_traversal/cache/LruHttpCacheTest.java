@@ -0,0 +1,71 @@
+package com.fate.nat_traversal.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class LruHttpCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedByBytes() {
+        HttpCacheEntry a = entry("a", 100);
+        LruHttpCache cache = new LruHttpCache(a.size() * 2);
+        cache.put(a);
+        cache.put(entry("b", 100));
+
+        // 访问a后b成为最久未使用
+        assertSame(a, cache.get("a"));
+        cache.put(entry("c", 100));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void replacingEntryUpdatesUsedBytes() {
+        LruHttpCache cache = new LruHttpCache(10_000);
+        cache.put(entry("a", 100));
+        HttpCacheEntry larger = entry("a", 300);
+        cache.put(larger);
+
+        assertEquals(1, cache.size());
+        assertEquals(larger.size(), cache.usedBytes());
+        assertSame(larger, cache.get("a"));
+    }
+
+    @Test
+    void oversizedEntryNotStored() {
+        LruHttpCache cache = new LruHttpCache(50);
+        cache.put(entry("a", 100));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    void removeIfReleasesBytes() {
+        LruHttpCache cache = new LruHttpCache(10_000);
+        cache.put(entry("8080|a", 100));
+        HttpCacheEntry kept = entry("9090|b", 100);
+        cache.put(kept);
+
+        cache.removeIf(key -> key.startsWith("8080|"));
+        assertEquals(1, cache.size());
+        assertEquals(kept.size(), cache.usedBytes());
+        assertEquals(0, cache.evictions());
+    }
+
+    private static HttpCacheEntry entry(String key, int bodyLength) {
+        byte[] data = ("HTTP/1.1 200 OK\r\nContent-Length: " + bodyLength + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        return new HttpCacheEntry(key, HttpHead.parse(data, data.length), new byte[bodyLength], 60_000);
+    }
+}
@@ -0,0 +1,84 @@
+package com.fate.nat_traversal.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class HashRingTest {
+
+    private static final int KEYS = 10000;
+
+    @Test
+    void emptyRingLocatesNothing() {
+        HashRing ring = new HashRing(16);
+        assertNull(ring.locate("svc"));
+        assertTrue(ring.shares().isEmpty());
+    }
+
+    @Test
+    void locateIsStableAcrossInstances() {
+        HashRing first = ring("a", "b", "c");
+        // 加入顺序不影响归属，各节点独立计算结果一致
+        HashRing second = ring("c", "a", "b");
+        for (int i = 0; i < KEYS; ++i) assertEquals(first.locate("svc-" + i), second.locate("svc-" + i));
+    }
+
+    @Test
+    void sharesCoverWholeRing() {
+        assertEquals(1.0, ring("a").shares().get("a"), 1e-9);
+
+        Map<String, Double> shares = ring("a", "b", "c").shares();
+        assertEquals(3, shares.size());
+        assertEquals(1.0, shares.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+        shares.values().forEach(share -> assertTrue(share > 0.2 && share < 0.5, "share " + share));
+    }
+
+    @Test
+    void joinMovesAboutOneNthToNewNode() {
+        HashRing ring = ring("a", "b", "c");
+        Map<String, String> before = owners(ring);
+
+        ring.add("d");
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = ring.locate(entry.getKey());
+            if (owner.equals(entry.getValue())) continue;
+            assertEquals("d", owner);
+            ++moved;
+        }
+        double ratio = (double) moved / KEYS;
+        assertTrue(ratio > 0.15 && ratio < 0.35, "moved " + ratio);
+
+        // 离开后键回到原节点
+        ring.remove("d");
+        assertEquals(before, owners(ring));
+    }
+
+    @Test
+    void removedNodeIsNeverLocated() {
+        HashRing ring = ring("a", "b");
+        ring.remove("a");
+        for (int i = 0; i < 1000; ++i) assertEquals("b", ring.locate("svc-" + i));
+        assertEquals(Set.of("b"), ring.shares().keySet());
+    }
+
+    private static HashRing ring(String... nodes) {
+        HashRing ring = new HashRing(128);
+        for (String node : nodes) ring.add(node);
+        return ring;
+    }
+
+    private static Map<String, String> owners(HashRing ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; ++i) owners.put("svc-" + i, ring.locate("svc-" + i));
+        return owners;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fate.nat_traversal.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class MemoryClusterStoreTest {
+
+    @Test
+    void findsRoutesByKeyAndHost() {
+        MemoryClusterStore store = new MemoryClusterStore();
+        ClusterRoute web = new ClusterRoute("web", "a", 30001, Set.of("web.test", "*.apps.test"));
+        ClusterRoute api = new ClusterRoute("api", "b", 30002, Set.of("api.apps.test"));
+        store.replace("a", List.of(web));
+        store.replace("b", List.of(api));
+
+        assertEquals(web, store.get("web"));
+        assertEquals(api, store.get("api"));
+        assertNull(store.get("missing"));
+        assertEquals(web, store.findByHost("web.test"));
+        // 精确匹配优先于通配
+        assertEquals(api, store.findByHost("api.apps.test"));
+        assertEquals(web, store.findByHost("other.apps.test"));
+        assertNull(store.findByHost("apps.test"));
+        assertNull(store.findByHost("localhost"));
+        assertNull(store.findByHost(null));
+        assertEquals(2, store.all().size());
+    }
+
+    @Test
+    void replaceDropsStaleKeysAndHosts() {
+        MemoryClusterStore store = new MemoryClusterStore();
+        store.replace("a", List.of(new ClusterRoute("web", "a", 30001, Set.of("web.test")),
+                new ClusterRoute("old", "a", 30002, Set.of("old.test"))));
+
+        ClusterRoute moved = new ClusterRoute("web", "a", 30003, Set.of("www.test"));
+        store.replace("a", List.of(moved));
+
+        assertEquals(moved, store.get("web"));
+        assertNull(store.get("old"));
+        assertNull(store.findByHost("web.test"));
+        assertNull(store.findByHost("old.test"));
+        assertEquals(moved, store.findByHost("www.test"));
+        assertEquals(List.of(moved), List.copyOf(store.routes("a")));
+    }
+
+    @Test
+    void removeNodeKeepsRoutesOfOtherNodes() {
+        MemoryClusterStore store = new MemoryClusterStore();
+        ClusterRoute onA = new ClusterRoute("web", "a", 30001, Set.of("web.test"));
+        ClusterRoute onB = new ClusterRoute("web", "b", 30001, Set.of("web.test"));
+        store.replace("a", List.of(onA));
+        store.replace("b", List.of(onB));
+
+        store.removeNode("a");
+        assertEquals(onB, store.get("web"));
+        assertEquals(onB, store.findByHost("web.test"));
+        assertTrue(store.routes("a").isEmpty());
+
+        store.removeNode("b");
+        assertNull(store.get("web"));
+        assertNull(store.findByHost("web.test"));
+        assertTrue(store.all().isEmpty());
+    }
+}
@@ -0,0 +1,218 @@
+package com.fate.nat_traversal.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class RelayLinkTest {
+
+    private static final int WINDOW = 64 * 1024;
+
+    // 对端打开的流与目标
+    private final BlockingQueue<Accepted> accepted = new LinkedBlockingQueue<>();
+
+    private final BlockingQueue<RelayLink> closed = new LinkedBlockingQueue<>();
+
+    private Socket[] sockets;
+
+    private RelayLink initiator;
+
+    private RelayLink acceptor;
+
+    @BeforeEach
+    void connect() throws IOException {
+        connect(WINDOW);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        initiator.close();
+        acceptor.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void interleavedStreamsStaySeparate() throws Exception {
+        int count = 4;
+        int size = 300 * 1024;
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        List<LinkStream> opened = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            LinkStream stream = initiator.open("node-b:" + (8000 + i));
+            opened.add(stream);
+            byte[] data = pattern(size, i);
+            // 并发写出，帧在链路上交错
+            writers.add(CompletableFuture.runAsync(() -> {
+                try {
+                    stream.getOutputStream().write(data);
+                    stream.shutdownOutput();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+
+        Map<String, CompletableFuture<byte[]>> readers = new HashMap<>();
+        for (int i = 0; i < count; ++i) {
+            Accepted stream = accepted.poll(2, TimeUnit.SECONDS);
+            assertNotNull(stream);
+            // 发起方的流id为奇数
+            assertEquals(1, stream.stream().getId() % 2);
+            readers.put(stream.target(), CompletableFuture.supplyAsync(() -> readAll(stream.stream().getInputStream())));
+        }
+        for (int i = 0; i < count; ++i) {
+            assertArrayEquals(pattern(size, i), readers.get("node-b:" + (8000 + i)).get(10, TimeUnit.SECONDS));
+        }
+        for (CompletableFuture<Void> writer : writers) {
+            writer.get(1, TimeUnit.SECONDS);
+        }
+        // 接收方收到的是各流的目标与数据
+        assertEquals((long) count * (size + "node-b:8000".length()), acceptor.bytesReceived());
+        opened.forEach(LinkStream::close);
+    }
+
+    @Test
+    void writerBlocksOnWindowUntilPeerReads() throws Exception {
+        close();
+        connect(1024);
+        LinkStream stream = initiator.open("node-b:8000");
+        byte[] data = pattern(8 * 1024, 1);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                stream.getOutputStream().write(data);
+                stream.shutdownOutput();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Accepted remote = accepted.poll(2, TimeUnit.SECONDS);
+        assertNotNull(remote);
+        TimeUnit.MILLISECONDS.sleep(100);
+        // 对端未读时最多发出一个窗口
+        assertFalse(writer.isDone());
+        assertTrue(acceptor.bytesReceived() <= 1024 + remote.target().length(), "received " + acceptor.bytesReceived());
+
+        assertArrayEquals(data, readAll(remote.stream().getInputStream()));
+        writer.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void halfCloseKeepsOtherDirectionOpen() throws Exception {
+        LinkStream local = initiator.open("node-b:8000");
+        local.getOutputStream().write("request".getBytes(StandardCharsets.US_ASCII));
+        local.shutdownOutput();
+
+        LinkStream remote = accepted.poll(2, TimeUnit.SECONDS).stream();
+        assertEquals("request", new String(readAll(remote.getInputStream()), StandardCharsets.US_ASCII));
+
+        remote.getOutputStream().write("response".getBytes(StandardCharsets.US_ASCII));
+        remote.shutdownOutput();
+        assertEquals("response", new String(readAll(local.getInputStream()), StandardCharsets.US_ASCII));
+
+        // 两个方向都结束后流从链路移除
+        awaitTrue(() -> initiator.streams() == 0 && acceptor.streams() == 0);
+    }
+
+    @Test
+    void closeResetsOnlyThatStream() throws Exception {
+        LinkStream first = initiator.open("node-b:8000");
+        LinkStream second = initiator.open("node-b:8001");
+        LinkStream remoteFirst = accepted.poll(2, TimeUnit.SECONDS).stream();
+        LinkStream remoteSecond = accepted.poll(2, TimeUnit.SECONDS).stream();
+
+        first.close();
+        assertThrows(IOException.class, () -> remoteFirst.getInputStream().read());
+        assertThrows(IOException.class, () -> remoteFirst.getOutputStream().write(1));
+
+        second.getOutputStream().write("alive".getBytes(StandardCharsets.US_ASCII));
+        second.shutdownOutput();
+        assertEquals("alive", new String(readAll(remoteSecond.getInputStream()), StandardCharsets.US_ASCII));
+        assertFalse(initiator.isClosed());
+        assertFalse(acceptor.isClosed());
+    }
+
+    @Test
+    void linkLossAbortsAllStreams() throws Exception {
+        LinkStream local = initiator.open("node-b:8000");
+        LinkStream remote = accepted.poll(2, TimeUnit.SECONDS).stream();
+
+        sockets[0].close();
+        assertThrows(IOException.class, () -> remote.getInputStream().read());
+        awaitTrue(() -> initiator.isClosed() && acceptor.isClosed());
+        assertThrows(IOException.class, () -> local.getInputStream().read());
+        assertThrows(IOException.class, () -> local.getOutputStream().write(1));
+        assertThrows(IOException.class, () -> initiator.open("node-b:8001"));
+        assertEquals(2, closed.size());
+        assertEquals(0, initiator.streams());
+    }
+
+    @Test
+    void pingMeasuresRtt() throws Exception {
+        assertTrue(initiator.rtt() < 0);
+        initiator.ping();
+        awaitTrue(() -> initiator.rtt() >= 0);
+    }
+
+    private void connect(int window) throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            sockets = new Socket[]{client, server.accept()};
+        }
+        initiator = new RelayLink("node-b", sockets[0], true, window, (stream, target) -> fail("unexpected open"), closed::add);
+        acceptor = new RelayLink("node-a", sockets[1], false, window,
+                (stream, target) -> accepted.add(new Accepted(stream, target)), closed::add);
+        initiator.start();
+        acceptor.start();
+    }
+
+    private static byte[] readAll(InputStream in) {
+        try {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (i * (seed + 7) + seed);
+        }
+        return bytes;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met");
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private record Accepted(LinkStream stream, String target) {}
+}
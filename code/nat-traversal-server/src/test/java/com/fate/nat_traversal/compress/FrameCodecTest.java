@@ -0,0 +1,204 @@
+package com.fate.nat_traversal.compress;
+
+import com.fate.nat_traversal.config.CompressionProperties;
+import com.fate.nat_traversal.enums.CompressionCodecEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class FrameCodecTest {
+
+    private static final byte[] END_MARKER = "JEND".getBytes(StandardCharsets.US_ASCII);
+
+    private final CompressionMeter meter = new CompressionMeter();
+
+    private final CompressionProperties properties = new CompressionProperties();
+
+    private FrameEncoder encoder;
+
+    private FrameDecoder decoder;
+
+    @AfterEach
+    void close() {
+        if (encoder != null) encoder.close();
+        if (decoder != null) decoder.close();
+    }
+
+    @Test
+    void roundTripAcrossArbitraryChunkBoundaries() throws IOException {
+        encoder = encoder();
+        byte[][] chunks = {text(1000), text(5000), new byte[300], text(70_000)};
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            wire.writeBytes(encoder.encode(chunk));
+        }
+        byte[] expected = concat(chunks);
+
+        // 帧头与数据在任意位置被拆开
+        for (int size : new int[]{1, 2, 5, 9, 10, 333, 4096, Integer.MAX_VALUE}) {
+            decoder = new FrameDecoder(END_MARKER, meter);
+            assertArrayEquals(expected, decodeInChunks(wire.toByteArray(), size), "chunk size " + size);
+            decoder.close();
+        }
+        decoder = null;
+    }
+
+    @Test
+    void compressesRepetitiveData() throws IOException {
+        encoder = encoder();
+        decoder = new FrameDecoder(END_MARKER, meter);
+        byte[] data = text(64 * 1024);
+
+        byte[] frame = encoder.encode(data);
+        assertEquals(CompressionCodecEnum.DEFLATE.getId(), frame[0]);
+        assertTrue(frame.length < data.length / 4, "frame " + frame.length);
+        assertArrayEquals(data, decoder.decode(frame));
+    }
+
+    @Test
+    void endMarkerPassesThroughBetweenFrames() throws IOException {
+        encoder = encoder();
+        byte[] first = text(2000);
+        byte[] second = text(3000);
+        byte[] wire = concat(encoder.encode(first), END_MARKER, encoder.encode(second), END_MARKER);
+
+        for (int size : new int[]{1, 3, 7, Integer.MAX_VALUE}) {
+            decoder = new FrameDecoder(END_MARKER, meter);
+            assertArrayEquals(concat(first, END_MARKER, second, END_MARKER), decodeInChunks(wire, size), "chunk size " + size);
+            decoder.close();
+        }
+        decoder = null;
+    }
+
+    @Test
+    void smallChunksStored() throws IOException {
+        encoder = encoder();
+        decoder = new FrameDecoder(END_MARKER, meter);
+        byte[] data = text(100);
+
+        byte[] frame = encoder.encode(data);
+        assertEquals(FrameEncoder.STORED, frame[0]);
+        assertEquals(FrameEncoder.HEADER_BYTES + data.length, frame.length);
+        assertArrayEquals(data, decoder.decode(frame));
+    }
+
+    @Test
+    void incompressibleDataBypassesCompression() throws IOException {
+        properties.setBypassBytes(10_000L);
+        encoder = encoder();
+        decoder = new FrameDecoder(END_MARKER, meter);
+        byte[] noise = noise(4000);
+
+        // 压缩效果差的块仍以压缩帧发出，之后bypassBytes内原样发送
+        byte[] first = encoder.encode(noise);
+        assertEquals(CompressionCodecEnum.DEFLATE.getId(), first[0]);
+        byte[] second = encoder.encode(noise(4000));
+        byte[] third = encoder.encode(text(4000));
+        byte[] fourth = encoder.encode(text(4000));
+        assertEquals(FrameEncoder.STORED, second[0]);
+        assertEquals(FrameEncoder.STORED, third[0]);
+        assertEquals(FrameEncoder.STORED, fourth[0]);
+        // 原样发送额度用尽后重新试压缩
+        assertEquals(CompressionCodecEnum.DEFLATE.getId(), encoder.encode(text(4000))[0]);
+
+        assertArrayEquals(noise, decoder.decode(first));
+        assertArrayEquals(concat(noise(4000), text(4000), text(4000)), decoder.decode(concat(second, third, fourth)));
+    }
+
+    @Test
+    void oversizedFrameRejectedBeforeAllocation() {
+        decoder = new FrameDecoder(END_MARKER, meter);
+        byte[] header = header(CompressionCodecEnum.DEFLATE.getId(), 16, Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, () -> decoder.decode(header));
+    }
+
+    @Test
+    void corruptFrameFailsWithoutDeclaredAllocation() {
+        decoder = new FrameDecoder(END_MARKER, meter);
+        // 声明解出16MB，实际只有少量无效数据
+        byte[] payload = {(byte) 0xFF, (byte) 0xFF, 0x00, 0x01, 0x02, 0x03};
+        byte[] frame = concat(header(CompressionCodecEnum.DEFLATE.getId(), payload.length, 16 * 1024 * 1024), payload);
+
+        assertThrows(IOException.class, () -> decoder.decode(frame));
+    }
+
+    @Test
+    void truncatedDeflateFrameFails() {
+        encoder = encoder();
+        decoder = new FrameDecoder(END_MARKER, meter);
+        byte[] frame = encoder.encode(text(8000));
+        // 声明更长的原始长度，解出的数据不足
+        ByteBuffer.wrap(frame).putInt(5, 8 * 1024 * 1024);
+
+        assertThrows(IOException.class, () -> decoder.decode(frame));
+    }
+
+    @Test
+    void storedFrameLengthMismatchRejected() {
+        decoder = new FrameDecoder(END_MARKER, meter);
+
+        assertThrows(IOException.class, () -> decoder.decode(header(FrameEncoder.STORED, 4, 8)));
+    }
+
+    @Test
+    void unknownCodecRejected() {
+        decoder = new FrameDecoder(END_MARKER, meter);
+
+        assertThrows(IOException.class, () -> decoder.decode(header((byte) 0x1F, 4, 8)));
+    }
+
+    private FrameEncoder encoder() {
+        return new FrameEncoder(CompressionCodecEnum.DEFLATE, properties, meter);
+    }
+
+    private byte[] decodeInChunks(byte[] wire, int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < wire.length; ) {
+            int end = (int) Math.min(wire.length, (long) offset + size);
+            out.writeBytes(decoder.decode(Arrays.copyOfRange(wire, offset, end)));
+            offset = end;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] header(byte id, int length, int original) {
+        return ByteBuffer.allocate(FrameEncoder.HEADER_BYTES).put(id).putInt(length).putInt(original).array();
+    }
+
+    // 可压缩的文本，不以结束标识首字节开头
+    private static byte[] text(int length) {
+        byte[] pattern = "GET /index.html HTTP/1.1\r\nHost: example.com\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = pattern[i % pattern.length];
+        }
+        return bytes;
+    }
+
+    private static byte[] noise(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
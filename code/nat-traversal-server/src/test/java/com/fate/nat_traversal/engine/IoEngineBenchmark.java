@@ -0,0 +1,133 @@
+package com.fate.nat_traversal.engine;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 回环基准：blocking与nio引擎在多个监听端口上的连接建立耗时、并发建立速率与accept线程数
+ * 不随默认测试运行，执行：mvn test -Dtest=IoEngineBenchmark
+ * 与Server一致，引擎交出的连接转交连接线程池处理：读一个字节、应答一个字节后关闭
+ */
+@Slf4j
+class IoEngineBenchmark {
+
+    private static final int PORTS = 32;
+
+    private static final int WARMUP = 500;
+
+    private static final int SEQUENTIAL = 2000;
+
+    private static final int CONCURRENCY = 8;
+
+    private static final int PER_THREAD = 1000;
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    void compareEngines() throws Exception {
+        for (int round = 0; round < ROUNDS; ++round) {
+            run(new BlockingIoEngine(), round);
+            run(new NioIoEngine(), round);
+        }
+    }
+
+    private void run(IoEngine engine, int round) throws Exception {
+        TurnProperties properties = new TurnProperties();
+        properties.setMaxServerProxy(PORTS);
+        ReflectionTestUtils.setField(engine, "turnProperties", properties);
+
+        ExecutorService connections = Executors.newCachedThreadPool();
+        List<IoListener> listeners = new ArrayList<>();
+        try {
+            for (int i = 0; i < PORTS; ++i) {
+                IoListener listener = engine.bind(0);
+                listeners.add(listener);
+                assertTrue(listener.start(socket -> connections.execute(() -> echo(socket))), "listener start failed");
+            }
+            int[] ports = listeners.stream().mapToInt(IoListener::getLocalPort).toArray();
+
+            open(ports, WARMUP, 0);
+            long[] latencies = open(ports, SEQUENTIAL, 0);
+
+            ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+            List<Future<long[]>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < CONCURRENCY; ++i) {
+                int offset = i;
+                futures.add(clients.submit(() -> open(ports, PER_THREAD, offset)));
+            }
+            for (Future<long[]> future : futures) {
+                future.get();
+            }
+            double rate = CONCURRENCY * PER_THREAD / ((System.nanoTime() - start) / 1e9);
+            clients.shutdown();
+
+            log.info("round {} {} ports {}  open p50 {} ms  p99 {} ms  concurrent({}) {} conn/s  accept threads {}  accepted {}  rejected {}",
+                    round, engine.name(), ports.length, millis(latencies, 0.5), millis(latencies, 0.99), CONCURRENCY, String.format("%.0f", rate),
+                    engine.acceptThreads(), engine.accepted(), engine.rejected());
+            assertEquals(0, engine.rejected());
+        } finally {
+            listeners.forEach(IoListener::close);
+            engine.shutdown();
+            connections.shutdownNow();
+        }
+    }
+
+    /**
+     * 依次在各监听端口上建立连接并完成一次往返
+     * @return 每次的耗时（纳秒）
+     */
+    private long[] open(int[] ports, int count, int offset) throws IOException {
+        long[] nanos = new long[count];
+        for (int i = 0; i < count; ++i) {
+            long start = System.nanoTime();
+            try (Socket socket = new Socket()) {
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), ports[(i + offset) % ports.length]));
+                socket.getOutputStream().write(1);
+                assertEquals(1, socket.getInputStream().read());
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private void echo(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            int b = in.read();
+            if (b != -1) out.write(b);
+        } catch (IOException e) {
+            log.debug("Benchmark connection closed: {}", e.getMessage());
+        }
+    }
+
+    private static String millis(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.3f", sorted[Math.max(index, 0)] / 1e6);
+    }
+}
@@ -0,0 +1,299 @@
+package com.fate.nat_traversal.engine;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.MemoryBudget;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.relay.DirectSource;
+import com.fate.nat_traversal.relay.PipelinedSource;
+import com.fate.nat_traversal.relay.RelaySource;
+import com.fate.nat_traversal.relay.SpscRing;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 同一次转发分别经blocking与nio引擎接入：客户端连接由引擎交出，与回环上的透传Socket对之间按服务端的方式双向转发，
+ * 透传方向读至“Server Closed”为止，客户端方向结束后写出“Client Closed”，比较两端收到的字节
+ */
+class IoEngineTest {
+
+    private static final byte[] CLIENT_CLOSED = BackendCommunicationService.CLIENT_CLOSED.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SERVER_CLOSED = BackendCommunicationService.SERVER_CLOSED.getBytes(StandardCharsets.UTF_8);
+
+    // 结束标识之后透传Socket上的下一次转发数据
+    private static final byte[] NEXT = "next".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int UP_BYTES = 300 * 1024 + 17;
+
+    private static final int DOWN_BYTES = 500 * 1024 + 3;
+
+    private final ExecutorService relays = Executors.newCachedThreadPool();
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        relays.shutdownNow();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void serverCloseRelayedIdentically() throws Exception {
+        for (boolean pipelined : new boolean[]{false, true}) {
+            Transfer blocking = transfer(new BlockingIoEngine(), pipelined, false);
+            Transfer nio = transfer(new NioIoEngine(), pipelined, false);
+            assertTransfer(blocking, "blocking pipelined=" + pipelined);
+            assertTransfer(nio, "nio pipelined=" + pipelined);
+            assertArrayEquals(blocking.atBackend(), nio.atBackend());
+            assertArrayEquals(blocking.atClient(), nio.atClient());
+        }
+    }
+
+    @Test
+    void clientCloseRelayedIdentically() throws Exception {
+        for (boolean pipelined : new boolean[]{false, true}) {
+            Transfer blocking = transfer(new BlockingIoEngine(), pipelined, true);
+            Transfer nio = transfer(new NioIoEngine(), pipelined, true);
+            assertTransfer(blocking, "blocking pipelined=" + pipelined);
+            assertTransfer(nio, "nio pipelined=" + pipelined);
+            assertArrayEquals(blocking.atBackend(), nio.atBackend());
+            assertArrayEquals(blocking.atClient(), nio.atClient());
+        }
+    }
+
+    @Test
+    void backendLossClosesClient() throws Exception {
+        for (IoEngine engine : new IoEngine[]{new BlockingIoEngine(), new NioIoEngine()}) {
+            IoListener listener = listen(engine);
+            BlockingQueue<Socket> accepted = new LinkedBlockingQueue<>();
+            try {
+                assertTrue(listener.start(accepted::add));
+                Socket client = connect(listener.getLocalPort());
+                Socket relayed = track(accepted.poll(2, TimeUnit.SECONDS));
+                Socket[] transmit = pair();
+                CompletableFuture<Void> down = CompletableFuture.runAsync(() -> ps2c(transmit[0], relayed, false), relays);
+
+                transmit[1].getOutputStream().write(pattern(1000, 5));
+                assertArrayEquals(pattern(1000, 5), client.getInputStream().readNBytes(1000));
+                // 透传Socket未写出结束标识即断开
+                transmit[1].close();
+                assertEquals(-1, client.getInputStream().read(), engine.name());
+                down.get(2, TimeUnit.SECONDS);
+            } finally {
+                listener.close();
+                engine.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @param clientClosesFirst 客户端先关闭；否则被代理端点先写出“Server Closed”
+     */
+    private Transfer transfer(IoEngine engine, boolean pipelined, boolean clientClosesFirst) throws Exception {
+        IoListener listener = listen(engine);
+        BlockingQueue<Socket> accepted = new LinkedBlockingQueue<>();
+        try {
+            assertTrue(listener.start(accepted::add), "listener start failed");
+            Socket client = connect(listener.getLocalPort());
+            Socket relayed = track(accepted.poll(2, TimeUnit.SECONDS));
+            assertNotNull(relayed, engine.name() + " accepted nothing");
+            Socket[] transmit = pair();
+            Socket backend = transmit[1];
+
+            CompletableFuture<Void> up = CompletableFuture.runAsync(() -> c2ps(relayed, transmit[0], pipelined), relays);
+            CompletableFuture<Void> down = CompletableFuture.runAsync(() -> ps2c(transmit[0], relayed, pipelined), relays);
+
+            CompletableFuture<Void> clientWrite = CompletableFuture.runAsync(() -> write(client, pattern(UP_BYTES, 1)), relays);
+            CompletableFuture<Void> backendWrite = CompletableFuture.runAsync(() -> write(backend, pattern(DOWN_BYTES, 2)), relays);
+            byte[] upData = backend.getInputStream().readNBytes(UP_BYTES);
+            byte[] downData = client.getInputStream().readNBytes(DOWN_BYTES);
+            clientWrite.get(2, TimeUnit.SECONDS);
+            backendWrite.get(2, TimeUnit.SECONDS);
+
+            byte[] atBackend;
+            byte[] atClient;
+            if (clientClosesFirst) {
+                client.close();
+                atBackend = concat(upData, readUntil(backend.getInputStream(), CLIENT_CLOSED));
+                // 客户端已关闭，透传方向仍需读到结束标识
+                write(backend, SERVER_CLOSED);
+                atClient = downData;
+            } else {
+                // 数据全部到达后再写结束标识，结束标识不与数据拆在两次读取中
+                write(backend, SERVER_CLOSED);
+                atClient = concat(downData, client.getInputStream().readAllBytes());
+                atBackend = concat(upData, readUntil(backend.getInputStream(), CLIENT_CLOSED));
+            }
+            up.get(2, TimeUnit.SECONDS);
+            down.get(2, TimeUnit.SECONDS);
+
+            // 透传方向读至结束标识为止，之后的数据留在透传Socket上
+            write(backend, NEXT);
+            assertArrayEquals(NEXT, transmit[0].getInputStream().readNBytes(NEXT.length), engine.name());
+            assertTrue(relayed.isClosed());
+            return new Transfer(atBackend, atClient);
+        } finally {
+            listener.close();
+            engine.shutdown();
+        }
+    }
+
+    private void assertTransfer(Transfer transfer, String message) {
+        assertArrayEquals(concat(pattern(UP_BYTES, 1), CLIENT_CLOSED), transfer.atBackend(), message);
+        assertArrayEquals(pattern(DOWN_BYTES, 2), transfer.atClient(), message);
+    }
+
+    // 客户端到透传Socket：客户端结束后写出“Client Closed”
+    private void c2ps(Socket client, Socket transmit, boolean pipelined) {
+        RelaySource source = source(client, null, pipelined);
+        try {
+            for (byte[] buffer = source.read(); buffer != null; buffer = source.read()) {
+                transmit.getOutputStream().write(buffer);
+                source.release(buffer.length);
+            }
+        } catch (IOException e) {
+            // 客户端被另一方向关闭
+        }
+        source.close();
+        closeQuietly(client);
+        write(transmit, CLIENT_CLOSED);
+    }
+
+    // 透传Socket到客户端：读至“Server Closed”，客户端关闭后仍需读完
+    private void ps2c(Socket transmit, Socket client, boolean pipelined) {
+        RelaySource source = source(transmit, SERVER_CLOSED, pipelined);
+        try {
+            for (byte[] buffer = source.read(); buffer != null; buffer = source.read()) {
+                boolean serverClosed = endsWith(buffer, SERVER_CLOSED);
+                int length = serverClosed ? buffer.length - SERVER_CLOSED.length : buffer.length;
+                if (length > 0 && !client.isClosed()) {
+                    try {
+                        client.getOutputStream().write(buffer, 0, length);
+                    } catch (IOException e) {
+                        closeQuietly(client);
+                    }
+                }
+                if (serverClosed) break;
+                source.release(buffer.length);
+            }
+        } catch (IOException e) {
+            closeQuietly(transmit);
+        }
+        source.close();
+        closeQuietly(client);
+    }
+
+    private RelaySource source(Socket socket, byte[] endMarker, boolean pipelined) {
+        FlowWindow window = new FlowWindow(new MemoryBudget(16 << 20), 1 << 20, 1 << 19);
+        if (!pipelined) return new DirectSource(new CommonSocket(socket), window);
+        PipelinedSource source = new PipelinedSource(new CommonSocket(socket), window, new SpscRing(8, 8192), endMarker);
+        relays.execute(source);
+        return source;
+    }
+
+    private IoListener listen(IoEngine engine) throws IOException {
+        TurnProperties properties = new TurnProperties();
+        properties.setMaxServerProxy(4);
+        ReflectionTestUtils.setField(engine, "turnProperties", properties);
+        return engine.bind(0);
+    }
+
+    private Socket connect(int port) throws IOException {
+        Socket socket = track(new Socket(InetAddress.getLoopbackAddress(), port));
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private Socket[] pair() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket client = track(new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort()));
+            Socket accepted = track(server.accept());
+            client.setSoTimeout(5000);
+            accepted.setSoTimeout(5000);
+            return new Socket[]{client, accepted};
+        }
+    }
+
+    private Socket track(Socket socket) {
+        if (socket != null) sockets.add(socket);
+        return socket;
+    }
+
+    private static byte[] readUntil(InputStream in, byte[] suffix) throws IOException {
+        byte[] bytes = new byte[0];
+        while (!endsWith(bytes, suffix)) {
+            int b = in.read();
+            assertNotEquals(-1, b, "stream ended after " + bytes.length + " bytes");
+            bytes = Arrays.copyOf(bytes, bytes.length + 1);
+            bytes[bytes.length - 1] = (byte) b;
+        }
+        return bytes;
+    }
+
+    // 分多次写出，模拟连续到达的数据
+    private static void write(Socket socket, byte[] bytes) {
+        try {
+            OutputStream out = socket.getOutputStream();
+            for (int offset = 0; offset < bytes.length; offset += 7000) {
+                out.write(bytes, offset, Math.min(7000, bytes.length - offset));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean endsWith(byte[] bytes, byte[] suffix) {
+        if (bytes.length < suffix.length) return false;
+        return Arrays.equals(bytes, bytes.length - suffix.length, bytes.length, suffix, 0, suffix.length);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (i * (seed + 7) + (i >>> 9) + seed);
+        }
+        return bytes;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {}
+    }
+
+    private record Transfer(byte[] atBackend, byte[] atClient) {}
+}
@@ -0,0 +1,119 @@
+package com.fate.nat_traversal.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class CoDelTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private static final long TARGET = 5 * MILLIS;
+
+    private static final long INTERVAL = 100 * MILLIS;
+
+    private static final long HIGH = 20 * MILLIS;
+
+    private static final long LOW = MILLIS;
+
+    // 起始时刻避开0（0表示未超过target）
+    private static final long BASE = 1_000 * MILLIS;
+
+    @Test
+    void belowTargetNeverDrops() {
+        CoDel codel = new CoDel(TARGET, INTERVAL);
+        for (int i = 0; i < 100; ++i) {
+            assertFalse(codel.shouldDrop(LOW, at(i * 10)));
+        }
+        assertFalse(codel.isDropping());
+    }
+
+    @Test
+    void disabledNeverDrops() {
+        CoDel codel = new CoDel(0, INTERVAL);
+        assertFalse(codel.isEnabled());
+        for (int i = 0; i < 100; ++i) {
+            assertFalse(codel.shouldDrop(HIGH, at(i * 10)));
+        }
+    }
+
+    @Test
+    void dropsOnlyAfterDelayPersistsForInterval() {
+        CoDel codel = new CoDel(TARGET, INTERVAL);
+
+        assertFalse(codel.shouldDrop(HIGH, at(0)));
+        assertFalse(codel.shouldDrop(HIGH, at(50)));
+        assertFalse(codel.shouldDrop(HIGH, at(99)));
+        assertTrue(codel.shouldDrop(HIGH, at(100)));
+        assertTrue(codel.isDropping());
+    }
+
+    @Test
+    void shortSpikeDoesNotDrop() {
+        CoDel codel = new CoDel(TARGET, INTERVAL);
+
+        assertFalse(codel.shouldDrop(HIGH, at(0)));
+        assertFalse(codel.shouldDrop(LOW, at(60)));
+        // 回落后重新计时
+        assertFalse(codel.shouldDrop(HIGH, at(80)));
+        assertFalse(codel.shouldDrop(HIGH, at(150)));
+        assertTrue(codel.shouldDrop(HIGH, at(180)));
+    }
+
+    @Test
+    void dropIntervalShrinksWithSqrtOfCount() {
+        CoDel codel = new CoDel(TARGET, INTERVAL);
+        codel.shouldDrop(HIGH, at(0));
+        assertTrue(codel.shouldDrop(HIGH, at(100)));
+
+        // 下次丢弃：100 + 100/sqrt(1) = 200
+        assertFalse(codel.shouldDrop(HIGH, at(150)));
+        assertFalse(codel.shouldDrop(HIGH, at(199)));
+        assertTrue(codel.shouldDrop(HIGH, at(200)));
+        // 再下次：200 + 100/sqrt(2) ≈ 270.7
+        assertFalse(codel.shouldDrop(HIGH, at(270)));
+        assertTrue(codel.shouldDrop(HIGH, at(271)));
+    }
+
+    @Test
+    void recoversWhenDelayFallsBelowTarget() {
+        CoDel codel = new CoDel(TARGET, INTERVAL);
+        codel.shouldDrop(HIGH, at(0));
+        assertTrue(codel.shouldDrop(HIGH, at(100)));
+
+        assertFalse(codel.shouldDrop(LOW, at(120)));
+        assertFalse(codel.isDropping());
+
+        // 需再次持续一个interval才重新进入丢弃状态
+        assertFalse(codel.shouldDrop(HIGH, at(130)));
+        assertFalse(codel.shouldDrop(HIGH, at(200)));
+        assertTrue(codel.shouldDrop(HIGH, at(230)));
+    }
+
+    @Test
+    void reentrySoonAfterRecoveryKeepsDropRate() {
+        CoDel codel = new CoDel(TARGET, INTERVAL);
+        codel.shouldDrop(HIGH, at(0));
+        assertTrue(codel.shouldDrop(HIGH, at(100)));
+        assertTrue(codel.shouldDrop(HIGH, at(200)));
+        assertTrue(codel.shouldDrop(HIGH, at(271)));
+        // count=3 -> 271 + 100/sqrt(3) ≈ 328.7
+        assertTrue(codel.shouldDrop(HIGH, at(329)));
+
+        assertFalse(codel.shouldDrop(LOW, at(340)));
+        codel.shouldDrop(HIGH, at(350));
+        assertTrue(codel.shouldDrop(HIGH, at(450)));
+
+        // 沿用count=4-2=2：450 + 100/sqrt(2) ≈ 520.7，而非从头开始的550
+        assertFalse(codel.shouldDrop(HIGH, at(520)));
+        assertTrue(codel.shouldDrop(HIGH, at(521)));
+    }
+
+    private static long at(long millis) {
+        return BASE + millis * MILLIS;
+    }
+}
@@ -0,0 +1,174 @@
+package com.fate.nat_traversal.limit;
+
+import com.fate.nat_traversal.enums.AdmissionEnum;
+import com.fate.nat_traversal.enums.ShedReasonEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class FairSchedulerTest {
+
+    private static final long MAX_WAIT = TimeUnit.SECONDS.toNanos(30);
+
+    // 获得槽位的顺序
+    private final List<String> granted = new ArrayList<>();
+
+    @Test
+    void alternatesBetweenBackloggedBackends() {
+        FairScheduler scheduler = scheduler(3, 0, 1.0);
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("a", task("a")));
+        }
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(AdmissionEnum.QUEUED, scheduler.admit("a", task("a")));
+            assertEquals(AdmissionEnum.QUEUED, scheduler.admit("b", task("b")));
+        }
+
+        for (int i = 0; i < 4; ++i) {
+            runGranted(scheduler.release("a"));
+        }
+        assertEquals(List.of("a", "b", "a", "b"), granted);
+        assertEquals(3, scheduler.getTotalActive());
+        assertEquals(2, scheduler.getTotalQueued());
+    }
+
+    @Test
+    void weightsSplitFreedSlots() {
+        FairScheduler scheduler = scheduler(6, 0, 1.0);
+        scheduler.setWeight("a", 2);
+        for (int i = 0; i < 6; ++i) {
+            scheduler.admit("c", task("c"));
+        }
+        for (int i = 0; i < 4; ++i) {
+            scheduler.admit("a", task("a"));
+            scheduler.admit("b", task("b"));
+        }
+
+        FairScheduler.Dispatch dispatch = scheduler.remove("c");
+        runGranted(dispatch);
+        assertEquals(List.of("a", "a", "b", "a", "a", "b"), granted);
+        assertTrue(dispatch.dropped().isEmpty());
+        assertEquals(6, scheduler.getTotalActive());
+    }
+
+    @Test
+    void reservedSlotBypassesSharedBacklog() {
+        // 各保留2个槽位，b已有1个活跃连接，其余1个保留槽位不可借用
+        FairScheduler scheduler = scheduler(5, 2, 1.0);
+        scheduler.setWeight("a", 1);
+        scheduler.setWeight("b", 1);
+        assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("b", task("b")));
+
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("a", task("a")));
+        }
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("a", task("a")));
+
+        // 保留槽位不受a的排队影响
+        assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("b", task("b")));
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("b", task("b")));
+        assertEquals(5, scheduler.getTotalActive());
+    }
+
+    @Test
+    void busyBackendReserveHeldBack() {
+        FairScheduler scheduler = scheduler(4, 2, 1.0);
+        scheduler.setWeight("a", 1);
+        scheduler.setWeight("b", 1);
+        scheduler.admit("b", task("b"));
+        scheduler.admit("a", task("a"));
+        scheduler.admit("a", task("a"));
+
+        // 总数未满，但剩余槽位是忙碌端点b的保留槽位
+        assertEquals(3, scheduler.getTotalActive());
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("a", task("a")));
+    }
+
+    @Test
+    void idleReserveIsBorrowed() {
+        // 默认配置：容量20，每端点保留2，10个已登记端点中只有a忙碌
+        FairScheduler scheduler = scheduler(20, 2, 1.0);
+        for (int i = 0; i < 10; ++i) {
+            scheduler.setWeight("backend-" + i, 1);
+        }
+        scheduler.setWeight("a", 1);
+
+        for (int i = 0; i < 20; ++i) {
+            assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("a", task("a")), "connection " + i);
+        }
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("a", task("a")));
+
+        // 借出的保留槽位不抢占，归还时优先给保留端点
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("backend-0", task("backend-0")));
+        runGranted(scheduler.release("a"));
+        assertEquals(List.of("backend-0"), granted);
+        assertEquals(20, scheduler.getTotalActive());
+        assertEquals(1, scheduler.getTotalQueued());
+    }
+
+    @Test
+    void maxShareCapsSingleBackend() {
+        FairScheduler scheduler = scheduler(10, 0, 0.3);
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("a", task("a")));
+        }
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("a", task("a")));
+
+        // 排队的端点已达上限，不应阻塞其他端点使用空闲槽位
+        assertEquals(AdmissionEnum.ADMITTED, scheduler.admit("b", task("b")));
+    }
+
+    @Test
+    void rejectsWhenQueueFull() {
+        FairScheduler scheduler = new FairScheduler(1, 0, 1.0, 1, MAX_WAIT, new CoDel(0, 1));
+        scheduler.admit("a", task("a"));
+        assertEquals(AdmissionEnum.QUEUED, scheduler.admit("a", task("a")));
+        assertEquals(AdmissionEnum.REJECTED, scheduler.admit("a", task("a")));
+    }
+
+    @Test
+    void removeShedsQueuedTasks() {
+        FairScheduler scheduler = scheduler(1, 0, 1.0);
+        scheduler.admit("a", task("a"));
+        scheduler.admit("a", task("a"));
+
+        FairScheduler.Dispatch dispatch = scheduler.remove("a");
+        assertEquals(1, dispatch.dropped().size());
+        assertEquals(ShedReasonEnum.BACKEND_CLOSED, dispatch.dropped().get(0).getShedReason());
+        assertEquals(0, scheduler.getTotalActive());
+        assertEquals(0, scheduler.getTotalQueued());
+    }
+
+    @Test
+    void expireDropsOverdueTasks() throws InterruptedException {
+        FairScheduler scheduler = new FairScheduler(1, 0, 1.0, 10, TimeUnit.MILLISECONDS.toNanos(20), new CoDel(0, 1));
+        scheduler.admit("a", task("a"));
+        scheduler.admit("a", task("a"));
+
+        TimeUnit.MILLISECONDS.sleep(40);
+        List<PendingTask> dropped = scheduler.expire();
+        assertEquals(1, dropped.size());
+        assertEquals(ShedReasonEnum.DEADLINE, dropped.get(0).getShedReason());
+        assertEquals(0, scheduler.getTotalQueued());
+    }
+
+    private FairScheduler scheduler(int capacity, int reserved, double maxShare) {
+        return new FairScheduler(capacity, reserved, maxShare, 10, MAX_WAIT, new CoDel(0, 1));
+    }
+
+    private PendingTask task(String session) {
+        return new PendingTask(() -> granted.add(session), reason -> {});
+    }
+
+    private void runGranted(FairScheduler.Dispatch dispatch) {
+        dispatch.granted().forEach(PendingTask::grant);
+    }
+}
@@ -0,0 +1,94 @@
+package com.fate.nat_traversal.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class TokenBucketTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void burstAvailableThenRejected() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(bucket.tryAcquire(1), "permit " + i);
+        }
+        assertFalse(bucket.tryAcquire(1));
+        assertEquals(5, bucket.getAcquired());
+        assertEquals(1, bucket.getThrottled());
+    }
+
+    @Test
+    void refillsAtRate() throws InterruptedException {
+        // 每100ms补充一个令牌
+        TokenBucket bucket = new TokenBucket(10, 2);
+        assertTrue(bucket.tryAcquire(2));
+        assertFalse(bucket.tryAcquire(1));
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+    }
+
+    @Test
+    void refillNeverExceedsBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 3);
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        assertTrue(bucket.tryAcquire(3));
+        assertFalse(bucket.tryAcquire(1));
+    }
+
+    @Test
+    void permitsBeyondBurstAlwaysRejected() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+
+        assertFalse(bucket.tryAcquire(6));
+        // 拒绝不消耗令牌
+        assertTrue(bucket.tryAcquire(5));
+        assertEquals(5, bucket.getAcquired());
+    }
+
+    @Test
+    void reserveWithinBurstDoesNotWait() {
+        TokenBucket bucket = new TokenBucket(1000, 100);
+
+        assertEquals(0, bucket.reserve(100));
+        assertEquals(0, bucket.getThrottled());
+    }
+
+    @Test
+    void reserveBeyondBurstWaitsForDebt() {
+        TokenBucket bucket = new TokenBucket(1000, 100);
+
+        // 超出容量的200个令牌按1ms/个预支
+        long wait = bucket.reserve(300);
+        assertTrue(wait > 190 * MILLIS && wait <= 200 * MILLIS, "wait " + wait);
+
+        // 欠额累加：再预支100个令牌约多等100ms
+        long next = bucket.reserve(100);
+        assertTrue(next > wait + 50 * MILLIS, "next " + next);
+        assertEquals(400, bucket.getAcquired());
+        assertEquals(2, bucket.getThrottled());
+    }
+
+    @Test
+    void idleOnlyWhenFull() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertTrue(bucket.isIdle());
+
+        bucket.tryAcquire(1);
+        assertFalse(bucket.isIdle());
+
+        TimeUnit.MILLISECONDS.sleep(30);
+        assertTrue(bucket.isIdle());
+    }
+}
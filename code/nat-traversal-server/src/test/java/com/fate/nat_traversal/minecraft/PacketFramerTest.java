@@ -0,0 +1,198 @@
+package com.fate.nat_traversal.minecraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class PacketFramerTest {
+
+    private static final int MAX_HOLD = 1024;
+
+    private static final int SMALL = 64;
+
+    @Test
+    void holdsSplitPacketUntilComplete() {
+        MinecraftSession session = new MinecraftSession();
+        PacketFramer framer = new PacketFramer(session, false, MAX_HOLD, SMALL);
+        byte[] handshake = handshake("play.example.com", 2);
+
+        PacketBatch first = framer.feed(Arrays.copyOfRange(handshake, 0, 7));
+        assertEquals(0, first.bytes().length);
+        assertTrue(first.timings().isEmpty());
+
+        PacketBatch second = framer.feed(Arrays.copyOfRange(handshake, 7, handshake.length));
+        assertArrayEquals(handshake, second.bytes());
+        assertEquals(1, second.timings().size());
+        assertEquals("serverbound/HANDSHAKE/0x00", second.timings().get(0).type());
+        assertTrue(second.priority());
+        assertEquals(MinecraftSession.State.LOGIN, session.getState());
+        assertFalse(framer.isOpaque());
+    }
+
+    @Test
+    void tracksStatusHandshake() {
+        MinecraftSession session = new MinecraftSession();
+        PacketFramer framer = new PacketFramer(session, false, MAX_HOLD, SMALL);
+        byte[] handshake = handshake("localhost", 1);
+        assertArrayEquals(handshake, framer.feed(handshake).bytes());
+        assertEquals(MinecraftSession.State.STATUS, session.getState());
+    }
+
+    @Test
+    void hugeAddressLengthDoesNotOverflow() {
+        // 地址长度为0x7FFFFFFF：前移游标会溢出为负数
+        byte[] body = concat(new byte[]{0x00}, varInt(765), new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}, new byte[]{0x63, (byte) 0xDD, 0x01});
+        byte[] packet = concat(varInt(body.length), body);
+        MinecraftSession session = new MinecraftSession();
+        PacketFramer framer = new PacketFramer(session, false, MAX_HOLD, SMALL);
+
+        PacketBatch batch = assertDoesNotThrow(() -> framer.feed(packet));
+        assertArrayEquals(packet, batch.bytes());
+        assertEquals(MinecraftSession.State.LOGIN, session.getState());
+    }
+
+    @Test
+    void addressBeyondPacketFallsBackToLogin() {
+        byte[] address = "abc".getBytes(StandardCharsets.UTF_8);
+        // 声明长度100，实际只有3字节
+        byte[] body = concat(new byte[]{0x00}, varInt(765), varInt(100), address, new byte[]{0x63, (byte) 0xDD, 0x01});
+        byte[] packet = concat(varInt(body.length), body);
+        MinecraftSession session = new MinecraftSession();
+        PacketFramer framer = new PacketFramer(session, false, MAX_HOLD, SMALL);
+
+        assertArrayEquals(packet, framer.feed(packet).bytes());
+        assertEquals(MinecraftSession.State.LOGIN, session.getState());
+    }
+
+    @Test
+    void streamsPacketLargerThanHoldLimit() {
+        MinecraftSession session = new MinecraftSession();
+        session.setState(MinecraftSession.State.PLAY);
+        PacketFramer framer = new PacketFramer(session, true, MAX_HOLD, SMALL);
+        byte[] body = new byte[MAX_HOLD * 3];
+        body[0] = 0x27;
+        byte[] packet = concat(varInt(body.length), body);
+
+        PacketBatch head = framer.feed(Arrays.copyOfRange(packet, 0, 100));
+        assertEquals(100, head.bytes().length);
+        assertFalse(head.priority());
+        assertTrue(head.timings().isEmpty());
+
+        PacketBatch tail = framer.feed(Arrays.copyOfRange(packet, 100, packet.length));
+        assertEquals(packet.length - 100, tail.bytes().length);
+        assertEquals(1, tail.timings().size());
+        assertEquals("clientbound/PLAY/0x27", tail.timings().get(0).type());
+        assertFalse(framer.isOpaque());
+    }
+
+    @Test
+    void oversizedLengthFallsBackToPassThrough() {
+        MinecraftSession session = new MinecraftSession();
+        session.setState(MinecraftSession.State.PLAY);
+        PacketFramer framer = new PacketFramer(session, true, MAX_HOLD, SMALL);
+        // 4字节VarInt长度超过协议上限
+        byte[] data = concat(varInt(1 << 22), new byte[]{0x01, 0x02});
+
+        assertArrayEquals(data, framer.feed(data).bytes());
+        assertTrue(framer.isOpaque());
+        assertTrue(session.isInvalid());
+
+        byte[] more = {0x09, 0x08};
+        assertArrayEquals(more, framer.feed(more).bytes());
+    }
+
+    @Test
+    void malformedLengthFallsBackToPassThrough() {
+        MinecraftSession session = new MinecraftSession();
+        PacketFramer framer = new PacketFramer(session, false, MAX_HOLD, SMALL);
+        byte[] data = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+
+        assertArrayEquals(data, framer.feed(data).bytes());
+        assertTrue(framer.isOpaque());
+        assertTrue(session.isInvalid());
+    }
+
+    @Test
+    void tracksCompressionAndCompressedPackets() {
+        MinecraftSession session = new MinecraftSession();
+        session.setState(MinecraftSession.State.LOGIN);
+        PacketFramer framer = new PacketFramer(session, true, MAX_HOLD, SMALL);
+
+        byte[] setCompression = packet(concat(new byte[]{0x03}, varInt(256)));
+        framer.feed(setCompression);
+        assertEquals(256, session.getCompressionThreshold());
+
+        // 低于阈值：dataLength为0，包ID未压缩
+        byte[] loginSuccess = packet(concat(varInt(0), new byte[]{0x02, 0x00}));
+        assertEquals("clientbound/LOGIN/0x02", framer.feed(loginSuccess).timings().get(0).type());
+        assertEquals(MinecraftSession.State.PLAY, session.getState());
+
+        byte[] uncompressed = new byte[600];
+        uncompressed[0] = 0x25;
+        byte[] compressed = packet(concat(varInt(uncompressed.length), deflate(uncompressed)));
+        PacketBatch batch = framer.feed(compressed);
+        assertArrayEquals(compressed, batch.bytes());
+        assertEquals("clientbound/PLAY/0x25", batch.timings().get(0).type());
+        assertFalse(framer.isOpaque());
+        framer.close();
+    }
+
+    @Test
+    void encryptionMakesStreamOpaque() {
+        MinecraftSession session = new MinecraftSession();
+        session.setState(MinecraftSession.State.LOGIN);
+        session.setEncryptionRequested(true);
+        PacketFramer framer = new PacketFramer(session, false, MAX_HOLD, SMALL);
+
+        byte[] response = packet(new byte[]{0x01, 0x00, 0x00});
+        byte[] cipher = {0x7F, 0x7F, 0x7F};
+        assertArrayEquals(concat(response, cipher), framer.feed(concat(response, cipher)).bytes());
+        assertTrue(session.isEncrypted());
+        assertTrue(framer.isOpaque());
+        assertFalse(session.isInvalid());
+    }
+
+    private static byte[] handshake(String host, int nextState) {
+        byte[] address = host.getBytes(StandardCharsets.UTF_8);
+        return packet(concat(new byte[]{0x00}, varInt(765), varInt(address.length), address, new byte[]{0x63, (byte) 0xDD}, varInt(nextState)));
+    }
+
+    private static byte[] packet(byte[] body) {
+        return concat(varInt(body.length), body);
+    }
+
+    private static byte[] varInt(int value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        do {
+            int b = value & 0x7F;
+            value >>>= 7;
+            out.write(value != 0 ? b | 0x80 : b);
+        } while (value != 0);
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[data.length + 64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+package com.fate.nat_traversal.minecraft;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class VarIntTest {
+
+    @Test
+    void readsSingleAndMultiByte() {
+        int[] cursor = {0};
+        assertEquals(1, VarInt.read(new byte[]{0x01}, 1, cursor));
+        assertEquals(1, cursor[0]);
+
+        cursor[0] = 0;
+        assertEquals(300, VarInt.read(new byte[]{(byte) 0xAC, 0x02}, 2, cursor));
+        assertEquals(2, cursor[0]);
+    }
+
+    @Test
+    void readsFiveByteExtremes() {
+        byte[] max = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        int[] cursor = {0};
+        assertEquals(Integer.MAX_VALUE, VarInt.read(max, max.length, cursor));
+        assertEquals(5, cursor[0]);
+
+        byte[] negative = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        cursor[0] = 0;
+        assertEquals(-1, VarInt.read(negative, negative.length, cursor));
+    }
+
+    @Test
+    void incompleteLeavesCursor() {
+        byte[] data = {0x05, (byte) 0x80, (byte) 0x80};
+        int[] cursor = {1};
+        assertNull(VarInt.read(data, data.length, cursor));
+        assertEquals(1, cursor[0]);
+
+        // limit截断的数据同样视为不足
+        cursor[0] = 0;
+        assertNull(VarInt.read(new byte[]{(byte) 0xAC, 0x02}, 1, cursor));
+        assertEquals(0, cursor[0]);
+    }
+
+    @Test
+    void malformedMarksCursor() {
+        byte[] data = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        int[] cursor = {0};
+        assertNull(VarInt.read(data, data.length, cursor));
+        assertEquals(-1, cursor[0]);
+    }
+}
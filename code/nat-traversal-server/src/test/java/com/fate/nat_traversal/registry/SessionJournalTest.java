@@ -0,0 +1,159 @@
+package com.fate.nat_traversal.registry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class SessionJournalTest {
+
+    private static final int HEADER = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsAfterReopen() throws IOException {
+        Path path = dir.resolve("registry.journal");
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            assertEquals(0, journal.replay(record -> {}));
+            assertTrue(journal.append(bytes("one")));
+            assertTrue(journal.append(bytes("two")));
+        }
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            assertEquals(List.of("one", "two"), replay(journal));
+            assertEquals(2 * HEADER + 6, journal.size());
+        }
+    }
+
+    @Test
+    void tornTailIsDiscarded() throws IOException {
+        Path path = dir.resolve("registry.journal");
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            journal.replay(record -> {});
+            journal.append(bytes("one"));
+            journal.append(bytes("two"));
+        }
+        // 写入中途退出：内容写了一半，长度越过映射区
+        int tail = 2 * HEADER + 6;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("thr")), tail + HEADER);
+            channel.write(ByteBuffer.allocate(4).putInt(0, 1 << 20), tail);
+        }
+
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            assertEquals(List.of("one", "two"), replay(journal));
+            assertEquals(tail, journal.size());
+            // 新记录覆盖残缺的尾部
+            assertTrue(journal.append(bytes("four")));
+        }
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            assertEquals(List.of("one", "two", "four"), replay(journal));
+        }
+    }
+
+    @Test
+    void crcMismatchStopsReplay() throws IOException {
+        Path path = dir.resolve("registry.journal");
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            journal.replay(record -> {});
+            journal.append(bytes("one"));
+            journal.append(bytes("two"));
+            journal.append(bytes("three"));
+        }
+        // 第二条记录内容损坏（系统崩溃时的残页），其后的记录一并丢弃
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("x")), HEADER + 3 + HEADER);
+        }
+
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            assertEquals(List.of("one"), replay(journal));
+            assertEquals(1, journal.records());
+            assertEquals(HEADER + 3, journal.size());
+        }
+    }
+
+    @Test
+    void compactionKeepsLiveRecordsAndGrows() throws IOException {
+        Path path = dir.resolve("registry.journal");
+        try (SessionJournal journal = new SessionJournal(path, 64)) {
+            journal.replay(record -> {});
+            int appended = 0;
+            while (journal.append(bytes("record-" + appended))) ++appended;
+            assertTrue(appended > 0);
+
+            List<byte[]> live = new ArrayList<>();
+            for (int i = 0; i < 10; ++i) live.add(bytes("live-" + i));
+            journal.rewrite(live, 64);
+
+            assertEquals(10, journal.records());
+            // 保留一半空间给后续追加
+            assertTrue(journal.capacity() >= 2 * journal.size());
+            assertTrue(journal.append(bytes("after")));
+            journal.force();
+            assertFalse(Files.exists(dir.resolve("registry.journal.tmp")));
+        }
+        try (SessionJournal journal = new SessionJournal(path, 64)) {
+            List<String> replayed = replay(journal);
+            assertEquals(11, replayed.size());
+            assertEquals("live-0", replayed.get(0));
+            assertEquals("after", replayed.get(10));
+        }
+    }
+
+    @Test
+    void failedRewriteKeepsJournalUsable() throws IOException {
+        Path path = dir.resolve("registry.journal");
+        // 临时文件位置被非空目录占用，重写失败
+        Files.createDirectories(dir.resolve("registry.journal.tmp").resolve("blocked"));
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            journal.replay(record -> {});
+            journal.append(bytes("one"));
+            assertThrows(IOException.class, () -> journal.rewrite(List.of(bytes("compacted")), 4096));
+
+            assertTrue(journal.append(bytes("two")));
+            journal.force();
+        }
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            assertEquals(List.of("one", "two"), replay(journal));
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() throws IOException {
+        Path path = dir.resolve("registry.journal");
+        assertThrows(IllegalArgumentException.class, () -> new SessionJournal(path, 0));
+        try (SessionJournal journal = new SessionJournal(path, 4096)) {
+            journal.replay(record -> {});
+            assertThrows(IllegalArgumentException.class, () -> journal.rewrite(List.of(), -1));
+        }
+    }
+
+    private static List<String> replay(SessionJournal journal) {
+        List<String> records = new ArrayList<>();
+        journal.replay(record -> {
+            byte[] bytes = new byte[record.remaining()];
+            record.get(bytes);
+            records.add(new String(bytes, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
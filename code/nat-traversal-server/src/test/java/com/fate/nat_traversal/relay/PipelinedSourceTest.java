@@ -0,0 +1,95 @@
+package com.fate.nat_traversal.relay;
+
+import com.fate.nat_traversal.limit.FlowWindow;
+import com.fate.nat_traversal.limit.MemoryBudget;
+import com.fate.nat_traversal.model.CommonSocket;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class PipelinedSourceTest {
+
+    private static final int SLOT = 8;
+
+    @Test
+    void fullSlotsHandedOverAndRecycled() throws Exception {
+        byte[][] chunks = new byte[20][];
+        for (int i = 0; i < chunks.length; ++i) {
+            chunks[i] = new byte[SLOT];
+            Arrays.fill(chunks[i], (byte) i);
+        }
+        PipelinedSource source = source(chunks);
+
+        Set<byte[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < chunks.length; ++i) {
+            byte[] chunk = source.read();
+            assertArrayEquals(chunks[i], chunk);
+            buffers.add(chunk);
+            source.release(chunk.length);
+        }
+        assertNull(source.read());
+        // 归还的缓冲重新进入环形缓冲：至多为槽位数加一个备用缓冲
+        assertTrue(buffers.size() <= 3, "buffers " + buffers.size());
+        source.close();
+    }
+
+    @Test
+    void partialReadsCopiedToExactLength() throws Exception {
+        PipelinedSource source = source(new byte[]{1, 2, 3});
+
+        assertArrayEquals(new byte[]{1, 2, 3}, source.read());
+        assertNull(source.read());
+        source.close();
+    }
+
+    @Test
+    void unreleasedChunkNotOverwritten() throws Exception {
+        byte[][] chunks = new byte[6][];
+        for (int i = 0; i < chunks.length; ++i) {
+            chunks[i] = new byte[SLOT];
+            Arrays.fill(chunks[i], (byte) (i + 1));
+        }
+        PipelinedSource source = source(chunks);
+
+        byte[] first = source.read();
+        // 未归还时后续块按复制交出，读线程继续填充环形缓冲
+        for (int i = 1; i < chunks.length; ++i) {
+            assertArrayEquals(chunks[i], source.read());
+        }
+        assertArrayEquals(chunks[0], first);
+        source.close();
+    }
+
+    private PipelinedSource source(byte[]... chunks) throws IOException {
+        Deque<byte[]> pending = new ArrayDeque<>(Arrays.asList(chunks));
+        CommonSocket socket = mock(CommonSocket.class);
+        when(socket.read(any(byte[].class))).thenAnswer(invocation -> {
+            byte[] chunk = pending.poll();
+            if (chunk == null) return -1;
+            byte[] buffer = invocation.getArgument(0);
+            System.arraycopy(chunk, 0, buffer, 0, chunk.length);
+            return chunk.length;
+        });
+
+        FlowWindow window = new FlowWindow(new MemoryBudget(1 << 20), 1 << 16, 1 << 15);
+        PipelinedSource source = new PipelinedSource(socket, window, new SpscRing(2, SLOT), null);
+        CompletableFuture.runAsync(source).orTimeout(5, TimeUnit.SECONDS);
+        return source;
+    }
+}
@@ -0,0 +1,191 @@
+package com.fate.nat_traversal.relay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class SpscRingTest {
+
+    @Test
+    void slotsRoundUpToPowerOfTwo() {
+        SpscRing ring = new SpscRing(3, 8);
+        for (int i = 0; i < 4; ++i) {
+            assertNotNull(ring.claim());
+            ring.publish(i);
+        }
+        assertTrue(ring.isReady());
+    }
+
+    @Test
+    void emptyUntilPublished() {
+        SpscRing ring = new SpscRing(2, 8);
+        assertFalse(ring.isReady());
+
+        byte[] slot = ring.claim();
+        slot[0] = 42;
+        assertFalse(ring.isReady());
+
+        ring.publish(1);
+        assertTrue(ring.isReady());
+        assertTrue(ring.await());
+        assertEquals(1, ring.length());
+        assertEquals(42, ring.buffer()[0]);
+
+        ring.consume();
+        assertFalse(ring.isReady());
+    }
+
+    @Test
+    void wrapsAroundReusingSlots() {
+        SpscRing ring = new SpscRing(2, 4);
+        byte[] first = ring.claim();
+
+        for (int i = 0; i < 10; ++i) {
+            byte[] slot = ring.claim();
+            slot[0] = (byte) i;
+            ring.publish(i + 1);
+
+            assertTrue(ring.await());
+            assertEquals(i + 1, ring.length());
+            assertEquals(i, ring.buffer()[0]);
+            ring.consume();
+        }
+        // 槽位循环复用，不再分配
+        assertSame(first, ring.claim());
+    }
+
+    @Test
+    void producerWaitsWhenFull() throws Exception {
+        SpscRing ring = new SpscRing(2, 4);
+        ring.claim();
+        ring.publish(1);
+        ring.claim();
+        ring.publish(2);
+
+        CompletableFuture<byte[]> claimed = CompletableFuture.supplyAsync(ring::claim);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(claimed.isDone());
+
+        assertTrue(ring.await());
+        assertEquals(1, ring.length());
+        ring.consume();
+        assertNotNull(claimed.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void consumerWaitsForPublish() throws Exception {
+        SpscRing ring = new SpscRing(2, 4);
+
+        CompletableFuture<Integer> awaited = CompletableFuture.supplyAsync(() -> ring.await() ? ring.length() : null);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(awaited.isDone());
+
+        ring.claim();
+        ring.publish(3);
+        assertEquals(3, awaited.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void endMarkerIsDelivered() {
+        SpscRing ring = new SpscRing(2, 4);
+        ring.claim();
+        ring.publish(-1);
+
+        assertTrue(ring.await());
+        assertEquals(-1, ring.length());
+    }
+
+    @Test
+    void closeWakesWaitingProducer() throws Exception {
+        SpscRing ring = new SpscRing(2, 4);
+        ring.claim();
+        ring.publish(1);
+        ring.claim();
+        ring.publish(1);
+
+        CompletableFuture<byte[]> claimed = CompletableFuture.supplyAsync(ring::claim);
+        TimeUnit.MILLISECONDS.sleep(50);
+        ring.close();
+        assertNull(claimed.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closeWakesWaitingConsumer() throws Exception {
+        SpscRing ring = new SpscRing(2, 4);
+
+        CompletableFuture<Boolean> awaited = CompletableFuture.supplyAsync(ring::await);
+        TimeUnit.MILLISECONDS.sleep(50);
+        ring.close();
+        assertFalse(awaited.get(1, TimeUnit.SECONDS));
+        assertNull(ring.claim());
+    }
+
+    @Test
+    void publishedDataSurvivesClose() {
+        SpscRing ring = new SpscRing(2, 4);
+        ring.claim();
+        ring.publish(2);
+        ring.close();
+
+        // 关闭前已发布的数据仍可读出
+        assertTrue(ring.await());
+        assertEquals(2, ring.length());
+    }
+
+    @Test
+    void takenBufferReplacedBySpare() {
+        SpscRing ring = new SpscRing(2, 4);
+        byte[] slot = ring.claim();
+        ring.publish(4);
+
+        assertTrue(ring.await());
+        byte[] taken = ring.take();
+        assertSame(slot, taken);
+        ring.consume();
+
+        // 上一块未归还时不能再取走
+        ring.claim();
+        ring.publish(4);
+        ring.claim();
+        ring.publish(4);
+        assertTrue(ring.await());
+        assertNull(ring.take());
+        ring.consume();
+
+        ring.recycle(taken);
+        assertTrue(ring.await());
+        assertNotSame(taken, ring.take());
+        ring.consume();
+        // 补位后原槽位使用新缓冲，被取走的缓冲不会被生产者覆盖
+        assertNotSame(taken, ring.claim());
+    }
+
+    @Test
+    void preservesOrderAcrossThreads() throws Exception {
+        SpscRing ring = new SpscRing(4, 4);
+        int count = 10_000;
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < count; ++i) {
+                byte[] slot = ring.claim();
+                slot[0] = (byte) i;
+                slot[1] = (byte) (i >>> 8);
+                ring.publish(2);
+            }
+        });
+
+        for (int i = 0; i < count; ++i) {
+            assertTrue(ring.await());
+            byte[] slot = ring.buffer();
+            assertEquals(i, (slot[0] & 0xFF) | (slot[1] & 0xFF) << 8);
+            ring.consume();
+        }
+        producer.get(5, TimeUnit.SECONDS);
+    }
+}
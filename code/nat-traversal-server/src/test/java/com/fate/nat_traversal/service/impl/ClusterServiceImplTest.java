@@ -0,0 +1,172 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.cluster.ClusterMember;
+import com.fate.nat_traversal.cluster.ClusterRoute;
+import com.fate.nat_traversal.cluster.MemoryClusterStore;
+import com.fate.nat_traversal.config.ClusterProperties;
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.service.IoEngineService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 同一JVM中的多个节点：各节点在回环地址上监听自己的节点间端口，gossip由测试线程逐轮驱动
+ */
+class ClusterServiceImplTest {
+
+    private static final int KEYS = 2000;
+
+    private final List<ClusterServiceImpl> nodes = new ArrayList<>();
+
+    private String seed;
+
+    @AfterEach
+    void shutdown() {
+        nodes.forEach(ClusterServiceImpl::shutdown);
+    }
+
+    @Test
+    void membersConvergeAndAgreeOnOwners() throws IOException {
+        ClusterServiceImpl a = start("a", 20001);
+        ClusterServiceImpl b = start("b", 20002);
+        ClusterServiceImpl c = start("c", 20003);
+        converge();
+
+        for (ClusterServiceImpl node : nodes) assertEquals(2, node.peers().size());
+        Map<String, String> owners = owners(a);
+        assertEquals(owners, owners(b));
+        assertEquals(owners, owners(c));
+        // 三个节点都分到键
+        assertEquals(3, Set.copyOf(owners.values()).size());
+    }
+
+    @Test
+    void publishedRouteRedirectsToItsNode() throws IOException {
+        ClusterServiceImpl a = start("a", 20001);
+        ClusterServiceImpl b = start("b", 20002);
+        ClusterServiceImpl c = start("c", 20003);
+        converge();
+
+        // 已有路由的键留在所在节点，与哈希环的归属无关
+        b.publish("pinned", 40001, Set.of("App.Test"));
+        converge();
+        assertEquals(b.self().address(), a.redirect("pinned"));
+        assertEquals(b.self().address(), c.redirect("pinned"));
+        assertNull(b.redirect("pinned"));
+
+        ClusterRoute route = a.findByHost("app.TEST");
+        assertNotNull(route);
+        assertEquals("b", route.node());
+        assertEquals(40001, route.port());
+        assertTrue(c.remoteRoutes().contains(route));
+
+        b.withdraw(40001);
+        converge();
+        assertNull(a.findByHost("app.test"));
+    }
+
+    @Test
+    void joinAndLeaveReassignAboutOneNth() throws IOException {
+        ClusterServiceImpl a = start("a", 20001);
+        start("b", 20002);
+        start("c", 20003);
+        converge();
+        Map<String, String> before = owners(a);
+
+        ClusterServiceImpl d = start("d", 20004);
+        d.publish("on-d", 40004, Set.of("d.test"));
+        converge();
+        Map<String, String> joined = owners(a);
+        assertEquals(joined, owners(d));
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (joined.get(entry.getKey()).equals(entry.getValue())) continue;
+            assertEquals(d.self().address(), joined.get(entry.getKey()));
+            ++moved;
+        }
+        double ratio = (double) moved / KEYS;
+        assertTrue(ratio > 0.12 && ratio < 0.4, "moved " + ratio);
+        assertEquals("d", a.findByHost("d.test").node());
+
+        // 正常关闭发送left，其他节点无需等待失效检测即移除
+        d.shutdown();
+        nodes.remove(d);
+        for (ClusterServiceImpl node : nodes) {
+            assertNull(node.peer("d"));
+            assertEquals(2, node.peers().size());
+            assertNull(node.findByHost("d.test"));
+            assertTrue(node.remoteRoutes().stream().noneMatch(route -> route.node().equals("d")));
+            ClusterMember left = node.getStats().getMembers().stream().filter(member -> member.getId().equals("d")).findFirst().orElseThrow();
+            assertFalse(left.isAlive());
+        }
+        assertEquals(before, owners(a));
+    }
+
+    private ClusterServiceImpl start(String id, int regPort) throws IOException {
+        TurnProperties properties = new TurnProperties();
+        properties.setRegPort(regPort);
+        properties.setMaxServerProxy(100);
+        ClusterProperties cluster = properties.getCluster();
+        cluster.setEnabled(true);
+        cluster.setNodeId(id);
+        cluster.setAdvertisedHost("127.0.0.1");
+        cluster.setPort(freePort());
+        cluster.setVirtualNodes(128);
+        if (seed != null) cluster.setSeeds(List.of(seed));
+
+        IoEngineService ioEngineService = mock(IoEngineService.class);
+        when(ioEngineService.newSocket()).thenAnswer(invocation -> new Socket());
+
+        ClusterServiceImpl node = new ClusterServiceImpl();
+        ReflectionTestUtils.setField(node, "turnProperties", properties);
+        ReflectionTestUtils.setField(node, "store", new MemoryClusterStore());
+        ReflectionTestUtils.setField(node, "taskScheduler", mock(TaskSchedulerService.class));
+        ReflectionTestUtils.setField(node, "ioEngineService", ioEngineService);
+        ReflectionTestUtils.invokeMethod(node, "init");
+        if (seed == null) seed = "127.0.0.1:" + cluster.getPort();
+        nodes.add(node);
+        return node;
+    }
+
+    // 逐轮gossip直到各节点看到全部成员及其最新路由
+    private void converge() {
+        for (int round = 0; round < 10; ++round) {
+            nodes.forEach(node -> ReflectionTestUtils.invokeMethod(node, "gossip"));
+        }
+        for (ClusterServiceImpl node : nodes) assertEquals(nodes.size() - 1, node.peers().size(), "peers of " + node.self().getId());
+    }
+
+    // 从指定节点的视角看各键的归属节点（注册地址）
+    private static Map<String, String> owners(ClusterServiceImpl node) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; ++i) {
+            String redirect = node.redirect("svc-" + i);
+            owners.put("svc-" + i, redirect == null ? node.self().address() : redirect);
+        }
+        return owners;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.model.Backend;
+import com.fate.nat_traversal.model.CommonSocket;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.util.MessageUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 直连协调：访问端与被代理端点的协调连接为回环上的真实Socket，通信连接由模拟对象代替
+ */
+class PunchServiceImplTest {
+
+    private static final int PROXY_PORT = 40001;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    private ServerSocket acceptor;
+
+    private PunchServiceImpl punchService;
+
+    private BackendCommunicationService backendCommunicationService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        acceptor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        TurnProperties turnProperties = new TurnProperties();
+        turnProperties.getPunch().setEnabled(true);
+        turnProperties.getPunch().setTimeout(5000L);
+
+        backendCommunicationService = mock(BackendCommunicationService.class);
+        when(backendCommunicationService.getBackend(anyInt())).thenReturn(null);
+        when(backendCommunicationService.getBackend(PROXY_PORT)).thenReturn(new Backend("Backend-1", null));
+        when(backendCommunicationService.send(anyString(), anyString())).thenReturn(true);
+
+        punchService = new PunchServiceImpl();
+        ReflectionTestUtils.setField(punchService, "turnProperties", turnProperties);
+        ReflectionTestUtils.setField(punchService, "backendCommunicationService", backendCommunicationService);
+        ReflectionTestUtils.setField(punchService, "taskScheduler", mock(TaskSchedulerService.class));
+        ReflectionTestUtils.invokeMethod(punchService, "init");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        punchService.destroy();
+        for (Socket socket : sockets) socket.close();
+        acceptor.close();
+    }
+
+    @Test
+    void exchangesCandidatesBetweenPeers() throws IOException {
+        Pair visitor = pair();
+        punchService.request(visitor.server(), PROXY_PORT + MessageUtil.option("local", "10.0.0.2:5000") + MessageUtil.option("nat", "cone"));
+        String punchId = notifiedPunchId();
+
+        Pair backend = pair();
+        punchService.answer(backend.server(), punchId + MessageUtil.option("local", "10.0.0.3:6000") + MessageUtil.option("nat", "symmetric"));
+
+        String toVisitor = readAll(visitor.client());
+        assertTrue(toVisitor.startsWith(BackendCommunicationService.PUNCH_PEER + punchId), toVisitor);
+        Map<String, String> visitorOptions = MessageUtil.options(toVisitor);
+        assertEquals("127.0.0.1:" + backend.client().getLocalPort(), visitorOptions.get("peer"));
+        assertEquals("10.0.0.3:6000", visitorOptions.get("local"));
+
+        String toBackend = readAll(backend.client());
+        assertTrue(toBackend.startsWith(BackendCommunicationService.PUNCH_PEER + punchId), toBackend);
+        Map<String, String> backendOptions = MessageUtil.options(toBackend);
+        assertEquals("127.0.0.1:" + visitor.client().getLocalPort(), backendOptions.get("peer"));
+        assertEquals("10.0.0.2:5000", backendOptions.get("local"));
+
+        assertEquals(1, punchService.getStats().getExchanged());
+        assertEquals(0, punchService.getStats().getPending());
+    }
+
+    @Test
+    void bothSymmetricFallsBackToRelay() throws IOException {
+        Pair visitor = pair();
+        punchService.request(visitor.server(), PROXY_PORT + MessageUtil.option("nat", "symmetric"));
+        Pair backend = pair();
+        punchService.answer(backend.server(), notifiedPunchId() + MessageUtil.option("nat", "symmetric"));
+
+        assertEquals(BackendCommunicationService.PUNCH_REFUSED + "both symmetric", readAll(visitor.client()));
+        assertEquals(BackendCommunicationService.PUNCH_REFUSED + "both symmetric", readAll(backend.client()));
+    }
+
+    @Test
+    void backendRefusalReachesVisitor() throws IOException {
+        Pair visitor = pair();
+        punchService.request(visitor.server(), PROXY_PORT + MessageUtil.option("nat", "cone"));
+        Pair backend = pair();
+        punchService.answer(backend.server(), notifiedPunchId() + MessageUtil.option("refuse", true));
+
+        assertEquals(BackendCommunicationService.PUNCH_REFUSED + "refused by backend", readAll(visitor.client()));
+        // 应答已处理，再次应答视为过期
+        Pair late = pair();
+        punchService.answer(late.server(), "Punch-unknown");
+        assertEquals(BackendCommunicationService.PUNCH_REFUSED + "expired", readAll(late.client()));
+    }
+
+    @Test
+    void refusesUnknownServiceAndUnansweredRequests() throws IOException, InterruptedException {
+        Pair unknown = pair();
+        punchService.request(unknown.server(), "40999");
+        assertEquals(BackendCommunicationService.PUNCH_REFUSED + "no such service", readAll(unknown.client()));
+
+        TurnProperties turnProperties = (TurnProperties) ReflectionTestUtils.getField(punchService, "turnProperties");
+        turnProperties.getPunch().setTimeout(1L);
+        Pair visitor = pair();
+        punchService.request(visitor.server(), PROXY_PORT + MessageUtil.option("nat", "cone"));
+        Thread.sleep(10);
+        ReflectionTestUtils.invokeMethod(punchService, "expire");
+        assertEquals(BackendCommunicationService.PUNCH_REFUSED + "timeout", readAll(visitor.client()));
+        assertEquals(1, punchService.getStats().getTimeouts());
+    }
+
+    private String notifiedPunchId() {
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(backendCommunicationService, atLeastOnce()).send(eq("Backend-1"), message.capture());
+        String notice = message.getValue();
+        assertTrue(notice.startsWith(BackendCommunicationService.PUNCH), notice);
+        String body = notice.substring(BackendCommunicationService.PUNCH.length());
+        assertEquals(String.valueOf(PROXY_PORT), MessageUtil.options(body).get("port"));
+        return MessageUtil.head(body);
+    }
+
+    private Pair pair() throws IOException {
+        Socket client = new Socket(acceptor.getInetAddress(), acceptor.getLocalPort());
+        Socket server = acceptor.accept();
+        sockets.add(client);
+        sockets.add(server);
+        return new Pair(client, new CommonSocket(server));
+    }
+
+    // 服务器回复后即关闭协调连接
+    private static String readAll(Socket socket) throws IOException {
+        socket.setSoTimeout(2000);
+        return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private record Pair(Socket client, CommonSocket server) {}
+}
@@ -0,0 +1,142 @@
+package com.fate.nat_traversal.service.impl;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.service.BackendCommunicationService;
+import com.fate.nat_traversal.service.TaskSchedulerService;
+import com.fate.nat_traversal.udp.DatagramFrames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class UdpRelayServiceImplTest {
+
+    private final TurnProperties properties = new TurnProperties();
+
+    private final TaskSchedulerService taskScheduler = mock(TaskSchedulerService.class);
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    private UdpRelayServiceImpl service;
+
+    private int port;
+
+    @BeforeEach
+    void init() throws IOException {
+        service = new UdpRelayServiceImpl();
+        ReflectionTestUtils.setField(service, "turnProperties", properties);
+        ReflectionTestUtils.setField(service, "taskScheduler", taskScheduler);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            port = probe.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        service.close(port);
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void openRequiresUdpEnabled() {
+        properties.getUdp().setEnabled(false);
+
+        assertFalse(service.open("s", port));
+        assertTrue(service.getStats().stream().noneMatch(stats -> stats.getPort() == port));
+    }
+
+    @Test
+    void attachChecksSession() throws IOException {
+        assertTrue(service.open("s", port));
+
+        assertFalse(service.attach("other", port, pair()[0]));
+        assertFalse(service.attach("s", port + 1, pair()[0]));
+
+        Socket[] pair = pair();
+        assertTrue(service.attach("s", port, pair[0]));
+        byte[] expected = BackendCommunicationService.REGISTER_UDP_TUNNEL_SUCCESS.getBytes(StandardCharsets.UTF_8);
+        byte[] reply = new byte[expected.length];
+        new DataInputStream(pair[1].getInputStream()).readFully(reply);
+        assertArrayEquals(expected, reply);
+    }
+
+    @Test
+    void scheduledTaskExpiresIdleFlows() throws Exception {
+        properties.getUdp().setIdleTimeout(10L);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).submit(task.capture(), anyLong(), anyLong(), eq(TimeUnit.SECONDS));
+
+        assertTrue(service.open("s", port));
+        Socket[] pair = pair();
+        service.attach("s", port, pair[0]);
+        DataInputStream in = new DataInputStream(pair[1].getInputStream());
+        in.readFully(new byte[BackendCommunicationService.REGISTER_UDP_TUNNEL_SUCCESS.length()]);
+
+        try (DatagramSocket peer = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            byte[] bytes = "hello".getBytes(StandardCharsets.US_ASCII);
+            peer.send(new DatagramPacket(bytes, bytes.length, InetAddress.getLoopbackAddress(), port));
+            int flowId = in.readInt();
+            assertEquals(bytes.length, in.readUnsignedShort());
+            in.readFully(new byte[bytes.length]);
+
+            TimeUnit.MILLISECONDS.sleep(50);
+            task.getValue().run();
+            assertEquals(flowId, in.readInt());
+            assertEquals(DatagramFrames.CLOSED, in.readUnsignedShort());
+        }
+        assertEquals(1, service.getStats().stream().filter(stats -> stats.getPort() == port).findFirst().orElseThrow().getExpired());
+    }
+
+    @Test
+    void reopenReplacesRelay() throws IOException {
+        assertTrue(service.open("s", port));
+        Socket[] pair = pair();
+        service.attach("s", port, pair[0]);
+
+        // 同一端口重新打开，旧转发及其隧道关闭
+        assertTrue(service.open("t", port));
+        DataInputStream in = new DataInputStream(pair[1].getInputStream());
+        in.readFully(new byte[BackendCommunicationService.REGISTER_UDP_TUNNEL_SUCCESS.length()]);
+        assertEquals(-1, in.read());
+        assertFalse(service.attach("s", port, pair()[0]));
+        assertTrue(service.attach("t", port, pair()[0]));
+    }
+
+    private Socket[] pair() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            Socket accepted = server.accept();
+            client.setSoTimeout(2000);
+            accepted.setSoTimeout(2000);
+            sockets.add(client);
+            sockets.add(accepted);
+            return new Socket[]{client, accepted};
+        }
+    }
+}
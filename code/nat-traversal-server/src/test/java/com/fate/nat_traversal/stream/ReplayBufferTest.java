@@ -0,0 +1,109 @@
+package com.fate.nat_traversal.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class ReplayBufferTest {
+
+    @Test
+    void appendReturnsStreamOffset() {
+        ReplayBuffer buffer = new ReplayBuffer(16);
+
+        assertEquals(0, buffer.append(bytes(0, 4), 0, 4));
+        assertEquals(4, buffer.append(bytes(4, 6), 0, 6));
+        assertEquals(10, buffer.end());
+        assertEquals(6, buffer.free());
+    }
+
+    @Test
+    void ackFreesWholeFrames() {
+        ReplayBuffer buffer = new ReplayBuffer(16);
+        buffer.append(bytes(0, 4), 0, 4);
+        buffer.append(bytes(4, 4), 0, 4);
+
+        buffer.ack(4);
+        assertEquals(4, buffer.start());
+        assertEquals(12, buffer.free());
+        // 确认不回退，也不超出已发送
+        buffer.ack(2);
+        assertEquals(4, buffer.start());
+        buffer.ack(100);
+        assertEquals(8, buffer.start());
+        assertEquals(16, buffer.free());
+    }
+
+    @Test
+    void replayKeepsFrameBoundaries() throws IOException {
+        ReplayBuffer buffer = new ReplayBuffer(16);
+        buffer.append(bytes(0, 4), 0, 4);
+        buffer.append(bytes(4, 6), 0, 6);
+        buffer.append(bytes(10, 3), 0, 3);
+
+        List<Long> seqs = new ArrayList<>();
+        ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+        buffer.replay(4, (seq, bytes) -> {
+            seqs.add(seq);
+            replayed.writeBytes(bytes);
+        });
+        assertEquals(List.of(4L, 10L), seqs);
+        assertArrayEquals(bytes(4, 9), replayed.toByteArray());
+    }
+
+    @Test
+    void replayFromInsideFrame() throws IOException {
+        ReplayBuffer buffer = new ReplayBuffer(16);
+        buffer.append(bytes(0, 8), 0, 8);
+
+        List<byte[]> frames = new ArrayList<>();
+        buffer.replay(5, (seq, bytes) -> {
+            assertEquals(5, seq);
+            frames.add(bytes);
+        });
+        assertEquals(1, frames.size());
+        assertArrayEquals(bytes(5, 3), frames.get(0));
+    }
+
+    @Test
+    void wrapsAroundRing() throws IOException {
+        ReplayBuffer buffer = new ReplayBuffer(8);
+        buffer.append(bytes(0, 6), 0, 6);
+        buffer.ack(6);
+
+        // 跨越环形缓冲末尾
+        byte[] frame = bytes(6, 5);
+        assertEquals(6, buffer.append(frame, 0, 5));
+        assertEquals(3, buffer.free());
+
+        List<byte[]> frames = new ArrayList<>();
+        buffer.replay(6, (seq, bytes) -> frames.add(bytes));
+        assertEquals(1, frames.size());
+        assertArrayEquals(frame, frames.get(0));
+    }
+
+    @Test
+    void replayFromEndIsEmpty() throws IOException {
+        ReplayBuffer buffer = new ReplayBuffer(8);
+        buffer.append(bytes(0, 4), 0, 4);
+
+        buffer.replay(4, (seq, bytes) -> fail("nothing to replay"));
+    }
+
+    // 按流中偏移填充，便于核对重放位置
+    private static byte[] bytes(int from, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (from + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,242 @@
+package com.fate.nat_traversal.stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class ResumableStreamTest {
+
+    private static final byte DATA = 1;
+    private static final byte ACK = 2;
+    private static final byte FIN = 3;
+
+    // 确认间隔为缓冲的1/4：16字节
+    private static final int BUFFER = 64;
+
+    private static final long RESUME_TIMEOUT = 5000;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @AfterEach
+    void closeSockets() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void replaysFromPeerReceivedAfterLinkLoss() throws Exception {
+        Socket[] first = pair();
+        ResumableStream a = new ResumableStream("a", first[0], BUFFER, RESUME_TIMEOUT);
+        ResumableStream b = new ResumableStream("b", first[1], BUFFER, RESUME_TIMEOUT);
+        byte[] data = sequence(64);
+
+        // 3帧已发出，对端只读完第1帧时断开
+        a.write(Arrays.copyOfRange(data, 0, 48));
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 16), b.read());
+        first[0].close();
+        first[1].close();
+
+        // 断开期间写入的数据进入重放缓冲
+        a.write(Arrays.copyOfRange(data, 48, 64));
+        assertFalse(a.isAttached());
+
+        Socket[] second = pair();
+        a.attach(second[0], b.getReceived(), null);
+        b.attach(second[1], a.getReceived(), null);
+
+        assertArrayEquals(Arrays.copyOfRange(data, 16, 64), readFully(b, 48));
+        assertEquals(48, a.getReplayedBytes());
+        assertEquals(1, a.getResumes());
+        assertEquals(64, b.getReceived());
+    }
+
+    @Test
+    void attachBeyondReplayWindowFails() throws Exception {
+        Socket[] first = pair();
+        ResumableStream a = new ResumableStream("a", first[0], BUFFER, RESUME_TIMEOUT);
+        a.write(sequence(8));
+
+        Socket[] second = pair();
+        assertThrows(IOException.class, () -> a.attach(second[0], 9, null));
+    }
+
+    @Test
+    void duplicateSeqsSkipped() throws Exception {
+        Socket[] pair = pair();
+        ResumableStream stream = new ResumableStream("s", pair[0], BUFFER, RESUME_TIMEOUT);
+        DataOutputStream peer = new DataOutputStream(pair[1].getOutputStream());
+
+        frame(peer, DATA, 0, "abcdefghij");
+        // 前5字节重复
+        frame(peer, DATA, 5, "fghijKLMNO");
+        // 整帧重复
+        frame(peer, DATA, 0, "abcdefghij");
+        frame(peer, DATA, 15, "xyz");
+        frame(peer, FIN, 0, "");
+
+        assertEquals("abcdefghijKLMNOxyz", new String(readFully(stream, 18), StandardCharsets.US_ASCII));
+        assertNull(stream.read());
+        assertEquals(18, stream.getReceived());
+    }
+
+    @Test
+    void acksEveryQuarterBuffer() throws Exception {
+        Socket[] pair = pair();
+        ResumableStream stream = new ResumableStream("s", pair[0], BUFFER, RESUME_TIMEOUT);
+        DataOutputStream peer = new DataOutputStream(pair[1].getOutputStream());
+        DataInputStream peerIn = new DataInputStream(pair[1].getInputStream());
+        pair[1].setSoTimeout(200);
+
+        frame(peer, DATA, 0, "12345678");
+        assertEquals(8, stream.read().length);
+        assertThrows(SocketTimeoutException.class, peerIn::readByte);
+
+        frame(peer, DATA, 8, "12345678");
+        assertEquals(8, stream.read().length);
+        assertEquals(ACK, peerIn.readByte());
+        assertEquals(16, peerIn.readLong());
+        assertEquals(0, peerIn.readInt());
+
+        frame(peer, DATA, 16, "1234567890");
+        assertEquals(10, stream.read().length);
+        assertThrows(SocketTimeoutException.class, peerIn::readByte);
+        frame(peer, DATA, 26, "1234567890");
+        assertEquals(10, stream.read().length);
+        assertEquals(ACK, peerIn.readByte());
+        assertEquals(36, peerIn.readLong());
+    }
+
+    @Test
+    void expiresWhenNotResumed() throws Exception {
+        Socket[] pair = pair();
+        ResumableStream stream = new ResumableStream("s", pair[0], BUFFER, 200);
+        AtomicInteger lost = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        stream.setLostCallback(s -> lost.incrementAndGet());
+        stream.setCloseCallback(s -> closed.incrementAndGet());
+
+        pair[1].close();
+        long start = System.nanoTime();
+        assertThrows(IOException.class, stream::read);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed >= 150, "elapsed " + elapsed);
+        assertTrue(stream.isExpired());
+        assertTrue(stream.isClosed());
+        assertEquals(1, lost.get());
+        assertEquals(1, closed.get());
+        // 关闭后写入失败
+        assertThrows(IOException.class, () -> stream.write(new byte[1]));
+    }
+
+    @Test
+    void finishExchangesFinWhileReaderRuns() throws Exception {
+        Socket[] pair = pair();
+        ResumableStream a = new ResumableStream("a", pair[0], BUFFER, RESUME_TIMEOUT);
+        ResumableStream b = new ResumableStream("b", pair[1], BUFFER, RESUME_TIMEOUT);
+
+        // a的读线程一直在读，b的读线程已退出
+        CompletableFuture<byte[]> aReader = CompletableFuture.supplyAsync(() -> readToEnd(a));
+        a.write("ping".getBytes(StandardCharsets.US_ASCII));
+        assertEquals("ping", new String(b.read(), StandardCharsets.US_ASCII));
+        b.write("pong".getBytes(StandardCharsets.US_ASCII));
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> aFinish = CompletableFuture.runAsync(a::finish);
+        CompletableFuture<Void> bFinish = CompletableFuture.runAsync(b::finish);
+        aFinish.get(5, TimeUnit.SECONDS);
+        bFinish.get(5, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 双方均及时收到FIN，未等到结束超时
+        assertTrue(elapsed < 2000, "elapsed " + elapsed);
+        assertEquals("pong", new String(aReader.get(1, TimeUnit.SECONDS), StandardCharsets.US_ASCII));
+        assertTrue(a.isClosed());
+        assertTrue(b.isClosed());
+        assertFalse(a.isExpired());
+        assertFalse(b.isExpired());
+    }
+
+    @Test
+    void closeAbortsPeer() throws Exception {
+        Socket[] pair = pair();
+        ResumableStream a = new ResumableStream("a", pair[0], BUFFER, RESUME_TIMEOUT);
+        ResumableStream b = new ResumableStream("b", pair[1], BUFFER, RESUME_TIMEOUT);
+
+        a.close();
+        assertThrows(IOException.class, b::read);
+        assertTrue(b.isClosed());
+        assertFalse(b.isExpired());
+    }
+
+    private Socket[] pair() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            Socket accepted = server.accept();
+            sockets.add(client);
+            sockets.add(accepted);
+            return new Socket[]{client, accepted};
+        }
+    }
+
+    private static void frame(DataOutputStream out, byte type, long seq, String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.US_ASCII);
+        out.writeByte(type);
+        out.writeLong(seq);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static byte[] readFully(ResumableStream stream, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (out.size() < length) {
+            byte[] bytes = stream.read();
+            assertNotNull(bytes, "stream ended at " + out.size());
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readToEnd(ResumableStream stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (byte[] bytes = stream.read(); bytes != null; bytes = stream.read()) {
+                out.writeBytes(bytes);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
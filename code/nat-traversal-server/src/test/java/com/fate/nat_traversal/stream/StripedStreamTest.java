@@ -0,0 +1,256 @@
+package com.fate.nat_traversal.stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class StripedStreamTest {
+
+    private static final byte DATA = 1;
+    private static final byte FIN = 3;
+
+    private static final int CHUNK = 4096;
+
+    private static final int WINDOW = 256 * 1024;
+
+    private static final int PATH_QUEUE = 2 * CHUNK;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    private final List<StripedStream> streams = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        streams.forEach(StripedStream::close);
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void reassemblesInOrderAcrossStripes() throws Exception {
+        StripedStream a = stream("a", WINDOW);
+        StripedStream b = stream("b", WINDOW);
+        for (int i = 0; i < 3; ++i) {
+            Socket[] pair = pair();
+            assertTrue(a.addPath(pair[0], 0));
+            assertTrue(b.addPath(pair[1], 0));
+        }
+        byte[] data = sequence(1024 * 1024);
+
+        CompletableFuture<byte[]> received = CompletableFuture.supplyAsync(() -> readToEnd(b));
+        for (int offset = 0; offset < data.length; offset += 64 * 1024) {
+            a.write(Arrays.copyOfRange(data, offset, offset + 64 * 1024));
+        }
+        CompletableFuture<Void> finished = CompletableFuture.runAsync(a::finish);
+
+        assertArrayEquals(data, received.get(10, TimeUnit.SECONDS));
+        b.finish();
+        finished.get(5, TimeUnit.SECONDS);
+        // 路径队列有上限，数据分到多条路径
+        assertTrue(a.getPathBytes().stream().filter(bytes -> bytes > 0).count() > 1, "path bytes " + a.getPathBytes());
+        assertEquals(data.length, a.getBytesSent().get());
+        assertEquals(data.length, b.getBytesReceived().get());
+    }
+
+    @Test
+    void laterFrameOnAnotherPathWaitsForEarlier() throws Exception {
+        StripedStream stream = stream("s", WINDOW);
+        DataOutputStream first = rawPath(stream);
+        DataOutputStream second = rawPath(stream);
+
+        frame(second, DATA, 5, "fghij");
+        awaitTrue(() -> stream.getBytesReceived().get() == 5);
+        assertEquals(0, stream.available());
+
+        frame(first, DATA, 0, "abcde");
+        frame(first, FIN, 10, "");
+        frame(second, FIN, 10, "");
+        assertEquals("abcde", new String(stream.read(), StandardCharsets.US_ASCII));
+        assertEquals("fghij", new String(stream.read(), StandardCharsets.US_ASCII));
+        assertNull(stream.read());
+    }
+
+    @Test
+    void finWaitsForDataOnOtherPaths() throws Exception {
+        StripedStream stream = stream("s", WINDOW);
+        DataOutputStream first = rawPath(stream);
+        DataOutputStream second = rawPath(stream);
+
+        // FIN先于另一路径上的数据到达
+        frame(first, DATA, 0, "abc");
+        frame(first, FIN, 6, "");
+        assertEquals("abc", new String(stream.read(), StandardCharsets.US_ASCII));
+
+        CompletableFuture<byte[]> tail = CompletableFuture.supplyAsync(() -> readToEnd(stream));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(tail.isDone());
+
+        frame(second, DATA, 3, "def");
+        frame(second, FIN, 6, "");
+        assertEquals("def", new String(tail.get(1, TimeUnit.SECONDS), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void framesBeyondWindowBlockOnlyTheirPath() throws Exception {
+        StripedStream stream = stream("s", 8);
+        DataOutputStream first = rawPath(stream);
+        DataOutputStream second = rawPath(stream);
+
+        // 超出重组窗口，暂不接收
+        frame(second, DATA, 8, "IJKLMNOP");
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(0, stream.getBytesReceived().get());
+
+        // 待交付的帧总能被接收
+        frame(first, DATA, 0, "ABCDEFGH");
+        assertEquals("ABCDEFGH", new String(stream.read(), StandardCharsets.US_ASCII));
+        assertEquals("IJKLMNOP", new String(stream.read(), StandardCharsets.US_ASCII));
+        assertTrue(stream.getMaxReorderBytes() <= 8);
+    }
+
+    @Test
+    void lossOfOneStripeClosesStream() throws Exception {
+        StripedStream stream = stream("s", WINDOW);
+        AtomicInteger closed = new AtomicInteger();
+        stream.setCloseCallback(s -> closed.incrementAndGet());
+        DataOutputStream first = rawPath(stream);
+        rawPath(stream);
+
+        // 缺口之前的路径断开，后续数据无法交付
+        frame(first, DATA, 5, "fghij");
+        sockets.get(sockets.size() - 1).close();
+
+        assertThrows(IOException.class, stream::read);
+        assertTrue(stream.isClosed());
+        // 回调在唤醒读线程之后执行
+        awaitTrue(() -> closed.get() == 1);
+        assertThrows(IOException.class, () -> stream.write(new byte[1]));
+        assertFalse(stream.addPath(pair()[0], 0));
+    }
+
+    @Test
+    void closePropagatesToPeer() throws Exception {
+        StripedStream a = stream("a", WINDOW);
+        StripedStream b = stream("b", WINDOW);
+        for (int i = 0; i < 2; ++i) {
+            Socket[] pair = pair();
+            a.addPath(pair[0], 0);
+            b.addPath(pair[1], 0);
+        }
+
+        a.close();
+        assertThrows(IOException.class, b::read);
+        assertTrue(b.isClosed());
+    }
+
+    @Test
+    void finishExchangesFinOnEveryPath() throws Exception {
+        StripedStream a = stream("a", WINDOW);
+        StripedStream b = stream("b", WINDOW);
+        for (int i = 0; i < 2; ++i) {
+            Socket[] pair = pair();
+            a.addPath(pair[0], 0);
+            b.addPath(pair[1], 0);
+        }
+        CompletableFuture<byte[]> aReceived = CompletableFuture.supplyAsync(() -> readToEnd(a));
+        CompletableFuture<byte[]> bReceived = CompletableFuture.supplyAsync(() -> readToEnd(b));
+        a.write("ping".getBytes(StandardCharsets.US_ASCII));
+        b.write("pong".getBytes(StandardCharsets.US_ASCII));
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> aFinish = CompletableFuture.runAsync(a::finish);
+        CompletableFuture<Void> bFinish = CompletableFuture.runAsync(b::finish);
+        aFinish.get(5, TimeUnit.SECONDS);
+        bFinish.get(5, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 收发线程均及时退出，未等到结束超时
+        assertTrue(elapsed < 2000, "elapsed " + elapsed);
+        assertEquals("pong", new String(aReceived.get(1, TimeUnit.SECONDS), StandardCharsets.US_ASCII));
+        assertEquals("ping", new String(bReceived.get(1, TimeUnit.SECONDS), StandardCharsets.US_ASCII));
+        assertTrue(a.isClosed());
+        assertTrue(b.isClosed());
+        assertThrows(IOException.class, () -> a.write(new byte[1]));
+    }
+
+    private StripedStream stream(String id, int window) {
+        StripedStream stream = new StripedStream(id, CHUNK, window, PATH_QUEUE);
+        streams.add(stream);
+        return stream;
+    }
+
+    // 一端加入条带流，另一端由测试直接写帧
+    private DataOutputStream rawPath(StripedStream stream) throws IOException {
+        Socket[] pair = pair();
+        assertTrue(stream.addPath(pair[0], 0));
+        return new DataOutputStream(pair[1].getOutputStream());
+    }
+
+    private Socket[] pair() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            Socket accepted = server.accept();
+            sockets.add(client);
+            sockets.add(accepted);
+            return new Socket[]{client, accepted};
+        }
+    }
+
+    private static void frame(DataOutputStream out, byte type, long seq, String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.US_ASCII);
+        out.writeByte(type);
+        out.writeLong(seq);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static byte[] readToEnd(StripedStream stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (byte[] bytes = stream.read(); bytes != null; bytes = stream.read()) {
+                out.writeBytes(bytes);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met");
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        return bytes;
+    }
+}
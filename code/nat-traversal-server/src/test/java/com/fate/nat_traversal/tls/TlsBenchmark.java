@@ -0,0 +1,252 @@
+package com.fate.nat_traversal.tls;
+
+import com.fate.nat_traversal.config.TurnProperties;
+import com.fate.nat_traversal.service.TlsService;
+import com.fate.nat_traversal.service.impl.TlsServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 回环基准：明文与TLS透传Socket的建立耗时（完整握手/会话恢复）与吞吐
+ * 不随默认测试运行，执行：mvn test -Dtest=TlsBenchmark
+ * 建立 = 连接 + 握手 + 一次往返，与被代理端点新建透传Socket的路径一致；服务端沿用TlsServiceImpl
+ */
+@Slf4j
+class TlsBenchmark {
+
+    private static final String PASSWORD = "benchmark";
+
+    private static final int WARMUP = 50;
+
+    private static final int OPENS = 300;
+
+    private static final int FULL_OPENS = 50;
+
+    private static final long TRANSFER_BYTES = 256L << 20;
+
+    private static final int ROUNDS = 3;
+
+    private static Path directory;
+
+    private static Path keyStore;
+
+    private static final ExecutorService workers = Executors.newCachedThreadPool();
+
+    @BeforeAll
+    static void keyStore() throws Exception {
+        directory = Files.createTempDirectory("tls-benchmark");
+        keyStore = directory.resolve("relay.p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "relay", "-keyalg", "EC", "-groupname", "secp256r1", "-validity", "2",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-storetype", "PKCS12", "-keystore", keyStore.toString(), "-storepass", PASSWORD, "-keypass", PASSWORD)
+                .redirectErrorStream(true).start();
+        keytool.getInputStream().transferTo(OutputStream.nullOutputStream());
+        assertEquals(0, keytool.waitFor(), "keytool failed");
+    }
+
+    @AfterAll
+    static void cleanup() throws IOException {
+        workers.shutdownNow();
+        Files.deleteIfExists(keyStore);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void openLatencyAndThroughput() throws Exception {
+        TlsService plainService = service(false);
+        TlsService tlsService = service(true);
+        try (ServerSocket plain = listen(plainService); ServerSocket tls = listen(tlsService)) {
+            SSLContext shared = clientContext();
+
+            open(plain.getLocalPort(), null, WARMUP);
+            open(tls.getLocalPort(), shared, WARMUP);
+            long[] plainOpens = open(plain.getLocalPort(), null, OPENS);
+            long[] resumedOpens = open(tls.getLocalPort(), shared, OPENS);
+            // 每次新建SSLContext，客户端无会话可恢复
+            long[] fullOpens = new long[FULL_OPENS];
+            for (int i = 0; i < FULL_OPENS; ++i) {
+                fullOpens[i] = open(tls.getLocalPort(), clientContext(), 1)[0];
+            }
+
+            log.info("open plaintext    p50 {} ms  p99 {} ms", millis(plainOpens, 0.5), millis(plainOpens, 0.99));
+            log.info("open tls resumed  p50 {} ms  p99 {} ms", millis(resumedOpens, 0.5), millis(resumedOpens, 0.99));
+            log.info("open tls full     p50 {} ms  p99 {} ms", millis(fullOpens, 0.5), millis(fullOpens, 0.99));
+
+            for (int round = 0; round < ROUNDS; ++round) {
+                double plainRate = transfer(plain.getLocalPort(), null);
+                double tlsRate = transfer(tls.getLocalPort(), shared);
+                log.info("round {} throughput plaintext {} MB/s  tls {} MB/s", round, format(plainRate), format(tlsRate));
+            }
+
+            TlsStats stats = tlsService.getStats();
+            log.info("server handshakes full {} ({} ms avg)  resumed {} ({} ms avg)  failed {}", stats.getFullHandshakes(), format(stats.getFullHandshakeMillis()),
+                    stats.getResumedHandshakes(), format(stats.getResumedHandshakeMillis()), stats.getFailedHandshakes());
+            assertTrue(stats.getResumedHandshakes() > 0, "sessions were never resumed");
+            assertEquals(0, stats.getFailedHandshakes());
+        }
+    }
+
+    /**
+     * @return 每次建立的耗时（纳秒）
+     */
+    private long[] open(int port, SSLContext context, int count) throws IOException {
+        long[] nanos = new long[count];
+        for (int i = 0; i < count; ++i) {
+            long start = System.nanoTime();
+            try (Socket socket = connect(port, context)) {
+                socket.getOutputStream().write(1);
+                socket.getOutputStream().flush();
+                assertEquals(1, socket.getInputStream().read());
+                nanos[i] = System.nanoTime() - start;
+                socket.getOutputStream().write(0);
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * @return 吞吐（MB/s）
+     */
+    private double transfer(int port, SSLContext context) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        try (Socket socket = connect(port, context)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.write(2);
+            out.writeLong(TRANSFER_BYTES);
+
+            long start = System.nanoTime();
+            for (long sent = 0; sent < TRANSFER_BYTES; sent += chunk.length) {
+                out.write(chunk, 0, (int) Math.min(chunk.length, TRANSFER_BYTES - sent));
+            }
+            out.flush();
+            assertEquals(TRANSFER_BYTES, in.readLong());
+            return TRANSFER_BYTES / 1e6 / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private Socket connect(int port, SSLContext context) throws IOException {
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        if (context == null) return socket;
+
+        SSLSocket sslSocket = (SSLSocket) context.getSocketFactory().createSocket(socket, "localhost", port, true);
+        SSLParameters parameters = sslSocket.getSSLParameters();
+        parameters.setProtocols(new String[]{"TLSv1.3"});
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        sslSocket.setSSLParameters(parameters);
+        sslSocket.startHandshake();
+        return sslSocket;
+    }
+
+    private ServerSocket listen(TlsService service) throws IOException {
+        ServerSocket serverSocket = service.newServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        workers.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    workers.execute(() -> serve(service, socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        return serverSocket;
+    }
+
+    // 1：应答一个字节；2：读取指定字节数后回报已读字节数
+    private void serve(TlsService service, Socket socket) {
+        try (socket) {
+            if (!service.handshake(socket)) return;
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            int command = in.read();
+            if (command == 1) {
+                out.write(1);
+                out.flush();
+                in.read();
+            } else if (command == 2) {
+                long expected = in.readLong();
+                byte[] buffer = new byte[64 * 1024];
+                long received = 0;
+                while (received < expected) {
+                    int length = in.read(buffer);
+                    if (length == -1) break;
+                    received += length;
+                }
+                out.writeLong(received);
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.debug("Benchmark connection closed: {}", e.getMessage());
+        }
+    }
+
+    private TlsService service(boolean enabled) {
+        TurnProperties properties = new TurnProperties();
+        properties.getTls().setEnabled(enabled);
+        properties.getTls().setKeyStore(keyStore.toString());
+        properties.getTls().setKeyStorePassword(PASSWORD);
+        properties.getTls().setProtocols(List.of("TLSv1.3"));
+        TlsServiceImpl service = new TlsServiceImpl();
+        ReflectionTestUtils.setField(service, "turnProperties", properties);
+        return service;
+    }
+
+    private SSLContext clientContext() throws Exception {
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStore.toFile())) {
+            trustStore.load(in, PASSWORD.toCharArray());
+        }
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagerFactory.getTrustManagers(), null);
+        return context;
+    }
+
+    private static String millis(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return format(sorted[Math.max(index, 0)] / 1e6);
+    }
+
+    private static String format(Double value) {
+        return value == null ? "-" : String.format("%.2f", value);
+    }
+}
@@ -0,0 +1,298 @@
+package com.fate.nat_traversal.udp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ *
+ * 代理端口绑定在回环可达的空闲端口上，隧道为回环Socket对，测试端直接读写隧道帧
+ */
+class UdpRelayTest {
+
+    private static final byte[] REPLY = "OK".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_FLOWS = 16;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    private final List<DatagramSocket> peers = new ArrayList<>();
+
+    private UdpRelay relay;
+
+    private InetSocketAddress relayAddress;
+
+    @AfterEach
+    void close() throws IOException {
+        if (relay != null) relay.close();
+        peers.forEach(DatagramSocket::close);
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void datagramBoundariesPreservedBothWays() throws Exception {
+        start(MAX_FLOWS);
+        Socket tunnel = tunnel();
+        DataInputStream in = new DataInputStream(tunnel.getInputStream());
+        DatagramSocket peer = peer();
+        int[] sizes = {1, 0, 1400, 9000, DatagramFrames.MAX_DATAGRAM, 3};
+
+        for (int i = 0; i < sizes.length; ++i) {
+            send(peer, pattern(sizes[i], i));
+        }
+        // 连续到达的数据报可能同批写入隧道，帧头仍逐个界定
+        for (int i = 0; i < sizes.length; ++i) {
+            Frame frame = readFrame(in);
+            assertEquals(0, frame.flowId());
+            assertArrayEquals(pattern(sizes[i], i), frame.payload(), "datagram " + i);
+        }
+
+        // 多帧一次写入隧道，对端按帧收到独立的数据报
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (int i = 0; i < sizes.length; ++i) {
+            frames.writeBytes(frame(0, pattern(sizes[i], i + 10)));
+        }
+        tunnel.getOutputStream().write(frames.toByteArray());
+        tunnel.getOutputStream().flush();
+        for (int i = 0; i < sizes.length; ++i) {
+            assertArrayEquals(pattern(sizes[i], i + 10), receive(peer), "datagram " + i);
+        }
+
+        UdpStats stats = relay.getStats();
+        assertEquals(sizes.length, stats.getDatagramsIn());
+        assertEquals(sizes.length, stats.getDatagramsOut());
+        assertEquals(Arrays.stream(sizes).sum(), stats.getBytesIn());
+        assertEquals(0, stats.getDropped());
+    }
+
+    @Test
+    void eachPeerMapsToItsOwnFlow() throws Exception {
+        start(MAX_FLOWS);
+        Socket tunnel = tunnel();
+        DataInputStream in = new DataInputStream(tunnel.getInputStream());
+        DatagramSocket a = peer();
+        DatagramSocket b = peer();
+
+        send(a, text("a1"));
+        Frame a1 = readFrame(in);
+        send(b, text("b1"));
+        Frame b1 = readFrame(in);
+        send(a, text("a2"));
+        Frame a2 = readFrame(in);
+
+        assertNotEquals(a1.flowId(), b1.flowId());
+        // 同一来源地址复用流id
+        assertEquals(a1.flowId(), a2.flowId());
+        assertEquals("a2", new String(a2.payload(), StandardCharsets.US_ASCII));
+        assertEquals(2, relay.getStats().getFlows());
+
+        // 回程按流id发给各自的来源地址
+        OutputStream out = tunnel.getOutputStream();
+        out.write(frame(b1.flowId(), text("to-b")));
+        out.write(frame(a1.flowId(), text("to-a")));
+        out.flush();
+        assertEquals("to-b", new String(receive(b), StandardCharsets.US_ASCII));
+        assertEquals("to-a", new String(receive(a), StandardCharsets.US_ASCII));
+
+        a.setSoTimeout(200);
+        b.setSoTimeout(200);
+        assertThrows(SocketTimeoutException.class, () -> receive(a));
+        assertThrows(SocketTimeoutException.class, () -> receive(b));
+    }
+
+    @Test
+    void unknownFlowIdDropped() throws Exception {
+        start(MAX_FLOWS);
+        Socket tunnel = tunnel();
+        DatagramSocket peer = peer();
+        send(peer, text("hello"));
+        readFrame(new DataInputStream(tunnel.getInputStream()));
+
+        tunnel.getOutputStream().write(frame(42, text("nobody")));
+        tunnel.getOutputStream().flush();
+        awaitTrue(() -> relay.getStats().getDropped() == 1);
+        assertEquals(0, relay.getStats().getDatagramsOut());
+    }
+
+    @Test
+    void flowsBeyondMaxDropped() throws Exception {
+        start(1);
+        Socket tunnel = tunnel();
+        DataInputStream in = new DataInputStream(tunnel.getInputStream());
+        DatagramSocket a = peer();
+        DatagramSocket b = peer();
+
+        send(a, text("a1"));
+        assertEquals(0, readFrame(in).flowId());
+        send(b, text("b1"));
+        awaitTrue(() -> relay.getStats().getDropped() == 1);
+
+        // 已有流不受影响
+        send(a, text("a2"));
+        assertEquals("a2", new String(readFrame(in).payload(), StandardCharsets.US_ASCII));
+        assertEquals(1, relay.getStats().getFlows());
+    }
+
+    @Test
+    void idleFlowsExpire() throws Exception {
+        start(MAX_FLOWS);
+        Socket tunnel = tunnel();
+        DataInputStream in = new DataInputStream(tunnel.getInputStream());
+        DatagramSocket peer = peer();
+        send(peer, text("first"));
+        Frame first = readFrame(in);
+
+        // 未到空闲时间的流保留
+        relay.expire(60_000);
+        assertEquals(1, relay.getStats().getFlows());
+        assertEquals(0, relay.getStats().getExpired());
+
+        TimeUnit.MILLISECONDS.sleep(50);
+        relay.expire(10);
+        Frame closed = readFrame(in);
+        assertEquals(first.flowId(), closed.flowId());
+        assertNull(closed.payload());
+        assertEquals(0, relay.getStats().getFlows());
+        assertEquals(1, relay.getStats().getExpired());
+
+        // 过期后同一来源地址分配新的流
+        send(peer, text("again"));
+        Frame again = readFrame(in);
+        assertNotEquals(first.flowId(), again.flowId());
+        assertEquals("again", new String(again.payload(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void datagramsWithoutTunnelDropped() throws Exception {
+        start(MAX_FLOWS);
+        DatagramSocket peer = peer();
+
+        send(peer, text("lost"));
+        awaitTrue(() -> relay.getStats().getDropped() == 1);
+        assertFalse(relay.getStats().getTunnelAttached());
+
+        // 隧道接入后恢复转发
+        Socket tunnel = tunnel();
+        send(peer, text("kept"));
+        assertEquals("kept", new String(readFrame(new DataInputStream(tunnel.getInputStream())).payload(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void newTunnelReplacesOld() throws Exception {
+        start(MAX_FLOWS);
+        Socket old = tunnel();
+        Socket current = tunnel();
+
+        // 旧隧道被关闭
+        assertEquals(-1, old.getInputStream().read());
+        DatagramSocket peer = peer();
+        send(peer, text("hello"));
+        assertEquals("hello", new String(readFrame(new DataInputStream(current.getInputStream())).payload(), StandardCharsets.US_ASCII));
+    }
+
+    private void start(int maxFlows) throws IOException {
+        int port;
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        relay = new UdpRelay("s", port, maxFlows, 64 * 1024, 0);
+        relay.start();
+        relayAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    // 返回隧道的被代理端点一侧，注册回复已读掉
+    private Socket tunnel() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            Socket accepted = server.accept();
+            sockets.add(client);
+            sockets.add(accepted);
+            client.setSoTimeout(2000);
+            relay.attach(accepted, REPLY);
+
+            byte[] reply = new byte[REPLY.length];
+            new DataInputStream(client.getInputStream()).readFully(reply);
+            assertArrayEquals(REPLY, reply);
+            return client;
+        }
+    }
+
+    private DatagramSocket peer() throws IOException {
+        DatagramSocket peer = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        peer.setSoTimeout(2000);
+        peers.add(peer);
+        return peer;
+    }
+
+    private void send(DatagramSocket peer, byte[] bytes) throws IOException {
+        peer.send(new DatagramPacket(bytes, bytes.length, relayAddress));
+    }
+
+    private static byte[] receive(DatagramSocket peer) throws IOException {
+        DatagramPacket packet = new DatagramPacket(new byte[0xFFFF], 0xFFFF);
+        peer.receive(packet);
+        return Arrays.copyOf(packet.getData(), packet.getLength());
+    }
+
+    // 关闭通知的payload为null
+    private static Frame readFrame(DataInputStream in) throws IOException {
+        int flowId = in.readInt();
+        int length = in.readUnsignedShort();
+        if (length == DatagramFrames.CLOSED) return new Frame(flowId, null);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(flowId, payload);
+    }
+
+    private static byte[] frame(int flowId, byte[] payload) {
+        byte[] bytes = new byte[DatagramFrames.HEADER_BYTES + payload.length];
+        DatagramFrames.putHeader(bytes, 0, flowId, payload.length);
+        System.arraycopy(payload, 0, bytes, DatagramFrames.HEADER_BYTES, payload.length);
+        return bytes;
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (i * (seed + 7) + seed);
+        }
+        return bytes;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met");
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private record Frame(int flowId, byte[] payload) {}
+}
@@ -0,0 +1,236 @@
+package com.fate.nat_traversal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author fate
+ * @date 2026/10/19 20:30
+ */
+class HostSnifferTest {
+
+    private static final int MAX_PEEK = 8192;
+
+    @Test
+    void httpHostWithPort() {
+        byte[] request = "GET / HTTP/1.1\r\nUser-Agent: test\r\nHost: WWW.Example.com:8080\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals("www.example.com", HostSniffer.sniff(request, request.length));
+    }
+
+    @Test
+    void httpIpv6Host() {
+        byte[] request = "GET / HTTP/1.1\r\nHost: [::1]:8080\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals("::1", HostSniffer.sniff(request, request.length));
+    }
+
+    @Test
+    void httpWithoutHostIsUnknown() {
+        byte[] request = "GET / HTTP/1.0\r\nAccept: */*\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(HostSniffer.UNKNOWN, HostSniffer.sniff(request, request.length));
+    }
+
+    @Test
+    void httpTruncatedHeadersNeedMore() {
+        byte[] request = "GET / HTTP/1.1\r\nHost: example.com\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertNull(HostSniffer.sniff(request, request.length));
+        assertNull(HostSniffer.sniff(request, 3));
+    }
+
+    @Test
+    void tlsSni() {
+        byte[] hello = records(clientHello("Secure.Example.com.", 0), Integer.MAX_VALUE);
+
+        assertEquals("secure.example.com", HostSniffer.sniff(hello, hello.length));
+        assertEquals(0, HostSniffer.expected(hello, hello.length));
+    }
+
+    @Test
+    void tlsWithoutSniIsUnknown() {
+        byte[] hello = records(clientHello(null, 0), Integer.MAX_VALUE);
+
+        assertEquals(HostSniffer.UNKNOWN, HostSniffer.sniff(hello, hello.length));
+    }
+
+    @Test
+    void tlsTruncatedNeedsMore() {
+        byte[] hello = records(clientHello("secure.example.com", 0), Integer.MAX_VALUE);
+
+        for (int length = 1; length < hello.length; ++length) {
+            assertNull(HostSniffer.sniff(hello, length), "length " + length);
+        }
+        assertEquals(hello.length, HostSniffer.expected(hello, 40));
+    }
+
+    @Test
+    void tlsHelloSplitAcrossRecords() {
+        byte[] hello = records(clientHello("split.example.com", 0), 30);
+
+        assertEquals("split.example.com", HostSniffer.sniff(hello, hello.length));
+        assertNull(HostSniffer.sniff(hello, hello.length - 1));
+    }
+
+    @Test
+    void tlsHandshakeHeaderSplitAcrossRecords() {
+        byte[] hello = records(clientHello("tiny.example.com", 0), 2);
+
+        assertEquals("tiny.example.com", HostSniffer.sniff(hello, hello.length));
+    }
+
+    @Test
+    void tlsHelloLargerThanPeekBuffer() {
+        // 大尺寸密钥共享使ClientHello超出预读缓冲
+        byte[] hello = records(clientHello("pq.example.com", 12000), 16384);
+        assertTrue(hello.length > MAX_PEEK);
+
+        byte[] peek = Arrays.copyOf(hello, MAX_PEEK);
+        assertNull(HostSniffer.sniff(peek, peek.length));
+        int expected = HostSniffer.expected(peek, peek.length);
+        assertTrue(expected > MAX_PEEK && expected <= hello.length);
+
+        byte[] grown = Arrays.copyOf(hello, expected);
+        while (HostSniffer.sniff(grown, grown.length) == null) {
+            expected = HostSniffer.expected(grown, grown.length);
+            assertTrue(expected > grown.length && expected <= hello.length);
+            grown = Arrays.copyOf(hello, expected);
+        }
+        assertEquals("pq.example.com", HostSniffer.sniff(grown, grown.length));
+    }
+
+    @Test
+    void tlsHelloBeyondBoundIsUnknown() {
+        byte[] header = {0x16, 0x03, 0x01, 0x00, 0x04, 0x01, 0x7F, (byte) 0xFF, (byte) 0xFF};
+
+        assertEquals(HostSniffer.UNKNOWN, HostSniffer.sniff(header, header.length));
+        assertEquals(0, HostSniffer.expected(header, header.length));
+    }
+
+    @Test
+    void tlsNonHandshakeRecordIsUnknown() {
+        byte[] hello = records(clientHello("split.example.com", 0), 20);
+        hello[25] = 0x17;
+
+        assertEquals(HostSniffer.UNKNOWN, HostSniffer.sniff(hello, hello.length));
+    }
+
+    @Test
+    void minecraftHandshake() {
+        byte[] handshake = handshake("Play.Example.com\0FML\0");
+
+        assertEquals("play.example.com", HostSniffer.sniff(handshake, handshake.length));
+    }
+
+    @Test
+    void minecraftTruncatedNeedsMore() {
+        byte[] handshake = handshake("play.example.com");
+
+        for (int length = 1; length < handshake.length; ++length) {
+            assertNull(HostSniffer.sniff(handshake, length), "length " + length);
+        }
+    }
+
+    @Test
+    void minecraftOversizedIsUnknown() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(varInt(4096));
+        out.write(0);
+        byte[] data = out.toByteArray();
+
+        assertEquals(HostSniffer.UNKNOWN, HostSniffer.sniff(data, data.length));
+    }
+
+    @Test
+    void emptyInputNeedsMore() {
+        assertNull(HostSniffer.sniff(new byte[16], 0));
+        assertEquals(0, HostSniffer.expected(new byte[16], 0));
+    }
+
+    // 握手消息：ClientHello，可选SNI与填充扩展
+    private static byte[] clientHello(String host, int padding) {
+        ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+        if (host != null) {
+            byte[] name = host.getBytes(StandardCharsets.US_ASCII);
+            writeUint16(extensions, 0x0000);
+            writeUint16(extensions, name.length + 5);
+            writeUint16(extensions, name.length + 3);
+            extensions.write(0);
+            writeUint16(extensions, name.length);
+            extensions.writeBytes(name);
+        }
+        if (padding > 0) {
+            writeUint16(extensions, 0x0015);
+            writeUint16(extensions, padding);
+            extensions.writeBytes(new byte[padding]);
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeUint16(body, 0x0303);
+        body.writeBytes(new byte[32]);
+        body.write(0);
+        writeUint16(body, 2);
+        writeUint16(body, 0x1301);
+        body.write(1);
+        body.write(0);
+        writeUint16(body, extensions.size());
+        body.writeBytes(extensions.toByteArray());
+
+        ByteArrayOutputStream handshake = new ByteArrayOutputStream();
+        handshake.write(0x01);
+        handshake.write(body.size() >>> 16);
+        writeUint16(handshake, body.size() & 0xFFFF);
+        handshake.writeBytes(body.toByteArray());
+        return handshake.toByteArray();
+    }
+
+    // 按记录载荷上限拆分为多条握手记录
+    private static byte[] records(byte[] handshake, int fragment) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int from = 0; from < handshake.length; from += fragment) {
+            int to = (int) Math.min(handshake.length, (long) from + fragment);
+            out.write(0x16);
+            writeUint16(out, 0x0301);
+            writeUint16(out, to - from);
+            out.write(handshake, from, to - from);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] handshake(String address) {
+        byte[] name = address.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        packet.writeBytes(varInt(0x00));
+        packet.writeBytes(varInt(767));
+        packet.writeBytes(varInt(name.length));
+        packet.writeBytes(name);
+        writeUint16(packet, 25565);
+        packet.writeBytes(varInt(2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(varInt(packet.size()));
+        out.writeBytes(packet.toByteArray());
+        return out.toByteArray();
+    }
+
+    private static byte[] varInt(int value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        do {
+            int b = value & 0x7F;
+            value >>>= 7;
+            out.write(value != 0 ? b | 0x80 : b);
+        } while (value != 0);
+        return out.toByteArray();
+    }
+
+    private static void writeUint16(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}